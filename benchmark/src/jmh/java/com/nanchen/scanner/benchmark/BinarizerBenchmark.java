@@ -0,0 +1,64 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of turning one preview frame into a {@link BitMatrix}. With {@code recycle} the binarizer of
+ * the previous frame hands its buffers over, as the decode strategies do on a live preview.
+ * {@code legacyGlobal} is the per-pixel global histogram matrix from before, see
+ * {@link LegacyGlobalHistogramBinarizer}; it has no buffers to recycle.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class BinarizerBenchmark {
+
+    @Param({"global", "legacyGlobal", "hybrid"})
+    public String binarizer;
+
+    @Param({"640x480", "1280x720", "1920x1080"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean recycle;
+
+    private LuminanceSource source;
+    private Binarizer previous;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Corpus.parseSize(size);
+        source = Corpus.synthetic(BarcodeFormat.QR_CODE, dimensions[0], dimensions[1], 1L).luminanceSource();
+    }
+
+    @Benchmark
+    public BitMatrix blackMatrix() throws NotFoundException {
+        Binarizer current;
+        if ("hybrid".equals(binarizer)) {
+            current = new HybridBinarizer(source, recycle ? (HybridBinarizer) previous : null);
+        } else if ("legacyGlobal".equals(binarizer)) {
+            current = new LegacyGlobalHistogramBinarizer(source);
+        } else {
+            current = new GlobalHistogramBinarizer(source, recycle ? (GlobalHistogramBinarizer) previous : null);
+        }
+        previous = current;
+        return current.getBlackMatrix();
+    }
+
+}
@@ -0,0 +1,207 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.nanchen.scanner.replay.RecordedFrames;
+import com.nanchen.scanner.zxing.camera.YuvFrameReader;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Frames the benchmarks decode. Synthetic frames are rendered from the writers into the Y plane of
+ * an NV21 buffer, with some sensor noise, so they go through the same luminance source as camera
+ * frames. Recorded frames are raw NV21 dumps from a device, taken from the directory named by the
+ * {@value #CORPUS_PROPERTY} system property.
+ *
+ * <p>Recorded files are named as described in {@link RecordedFrames}.</p>
+ */
+final class Corpus {
+
+    static final String CORPUS_PROPERTY = "benchmark.corpus";
+
+    private static final int BLACK = 40;
+    private static final int WHITE = 200;
+    // Keeps the noise range of flat areas below the minimum dynamic range of HybridBinarizer, as on
+    // a real sensor, so they are not binarized into speckles.
+    private static final int NOISE = 8;
+
+    private Corpus() {
+    }
+
+    /**
+     * A decodable sample for every format the benchmarks cover.
+     */
+    static String contents(BarcodeFormat format) {
+        switch (format) {
+            case EAN_13:
+                return "690123456789";
+            case CODE_128:
+                return "AIYA-0123456789";
+            case PDF_417:
+                return "AiYaScanner PDF417 benchmark sample 0123456789";
+            default:
+                return "https://github.com/nanchen2251/AiYaScanner";
+        }
+    }
+
+    /**
+     * Renders a barcode onto a light background in the middle of a frame.
+     */
+    static Frame synthetic(BarcodeFormat format, int width, int height, long seed) {
+        int size = Math.min(width, height) * 3 / 5;
+        boolean linear = format == BarcodeFormat.EAN_13 || format == BarcodeFormat.CODE_128;
+        BitMatrix code;
+        try {
+            code = new MultiFormatWriter().encode(contents(format), format,
+                    linear ? size * 3 / 2 : size, linear ? size / 3 : size);
+        } catch (WriterException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] yuv = new byte[width * height * 3 / 2];
+        Random random = new Random(seed);
+        int left = (width - code.getWidth()) / 2;
+        int top = (height - code.getHeight()) / 2;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int codeX = x - left;
+                int codeY = y - top;
+                boolean black = codeX >= 0 && codeY >= 0 && codeX < code.getWidth() && codeY < code.getHeight() &&
+                        code.get(codeX, codeY);
+                int luminance = (black ? BLACK : WHITE) + random.nextInt(2 * NOISE + 1) - NOISE;
+                yuv[y * width + x] = (byte) luminance;
+            }
+        }
+        // Neutral chroma, like a grey scene.
+        Arrays.fill(yuv, width * height, yuv.length, (byte) 128);
+        return new Frame(format.name(), yuv, width, height);
+    }
+
+    /**
+     * A frame of the light background alone, like the preview while the camera is being aimed.
+     */
+    static Frame empty(int width, int height, long seed) {
+        byte[] yuv = new byte[width * height * 3 / 2];
+        Random random = new Random(seed);
+        for (int i = 0; i < width * height; i++) {
+            yuv[i] = (byte) (WHITE + random.nextInt(2 * NOISE + 1) - NOISE);
+        }
+        Arrays.fill(yuv, width * height, yuv.length, (byte) 128);
+        return new Frame("empty", yuv, width, height);
+    }
+
+    /**
+     * Renders a sheet of labels, like a photo of a pallet: a grid of {@code columns} by {@code rows}
+     * cells of {@code cell} pixels, each holding a barcode with contents of its own, see
+     * {@link #labelContents(int)}.
+     */
+    static Frame sheet(BarcodeFormat format, int columns, int rows, int cell, long seed) {
+        int width = columns * cell;
+        int height = rows * cell;
+        boolean linear = format == BarcodeFormat.EAN_13 || format == BarcodeFormat.CODE_128;
+        byte[] yuv = new byte[width * height * 3 / 2];
+        Arrays.fill(yuv, 0, width * height, (byte) WHITE);
+        for (int label = 0; label < columns * rows; label++) {
+            BitMatrix code;
+            try {
+                code = new MultiFormatWriter().encode(labelContents(label), format,
+                        linear ? cell * 9 / 10 : cell * 3 / 5, linear ? cell / 3 : cell * 3 / 5);
+            } catch (WriterException e) {
+                throw new IllegalStateException(e);
+            }
+            int left = (label % columns) * cell + (cell - code.getWidth()) / 2;
+            int top = (label / columns) * cell + (cell - code.getHeight()) / 2;
+            for (int y = 0; y < code.getHeight(); y++) {
+                for (int x = 0; x < code.getWidth(); x++) {
+                    if (code.get(x, y)) {
+                        yuv[(top + y) * width + left + x] = (byte) BLACK;
+                    }
+                }
+            }
+        }
+        Random random = new Random(seed);
+        for (int i = 0; i < width * height; i++) {
+            yuv[i] = (byte) ((yuv[i] & 0xFF) + random.nextInt(2 * NOISE + 1) - NOISE);
+        }
+        Arrays.fill(yuv, width * height, yuv.length, (byte) 128);
+        return new Frame(format.name() + "-sheet", yuv, width, height);
+    }
+
+    /**
+     * Contents of the label at an index of a {@link #sheet}.
+     */
+    static String labelContents(int label) {
+        return "AIYA-" + (10000 + label);
+    }
+
+    /**
+     * @return the recorded frames, or an empty list if no corpus directory was given
+     */
+    static List<Frame> recorded() throws IOException {
+        List<Frame> frames = new ArrayList<>();
+        String directory = System.getProperty(CORPUS_PROPERTY);
+        if (directory == null) {
+            return frames;
+        }
+        File root = new File(directory);
+        if (!root.isDirectory()) {
+            throw new IOException("Not a directory: " + directory);
+        }
+        for (File file : RecordedFrames.list(root)) {
+            int[] size = RecordedFrames.sizeOf(file);
+            int width = size[0];
+            int height = size[1];
+            int frameSize = YuvFrameReader.frameSize(width, height);
+            long count = file.length() / frameSize;
+            DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                for (long i = 0; i < count; i++) {
+                    byte[] yuv = new byte[frameSize];
+                    in.readFully(yuv);
+                    frames.add(new Frame(file.getName() + "#" + i, yuv, width, height));
+                }
+            } finally {
+                in.close();
+            }
+        }
+        return frames;
+    }
+
+    /**
+     * Parses a {@code <width>x<height>} benchmark parameter.
+     */
+    static int[] parseSize(String size) {
+        int separator = size.indexOf('x');
+        return new int[]{Integer.parseInt(size.substring(0, separator)), Integer.parseInt(size.substring(separator + 1))};
+    }
+
+    static final class Frame {
+
+        final String name;
+        final byte[] yuv;
+        final int width;
+        final int height;
+
+        Frame(String name, byte[] yuv, int width, int height) {
+            this.name = name;
+            this.yuv = yuv;
+            this.width = width;
+            this.height = height;
+        }
+
+        PlanarYUVLuminanceSource luminanceSource() {
+            return new PlanarYUVLuminanceSource(yuv, width, height, 0, 0, width, height, false);
+        }
+
+    }
+
+}
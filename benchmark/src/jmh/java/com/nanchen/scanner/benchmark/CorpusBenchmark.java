@@ -0,0 +1,67 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Replays the recorded frames through {@link MultiFormatReader} one after another, like a preview
+ * stream, counting frames without a barcode as well. Without a recorded corpus it cycles through a
+ * synthetic frame of each format.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CorpusBenchmark {
+
+    private static final BarcodeFormat[] SYNTHETIC_FORMATS = {
+            BarcodeFormat.QR_CODE, BarcodeFormat.DATA_MATRIX, BarcodeFormat.PDF_417,
+            BarcodeFormat.CODE_128, BarcodeFormat.EAN_13
+    };
+
+    private Corpus.Frame[] frames;
+    private MultiFormatReader reader;
+    private int next;
+
+    @Setup
+    public void setUp() throws IOException {
+        List<Corpus.Frame> recorded = Corpus.recorded();
+        if (recorded.isEmpty()) {
+            frames = new Corpus.Frame[SYNTHETIC_FORMATS.length];
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = Corpus.synthetic(SYNTHETIC_FORMATS[i], 1280, 720, i);
+            }
+        } else {
+            frames = recorded.toArray(new Corpus.Frame[recorded.size()]);
+        }
+        reader = new MultiFormatReader();
+        reader.setHints(null);
+    }
+
+    @Benchmark
+    public Result decodeNextFrame() {
+        Corpus.Frame frame = frames[next];
+        next = (next + 1) % frames.length;
+        try {
+            return reader.decodeWithState(new BinaryBitmap(new HybridBinarizer(frame.luminanceSource())));
+        } catch (ReaderException re) {
+            return null;
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.AffineGridSampler;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.DefaultGridSampler;
+import com.google.zxing.common.GridSampler;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.common.PerspectiveTransform;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of sampling a version 10 QR Code grid out of a binarized preview frame, with the code held
+ * square on to the camera or tilted away from it.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class GridSamplerBenchmark {
+
+    private static final int DIMENSION = 57;
+
+    @Param({"default", "affine"})
+    public String sampler;
+
+    @Param({"square", "tilted"})
+    public String view;
+
+    private GridSampler gridSampler;
+    private BitMatrix image;
+    private PerspectiveTransform transform;
+
+    @Setup
+    public void setUp() throws NotFoundException {
+        gridSampler = "affine".equals(sampler) ? new AffineGridSampler() : new DefaultGridSampler();
+        image = new HybridBinarizer(Corpus.synthetic(BarcodeFormat.QR_CODE, 1280, 720, 1L).luminanceSource())
+                .getBlackMatrix();
+        float left = 1280 / 2 - 250;
+        float top = 720 / 2 - 250;
+        float right = left + 500;
+        float bottom = top + 500;
+        // Tilted away at the top, so the top edge looks a tenth shorter than the bottom one
+        float inset = "tilted".equals(view) ? 25 : 0;
+        transform = PerspectiveTransform.quadrilateralToQuadrilateral(
+                0, 0, DIMENSION, 0, DIMENSION, DIMENSION, 0, DIMENSION,
+                left + inset, top, right - inset, top, right, bottom, left, bottom);
+    }
+
+    @Benchmark
+    public BitMatrix sampleGrid() throws NotFoundException {
+        return gridSampler.sampleGrid(image, DIMENSION, DIMENSION, transform);
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+/**
+ * {@link GlobalHistogramBinarizer#getBlackMatrix()} as it was before it thresholded whole words:
+ * the black point comes from the same four sampled rows, then the whole image is copied out of the
+ * source and every dark pixel is set in the matrix on its own. Kept so {@link BinarizerBenchmark}
+ * can measure the two side by side; rows are left to the current binarizer.
+ */
+final class LegacyGlobalHistogramBinarizer extends Binarizer {
+
+    private static final int LUMINANCE_BITS = 5;
+    private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
+    private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
+
+    LegacyGlobalHistogramBinarizer(LuminanceSource source) {
+        super(source);
+    }
+
+    @Override
+    public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+        return new GlobalHistogramBinarizer(getLuminanceSource()).getBlackRow(y, row);
+    }
+
+    @Override
+    public BitMatrix getBlackMatrix() throws NotFoundException {
+        LuminanceSource source = getLuminanceSource();
+        int width = source.getWidth();
+        int height = source.getHeight();
+        BitMatrix matrix = new BitMatrix(width, height);
+
+        int[] buckets = new int[LUMINANCE_BUCKETS];
+        byte[] luminances = new byte[width];
+        for (int y = 1; y < 5; y++) {
+            int row = height * y / 5;
+            byte[] localLuminances = source.getRow(row, luminances);
+            int right = (width * 4) / 5;
+            for (int x = width / 5; x < right; x++) {
+                int pixel = localLuminances[x] & 0xff;
+                buckets[pixel >> LUMINANCE_SHIFT]++;
+            }
+        }
+        int blackPoint = estimateBlackPoint(buckets);
+
+        byte[] localLuminances = source.getMatrix();
+        for (int y = 0; y < height; y++) {
+            int offset = y * width;
+            for (int x = 0; x < width; x++) {
+                int pixel = localLuminances[offset + x] & 0xff;
+                if (pixel < blackPoint) {
+                    matrix.set(x, y);
+                }
+            }
+        }
+        return matrix;
+    }
+
+    @Override
+    public Binarizer createBinarizer(LuminanceSource source) {
+        return new LegacyGlobalHistogramBinarizer(source);
+    }
+
+    private static int estimateBlackPoint(int[] buckets) throws NotFoundException {
+        int numBuckets = buckets.length;
+        int maxBucketCount = 0;
+        int firstPeak = 0;
+        int firstPeakSize = 0;
+        for (int x = 0; x < numBuckets; x++) {
+            if (buckets[x] > firstPeakSize) {
+                firstPeak = x;
+                firstPeakSize = buckets[x];
+            }
+            if (buckets[x] > maxBucketCount) {
+                maxBucketCount = buckets[x];
+            }
+        }
+
+        int secondPeak = 0;
+        int secondPeakScore = 0;
+        for (int x = 0; x < numBuckets; x++) {
+            int distanceToBiggest = x - firstPeak;
+            int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+            if (score > secondPeakScore) {
+                secondPeak = x;
+                secondPeakScore = score;
+            }
+        }
+
+        if (firstPeak > secondPeak) {
+            int temp = firstPeak;
+            firstPeak = secondPeak;
+            secondPeak = temp;
+        }
+        if (secondPeak - firstPeak <= numBuckets / 16) {
+            throw NotFoundException.getNotFoundInstance();
+        }
+
+        int bestValley = secondPeak - 1;
+        int bestValleyScore = -1;
+        for (int x = secondPeak - 1; x > firstPeak; x--) {
+            int fromFirst = x - firstPeak;
+            int score = fromFirst * fromFirst * (secondPeak - x) * (maxBucketCount - buckets[x]);
+            if (score > bestValleyScore) {
+                bestValley = x;
+                bestValleyScore = score;
+            }
+        }
+        return bestValley << LUMINANCE_SHIFT;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.MultipleBarcodeReader;
+import com.google.zxing.multi.ParallelMultipleBarcodeReader;
+import com.google.zxing.multi.qrcode.QRCodeMultiReader;
+import com.google.zxing.oned.Code128Reader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decoding every label on a sheet of 30, like a pallet photo, one part of the image or one
+ * detected code after another, or on a pool with a thread per core. Code 128 labels go through the
+ * generic reader that cuts the image up around each barcode found, QR Codes through the QR Code
+ * reader that detects all of them up front.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MultipleBarcodeBenchmark {
+
+    private static final int COLUMNS = 6;
+    private static final int ROWS = 5;
+    private static final int CELL = 300;
+
+    @Param({"CODE_128", "QR_CODE"})
+    public BarcodeFormat format;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ExecutorService executor;
+    private BinaryBitmap image;
+    private MultipleBarcodeReader reader;
+
+    @Setup
+    public void setUp() throws NotFoundException {
+        image = new BinaryBitmap(new HybridBinarizer(
+                Corpus.sheet(format, COLUMNS, ROWS, CELL, 1L).luminanceSource()));
+        image.getBlackMatrix();
+        executor = parallel ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : null;
+        if (format == BarcodeFormat.QR_CODE) {
+            reader = new QRCodeMultiReader(executor);
+        } else if (parallel) {
+            reader = new ParallelMultipleBarcodeReader(new ParallelMultipleBarcodeReader.ReaderFactory() {
+                @Override
+                public Reader newReader() {
+                    return new Code128Reader();
+                }
+            }, executor);
+        } else {
+            reader = new GenericMultipleBarcodeReader(new Code128Reader());
+        }
+        if (decode().length == 0) {
+            throw new IllegalStateException("Decoded no labels");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Result[] decode() throws NotFoundException {
+        return reader.decodeMultiple(image);
+    }
+
+}
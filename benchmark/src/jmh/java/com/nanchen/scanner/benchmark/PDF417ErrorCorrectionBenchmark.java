@@ -0,0 +1,110 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.ChecksumException;
+import com.google.zxing.pdf417.decoder.ec.ErrorCorrection;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * PDF417 error correction of the largest symbol, 928 codewords, at error correction levels 2, 5
+ * and 8, that is 8, 64 and 512 error correction codewords. {@code errors} corrupts no codeword,
+ * one, or as many as can be corrected.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PDF417ErrorCorrectionBenchmark {
+
+    private static final int MODULUS = 929;
+    private static final int SYMBOL_CODEWORDS = 928;
+
+    @Param({"2", "5", "8"})
+    public int ecLevel;
+
+    @Param({"none", "one", "max"})
+    public String errors;
+
+    private int ecCodewords;
+    private ErrorCorrection errorCorrection;
+    private int[] message;
+    private int[] received;
+    private int[] work;
+
+    @Setup
+    public void setUp() throws ChecksumException {
+        ecCodewords = 2 << ecLevel;
+        errorCorrection = new ErrorCorrection();
+        Random random = new Random(7L);
+        message = new int[SYMBOL_CODEWORDS];
+        for (int i = 0; i < SYMBOL_CODEWORDS - ecCodewords; i++) {
+            message[i] = random.nextInt(900);
+        }
+        encode(message, ecCodewords);
+
+        int errorCount = "none".equals(errors) ? 0 : "one".equals(errors) ? 1 : ecCodewords / 2;
+        received = message.clone();
+        for (int i = 0; i < errorCount; i++) {
+            // Distinct positions, each changed to a different value.
+            int position = i * 7 % received.length;
+            received[position] = (received[position] + 1 + random.nextInt(MODULUS - 1)) % MODULUS;
+        }
+        work = new int[received.length];
+        if (correct() != errorCount) {
+            throw new IllegalStateException("Errors were not corrected");
+        }
+        for (int i = 0; i < message.length; i++) {
+            if (work[i] != message[i]) {
+                throw new IllegalStateException("Errors were not corrected");
+            }
+        }
+    }
+
+    @Benchmark
+    public int correct() throws ChecksumException {
+        System.arraycopy(received, 0, work, 0, received.length);
+        return errorCorrection.decode(work, ecCodewords, null);
+    }
+
+    /**
+     * Fills in the last {@code ecCodewords} of a message as the remainder of the data, times
+     * x^ecCodewords, divided by the generator with roots 3^1 to 3^ecCodewords, negated. The
+     * encoder's own implementation is not public.
+     */
+    private static void encode(int[] codewords, int ecCodewords) {
+        int[] generator = new int[ecCodewords + 1];
+        generator[0] = 1;
+        int root = 1;
+        for (int i = 1; i <= ecCodewords; i++) {
+            root = root * 3 % MODULUS;
+            // generator *= (x - root), highest degree coefficient first
+            for (int j = i; j > 0; j--) {
+                generator[j] = (generator[j] + MODULUS - generator[j - 1] * root % MODULUS) % MODULUS;
+            }
+        }
+        int dataCodewords = codewords.length - ecCodewords;
+        int[] remainder = new int[codewords.length];
+        System.arraycopy(codewords, 0, remainder, 0, dataCodewords);
+        for (int i = 0; i < dataCodewords; i++) {
+            int scale = remainder[i];
+            if (scale != 0) {
+                for (int j = 1; j <= ecCodewords; j++) {
+                    remainder[i + j] = (remainder[i + j] + MODULUS - scale * generator[j] % MODULUS) % MODULUS;
+                }
+            }
+        }
+        for (int i = dataCodewords; i < codewords.length; i++) {
+            codewords[i] = (MODULUS - remainder[i]) % MODULUS;
+        }
+    }
+
+}
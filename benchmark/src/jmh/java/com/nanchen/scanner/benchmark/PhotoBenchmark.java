@@ -0,0 +1,69 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decoding a QR code in a gallery photo, the way {@code QRUtils.decodeQRcodeByZxing} does, with the
+ * finder pattern rows scanned on the calling thread or on a pool with a thread per core. The image
+ * is binarized once up front, so only detection and decoding are timed.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PhotoBenchmark {
+
+    @Param({"4000x3000"})
+    public String size;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ExecutorService executor;
+    private BinaryBitmap image;
+    private QRCodeReader reader;
+
+    @Setup
+    public void setUp() throws ReaderException {
+        int[] dimensions = Corpus.parseSize(size);
+        image = new BinaryBitmap(new GlobalHistogramBinarizer(
+                Corpus.synthetic(BarcodeFormat.QR_CODE, dimensions[0], dimensions[1], 1L).luminanceSource()));
+        image.getBlackMatrix();
+        executor = parallel ? Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors()) : null;
+        reader = new QRCodeReader(executor);
+        if (!decode().getText().equals(Corpus.contents(BarcodeFormat.QR_CODE))) {
+            throw new IllegalStateException("Decoded the wrong contents");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Result decode() throws ReaderException {
+        return reader.decode(image);
+    }
+
+}
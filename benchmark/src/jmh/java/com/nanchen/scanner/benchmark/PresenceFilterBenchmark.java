@@ -0,0 +1,74 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.nanchen.scanner.zxing.BarcodePresenceFilter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+
+/**
+ * Cost of scoring a frame with the {@link BarcodePresenceFilter}, next to the full decode it saves
+ * on frames without a code, with the hints of {@code DecodeHandler}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PresenceFilterBenchmark {
+
+    @Param({"empty", "QR_CODE"})
+    public String frame;
+
+    @Param({"640x480", "1280x720"})
+    public String size;
+
+    private LuminanceSource source;
+    private BarcodePresenceFilter filter;
+    private MultiFormatReader reader;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Corpus.parseSize(size);
+        Corpus.Frame corpusFrame = "empty".equals(frame) ?
+                Corpus.empty(dimensions[0], dimensions[1], 1L) :
+                Corpus.synthetic(BarcodeFormat.valueOf(frame), dimensions[0], dimensions[1], 1L);
+        source = corpusFrame.luminanceSource();
+        filter = new BarcodePresenceFilter();
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.QR_CODE));
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        reader = new MultiFormatReader();
+        reader.setHints(hints);
+    }
+
+    @Benchmark
+    public float score() {
+        return filter.score(source);
+    }
+
+    @Benchmark
+    public Result decode() {
+        try {
+            return reader.decodeWithStateOrNull(new BinaryBitmap(new HybridBinarizer(source)));
+        } finally {
+            reader.reset();
+        }
+    }
+
+}
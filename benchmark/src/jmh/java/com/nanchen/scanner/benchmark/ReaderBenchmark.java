@@ -0,0 +1,95 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.datamatrix.DataMatrixReader;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.pdf417.PDF417Reader;
+import com.google.zxing.qrcode.QRCodeReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Full decode of one synthetic frame, binarization included, once with the reader dedicated to the
+ * format and once through {@link MultiFormatReader} looking for every format.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReaderBenchmark {
+
+    @Param({"QR_CODE", "DATA_MATRIX", "PDF_417", "CODE_128", "EAN_13"})
+    public BarcodeFormat format;
+
+    @Param({"1280x720"})
+    public String size;
+
+    private LuminanceSource source;
+    private Reader formatReader;
+    private Map<DecodeHintType, Object> hints;
+    private MultiFormatReader multiFormatReader;
+
+    @Setup
+    public void setUp() throws ReaderException {
+        int[] dimensions = Corpus.parseSize(size);
+        source = Corpus.synthetic(format, dimensions[0], dimensions[1], 1L).luminanceSource();
+        hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, Collections.singletonList(format));
+        switch (format) {
+            case QR_CODE:
+                formatReader = new QRCodeReader();
+                break;
+            case DATA_MATRIX:
+                formatReader = new DataMatrixReader();
+                break;
+            case PDF_417:
+                formatReader = new PDF417Reader();
+                break;
+            default:
+                formatReader = new MultiFormatOneDReader(hints);
+                break;
+        }
+        multiFormatReader = new MultiFormatReader();
+        multiFormatReader.setHints(null);
+
+        // Fail fast on a corpus the readers cannot decode, rather than timing exceptions.
+        String expected = Corpus.contents(format);
+        if (!formatReader().getText().startsWith(expected) || !multiFormatReader().getText().startsWith(expected)) {
+            throw new IllegalStateException("Decoded the wrong contents for " + format);
+        }
+    }
+
+    @Benchmark
+    public Result formatReader() throws ReaderException {
+        try {
+            return formatReader.decode(new BinaryBitmap(new HybridBinarizer(source)), hints);
+        } finally {
+            formatReader.reset();
+        }
+    }
+
+    @Benchmark
+    public Result multiFormatReader() throws ReaderException {
+        return multiFormatReader.decodeWithState(new BinaryBitmap(new HybridBinarizer(source)));
+    }
+
+}
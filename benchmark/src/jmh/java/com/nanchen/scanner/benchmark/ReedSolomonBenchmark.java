@@ -0,0 +1,111 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.common.reedsolomon.GenericGF;
+import com.google.zxing.common.reedsolomon.ReedSolomonDecoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonEncoder;
+import com.google.zxing.common.reedsolomon.ReedSolomonException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Reed-Solomon encoding and error correction of one block in each {@link GenericGF} field. Blocks
+ * are sized like a version 5-H QR code block, 11 data and 22 error correction codewords, except in
+ * the 16 element Aztec parameter field, which only has room for its 2 data and 5 error correction
+ * codewords. {@code errors} corrupts no codeword, one, or as many as can be corrected.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class ReedSolomonBenchmark {
+
+    @Param({"QR_CODE_FIELD_256", "DATA_MATRIX_FIELD_256", "AZTEC_DATA_12", "AZTEC_DATA_10", "AZTEC_DATA_6", "AZTEC_PARAM"})
+    public String field;
+
+    @Param({"none", "one", "max"})
+    public String errors;
+
+    private int dataCodewords;
+    private int ecCodewords;
+
+    private ReedSolomonEncoder encoder;
+    private ReedSolomonDecoder decoder;
+    private int[] message;
+    private int[] received;
+    private int[] work;
+
+    @Setup
+    public void setUp() throws ReedSolomonException {
+        GenericGF gf = field(field);
+        boolean parameters = gf == GenericGF.AZTEC_PARAM;
+        dataCodewords = parameters ? 2 : 11;
+        ecCodewords = parameters ? 5 : 22;
+        encoder = new ReedSolomonEncoder(gf);
+        decoder = new ReedSolomonDecoder(gf);
+        Random random = new Random(7L);
+        message = new int[dataCodewords + ecCodewords];
+        for (int i = 0; i < dataCodewords; i++) {
+            message[i] = random.nextInt(gf.getSize());
+        }
+        work = new int[message.length];
+        System.arraycopy(message, 0, work, 0, dataCodewords);
+        encoder.encode(work, ecCodewords);
+        System.arraycopy(work, 0, message, 0, message.length);
+
+        int errorCount = "none".equals(errors) ? 0 : "one".equals(errors) ? 1 : ecCodewords / 2;
+        received = message.clone();
+        for (int i = 0; i < errorCount; i++) {
+            // Distinct positions, each changed to a different value.
+            received[i * 3 % received.length] ^= 1 + random.nextInt(gf.getSize() - 1);
+        }
+        correct();
+        for (int i = 0; i < message.length; i++) {
+            if (work[i] != message[i]) {
+                throw new IllegalStateException("Errors were not corrected");
+            }
+        }
+    }
+
+    @Benchmark
+    public int[] encode() {
+        System.arraycopy(message, 0, work, 0, dataCodewords);
+        encoder.encode(work, ecCodewords);
+        return work;
+    }
+
+    @Benchmark
+    public int[] correct() throws ReedSolomonException {
+        System.arraycopy(received, 0, work, 0, received.length);
+        decoder.decode(work, ecCodewords);
+        return work;
+    }
+
+    private static GenericGF field(String name) {
+        switch (name) {
+            case "QR_CODE_FIELD_256":
+                return GenericGF.QR_CODE_FIELD_256;
+            case "DATA_MATRIX_FIELD_256":
+                return GenericGF.DATA_MATRIX_FIELD_256;
+            case "AZTEC_DATA_12":
+                return GenericGF.AZTEC_DATA_12;
+            case "AZTEC_DATA_10":
+                return GenericGF.AZTEC_DATA_10;
+            case "AZTEC_DATA_6":
+                return GenericGF.AZTEC_DATA_6;
+            case "AZTEC_PARAM":
+                return GenericGF.AZTEC_PARAM;
+            default:
+                throw new IllegalArgumentException("Unknown field " + name);
+        }
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.Result;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.oned.MultiFormatOneDReader;
+import com.google.zxing.oned.OneDReader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Trying harder to find a 1D barcode in a tall photo, with the rows decoded on the calling thread
+ * or in bands on a pool with a thread per core. The Code 128 label is held across the middle, so
+ * it is found on the first row either way; the QR Code holds no 1D barcode, so every row is
+ * decoded both ways round, and again with the photo rotated.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class RowScanBenchmark {
+
+    @Param({"1080x1920"})
+    public String size;
+
+    @Param({"CODE_128", "QR_CODE"})
+    public BarcodeFormat format;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    private ExecutorService executor;
+    private BinaryBitmap image;
+    private Map<DecodeHintType, Object> hints;
+    private OneDReader reader;
+
+    @Setup
+    public void setUp() {
+        int[] dimensions = Corpus.parseSize(size);
+        image = new BinaryBitmap(new HybridBinarizer(
+                Corpus.synthetic(format, dimensions[0], dimensions[1], 1L).luminanceSource()));
+        hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        reader = new MultiFormatOneDReader(hints);
+        if (parallel) {
+            executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+            reader.setRowScanExecutor(executor, new OneDReader.ReaderFactory() {
+                @Override
+                public OneDReader newReader() {
+                    return new MultiFormatOneDReader(hints);
+                }
+            });
+        }
+        Result result = decode();
+        boolean linear = format == BarcodeFormat.CODE_128;
+        if (linear ? result == null || !result.getText().equals(Corpus.contents(format)) : result != null) {
+            throw new IllegalStateException("Decoded the wrong contents");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Benchmark
+    public Result decode() {
+        return reader.decodeOrNull(image, hints);
+    }
+
+}
@@ -0,0 +1,46 @@
+package com.nanchen.scanner.benchmark;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding one label into a bit matrix, error correction included, as a label printing service
+ * does for every code it generates.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class WriterBenchmark {
+
+    private static final int SIZE = 300;
+
+    @Param({"QR_CODE", "DATA_MATRIX", "PDF_417"})
+    public BarcodeFormat format;
+
+    private MultiFormatWriter writer;
+    private String contents;
+
+    @Setup
+    public void setUp() {
+        writer = new MultiFormatWriter();
+        contents = Corpus.contents(format);
+    }
+
+    @Benchmark
+    public BitMatrix encode() throws WriterException {
+        return writer.encode(contents, format, SIZE, SIZE);
+    }
+
+}
@@ -0,0 +1,51 @@
+package com.nanchen.scanner.replay;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Naming of recorded preview streams: raw NV21 frames back to back, in a file named
+ * {@code <anything>_<width>x<height>.nv21} (or {@code .yuv}).
+ */
+public final class RecordedFrames {
+
+    private static final Pattern FRAME_FILE = Pattern.compile(".*_(\\d+)x(\\d+)\\.(nv21|yuv)");
+
+    private RecordedFrames() {
+    }
+
+    /**
+     * @return width and height encoded in the file name, or {@code null} if it does not follow the
+     * naming scheme
+     */
+    public static int[] sizeOf(File file) {
+        Matcher matcher = FRAME_FILE.matcher(file.getName());
+        if (!matcher.matches()) {
+            return null;
+        }
+        return new int[]{Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2))};
+    }
+
+    /**
+     * @return the recorded stream files in a directory, by name
+     */
+    public static List<File> list(File directory) {
+        List<File> files = new ArrayList<>();
+        File[] children = directory.listFiles();
+        if (children == null) {
+            return files;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isFile() && sizeOf(child) != null) {
+                files.add(child);
+            }
+        }
+        return files;
+    }
+
+}
@@ -0,0 +1,323 @@
+package com.nanchen.scanner.replay;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeConfig;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.common.AffineGridSampler;
+import com.google.zxing.common.GridSampler;
+import com.nanchen.scanner.zxing.BarcodePresenceFilter;
+import com.nanchen.scanner.zxing.FrameDecoder;
+import com.nanchen.scanner.zxing.SharedFrame;
+import com.nanchen.scanner.zxing.camera.FrameBufferPool;
+import com.nanchen.scanner.zxing.camera.FramingRects;
+import com.nanchen.scanner.zxing.camera.YuvFrameReader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replays recorded NV21 preview streams through the decode path of the app on a plain JVM: frames
+ * are read into pooled buffers, cropped to the framing rectangle the way {@code CameraManager}
+ * does, and decoded by a {@link FrameDecoder}. Reports time to first decode, the per-frame latency
+ * distribution and the success rate.
+ *
+ * <p>Every frame is decoded, whether or not an earlier one succeeded, and the frames are decoded
+ * back to back rather than at the camera frame rate. The zbar strategy needs its native library and
+ * is left out.</p>
+ *
+ * <p>With {@code --prefilter} frames first go through a {@link BarcodePresenceFilter} at the given
+ * threshold, and the report tells how many it skipped; comparing the decode counts with and without
+ * it shows what a threshold costs.</p>
+ *
+ * <p>With {@code --affine-sampler} grids are sampled by the {@link AffineGridSampler}, which
+ * {@code CaptureActivity} installs; otherwise by the zxing default.</p>
+ *
+ * <pre>
+ * ReplayHarness [--size WxH] [--screen WxH] [--full-frame] [--prefilter THRESHOLD] [--affine-sampler]
+ *               (file | directory)...
+ * </pre>
+ */
+public final class ReplayHarness {
+
+    /** Upper bounds of the latency histogram buckets, in milliseconds. */
+    private static final int[] BUCKETS_MS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000};
+    private static final int HISTOGRAM_WIDTH = 50;
+    /** The frame being decoded, one the losing strategies may still read, and the next one. */
+    private static final int POOL_SIZE = 3;
+
+    private final FrameDecoder decoder;
+    private final BarcodePresenceFilter presenceFilter;
+    private final int[] screen;
+    private final boolean fullFrame;
+    private final List<Long> latencies = new ArrayList<>();
+    private int decoded;
+    private long elapsedNanos;
+    private long firstDecodeNanos = -1L;
+    private int firstDecodeFrame = -1;
+
+    /**
+     * @param screen    screen resolution the framing rectangle is sized for, or {@code null} to
+     *                  size it for the frame itself
+     * @param fullFrame decode whole frames instead of the framing rectangle
+     */
+    public ReplayHarness(int[] screen, boolean fullFrame) {
+        this(screen, fullFrame, 0.0f);
+    }
+
+    /**
+     * @param screen            screen resolution the framing rectangle is sized for, or
+     *                          {@code null} to size it for the frame itself
+     * @param fullFrame         decode whole frames instead of the framing rectangle
+     * @param presenceThreshold threshold of the {@link BarcodePresenceFilter} frames go through
+     *                          first, or 0 to decode every frame
+     */
+    public ReplayHarness(int[] screen, boolean fullFrame, float presenceThreshold) {
+        this.decoder = new FrameDecoder(decodeConfig(), null);
+        this.presenceFilter = presenceThreshold > 0.0f ? new BarcodePresenceFilter(presenceThreshold) : null;
+        decoder.setPresenceFilter(presenceFilter);
+        this.screen = screen;
+        this.fullFrame = fullFrame;
+    }
+
+    /**
+     * @return the same hints as {@code DecodeHandler}
+     */
+    static DecodeConfig decodeConfig() {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.put(DecodeHintType.POSSIBLE_FORMATS, EnumSet.of(BarcodeFormat.QR_CODE));
+        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
+        hints.put(DecodeHintType.CHARACTER_SET, "utf-8");
+        return DecodeConfig.fromHints(hints);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] size = null;
+        int[] screen = null;
+        boolean fullFrame = false;
+        float presenceThreshold = 0.0f;
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if ("--size".equals(args[i]) && i + 1 < args.length) {
+                size = parseSize(args[++i]);
+            } else if ("--screen".equals(args[i]) && i + 1 < args.length) {
+                screen = parseSize(args[++i]);
+            } else if ("--full-frame".equals(args[i])) {
+                fullFrame = true;
+            } else if ("--prefilter".equals(args[i]) && i + 1 < args.length) {
+                presenceThreshold = Float.parseFloat(args[++i]);
+            } else if ("--affine-sampler".equals(args[i])) {
+                GridSampler.setGridSampler(new AffineGridSampler());
+            } else if (args[i].startsWith("--")) {
+                usage();
+                return;
+            } else {
+                File path = new File(args[i]);
+                if (path.isDirectory()) {
+                    files.addAll(RecordedFrames.list(path));
+                } else {
+                    files.add(path);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            usage();
+            return;
+        }
+
+        ReplayHarness harness = new ReplayHarness(screen, fullFrame, presenceThreshold);
+        try {
+            for (File file : files) {
+                int[] fileSize = size != null ? size : RecordedFrames.sizeOf(file);
+                if (fileSize == null) {
+                    System.err.println("Skipping " + file + ": no frame size in its name, pass --size");
+                    continue;
+                }
+                harness.replay(file, fileSize[0], fileSize[1]);
+            }
+            harness.report(System.out);
+        } finally {
+            harness.shutdown();
+        }
+    }
+
+    /**
+     * Decodes every frame of a recorded stream.
+     */
+    public void replay(File file, int width, int height) throws IOException {
+        int frameSize = YuvFrameReader.frameSize(width, height);
+        final FrameBufferPool pool = new FrameBufferPool(POOL_SIZE, frameSize);
+        RandomAccessFile in = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = in.getChannel();
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            YuvFrameReader reader = new YuvFrameReader(new ByteBufferInputStream(mapped), width, height, pool);
+            SharedFrame.Releaser releaser = new SharedFrame.Releaser() {
+                @Override
+                public void release(byte[] data) {
+                    pool.release(data);
+                }
+            };
+            byte[] data;
+            while ((data = reader.nextFrame()) != null) {
+                SharedFrame frame = new SharedFrame(data, releaser);
+                try {
+                    decodeFrame(frame, width, height);
+                } finally {
+                    frame.release();
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void decodeFrame(SharedFrame frame, int width, int height) {
+        long start = System.nanoTime();
+        Result result = decoder.decode(frame, width, height, buildLuminanceSource(frame.getData(), width, height));
+        long latency = System.nanoTime() - start;
+        elapsedNanos += latency;
+        latencies.add(latency);
+        if (result != null) {
+            decoded++;
+            if (firstDecodeFrame < 0) {
+                firstDecodeFrame = latencies.size();
+                firstDecodeNanos = elapsedNanos;
+            }
+        }
+    }
+
+    private PlanarYUVLuminanceSource buildLuminanceSource(byte[] data, int width, int height) {
+        if (fullFrame) {
+            return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+        }
+        return cropToFramingRect(data, width, height, screen);
+    }
+
+    /**
+     * Crops the frame like {@code CameraManager.buildLuminanceSource}: a centered framing rectangle
+     * sized for the screen, mapped into frame coordinates.
+     *
+     * @param screen screen resolution the framing rectangle is sized for, or {@code null} to size
+     *               it for the frame itself
+     */
+    static PlanarYUVLuminanceSource cropToFramingRect(byte[] data, int width, int height, int[] screen) {
+        int screenWidth = screen == null ? width : screen[0];
+        int screenHeight = screen == null ? height : screen[1];
+        int frameWidth = Math.min(FramingRects.width(screenWidth), screenWidth);
+        int frameHeight = Math.min(FramingRects.height(screenHeight), screenHeight);
+        int left = (screenWidth - frameWidth) / 2 * width / screenWidth;
+        int top = (screenHeight - frameHeight) / 2 * height / screenHeight;
+        int right = ((screenWidth - frameWidth) / 2 + frameWidth) * width / screenWidth;
+        int bottom = ((screenHeight - frameHeight) / 2 + frameHeight) * height / screenHeight;
+        return new PlanarYUVLuminanceSource(data, width, height, left, top, right - left, bottom - top, false);
+    }
+
+    public void report(PrintStream out) {
+        int frames = latencies.size();
+        out.println("Frames:           " + frames);
+        if (frames == 0) {
+            return;
+        }
+        out.printf("Decoded:          %d (%.1f%%)%n", decoded, 100.0 * decoded / frames);
+        if (firstDecodeFrame < 0) {
+            out.println("First decode:     none");
+        } else {
+            out.printf("First decode:     frame %d, after %.1f ms of decoding%n", firstDecodeFrame, firstDecodeNanos / 1e6);
+        }
+        if (presenceFilter != null) {
+            long skipped = presenceFilter.getSkippedFrames();
+            out.printf("Prefilter:        skipped %d (%.1f%%) at threshold %.2f%n",
+                    skipped, 100.0 * skipped / frames, presenceFilter.getThreshold());
+        }
+
+        long[] sorted = new long[frames];
+        for (int i = 0; i < frames; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        out.printf("Latency (ms):     mean %.2f  p50 %.2f  p90 %.2f  p99 %.2f  max %.2f%n",
+                elapsedNanos / 1e6 / frames, percentile(sorted, 50) / 1e6, percentile(sorted, 90) / 1e6,
+                percentile(sorted, 99) / 1e6, sorted[frames - 1] / 1e6);
+
+        int[] counts = new int[BUCKETS_MS.length + 1];
+        int maxCount = 0;
+        for (long latency : sorted) {
+            int bucket = 0;
+            while (bucket < BUCKETS_MS.length && latency > BUCKETS_MS[bucket] * 1000000L) {
+                bucket++;
+            }
+            counts[bucket]++;
+            maxCount = Math.max(maxCount, counts[bucket]);
+        }
+        for (int i = 0; i < counts.length; i++) {
+            String label = i < BUCKETS_MS.length ? "<= " + BUCKETS_MS[i] + " ms" : " > " + BUCKETS_MS[i - 1] + " ms";
+            char[] bar = new char[counts[i] * HISTOGRAM_WIDTH / maxCount];
+            Arrays.fill(bar, '#');
+            out.printf("  %-10s %6d %s%n", label, counts[i], new String(bar));
+        }
+        out.println("Strategies:       " + decoder);
+    }
+
+    public void shutdown() {
+        decoder.shutdown();
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static int[] parseSize(String size) {
+        int separator = size.indexOf('x');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Expected <width>x<height>: " + size);
+        }
+        return new int[]{Integer.parseInt(size.substring(0, separator)), Integer.parseInt(size.substring(separator + 1))};
+    }
+
+    private static void usage() {
+        System.err.println("Usage: ReplayHarness [--size WxH] [--screen WxH] [--full-frame] [--prefilter THRESHOLD] [--affine-sampler] (file | directory)...");
+        System.err.println("Frame files hold raw NV21 frames back to back and are named <name>_<width>x<height>.nv21");
+    }
+
+    /**
+     * Reads a memory-mapped file without copying it into the heap first.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+
+}
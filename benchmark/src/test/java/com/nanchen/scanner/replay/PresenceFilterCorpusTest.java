@@ -0,0 +1,82 @@
+package com.nanchen.scanner.replay;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.nanchen.scanner.zxing.BarcodePresenceFilter;
+import com.nanchen.scanner.zxing.FrameDecoder;
+import com.nanchen.scanner.zxing.SharedFrame;
+import com.nanchen.scanner.zxing.camera.FrameBufferPool;
+import com.nanchen.scanner.zxing.camera.YuvFrameReader;
+
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Replays the recorded preview streams in the directory given by the {@code replay.corpus} system
+ * property ({@code ./gradlew :benchmark:test -Pframes=/path/to/frames}) and checks that the
+ * {@link BarcodePresenceFilter} at its default threshold lets through every frame that decodes
+ * without it. Skipped when no corpus is given; {@code BaseCaptureActivity} keeps the filter off
+ * until a corpus has passed.
+ */
+public class PresenceFilterCorpusTest {
+
+    private static final String CORPUS_PROPERTY = "replay.corpus";
+
+    @Test
+    public void noDecodedFrameIsSkipped() throws IOException {
+        String corpus = System.getProperty(CORPUS_PROPERTY);
+        assumeTrue(corpus != null);
+        List<File> files = RecordedFrames.list(new File(corpus));
+        assumeTrue(!files.isEmpty());
+
+        BarcodePresenceFilter filter = new BarcodePresenceFilter(BarcodePresenceFilter.DEFAULT_THRESHOLD);
+        List<String> skipped = new ArrayList<>();
+        int decoded = 0;
+        for (File file : files) {
+            int[] size = RecordedFrames.sizeOf(file);
+            // A decoder per stream, so the window of one does not carry over into the next
+            FrameDecoder decoder = new FrameDecoder(ReplayHarness.decodeConfig(), null);
+            final FrameBufferPool pool = new FrameBufferPool(3, YuvFrameReader.frameSize(size[0], size[1]));
+            SharedFrame.Releaser releaser = new SharedFrame.Releaser() {
+                @Override
+                public void release(byte[] data) {
+                    pool.release(data);
+                }
+            };
+            YuvFrameReader reader = new YuvFrameReader(new BufferedInputStream(new FileInputStream(file)),
+                    size[0], size[1], pool);
+            try {
+                byte[] data;
+                for (int frame = 0; (data = reader.nextFrame()) != null; frame++) {
+                    SharedFrame shared = new SharedFrame(data, releaser);
+                    try {
+                        PlanarYUVLuminanceSource source =
+                                ReplayHarness.cropToFramingRect(data, size[0], size[1], null);
+                        if (decoder.decode(shared, size[0], size[1], source) != null) {
+                            decoded++;
+                            if (!filter.accept(source)) {
+                                skipped.add(file.getName() + " frame " + frame + " scored " + filter.score(source));
+                            }
+                        }
+                    } finally {
+                        shared.release();
+                    }
+                }
+            } finally {
+                reader.close();
+                decoder.shutdown();
+            }
+        }
+        assertTrue("Frames that decode were skipped: " + skipped, skipped.isEmpty());
+        assertTrue("No frame of " + files + " decoded", decoded > 0);
+    }
+
+}
@@ -55,6 +55,23 @@ public abstract class Binarizer {
    */
   public abstract BitArray getBlackRow(int y, BitArray row) throws NotFoundException;
 
+  /**
+   * Like {@link #getBlackRow(int, BitArray)}, but returns {@code null} rather than throwing when
+   * the row can't be binarized, which on a flat or blurred frame is most rows. Subclasses that can
+   * tell without an exception override this.
+   *
+   * @param y The row to fetch, which must be in [0, bitmap height)
+   * @param row An optional preallocated array, as for {@link #getBlackRow(int, BitArray)}
+   * @return The array of bits for this row (true means black), or {@code null}
+   */
+  public BitArray getBlackRowOrNull(int y, BitArray row) {
+    try {
+      return getBlackRow(y, row);
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
+
   /**
    * Converts a 2D array of luminance data to 1 bit data. As above, assume this method is expensive
    * and do not call it repeatedly. This method is intended for decoding 2D barcodes and may or
@@ -66,6 +83,20 @@ public abstract class Binarizer {
    */
   public abstract BitMatrix getBlackMatrix() throws NotFoundException;
 
+  /**
+   * Like {@link #getBlackMatrix()}, but returns {@code null} rather than throwing when the image
+   * can't be binarized. Subclasses that can tell without an exception override this.
+   *
+   * @return The 2D array of bits for the image (true means black), or {@code null}
+   */
+  public BitMatrix getBlackMatrixOrNull() {
+    try {
+      return getBlackMatrix();
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
+
   /**
    * Creates a new object with the same type as this Binarizer implementation, but with pristine
    * state. This is needed because Binarizer implementations may be stateful, e.g. keeping a cache
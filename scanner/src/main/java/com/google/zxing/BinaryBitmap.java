@@ -66,6 +66,14 @@ public final class BinaryBitmap {
     return binarizer.getBlackRow(y, row);
   }
 
+  /**
+   * Like {@link #getBlackRow(int, BitArray)}, but returns {@code null} rather than throwing if the
+   * row can't be binarized.
+   */
+  public BitArray getBlackRowOrNull(int y, BitArray row) {
+    return binarizer.getBlackRowOrNull(y, row);
+  }
+
   /**
    * Converts a 2D array of luminance data to 1 bit. As above, assume this method is expensive
    * and do not call it repeatedly. This method is intended for decoding 2D barcodes and may or
@@ -81,8 +89,20 @@ public final class BinaryBitmap {
     // 1. This work will never be done if the caller only installs 1D Reader objects, or if a
     //    1D Reader finds a barcode before the 2D Readers run.
     // 2. This work will only be done once even if the caller installs multiple 2D Readers.
+    BitMatrix matrix = getBlackMatrixOrNull();
+    if (matrix == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return matrix;
+  }
+
+  /**
+   * Like {@link #getBlackMatrix()}, but returns {@code null} rather than throwing if the image
+   * can't be binarized.
+   */
+  public BitMatrix getBlackMatrixOrNull() {
     if (matrix == null) {
-      matrix = binarizer.getBlackMatrix();
+      matrix = binarizer.getBlackMatrixOrNull();
     }
     return matrix;
   }
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * A {@link Reader} that can be given a {@link DecodeConfig} instead of a hints map, and that
+ * rejects images without a barcode by returning {@code null} rather than throwing. This is the
+ * path {@link MultiFormatReader} decodes through; readers that do not implement it are adapted
+ * to it once, when the configuration is set.
+ */
+public interface ConfiguredReader extends Reader {
+
+  /**
+   * Locates and decodes a barcode in some format within an image.
+   *
+   * @param image image of barcode to decode
+   * @param config precompiled decode hints
+   * @return the decoded barcode, or {@code null} if no potential barcode is found
+   * @throws ChecksumException if a potential barcode is found but does not pass its checksum
+   * @throws FormatException if a potential barcode is found but format is invalid
+   */
+  Result decodeOrNull(BinaryBitmap image, DecodeConfig config) throws ChecksumException, FormatException;
+
+}
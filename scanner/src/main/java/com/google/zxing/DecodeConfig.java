@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An immutable, precompiled form of a decode hints map. Building it once up front lets continuous
+ * scan clients decode every frame without allocating maps, boxing flags or looking hints up again.
+ * Readers that have not been taught about it can still be given {@link #getHints()}, which is built
+ * once as well.
+ *
+ * @see DecodeHintType
+ */
+public final class DecodeConfig {
+
+  public static final DecodeConfig DEFAULT = fromHints(null);
+
+  private final Map<DecodeHintType,Object> hints;
+  private final Set<BarcodeFormat> possibleFormats;
+  private final boolean pureBarcode;
+  private final boolean tryHarder;
+  private final String characterSet;
+  private final int[] allowedLengths;
+  private final boolean assumeCode39CheckDigit;
+  private final boolean assumeGS1;
+  private final boolean returnCodabarStartEnd;
+  private final ResultPointCallback resultPointCallback;
+  private final int[] allowedEanExtensions;
+
+  private DecodeConfig(Map<DecodeHintType,Object> hints, Set<BarcodeFormat> possibleFormats) {
+    this.hints = Collections.unmodifiableMap(hints);
+    this.possibleFormats = possibleFormats == null ? null : Collections.unmodifiableSet(possibleFormats);
+    pureBarcode = hints.containsKey(DecodeHintType.PURE_BARCODE);
+    tryHarder = hints.containsKey(DecodeHintType.TRY_HARDER);
+    Object charset = hints.get(DecodeHintType.CHARACTER_SET);
+    characterSet = charset == null ? null : charset.toString();
+    allowedLengths = (int[]) hints.get(DecodeHintType.ALLOWED_LENGTHS);
+    assumeCode39CheckDigit = hints.containsKey(DecodeHintType.ASSUME_CODE_39_CHECK_DIGIT);
+    assumeGS1 = hints.containsKey(DecodeHintType.ASSUME_GS1);
+    returnCodabarStartEnd = hints.containsKey(DecodeHintType.RETURN_CODABAR_START_END);
+    resultPointCallback = (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+    allowedEanExtensions = (int[]) hints.get(DecodeHintType.ALLOWED_EAN_EXTENSIONS);
+  }
+
+  /**
+   * @param hints hints to compile; may be {@code null}. The map is copied, later changes to it
+   *  are not seen.
+   * @return configuration equivalent to the given hints
+   */
+  public static DecodeConfig fromHints(Map<DecodeHintType,?> hints) {
+    Map<DecodeHintType,Object> copy = new EnumMap<>(DecodeHintType.class);
+    Set<BarcodeFormat> formats = null;
+    if (hints != null) {
+      copy.putAll(hints);
+      Object possibleFormats = hints.get(DecodeHintType.POSSIBLE_FORMATS);
+      if (possibleFormats instanceof BarcodeFormat) {
+        // Tolerate a single format, as our own callers have historically passed.
+        formats = EnumSet.of((BarcodeFormat) possibleFormats);
+      } else if (possibleFormats != null) {
+        @SuppressWarnings("unchecked")
+        Collection<BarcodeFormat> collection = (Collection<BarcodeFormat>) possibleFormats;
+        formats = collection.isEmpty() ? EnumSet.noneOf(BarcodeFormat.class) : EnumSet.copyOf(collection);
+      }
+      if (formats != null) {
+        copy.put(DecodeHintType.POSSIBLE_FORMATS, Collections.unmodifiableSet(formats));
+      }
+    }
+    return new DecodeConfig(copy, formats);
+  }
+
+  /**
+   * @return the hints this configuration was compiled from, as an unmodifiable map
+   */
+  public Map<DecodeHintType,?> getHints() {
+    return hints;
+  }
+
+  /**
+   * @return formats to look for, or {@code null} for all supported formats
+   */
+  public Set<BarcodeFormat> getPossibleFormats() {
+    return possibleFormats;
+  }
+
+  public boolean isPureBarcode() {
+    return pureBarcode;
+  }
+
+  public boolean isTryHarder() {
+    return tryHarder;
+  }
+
+  public String getCharacterSet() {
+    return characterSet;
+  }
+
+  public int[] getAllowedLengths() {
+    return allowedLengths;
+  }
+
+  public boolean isAssumeCode39CheckDigit() {
+    return assumeCode39CheckDigit;
+  }
+
+  public boolean isAssumeGS1() {
+    return assumeGS1;
+  }
+
+  public boolean isReturnCodabarStartEnd() {
+    return returnCodabarStartEnd;
+  }
+
+  public ResultPointCallback getResultPointCallback() {
+    return resultPointCallback;
+  }
+
+  public int[] getAllowedEanExtensions() {
+    return allowedEanExtensions;
+  }
+
+}
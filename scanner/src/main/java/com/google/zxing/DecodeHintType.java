@@ -98,6 +98,20 @@ public enum DecodeHintType {
    */
   ALLOWED_EAN_EXTENSIONS(int[].class),
 
+  /**
+   * The most combinations of the values of PDF417 codewords that were read with more than one value
+   * to try error correction on, before giving up on the barcode. Maps to an {@link Integer}; the
+   * default is 100.
+   */
+  PDF417_AMBIGUOUS_ATTEMPTS(Integer.class),
+
+  /**
+   * The most time, in milliseconds, to spend on combinations of the values of PDF417 codewords that
+   * were read with more than one value, before giving up on the barcode. Maps to an {@link Integer};
+   * by default only {@link #PDF417_AMBIGUOUS_ATTEMPTS} bounds the search.
+   */
+  PDF417_AMBIGUOUS_TIME_BUDGET(Integer.class),
+
   // End of enumeration values.
   ;
 
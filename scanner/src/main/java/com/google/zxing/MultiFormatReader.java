@@ -37,10 +37,11 @@ import java.util.Map;
  */
 public final class MultiFormatReader implements Reader {
 
-  private static final Reader[] EMPTY_READER_ARRAY = new Reader[0];
+  private static final ConfiguredReader[] EMPTY_READER_ARRAY = new ConfiguredReader[0];
 
+  private DecodeConfig config;
   private Map<DecodeHintType,?> hints;
-  private Reader[] readers;
+  private ConfiguredReader[] readers;
 
   /**
    * This version of decode honors the intent of Reader.decode(BinaryBitmap) in that it
@@ -71,6 +72,19 @@ public final class MultiFormatReader implements Reader {
     return decodeInternal(image);
   }
 
+  /**
+   * Decode an image using a precompiled configuration. Does not honor existing state.
+   *
+   * @param image The pixel data to decode
+   * @param config The configuration to use, clearing the previous state.
+   * @return The contents of the image
+   * @throws NotFoundException Any errors which occurred
+   */
+  public Result decode(BinaryBitmap image, DecodeConfig config) throws NotFoundException {
+    setDecodeConfig(config);
+    return decodeInternal(image);
+  }
+
   /**
    * Decode an image using the state set up by calling setHints() previously. Continuous scan
    * clients will get a <b>large</b> speed increase by using this instead of decode().
@@ -87,6 +101,25 @@ public final class MultiFormatReader implements Reader {
     return decodeInternal(image);
   }
 
+  /**
+   * Like {@link #decodeWithState(BinaryBitmap)}, but returns {@code null} rather than throwing
+   * when no barcode is found. Continuous scan clients see far more frames without a barcode than
+   * with one, and the QR Code and 1D readers reject those without creating an exception.
+   *
+   * <p>If the calling thread is interrupted, the readers not yet tried are skipped and the
+   * QR Code and 1D readers give up at their next row, so a decode that is no longer wanted
+   * returns {@code null} soon, with the interrupt status left set.</p>
+   *
+   * @param image The pixel data to decode
+   * @return The contents of the image, or {@code null}
+   */
+  public Result decodeWithStateOrNull(BinaryBitmap image) {
+    if (readers == null) {
+      setHints(null);
+    }
+    return decodeInternalOrNull(image);
+  }
+
   /**
    * This method adds state to the MultiFormatReader. By setting the hints once, subsequent calls
    * to decodeWithState(image) can reuse the same set of readers without reallocating memory. This
@@ -95,13 +128,22 @@ public final class MultiFormatReader implements Reader {
    * @param hints The set of hints to use for subsequent calls to decode(image)
    */
   public void setHints(Map<DecodeHintType,?> hints) {
-    this.hints = hints;
+    setDecodeConfig(hints == null ? DecodeConfig.DEFAULT : DecodeConfig.fromHints(hints));
+  }
 
-    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
-    @SuppressWarnings("unchecked")
-    Collection<BarcodeFormat> formats =
-        hints == null ? null : (Collection<BarcodeFormat>) hints.get(DecodeHintType.POSSIBLE_FORMATS);
-    Collection<Reader> readers = new ArrayList<>();
+  /**
+   * Like {@link #setHints(Map)}, but takes hints that were compiled once up front. Subsequent
+   * calls to decodeWithState(image) then neither look up nor allocate anything for the hints.
+   *
+   * @param config The configuration to use for subsequent calls to decodeWithState(image)
+   */
+  public void setDecodeConfig(DecodeConfig config) {
+    this.config = config;
+    this.hints = config.getHints();
+
+    boolean tryHarder = config.isTryHarder();
+    Collection<BarcodeFormat> formats = config.getPossibleFormats();
+    Collection<ConfiguredReader> readers = new ArrayList<>();
     if (formats != null) {
       boolean addOneDReader =
           formats.contains(BarcodeFormat.UPC_A) ||
@@ -123,16 +165,16 @@ public final class MultiFormatReader implements Reader {
         readers.add(new QRCodeReader());
       }
       if (formats.contains(BarcodeFormat.DATA_MATRIX)) {
-        readers.add(new DataMatrixReader());
+        readers.add(new HintsReader(new DataMatrixReader()));
       }
       if (formats.contains(BarcodeFormat.AZTEC)) {
-        readers.add(new AztecReader());
+        readers.add(new HintsReader(new AztecReader()));
       }
       if (formats.contains(BarcodeFormat.PDF_417)) {
-         readers.add(new PDF417Reader());
+         readers.add(new HintsReader(new PDF417Reader()));
       }
       if (formats.contains(BarcodeFormat.MAXICODE)) {
-         readers.add(new MaxiCodeReader());
+         readers.add(new HintsReader(new MaxiCodeReader()));
       }
       // At end in "try harder" mode
       if (addOneDReader && tryHarder) {
@@ -145,10 +187,10 @@ public final class MultiFormatReader implements Reader {
       }
 
       readers.add(new QRCodeReader());
-      readers.add(new DataMatrixReader());
-      readers.add(new AztecReader());
-      readers.add(new PDF417Reader());
-      readers.add(new MaxiCodeReader());
+      readers.add(new HintsReader(new DataMatrixReader()));
+      readers.add(new HintsReader(new AztecReader()));
+      readers.add(new HintsReader(new PDF417Reader()));
+      readers.add(new HintsReader(new MaxiCodeReader()));
 
       if (tryHarder) {
         readers.add(new MultiFormatOneDReader(hints));
@@ -167,16 +209,69 @@ public final class MultiFormatReader implements Reader {
   }
 
   private Result decodeInternal(BinaryBitmap image) throws NotFoundException {
+    Result result = decodeInternalOrNull(image);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  private Result decodeInternalOrNull(BinaryBitmap image) {
     if (readers != null) {
-      for (Reader reader : readers) {
+      for (ConfiguredReader reader : readers) {
+        if (Thread.currentThread().isInterrupted()) {
+          break;
+        }
         try {
-          return reader.decode(image, hints);
+          Result result = reader.decodeOrNull(image, config);
+          if (result != null) {
+            return result;
+          }
         } catch (ReaderException re) {
           // continue
         }
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
+  }
+
+  /**
+   * Adapts a reader that only takes a hints map, and throws when it finds nothing, to the path
+   * the others are decoded through.
+   */
+  private static final class HintsReader implements ConfiguredReader {
+
+    private final Reader delegate;
+
+    HintsReader(Reader delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public Result decodeOrNull(BinaryBitmap image, DecodeConfig config)
+        throws ChecksumException, FormatException {
+      try {
+        return delegate.decode(image, config.getHints());
+      } catch (NotFoundException nfe) {
+        return null;
+      }
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image) throws NotFoundException, ChecksumException, FormatException {
+      return delegate.decode(image);
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints)
+        throws NotFoundException, ChecksumException, FormatException {
+      return delegate.decode(image, hints);
+    }
+
+    @Override
+    public void reset() {
+      delegate.reset();
+    }
   }
 
 }
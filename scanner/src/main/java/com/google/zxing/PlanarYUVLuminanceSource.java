@@ -104,6 +104,20 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
     return matrix;
   }
 
+  /**
+   * @return left edge of the crop within the YUV data
+   */
+  public int getLeft() {
+    return left;
+  }
+
+  /**
+   * @return top edge of the crop within the YUV data
+   */
+  public int getTop() {
+    return top;
+  }
+
   @Override
   public boolean isCropSupported() {
     return true;
@@ -121,6 +135,22 @@ public final class PlanarYUVLuminanceSource extends LuminanceSource {
                                         false);
   }
 
+  /**
+   * @param scale downscale factor, 2 or 4
+   * @return the same crop, box-filtered down by {@code scale} as it is read
+   * @see ScaledPlanarYUVLuminanceSource
+   */
+  public ScaledPlanarYUVLuminanceSource scaleDown(int scale) {
+    return new ScaledPlanarYUVLuminanceSource(yuvData,
+                                              dataWidth,
+                                              dataHeight,
+                                              left,
+                                              top,
+                                              getWidth(),
+                                              getHeight(),
+                                              scale);
+  }
+
   public int[] renderThumbnail() {
     int width = getWidth() / THUMBNAIL_SCALE_FACTOR;
     int height = getHeight() / THUMBNAIL_SCALE_FACTOR;
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing;
+
+/**
+ * A variant of {@link PlanarYUVLuminanceSource} which crops the Y plane and box-filters it down by
+ * 2x or 4x in the same pass. Rows are averaged straight out of the camera buffer, so no full-size
+ * copy of the crop is ever made. On high resolution previews this cuts the number of pixels the
+ * binarizer and detectors have to look at by 4x or 16x.
+ *
+ * <p>Coordinates reported for this source are in the scaled space; multiply by {@link #getScale()}
+ * to map them back onto the crop.</p>
+ */
+public final class ScaledPlanarYUVLuminanceSource extends LuminanceSource {
+
+  private final byte[] yuvData;
+  private final int dataWidth;
+  private final int dataHeight;
+  private final int left;
+  private final int top;
+  private final int scale;
+  private final int shift;
+
+  /**
+   * @param yuvData the full YUV frame
+   * @param dataWidth width of the frame
+   * @param dataHeight height of the frame
+   * @param left left edge of the crop, in frame pixels
+   * @param top top edge of the crop, in frame pixels
+   * @param cropWidth width of the crop, in frame pixels
+   * @param cropHeight height of the crop, in frame pixels
+   * @param scale downscale factor, 2 or 4
+   */
+  public ScaledPlanarYUVLuminanceSource(byte[] yuvData,
+                                        int dataWidth,
+                                        int dataHeight,
+                                        int left,
+                                        int top,
+                                        int cropWidth,
+                                        int cropHeight,
+                                        int scale) {
+    super(cropWidth / scale, cropHeight / scale);
+
+    if (scale != 2 && scale != 4) {
+      throw new IllegalArgumentException("Scale must be 2 or 4: " + scale);
+    }
+    if (left + cropWidth > dataWidth || top + cropHeight > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    if (getWidth() == 0 || getHeight() == 0) {
+      throw new IllegalArgumentException("Crop rectangle is smaller than the scale factor.");
+    }
+
+    this.yuvData = yuvData;
+    this.dataWidth = dataWidth;
+    this.dataHeight = dataHeight;
+    this.left = left;
+    this.top = top;
+    this.scale = scale;
+    this.shift = scale == 2 ? 2 : 4;
+  }
+
+  public int getScale() {
+    return scale;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    scaleRow(y, row, 0);
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    int width = getWidth();
+    int height = getHeight();
+    byte[] matrix = new byte[width * height];
+    for (int y = 0, outputOffset = 0; y < height; y++, outputOffset += width) {
+      scaleRow(y, matrix, outputOffset);
+    }
+    return matrix;
+  }
+
+  private void scaleRow(int y, byte[] output, int outputOffset) {
+    byte[] yuv = yuvData;
+    int width = getWidth();
+    int inputOffset = (top + y * scale) * dataWidth + left;
+    if (scale == 2) {
+      int next = inputOffset + dataWidth;
+      for (int x = 0; x < width; x++, inputOffset += 2, next += 2) {
+        int sum = (yuv[inputOffset] & 0xff) + (yuv[inputOffset + 1] & 0xff) +
+            (yuv[next] & 0xff) + (yuv[next + 1] & 0xff);
+        output[outputOffset + x] = (byte) ((sum + 2) >> 2);
+      }
+      return;
+    }
+    int round = 1 << (shift - 1);
+    for (int x = 0; x < width; x++, inputOffset += scale) {
+      int sum = 0;
+      for (int dy = 0, offset = inputOffset; dy < scale; dy++, offset += dataWidth) {
+        sum += (yuv[offset] & 0xff) + (yuv[offset + 1] & 0xff) +
+            (yuv[offset + 2] & 0xff) + (yuv[offset + 3] & 0xff);
+      }
+      output[outputOffset + x] = (byte) ((sum + round) >> shift);
+    }
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public LuminanceSource crop(int left, int top, int width, int height) {
+    return new ScaledPlanarYUVLuminanceSource(yuvData,
+                                              dataWidth,
+                                              dataHeight,
+                                              this.left + left * scale,
+                                              this.top + top * scale,
+                                              width * scale,
+                                              height * scale,
+                                              scale);
+  }
+
+}
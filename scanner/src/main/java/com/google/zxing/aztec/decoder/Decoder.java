@@ -295,28 +295,36 @@ public final class Decoder {
         alignmentMap[origCenter + i] = center + newOffset + 1;
       }
     }
+    // The columns are read as rows of the transposed matrix
+    BitMatrix columns = matrix.transpose();
+    BitMatrix.RowView[] left = new BitMatrix.RowView[2];
+    BitMatrix.RowView[] bottom = new BitMatrix.RowView[2];
+    BitMatrix.RowView[] right = new BitMatrix.RowView[2];
+    BitMatrix.RowView[] top = new BitMatrix.RowView[2];
     for (int i = 0, rowOffset = 0; i < layers; i++) {
       int rowSize = (layers - i) * 4 + (compact ? 9 : 12);
       // The top-left most point of this layer is <low, low> (not including alignment lines)
       int low = i * 2;
       // The bottom-right most point of this layer is <high, high> (not including alignment lines)
       int high = baseMatrixSize - 1 - low;
+      for (int k = 0; k < 2; k++) {
+        left[k] = columns.getRowView(alignmentMap[low + k], left[k]);
+        bottom[k] = matrix.getRowView(alignmentMap[high - k], bottom[k]);
+        right[k] = columns.getRowView(alignmentMap[high - k], right[k]);
+        top[k] = matrix.getRowView(alignmentMap[low + k], top[k]);
+      }
       // We pull bits from the two 2 x rowSize columns and two rowSize x 2 rows
       for (int j = 0; j < rowSize; j++) {
         int columnOffset = j * 2;
         for (int k = 0; k < 2; k++) {
           // left column
-          rawbits[rowOffset + columnOffset + k] =
-              matrix.get(alignmentMap[low + k], alignmentMap[low + j]);
+          rawbits[rowOffset + columnOffset + k] = left[k].get(alignmentMap[low + j]);
           // bottom row
-          rawbits[rowOffset + 2 * rowSize + columnOffset + k] =
-              matrix.get(alignmentMap[low + j], alignmentMap[high - k]);
+          rawbits[rowOffset + 2 * rowSize + columnOffset + k] = bottom[k].get(alignmentMap[low + j]);
           // right column
-          rawbits[rowOffset + 4 * rowSize + columnOffset + k] =
-              matrix.get(alignmentMap[high - k], alignmentMap[high - j]);
+          rawbits[rowOffset + 4 * rowSize + columnOffset + k] = right[k].get(alignmentMap[high - j]);
           // top row
-          rawbits[rowOffset + 6 * rowSize + columnOffset + k] =
-              matrix.get(alignmentMap[high - j], alignmentMap[low + k]);
+          rawbits[rowOffset + 6 * rowSize + columnOffset + k] = top[k].get(alignmentMap[high - j]);
         }
       }
       rowOffset += rowSize * 8;
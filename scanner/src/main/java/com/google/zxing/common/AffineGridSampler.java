@@ -0,0 +1,223 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.NotFoundException;
+
+/**
+ * <p>A {@link GridSampler} for transforms that are close to affine, as they are for most codes
+ * held roughly parallel to the camera. Only the two ends of each row are run through the
+ * {@link PerspectiveTransform}; the points in between are reached by stepping evenly in 16.16
+ * fixed point, reading the image words directly and writing 32 sampled modules at a time.</p>
+ *
+ * <p>Where perspective makes even steps stray more than {@value #MAX_STEPPING_ERROR} pixel from
+ * what the transform gives, the row is stepped in shorter pieces, each starting from an exact
+ * point. Rows that would need pieces of fewer than {@value #MIN_PIECE_MODULES} modules, or that do
+ * not lie at least a pixel inside the image, are sampled point by point exactly like
+ * {@link DefaultGridSampler}, including the nudging of points just off the image, so the sampler
+ * can be installed with {@link GridSampler#setGridSampler(GridSampler)} whatever the transforms
+ * look like.</p>
+ */
+public final class AffineGridSampler extends GridSampler {
+
+  private static final float MAX_STEPPING_ERROR = 0.125f;
+  private static final int MIN_PIECE_MODULES = 4;
+  private static final int FRACTION_BITS = 16;
+  private static final double ONE = 1 << FRACTION_BITS;
+  // Fixed point coordinates of larger images would overflow an int.
+  private static final int MAX_IMAGE_DIMENSION = 1 << (31 - FRACTION_BITS);
+
+  @Override
+  public BitMatrix sampleGrid(BitMatrix image,
+                              int dimensionX,
+                              int dimensionY,
+                              float p1ToX, float p1ToY,
+                              float p2ToX, float p2ToY,
+                              float p3ToX, float p3ToY,
+                              float p4ToX, float p4ToY,
+                              float p1FromX, float p1FromY,
+                              float p2FromX, float p2FromY,
+                              float p3FromX, float p3FromY,
+                              float p4FromX, float p4FromY) throws NotFoundException {
+
+    PerspectiveTransform transform = PerspectiveTransform.quadrilateralToQuadrilateral(
+        p1ToX, p1ToY, p2ToX, p2ToY, p3ToX, p3ToY, p4ToX, p4ToY,
+        p1FromX, p1FromY, p2FromX, p2FromY, p3FromX, p3FromY, p4FromX, p4FromY);
+
+    return sampleGrid(image, dimensionX, dimensionY, transform);
+  }
+
+  @Override
+  public BitMatrix sampleGrid(BitMatrix image,
+                              int dimensionX,
+                              int dimensionY,
+                              PerspectiveTransform transform) throws NotFoundException {
+    if (dimensionX <= 0 || dimensionY <= 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    BitMatrix bits = new BitMatrix(dimensionX, dimensionY);
+    int width = image.getWidth();
+    int height = image.getHeight();
+    boolean stepping = dimensionX > 1 && width < MAX_IMAGE_DIMENSION && height < MAX_IMAGE_DIMENSION;
+    float lastX = dimensionX - 0.5f;
+    float[] ends = new float[4];
+    float[] points = null;
+    for (int y = 0; y < dimensionY; y++) {
+      float iValue = y + 0.5f;
+      if (stepping) {
+        ends[0] = 0.5f;
+        ends[1] = iValue;
+        ends[2] = lastX;
+        ends[3] = iValue;
+        transform.transformPoints(ends);
+        if (isInside(ends, width, height)) {
+          float d0 = transform.denominator(0.5f, iValue);
+          float d1 = transform.denominator(lastX, iValue);
+          int pieces = countPieces(ends, d0, d1, dimensionX - 1);
+          if (pieces > 0) {
+            sampleRowStepping(image, ends, d0, d1, pieces, bits, y);
+            continue;
+          }
+        }
+      }
+      if (points == null) {
+        points = new float[2 * dimensionX];
+      }
+      sampleRowExactly(image, transform, points, bits, y);
+    }
+    return bits;
+  }
+
+  /**
+   * Both ends at least a pixel inside the image, so that the points in between stay inside it
+   * despite the rounding of the fixed point steps.
+   */
+  private static boolean isInside(float[] ends, int width, int height) {
+    for (int i = 0; i < ends.length; i += 2) {
+      if (!(ends[i] >= 1.0f && ends[i] < width - 1 && ends[i + 1] >= 1.0f && ends[i + 1] < height - 1)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * With d(t) the denominator at a fraction t along the row, the transform puts that point
+   * t(1 - t)(d1 - d0) / d(t) times the length of the row away from where even steps from one end
+   * to the other put it. A piece that is a fraction s of the row is off by at most s * s times as
+   * much, times max(d) / min(d) since the transform may stretch the piece by that much.
+   *
+   * @return how many pieces to step the row in, or 0 to sample it exactly
+   */
+  private static int countPieces(float[] ends, float d0, float d1, int last) {
+    if (!(d0 * d1 > 0.0f)) {
+      // The row crosses the line sent to infinity
+      return 0;
+    }
+    float min = Math.min(Math.abs(d0), Math.abs(d1));
+    float max = Math.max(Math.abs(d0), Math.abs(d1));
+    float length = Math.abs(ends[2] - ends[0]) + Math.abs(ends[3] - ends[1]);
+    float error = 0.25f * (max - min) / min * length * max / min;
+    if (error <= MAX_STEPPING_ERROR) {
+      return 1;
+    }
+    int longest = (int) (last * Math.sqrt(MAX_STEPPING_ERROR / error));
+    if (longest < MIN_PIECE_MODULES) {
+      return 0;
+    }
+    return (last + longest - 1) / longest;
+  }
+
+  private static void sampleRowStepping(BitMatrix image,
+                                        float[] ends,
+                                        float d0,
+                                        float d1,
+                                        int pieces,
+                                        BitMatrix bits,
+                                        int y) {
+    int dimensionX = bits.getWidth();
+    int last = dimensionX - 1;
+    int[] imageBits = image.getBitArray();
+    int imageRowSize = image.getRowSize();
+    int[] sampledBits = bits.getBitArray();
+    int offset = y * bits.getRowSize();
+    int fixedX = (int) (ends[0] * ONE);
+    int fixedY = (int) (ends[1] * ONE);
+    int x = 0;
+    int word = 0;
+    for (int piece = 1; piece <= pieces; piece++) {
+      int pieceEnd = last * piece / pieces;
+      // Where the transform puts the end of the piece, interpolated between the ends of the row
+      float t = (float) pieceEnd / last;
+      float w0 = (1.0f - t) * d0;
+      float w1 = t * d1;
+      float endX = (w0 * ends[0] + w1 * ends[2]) / (w0 + w1);
+      float endY = (w0 * ends[1] + w1 * ends[3]) / (w0 + w1);
+      int stepX = (int) Math.round((endX * ONE - fixedX) / (pieceEnd - x));
+      int stepY = (int) Math.round((endY * ONE - fixedY) / (pieceEnd - x));
+      int limit = piece == pieces ? dimensionX : pieceEnd;
+      for (; x < limit; x++) {
+        int imageX = fixedX >> FRACTION_BITS;
+        int imageY = fixedY >> FRACTION_BITS;
+        int imageWord = imageBits[imageY * imageRowSize + (imageX >>> 5)];
+        word |= ((imageWord >>> (imageX & 0x1f)) & 1) << (x & 0x1f);
+        if ((x & 0x1f) == 0x1f) {
+          sampledBits[offset + (x >>> 5)] = word;
+          word = 0;
+        }
+        fixedX += stepX;
+        fixedY += stepY;
+      }
+      // Start the next piece from its exact point rather than the sum of the steps
+      fixedX = (int) (endX * ONE);
+      fixedY = (int) (endY * ONE);
+    }
+    if ((dimensionX & 0x1f) != 0) {
+      sampledBits[offset + (dimensionX >>> 5)] = word;
+    }
+  }
+
+  /**
+   * Samples a row the way {@link DefaultGridSampler} does.
+   */
+  private static void sampleRowExactly(BitMatrix image,
+                                       PerspectiveTransform transform,
+                                       float[] points,
+                                       BitMatrix bits,
+                                       int y) throws NotFoundException {
+    int max = points.length;
+    float iValue = y + 0.5f;
+    for (int x = 0; x < max; x += 2) {
+      points[x] = (float) (x / 2) + 0.5f;
+      points[x + 1] = iValue;
+    }
+    transform.transformPoints(points);
+    checkAndNudgePoints(image, points);
+    try {
+      for (int x = 0; x < max; x += 2) {
+        if (image.get((int) points[x], (int) points[x + 1])) {
+          bits.set(x / 2, y);
+        }
+      }
+    } catch (ArrayIndexOutOfBoundsException aioobe) {
+      // A "twisted" transform can map a row to points whose ends are in bounds but others are
+      // not; see DefaultGridSampler.
+      throw NotFoundException.getNotFoundInstance();
+    }
+  }
+
+}
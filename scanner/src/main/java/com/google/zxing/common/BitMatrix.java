@@ -35,10 +35,10 @@ import java.util.Arrays;
  */
 public final class BitMatrix implements Cloneable {
 
-  private final int width;
-  private final int height;
-  private final int rowSize;
-  private final int[] bits;
+  private int width;
+  private int height;
+  private int rowSize;
+  private int[] bits;
 
   /**
    * Creates an empty square {@code BitMatrix}.
@@ -173,6 +173,26 @@ public final class BitMatrix implements Cloneable {
     bits[offset] |= 1 << (x & 0x1f);
   }
 
+  /**
+   * Sets the bits of row {@code y} that are set in {@code mask}, bit 0 of the mask going to column
+   * {@code x}. The mask must not reach past the end of the row.
+   *
+   * @param x The horizontal component of bit 0 of the mask
+   * @param y The row
+   * @param mask up to 32 bits to set
+   */
+  public void setBits(int x, int y, int mask) {
+    int offset = y * rowSize + (x / 32);
+    int shift = x & 0x1f;
+    bits[offset] |= mask << shift;
+    if (shift != 0) {
+      int spill = mask >>> (32 - shift);
+      if (spill != 0) {
+        bits[offset + 1] |= spill;
+      }
+    }
+  }
+
   public void unset(int x, int y) {
     int offset = y * rowSize + (x / 32);
     bits[offset] &= ~(1 << (x & 0x1f));
@@ -200,13 +220,9 @@ public final class BitMatrix implements Cloneable {
         || rowSize != mask.getRowSize()) {
       throw new IllegalArgumentException("input matrix dimensions do not match");
     }
-    BitArray rowArray = new BitArray(width);
-    for (int y = 0; y < height; y++) {
-      int offset = y * rowSize;
-      int[] row = mask.getRow(y, rowArray).getBitArray();
-      for (int x = 0; x < rowSize; x++) {
-        bits[offset + x] ^= row[x];
-      }
+    int[] maskBits = mask.bits;
+    for (int i = 0; i < bits.length; i++) {
+      bits[i] ^= maskBits[i];
     }
   }
 
@@ -277,6 +293,154 @@ public final class BitMatrix implements Cloneable {
     System.arraycopy(row.getBitArray(), 0, bits, y * rowSize, rowSize);
   }
 
+  /**
+   * Copies the words of one row out of the matrix, without going through a {@link BitArray}.
+   *
+   * @param y The row to retrieve
+   * @param words An optional caller-allocated array, will be allocated if null or too small
+   * @return {@link #getRowSize()} words of the row, the least significant bit of the first word
+   *         being column 0 - this reference should always be used even when passing your own array
+   */
+  public int[] getRowWords(int y, int[] words) {
+    if (words == null || words.length < rowSize) {
+      words = new int[rowSize];
+    }
+    System.arraycopy(bits, y * rowSize, words, 0, rowSize);
+    return words;
+  }
+
+  /**
+   * @param y row to set
+   * @param words {@link #getRowSize()} words to copy in, laid out as by
+   *   {@link #getRowWords(int, int[])}; bits past the width of the matrix must be clear
+   */
+  public void setRowWords(int y, int[] words) {
+    System.arraycopy(words, 0, bits, y * rowSize, rowSize);
+  }
+
+  /**
+   * Points a view at one row of the matrix. The view reads the words of this matrix directly, so
+   * it sees later changes to the row, until the matrix is rotated by {@link #rotate90()}.
+   *
+   * @param y The row to view
+   * @param view An optional caller-allocated view to reuse
+   * @return a view of row y - this reference should always be used even when passing your own view
+   */
+  public RowView getRowView(int y, RowView view) {
+    if (y < 0 || y >= height) {
+      throw new IllegalArgumentException("Row out of range: " + y);
+    }
+    if (view == null) {
+      view = new RowView();
+    }
+    view.bits = bits;
+    view.offset = y * rowSize;
+    view.rowSize = rowSize;
+    view.width = width;
+    return view;
+  }
+
+  /**
+   * Counts the set bits in a region, a word at a time.
+   *
+   * @param left The horizontal position to begin at (inclusive)
+   * @param top The vertical position to begin at (inclusive)
+   * @param width The width of the region
+   * @param height The height of the region
+   * @return number of set bits in the region
+   */
+  public int countSetBits(int left, int top, int width, int height) {
+    if (top < 0 || left < 0) {
+      throw new IllegalArgumentException("Left and top must be nonnegative");
+    }
+    if (height < 1 || width < 1) {
+      throw new IllegalArgumentException("Height and width must be at least 1");
+    }
+    int right = left + width;
+    int bottom = top + height;
+    if (bottom > this.height || right > this.width) {
+      throw new IllegalArgumentException("The region must fit inside the matrix");
+    }
+    int firstWord = left / 32;
+    int lastWord = (right - 1) / 32;
+    int firstMask = -1 << (left & 0x1f);
+    int lastMask = -1 >>> (31 - ((right - 1) & 0x1f));
+    int count = 0;
+    for (int y = top; y < bottom; y++) {
+      int offset = y * rowSize;
+      if (firstWord == lastWord) {
+        count += Integer.bitCount(bits[offset + firstWord] & firstMask & lastMask);
+      } else {
+        count += Integer.bitCount(bits[offset + firstWord] & firstMask);
+        for (int x32 = firstWord + 1; x32 < lastWord; x32++) {
+          count += Integer.bitCount(bits[offset + x32]);
+        }
+        count += Integer.bitCount(bits[offset + lastWord] & lastMask);
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Mirrors the matrix along its main diagonal, 32 x 32 bits at a time, so that columns can be
+   * read as rows.
+   *
+   * @return a new {@code BitMatrix} whose bit (x, y) is bit (y, x) of this one
+   */
+  public BitMatrix transpose() {
+    int newRowSize = (height + 31) / 32;
+    int[] newBits = new int[newRowSize * width];
+    int[] block = new int[32];
+    for (int y32 = 0; y32 < newRowSize; y32++) {
+      int rows = Math.min(32, height - y32 * 32);
+      for (int x32 = 0; x32 < rowSize; x32++) {
+        for (int k = 0; k < rows; k++) {
+          block[k] = bits[(y32 * 32 + k) * rowSize + x32];
+        }
+        for (int k = rows; k < 32; k++) {
+          block[k] = 0;
+        }
+        transpose32(block);
+        int columns = Math.min(32, width - x32 * 32);
+        for (int k = 0; k < columns; k++) {
+          newBits[(x32 * 32 + k) * newRowSize + y32] = block[k];
+        }
+      }
+    }
+    return new BitMatrix(height, width, newRowSize, newBits);
+  }
+
+  /**
+   * Transposes a 32 x 32 block held one row per word, by swapping ever smaller sub-blocks
+   * (Hacker's Delight, 7-3).
+   */
+  private static void transpose32(int[] block) {
+    for (int j = 16, m = 0x0000FFFF; j != 0; j >>>= 1, m ^= m << j) {
+      for (int k = 0; k < 32; k = (k + j + 1) & ~j) {
+        int t = ((block[k] >>> j) ^ block[k + j]) & m;
+        block[k] ^= t << j;
+        block[k + j] ^= t;
+      }
+    }
+  }
+
+  /**
+   * Modifies this {@code BitMatrix} to represent the same but rotated 90 degrees counterclockwise
+   */
+  public void rotate90() {
+    BitMatrix transposed = transpose();
+    int newRowSize = transposed.rowSize;
+    int newHeight = transposed.height;
+    int[] newBits = new int[newRowSize * newHeight];
+    for (int y = 0; y < newHeight; y++) {
+      System.arraycopy(transposed.bits, y * newRowSize, newBits, (newHeight - 1 - y) * newRowSize, newRowSize);
+    }
+    width = transposed.width;
+    height = newHeight;
+    rowSize = newRowSize;
+    bits = newBits;
+  }
+
   /**
    * Modifies this {@code BitMatrix} to represent the same but rotated 180 degrees
    */
@@ -413,6 +577,14 @@ public final class BitMatrix implements Cloneable {
     return rowSize;
   }
 
+  /**
+   * @return the backing words, {@link #getRowSize()} per row, bit 0 of a word being its leftmost
+   *   column; shared with this matrix, not a copy
+   */
+  int[] getBitArray() {
+    return bits;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (!(o instanceof BitMatrix)) {
@@ -478,4 +650,127 @@ public final class BitMatrix implements Cloneable {
     return new BitMatrix(width, height, rowSize, bits.clone());
   }
 
+  /**
+   * <p>A read-only view of one row of a {@link BitMatrix}, sharing its words, for scanning a row
+   * without copying it into a {@link BitArray}. Runs of equal bits are skipped a word at a
+   * time.</p>
+   *
+   * <p>One view can be pointed at row after row with {@link BitMatrix#getRowView(int, RowView)}.</p>
+   */
+  public static final class RowView {
+
+    private int[] bits;
+    private int offset;
+    private int rowSize;
+    private int width;
+
+    /**
+     * @return number of bits in the row
+     */
+    public int getSize() {
+      return width;
+    }
+
+    /**
+     * @param x bit to get
+     * @return true iff bit x is set
+     */
+    public boolean get(int x) {
+      return ((bits[offset + (x / 32)] >>> (x & 0x1f)) & 1) != 0;
+    }
+
+    /**
+     * @param x first bit to get
+     * @param count number of bits to get, 1 to 32, not reaching past the end of the row
+     * @return bits x to x + count - 1, bit x being the least significant
+     */
+    public int getBits(int x, int count) {
+      int index = offset + (x / 32);
+      int shift = x & 0x1f;
+      int value = bits[index] >>> shift;
+      if (shift + count > 32) {
+        value |= bits[index + 1] << (32 - shift);
+      }
+      return count == 32 ? value : value & ((1 << count) - 1);
+    }
+
+    /**
+     * @param from first bit to check
+     * @return index of first bit that is set, starting from the given index, or the size of the
+     *   row if none are set at or beyond this given index
+     */
+    public int getNextSet(int from) {
+      if (from >= width) {
+        return width;
+      }
+      int word = from / 32;
+      int currentBits = bits[offset + word] & (-1 << (from & 0x1f));
+      while (currentBits == 0) {
+        if (++word == rowSize) {
+          return width;
+        }
+        currentBits = bits[offset + word];
+      }
+      return Math.min(word * 32 + Integer.numberOfTrailingZeros(currentBits), width);
+    }
+
+    /**
+     * @param from index to start looking for unset bit
+     * @return index of next unset bit, or the size of the row if none are unset at or beyond it
+     */
+    public int getNextUnset(int from) {
+      if (from >= width) {
+        return width;
+      }
+      int word = from / 32;
+      int currentBits = ~bits[offset + word] & (-1 << (from & 0x1f));
+      while (currentBits == 0) {
+        if (++word == rowSize) {
+          return width;
+        }
+        currentBits = ~bits[offset + word];
+      }
+      return Math.min(word * 32 + Integer.numberOfTrailingZeros(currentBits), width);
+    }
+
+    /**
+     * @param from last bit to check
+     * @return index of the last set bit at or before the given index, or -1 if there is none
+     */
+    public int getPreviousSet(int from) {
+      if (from < 0) {
+        return -1;
+      }
+      int word = from / 32;
+      int currentBits = bits[offset + word] & (-1 >>> (31 - (from & 0x1f)));
+      while (currentBits == 0) {
+        if (--word < 0) {
+          return -1;
+        }
+        currentBits = bits[offset + word];
+      }
+      return word * 32 + 31 - Integer.numberOfLeadingZeros(currentBits);
+    }
+
+    /**
+     * @param from last bit to check
+     * @return index of the last unset bit at or before the given index, or -1 if there is none
+     */
+    public int getPreviousUnset(int from) {
+      if (from < 0) {
+        return -1;
+      }
+      int word = from / 32;
+      int currentBits = ~bits[offset + word] & (-1 >>> (31 - (from & 0x1f)));
+      while (currentBits == 0) {
+        if (--word < 0) {
+          return -1;
+        }
+        currentBits = ~bits[offset + word];
+      }
+      return word * 32 + 31 - Integer.numberOfLeadingZeros(currentBits);
+    }
+
+  }
+
 }
@@ -37,19 +37,50 @@ public class GlobalHistogramBinarizer extends Binarizer {
   private static final int LUMINANCE_SHIFT = 8 - LUMINANCE_BITS;
   private static final int LUMINANCE_BUCKETS = 1 << LUMINANCE_BITS;
   private static final byte[] EMPTY = new byte[0];
+  // A row with at most one edge between black and white in this many pixels is thresholded with
+  // branches, see packSmoothWord
+  private static final int SMOOTH_EDGE_SHIFT = 6;
 
   private byte[] luminances;
   private final int[] buckets;
+  private BitArray packedRow;
 
   public GlobalHistogramBinarizer(LuminanceSource source) {
+    this(source, null);
+  }
+
+  /**
+   * Creates a binarizer which takes over the working buffers of one used on an earlier frame, so
+   * that continuous scanning does not reallocate them for every frame. The earlier binarizer must
+   * not be used afterwards.
+   *
+   * @param source luminance data of the new frame
+   * @param recycled binarizer used on the previous frame, or {@code null}
+   */
+  public GlobalHistogramBinarizer(LuminanceSource source, GlobalHistogramBinarizer recycled) {
     super(source);
-    luminances = EMPTY;
-    buckets = new int[LUMINANCE_BUCKETS];
+    if (recycled == null) {
+      luminances = EMPTY;
+      buckets = new int[LUMINANCE_BUCKETS];
+    } else {
+      luminances = recycled.luminances;
+      buckets = recycled.buckets;
+      packedRow = recycled.packedRow;
+    }
   }
 
   // Applies simple sharpening to the row data to improve performance of the 1D Readers.
   @Override
   public BitArray getBlackRow(int y, BitArray row) throws NotFoundException {
+    BitArray blackRow = getBlackRowOrNull(y, row);
+    if (blackRow == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return blackRow;
+  }
+
+  @Override
+  public BitArray getBlackRowOrNull(int y, BitArray row) {
     LuminanceSource source = getLuminanceSource();
     int width = source.getWidth();
     if (row == null || row.getSize() < width) {
@@ -65,6 +96,9 @@ public class GlobalHistogramBinarizer extends Binarizer {
       localBuckets[(localLuminances[x] & 0xff) >> LUMINANCE_SHIFT]++;
     }
     int blackPoint = estimateBlackPoint(localBuckets);
+    if (blackPoint < 0) {
+      return null;
+    }
 
     if (width < 3) {
       // Special case for very small images
@@ -92,10 +126,18 @@ public class GlobalHistogramBinarizer extends Binarizer {
   // Does not sharpen the data, as this call is intended to only be used by 2D Readers.
   @Override
   public BitMatrix getBlackMatrix() throws NotFoundException {
+    BitMatrix matrix = getBlackMatrixOrNull();
+    if (matrix == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return matrix;
+  }
+
+  @Override
+  public BitMatrix getBlackMatrixOrNull() {
     LuminanceSource source = getLuminanceSource();
     int width = source.getWidth();
     int height = source.getHeight();
-    BitMatrix matrix = new BitMatrix(width, height);
 
     // Quickly calculates the histogram by sampling four rows from the image. This proved to be
     // more robust on the blackbox tests than sampling a diagonal as we used to do.
@@ -105,25 +147,56 @@ public class GlobalHistogramBinarizer extends Binarizer {
       int row = height * y / 5;
       byte[] localLuminances = source.getRow(row, luminances);
       int right = (width * 4) / 5;
-      for (int x = width / 5; x < right; x++) {
-        int pixel = localLuminances[x] & 0xff;
-        localBuckets[pixel >> LUMINANCE_SHIFT]++;
+      int x = width / 5;
+      // Unrolled so the loads of four pixels are independent of the bucket updates.
+      for (; x + 4 <= right; x += 4) {
+        int p0 = localLuminances[x] & 0xff;
+        int p1 = localLuminances[x + 1] & 0xff;
+        int p2 = localLuminances[x + 2] & 0xff;
+        int p3 = localLuminances[x + 3] & 0xff;
+        localBuckets[p0 >> LUMINANCE_SHIFT]++;
+        localBuckets[p1 >> LUMINANCE_SHIFT]++;
+        localBuckets[p2 >> LUMINANCE_SHIFT]++;
+        localBuckets[p3 >> LUMINANCE_SHIFT]++;
+      }
+      for (; x < right; x++) {
+        localBuckets[(localLuminances[x] & 0xff) >> LUMINANCE_SHIFT]++;
       }
     }
     int blackPoint = estimateBlackPoint(localBuckets);
+    if (blackPoint < 0) {
+      return null;
+    }
+    BitMatrix matrix = new BitMatrix(width, height);
 
     // We delay reading the entire image luminance until the black point estimation succeeds.
     // Although we end up reading four rows twice, it is consistent with our motto of
-    // "fail quickly" which is necessary for continuous scanning.
-    byte[] localLuminances = source.getMatrix();
+    // "fail quickly" which is necessary for continuous scanning. Rows are read one at a time into
+    // the reused buffer and thresholded 32 pixels per word, which avoids copying the whole image
+    // and a read-modify-write of the matrix for every dark pixel.
+    if (packedRow == null || packedRow.getSize() != width) {
+      packedRow = new BitArray(width);
+    }
+    int[] words = packedRow.getBitArray();
+    int fullWords = width >> 5;
+    int maxSmoothEdges = width >> SMOOTH_EDGE_SHIFT;
+    boolean smooth = false;
     for (int y = 0; y < height; y++) {
-      int offset = y * width;
-      for (int x = 0; x < width; x++) {
-        int pixel = localLuminances[offset + x] & 0xff;
-        if (pixel < blackPoint) {
-          matrix.set(x, y);
-        }
+      byte[] localLuminances = source.getRow(y, luminances);
+      int x = 0;
+      int edges = 0;
+      for (int i = 0; i < fullWords; i++, x += 32) {
+        int word = smooth ? packSmoothWord(localLuminances, x, blackPoint) :
+            packWord(localLuminances, x, blackPoint);
+        words[i] = word;
+        edges += Integer.bitCount(word ^ (word >>> 1));
       }
+      if (x < width) {
+        words[fullWords] = packPartialWord(localLuminances, x, width - x, blackPoint);
+      }
+      matrix.setRow(y, packedRow);
+      // Rows look like the row above, so this one says how to threshold the next
+      smooth = edges <= maxSmoothEdges;
     }
 
     return matrix;
@@ -134,6 +207,51 @@ public class GlobalHistogramBinarizer extends Binarizer {
     return new GlobalHistogramBinarizer(source);
   }
 
+  /**
+   * Thresholds the 32 pixels starting at {@code offset} into the bits of one word, the first pixel
+   * going to the lowest bit. A pixel is black when {@code pixel - blackPoint} is negative, so its
+   * sign bit is the matrix bit and no branch is needed. The four bytes of the word are packed side
+   * by side, so their ors do not wait on each other.
+   */
+  private static int packWord(byte[] luminances, int offset, int blackPoint) {
+    int word0 = 0;
+    int word1 = 0;
+    int word2 = 0;
+    int word3 = 0;
+    for (int bit = 0; bit < 8; bit++) {
+      word0 |= (((luminances[offset + bit] & 0xff) - blackPoint) >>> 31) << bit;
+      word1 |= (((luminances[offset + 8 + bit] & 0xff) - blackPoint) >>> 31) << bit;
+      word2 |= (((luminances[offset + 16 + bit] & 0xff) - blackPoint) >>> 31) << bit;
+      word3 |= (((luminances[offset + 24 + bit] & 0xff) - blackPoint) >>> 31) << bit;
+    }
+    return word0 | (word1 << 8) | (word2 << 16) | (word3 << 24);
+  }
+
+  /**
+   * Like {@link #packWord}, but branches on each pixel, which is cheaper where the branch is
+   * predictable: in rows that are mostly background, with few edges between black and white.
+   */
+  private static int packSmoothWord(byte[] luminances, int offset, int blackPoint) {
+    int word = 0;
+    for (int bit = 0; bit < 32; bit++) {
+      if ((luminances[offset + bit] & 0xff) < blackPoint) {
+        word |= 1 << bit;
+      }
+    }
+    return word;
+  }
+
+  /**
+   * Thresholds the last {@code count} pixels of a row, fewer than 32, like {@link #packWord}.
+   */
+  private static int packPartialWord(byte[] luminances, int offset, int count, int blackPoint) {
+    int word = 0;
+    for (int bit = 0; bit < count; bit++) {
+      word |= (((luminances[offset + bit] & 0xff) - blackPoint) >>> 31) << bit;
+    }
+    return word;
+  }
+
   private void initArrays(int luminanceSize) {
     if (luminances.length < luminanceSize) {
       luminances = new byte[luminanceSize];
@@ -143,7 +261,10 @@ public class GlobalHistogramBinarizer extends Binarizer {
     }
   }
 
-  private static int estimateBlackPoint(int[] buckets) throws NotFoundException {
+  /**
+   * @return the black point, or -1 if there is too little contrast to pick one
+   */
+  private static int estimateBlackPoint(int[] buckets) {
     // Find the tallest peak in the histogram.
     int numBuckets = buckets.length;
     int maxBucketCount = 0;
@@ -179,10 +300,10 @@ public class GlobalHistogramBinarizer extends Binarizer {
       secondPeak = temp;
     }
 
-    // If there is too little contrast in the image to pick a meaningful black point, throw rather
+    // If there is too little contrast in the image to pick a meaningful black point, give up rather
     // than waste time trying to decode the image, and risk false positives.
     if (secondPeak - firstPeak <= numBuckets / 16) {
-      throw NotFoundException.getNotFoundInstance();
+      return -1;
     }
 
     // Find a valley between them that is low and closer to the white peak.
@@ -35,6 +35,10 @@ import com.google.zxing.NotFoundException;
  *
  * This Binarizer is the default for the unit tests and the recommended class for library users.
  *
+ * For continuous scanning, pass the binarizer of the previous frame to
+ * {@link #HybridBinarizer(LuminanceSource, HybridBinarizer)}: the luminance buffer, the block
+ * tables and the matrix are then only allocated again when the frame size changes.
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  */
 public final class HybridBinarizer extends GlobalHistogramBinarizer {
@@ -48,9 +52,41 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
   private static final int MIN_DYNAMIC_RANGE = 24;
 
   private BitMatrix matrix;
+  private BitMatrix recycledMatrix;
+  private int[] blackPoints;
+  private int[] blackPointSums;
+  private byte[] luminanceMatrix;
+  private byte[] luminanceRow;
 
   public HybridBinarizer(LuminanceSource source) {
-    super(source);
+    this(source, null);
+  }
+
+  /**
+   * Creates a binarizer which takes over the matrix and working buffers of one used on an earlier
+   * frame. The earlier binarizer, and any matrix it returned, must not be used afterwards.
+   *
+   * @param source luminance data of the new frame
+   * @param recycled binarizer used on the previous frame, or {@code null}
+   */
+  public HybridBinarizer(LuminanceSource source, HybridBinarizer recycled) {
+    super(source, recycled);
+    if (recycled != null) {
+      recycledMatrix = recycled.matrix != null ? recycled.matrix : recycled.recycledMatrix;
+      blackPoints = recycled.blackPoints;
+      blackPointSums = recycled.blackPointSums;
+      luminanceMatrix = recycled.luminanceMatrix;
+      luminanceRow = recycled.luminanceRow;
+    }
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    BitMatrix matrix = getBlackMatrixOrNull();
+    if (matrix == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return matrix;
   }
 
   /**
@@ -59,7 +95,7 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
    * profiling easier, and not doing heavy lifting when callers don't expect it.
    */
   @Override
-  public BitMatrix getBlackMatrix() throws NotFoundException {
+  public BitMatrix getBlackMatrixOrNull() {
     if (matrix != null) {
       return matrix;
     }
@@ -67,7 +103,7 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     int width = source.getWidth();
     int height = source.getHeight();
     if (width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
-      byte[] luminances = source.getMatrix();
+      byte[] luminances = readLuminances(source, width, height);
       int subWidth = width >> BLOCK_SIZE_POWER;
       if ((width & BLOCK_SIZE_MASK) != 0) {
         subWidth++;
@@ -76,14 +112,29 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
       if ((height & BLOCK_SIZE_MASK) != 0) {
         subHeight++;
       }
-      int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
+      int blocks = subWidth * subHeight;
+      if (blackPoints == null || blackPoints.length < blocks) {
+        blackPoints = new int[blocks];
+      }
+      int sums = (subWidth + 1) * (subHeight + 1);
+      if (blackPointSums == null || blackPointSums.length < sums) {
+        blackPointSums = new int[sums];
+      }
+      calculateBlackPoints(luminances, subWidth, subHeight, width, height, blackPoints);
+      calculateBlackPointSums(blackPoints, subWidth, subHeight, blackPointSums);
 
-      BitMatrix newMatrix = new BitMatrix(width, height);
-      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, newMatrix);
+      BitMatrix newMatrix = recycledMatrix;
+      recycledMatrix = null;
+      if (newMatrix != null && newMatrix.getWidth() == width && newMatrix.getHeight() == height) {
+        newMatrix.clear();
+      } else {
+        newMatrix = new BitMatrix(width, height);
+      }
+      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPointSums, newMatrix);
       matrix = newMatrix;
     } else {
       // If the image is too small, fall back to the global histogram approach.
-      matrix = super.getBlackMatrix();
+      matrix = super.getBlackMatrixOrNull();
     }
     return matrix;
   }
@@ -93,18 +144,60 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
     return new HybridBinarizer(source);
   }
 
+  /**
+   * Copies the luminance of the whole frame, row by row, into the matrix buffer kept across frames.
+   * {@link LuminanceSource#getMatrix()} would allocate a new array for every cropped frame.
+   */
+  private byte[] readLuminances(LuminanceSource source, int width, int height) {
+    int size = width * height;
+    if (luminanceMatrix == null || luminanceMatrix.length < size) {
+      luminanceMatrix = new byte[size];
+    }
+    for (int y = 0; y < height; y++) {
+      luminanceRow = source.getRow(y, luminanceRow);
+      System.arraycopy(luminanceRow, 0, luminanceMatrix, y * width, width);
+    }
+    return luminanceMatrix;
+  }
+
+  /**
+   * Builds a summed-area table over the block black points: entry (x, y), in a table one wider and
+   * one taller than the block grid, holds the sum of all black points above and to the left of
+   * block (x, y).
+   */
+  private static void calculateBlackPointSums(int[] blackPoints,
+                                              int subWidth,
+                                              int subHeight,
+                                              int[] sums) {
+    int stride = subWidth + 1;
+    for (int x = 0; x < stride; x++) {
+      sums[x] = 0;
+    }
+    for (int y = 0; y < subHeight; y++) {
+      int offset = (y + 1) * stride;
+      int rowSum = 0;
+      sums[offset] = 0;
+      for (int x = 0; x < subWidth; x++) {
+        rowSum += blackPoints[y * subWidth + x];
+        sums[offset + x + 1] = sums[offset - stride + x + 1] + rowSum;
+      }
+    }
+  }
+
   /**
    * For each block in the image, calculate the average black point using a 5x5 grid
    * of the blocks around it. Also handles the corner cases (fractional blocks are computed based
    * on the last pixels in the row/column which are also used in the previous block).
+   * The 5x5 sums are read from the summed-area table, four lookups per block.
    */
   private static void calculateThresholdForBlock(byte[] luminances,
                                                  int subWidth,
                                                  int subHeight,
                                                  int width,
                                                  int height,
-                                                 int[][] blackPoints,
+                                                 int[] blackPointSums,
                                                  BitMatrix matrix) {
+    int stride = subWidth + 1;
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
     for (int y = 0; y < subHeight; y++) {
@@ -113,17 +206,16 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
         yoffset = maxYOffset;
       }
       int top = cap(y, 2, subHeight - 3);
+      int above = (top - 2) * stride;
+      int below = (top + 3) * stride;
       for (int x = 0; x < subWidth; x++) {
         int xoffset = x << BLOCK_SIZE_POWER;
         if (xoffset > maxXOffset) {
           xoffset = maxXOffset;
         }
         int left = cap(x, 2, subWidth - 3);
-        int sum = 0;
-        for (int z = -2; z <= 2; z++) {
-          int[] blackRow = blackPoints[top + z];
-          sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
-        }
+        int sum = blackPointSums[below + left + 3] - blackPointSums[below + left - 2] -
+            blackPointSums[above + left + 3] + blackPointSums[above + left - 2];
         int average = sum / 25;
         thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
       }
@@ -144,28 +236,31 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
                                      int stride,
                                      BitMatrix matrix) {
     for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
+      int mask = 0;
       for (int x = 0; x < BLOCK_SIZE; x++) {
-        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0.
-        if ((luminances[offset + x] & 0xFF) <= threshold) {
-          matrix.set(xoffset + x, yoffset + y);
-        }
+        // Comparison needs to be <= so that black == 0 pixels are black even if the threshold is 0:
+        // the bit is set when threshold - pixel is not negative.
+        mask |= (~(threshold - (luminances[offset + x] & 0xFF)) >>> 31) << x;
+      }
+      if (mask != 0) {
+        matrix.setBits(xoffset, yoffset + y, mask);
       }
     }
   }
 
   /**
-   * Calculates a single black point for each block of pixels and saves it away.
+   * Calculates a single black point for each block of pixels and saves it away, row by row.
    * See the following thread for a discussion of this algorithm:
    *  http://groups.google.com/group/zxing/browse_thread/thread/d06efa2c35a7ddc0
    */
-  private static int[][] calculateBlackPoints(byte[] luminances,
-                                              int subWidth,
-                                              int subHeight,
-                                              int width,
-                                              int height) {
+  private static void calculateBlackPoints(byte[] luminances,
+                                           int subWidth,
+                                           int subHeight,
+                                           int width,
+                                           int height,
+                                           int[] blackPoints) {
     int maxYOffset = height - BLOCK_SIZE;
     int maxXOffset = width - BLOCK_SIZE;
-    int[][] blackPoints = new int[subHeight][subWidth];
     for (int y = 0; y < subHeight; y++) {
       int yoffset = y << BLOCK_SIZE_POWER;
       if (yoffset > maxYOffset) {
@@ -221,17 +316,17 @@ public final class HybridBinarizer extends GlobalHistogramBinarizer {
             // the boundaries is used for the interior.
 
             // The (min < bp) is arbitrary but works better than other heuristics that were tried.
+            int index = y * subWidth + x;
             int averageNeighborBlackPoint =
-                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+                (blackPoints[index - subWidth] + (2 * blackPoints[index - 1]) + blackPoints[index - subWidth - 1]) / 4;
             if (min < averageNeighborBlackPoint) {
               average = averageNeighborBlackPoint;
             }
           }
         }
-        blackPoints[y][x] = average;
+        blackPoints[y * subWidth + x] = average;
       }
     }
-    return blackPoints;
   }
 
 }
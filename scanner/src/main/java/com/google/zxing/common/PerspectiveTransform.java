@@ -63,6 +63,13 @@ public final class PerspectiveTransform {
     return sToQ.times(qToS);
   }
 
+  /**
+   * @return the projective denominator at (x, y); constant over the plane for an affine transform
+   */
+  float denominator(float x, float y) {
+    return a13 * x + a23 * y + a33;
+  }
+
   public void transformPoints(float[] points) {
     float a11 = this.a11;
     float a12 = this.a12;
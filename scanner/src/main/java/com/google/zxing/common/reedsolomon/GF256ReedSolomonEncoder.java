@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Reed-Solomon encoding over the 8-bit fields used by QR Code and Data Matrix. Produces the
+ * same error correction codewords as {@link ReedSolomonEncoder}, but divides by the generator
+ * with a shift register and a full 256 x 256 multiplication table instead of building
+ * {@link GenericGFPoly} objects, so each data codeword costs one table lookup per error
+ * correction codeword.</p>
+ *
+ * <p>Instances are shared and thread-safe; generators are built once per error correction
+ * length.</p>
+ */
+public final class GF256ReedSolomonEncoder {
+
+  private static final GF256ReedSolomonEncoder QR_CODE =
+      new GF256ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256);
+  private static final GF256ReedSolomonEncoder DATA_MATRIX =
+      new GF256ReedSolomonEncoder(GenericGF.DATA_MATRIX_FIELD_256);
+
+  private final GenericGF field;
+  // multiplication[(a << 8) | b] == a * b
+  private final byte[] multiplication;
+  // Indexed by degree: the generator coefficients below the leading 1, highest degree first,
+  // each shifted left by 8 to index a row of the multiplication table.
+  private final AtomicReferenceArray<int[]> generators;
+
+  private GF256ReedSolomonEncoder(GenericGF field) {
+    this.field = field;
+    multiplication = new byte[256 * 256];
+    for (int a = 1; a < 256; a++) {
+      for (int b = 1; b < 256; b++) {
+        multiplication[(a << 8) | b] = (byte) field.multiply(a, b);
+      }
+    }
+    generators = new AtomicReferenceArray<>(256);
+  }
+
+  /**
+   * @param field {@link GenericGF#QR_CODE_FIELD_256} or {@link GenericGF#DATA_MATRIX_FIELD_256}
+   * @return the shared encoder for that field
+   */
+  public static GF256ReedSolomonEncoder forField(GenericGF field) {
+    if (field == GenericGF.QR_CODE_FIELD_256) {
+      return QR_CODE;
+    }
+    if (field == GenericGF.DATA_MATRIX_FIELD_256) {
+      return DATA_MATRIX;
+    }
+    throw new IllegalArgumentException("No table-driven encoder for " + field);
+  }
+
+  /**
+   * Same contract as {@link ReedSolomonEncoder#encode(int[], int)}: the last {@code ecBytes}
+   * elements of {@code toEncode} are replaced by the error correction codewords for the others.
+   */
+  public void encode(int[] toEncode, int ecBytes) {
+    int dataBytes = checkLengths(toEncode.length, ecBytes);
+    int[] generator = getGenerator(ecBytes);
+    byte[] multiplication = this.multiplication;
+    // The remainder is kept in place, highest degree first.
+    int last = toEncode.length - 1;
+    for (int i = dataBytes; i <= last; i++) {
+      toEncode[i] = 0;
+    }
+    for (int i = 0; i < dataBytes; i++) {
+      int feedback = toEncode[i] ^ toEncode[dataBytes];
+      for (int j = dataBytes; j < last; j++) {
+        toEncode[j] = toEncode[j + 1] ^ (multiplication[generator[j - dataBytes] | feedback] & 0xFF);
+      }
+      toEncode[last] = multiplication[generator[ecBytes - 1] | feedback] & 0xFF;
+    }
+  }
+
+  /**
+   * Computes {@code ecBytes.length} error correction codewords for {@code dataBytes}.
+   *
+   * @param dataBytes data codewords, left unchanged
+   * @param ecBytes receives the error correction codewords
+   */
+  public void encode(byte[] dataBytes, byte[] ecBytes) {
+    int numEcBytes = ecBytes.length;
+    checkLengths(dataBytes.length + numEcBytes, numEcBytes);
+    int[] generator = getGenerator(numEcBytes);
+    byte[] multiplication = this.multiplication;
+    int last = numEcBytes - 1;
+    for (int i = 0; i <= last; i++) {
+      ecBytes[i] = 0;
+    }
+    for (byte dataByte : dataBytes) {
+      int feedback = (dataByte ^ ecBytes[0]) & 0xFF;
+      for (int j = 0; j < last; j++) {
+        ecBytes[j] = (byte) (ecBytes[j + 1] ^ multiplication[generator[j] | feedback]);
+      }
+      ecBytes[last] = multiplication[generator[last] | feedback];
+    }
+  }
+
+  private static int checkLengths(int length, int ecBytes) {
+    if (ecBytes == 0) {
+      throw new IllegalArgumentException("No error correction bytes");
+    }
+    int dataBytes = length - ecBytes;
+    if (dataBytes <= 0) {
+      throw new IllegalArgumentException("No data bytes provided");
+    }
+    return dataBytes;
+  }
+
+  private int[] getGenerator(int degree) {
+    if (degree >= generators.length()) {
+      return buildGenerator(degree);
+    }
+    int[] generator = generators.get(degree);
+    if (generator == null) {
+      // Racing threads build equal generators, so whichever is stored does not matter.
+      generator = buildGenerator(degree);
+      generators.set(degree, generator);
+    }
+    return generator;
+  }
+
+  /**
+   * Multiplies out (x - a^b)(x - a^(b+1))...(x - a^(b+degree-1)).
+   */
+  private int[] buildGenerator(int degree) {
+    // coefficients[i] is the coefficient of x^(degree - i)
+    int[] coefficients = new int[degree + 1];
+    coefficients[0] = 1;
+    for (int d = 0; d < degree; d++) {
+      int root = field.exp(d + field.getGeneratorBase());
+      for (int i = d + 1; i > 0; i--) {
+        coefficients[i] ^= field.multiply(coefficients[i - 1], root);
+      }
+    }
+    int[] generator = new int[degree];
+    for (int i = 0; i < degree; i++) {
+      generator[i] = coefficients[i + 1] << 8;
+    }
+    return generator;
+  }
+
+}
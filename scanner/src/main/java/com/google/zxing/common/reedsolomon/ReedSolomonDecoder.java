@@ -42,6 +42,15 @@ public final class ReedSolomonDecoder {
 
   private final GenericGF field;
 
+  // Workspaces, reused from one block to the next and only grown when a block needs more.
+  private int[] syndromes = new int[0];
+  private int[] locator = new int[0];
+  private int[] previousLocator = new int[0];
+  private int[] scratch = new int[0];
+  private int[] evaluator = new int[0];
+  private int[] errorLocations = new int[0];
+  private int[] chienTerms = new int[0];
+
   public ReedSolomonDecoder(GenericGF field) {
     this.field = field;
   }
@@ -51,140 +60,218 @@ public final class ReedSolomonDecoder {
    * codewords. Really, this means it uses Reed-Solomon to detect and correct errors, in-place,
    * in the input.</p>
    *
+   * <p>The error locator is found with the Berlekamp-Massey algorithm and the magnitudes with
+   * Forney's formula, all on {@code int[]} workspaces owned by this decoder, so decoding does not
+   * allocate once the workspaces have grown to the block size. As with the readers that use it,
+   * an instance must not be used by several threads at once.</p>
+   *
    * @param received data and error-correction codewords
    * @param twoS number of error-correction codewords available
    * @throws ReedSolomonException if decoding fails for any reason
    */
   public void decode(int[] received, int twoS) throws ReedSolomonException {
-    GenericGFPoly poly = new GenericGFPoly(field, received);
-    int[] syndromeCoefficients = new int[twoS];
-    boolean noError = true;
-    for (int i = 0; i < twoS; i++) {
-      int eval = poly.evaluateAt(field.exp(i + field.getGeneratorBase()));
-      syndromeCoefficients[syndromeCoefficients.length - 1 - i] = eval;
-      if (eval != 0) {
-        noError = false;
-      }
-    }
-    if (noError) {
+    ensureCapacity(twoS);
+    if (!calculateSyndromes(received, twoS)) {
       return;
     }
-    GenericGFPoly syndrome = new GenericGFPoly(field, syndromeCoefficients);
-    GenericGFPoly[] sigmaOmega =
-        runEuclideanAlgorithm(field.buildMonomial(twoS, 1), syndrome, twoS);
-    GenericGFPoly sigma = sigmaOmega[0];
-    GenericGFPoly omega = sigmaOmega[1];
-    int[] errorLocations = findErrorLocations(sigma);
-    int[] errorMagnitudes = findErrorMagnitudes(omega, errorLocations);
-    for (int i = 0; i < errorLocations.length; i++) {
-      int position = received.length - 1 - field.log(errorLocations[i]);
+    int numErrors = findErrorLocator(twoS);
+    findErrorLocations(numErrors);
+    findErrorEvaluator(numErrors);
+    for (int i = 0; i < numErrors; i++) {
+      int location = errorLocations[i];
+      int position = received.length - 1 - field.log(location);
       if (position < 0) {
         throw new ReedSolomonException("Bad error location");
       }
-      received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
+      received[position] = GenericGF.addOrSubtract(received[position], findErrorMagnitude(location, numErrors));
     }
   }
 
-  private GenericGFPoly[] runEuclideanAlgorithm(GenericGFPoly a, GenericGFPoly b, int R)
-      throws ReedSolomonException {
-    // Assume a's degree is >= b's
-    if (a.getDegree() < b.getDegree()) {
-      GenericGFPoly temp = a;
-      a = b;
-      b = temp;
+  private void ensureCapacity(int twoS) {
+    if (syndromes.length < twoS) {
+      syndromes = new int[twoS];
+      locator = new int[twoS + 1];
+      previousLocator = new int[twoS + 1];
+      scratch = new int[twoS + 1];
+      evaluator = new int[twoS];
+      errorLocations = new int[twoS];
+      chienTerms = new int[twoS + 1];
     }
+  }
 
-    GenericGFPoly rLast = a;
-    GenericGFPoly r = b;
-    GenericGFPoly tLast = field.getZero();
-    GenericGFPoly t = field.getOne();
-
-    // Run Euclidean algorithm until r's degree is less than R/2
-    while (r.getDegree() >= R / 2) {
-      GenericGFPoly rLastLast = rLast;
-      GenericGFPoly tLastLast = tLast;
-      rLast = r;
-      tLast = t;
-
-      // Divide rLastLast by rLast, with quotient in q and remainder in r
-      if (rLast.isZero()) {
-        // Oops, Euclidean algorithm already terminated?
-        throw new ReedSolomonException("r_{i-1} was zero");
+  /**
+   * Evaluates the received polynomial, highest degree coefficient first, at the roots of the
+   * generator polynomial.
+   *
+   * @return false if all syndromes are zero, i.e. there is nothing to correct
+   */
+  private boolean calculateSyndromes(int[] received, int twoS) {
+    int order = field.getSize() - 1;
+    boolean error = false;
+    for (int i = 0; i < twoS; i++) {
+      int power = (i + field.getGeneratorBase()) % order;
+      int eval = 0;
+      for (int coefficient : received) {
+        eval = multiplyByPower(eval, power) ^ coefficient;
       }
-      r = rLastLast;
-      GenericGFPoly q = field.getZero();
-      int denominatorLeadingTerm = rLast.getCoefficient(rLast.getDegree());
-      int dltInverse = field.inverse(denominatorLeadingTerm);
-      while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
-        int degreeDiff = r.getDegree() - rLast.getDegree();
-        int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
-        q = q.addOrSubtract(field.buildMonomial(degreeDiff, scale));
-        r = r.addOrSubtract(rLast.multiplyByMonomial(degreeDiff, scale));
+      syndromes[i] = eval;
+      if (eval != 0) {
+        error = true;
       }
+    }
+    return error;
+  }
 
-      t = q.multiply(tLast).addOrSubtract(tLastLast);
+  /**
+   * @return value * alpha^power, for 0 <= power < size - 1, without the modulo of
+   *  {@link GenericGF#multiply(int, int)}
+   */
+  private int multiplyByPower(int value, int power) {
+    if (value == 0) {
+      return 0;
+    }
+    int order = field.getSize() - 1;
+    int exponent = field.log(value) + power;
+    return field.exp(exponent >= order ? exponent - order : exponent);
+  }
 
-      if (r.getDegree() >= rLast.getDegree()) {
-        throw new IllegalStateException("Division algorithm failed to reduce polynomial?");
+  /**
+   * Berlekamp-Massey: finds the shortest error locator polynomial, lowest degree coefficient
+   * first and with a constant term of 1, that generates the syndromes.
+   *
+   * @return the number of errors, the degree of the locator
+   */
+  private int findErrorLocator(int twoS) throws ReedSolomonException {
+    int[] c = locator;
+    int[] b = previousLocator;
+    for (int i = 0; i <= twoS; i++) {
+      c[i] = 0;
+      b[i] = 0;
+    }
+    c[0] = 1;
+    b[0] = 1;
+    int length = 0;
+    int shift = 1;
+    int lastDiscrepancy = 1;
+    for (int n = 0; n < twoS; n++) {
+      int discrepancy = syndromes[n];
+      for (int i = 1; i <= length; i++) {
+        discrepancy ^= field.multiply(c[i], syndromes[n - i]);
+      }
+      if (discrepancy == 0) {
+        shift++;
+        continue;
+      }
+      int scale = field.multiply(discrepancy, field.inverse(lastDiscrepancy));
+      if (2 * length <= n) {
+        System.arraycopy(c, 0, scratch, 0, twoS + 1);
+        subtractShifted(c, b, scale, shift, twoS);
+        length = n + 1 - length;
+        int[] temp = b;
+        b = scratch;
+        scratch = temp;
+        lastDiscrepancy = discrepancy;
+        shift = 1;
+      } else {
+        subtractShifted(c, b, scale, shift, twoS);
+        shift++;
       }
     }
-
-    int sigmaTildeAtZero = t.getCoefficient(0);
-    if (sigmaTildeAtZero == 0) {
-      throw new ReedSolomonException("sigmaTilde(0) was zero");
+    // Keep the swapped buffers for the next block.
+    previousLocator = b;
+    if (2 * length > twoS) {
+      // More errors than the error-correction codewords can correct
+      throw new ReedSolomonException("Error locator degree exceeds half the error-correction codewords");
     }
+    return length;
+  }
 
-    int inverse = field.inverse(sigmaTildeAtZero);
-    GenericGFPoly sigma = t.multiply(inverse);
-    GenericGFPoly omega = r.multiply(inverse);
-    return new GenericGFPoly[]{sigma, omega};
+  /**
+   * c(x) -= scale * x^shift * b(x), up to degree {@code maxDegree}
+   */
+  private void subtractShifted(int[] c, int[] b, int scale, int shift, int maxDegree) {
+    for (int i = 0; i + shift <= maxDegree; i++) {
+      if (b[i] != 0) {
+        c[i + shift] ^= field.multiply(scale, b[i]);
+      }
+    }
   }
 
-  private int[] findErrorLocations(GenericGFPoly errorLocator) throws ReedSolomonException {
-    // This is a direct application of Chien's search
-    int numErrors = errorLocator.getDegree();
+  private void findErrorLocations(int numErrors) throws ReedSolomonException {
     if (numErrors == 1) { // shortcut
-      return new int[] { errorLocator.getCoefficient(1) };
+      if (locator[1] == 0) {
+        // The locator is the constant 1, which has no root
+        throw new ReedSolomonException("Error locator degree does not match number of roots");
+      }
+      errorLocations[0] = locator[1];
+      return;
+    }
+    // This is a direct application of Chien's search. Term j of the locator is kept as a
+    // logarithm and stepped by j for each next power of alpha, so no multiplications are needed.
+    int order = field.getSize() - 1;
+    int[] terms = chienTerms;
+    for (int j = 1; j <= numErrors; j++) {
+      terms[j] = locator[j] == 0 ? -1 : field.log(locator[j]);
     }
-    int[] result = new int[numErrors];
     int e = 0;
-    for (int i = 1; i < field.getSize() && e < numErrors; i++) {
-      if (errorLocator.evaluateAt(i) == 0) {
-        result[e] = field.inverse(i);
+    for (int power = 0; power < order && e < numErrors; power++) {
+      int value = locator[0];
+      for (int j = 1; j <= numErrors; j++) {
+        int term = terms[j];
+        if (term >= 0) {
+          value ^= field.exp(term);
+          term += j;
+          terms[j] = term >= order ? term % order : term;
+        }
+      }
+      if (value == 0) {
+        // The root is alpha^power, the error location its inverse.
+        errorLocations[e] = field.exp(power == 0 ? 0 : order - power);
         e++;
       }
     }
     if (e != numErrors) {
       throw new ReedSolomonException("Error locator degree does not match number of roots");
     }
-    return result;
   }
 
-  private int[] findErrorMagnitudes(GenericGFPoly errorEvaluator, int[] errorLocations) {
-    // This is directly applying Forney's Formula
-    int s = errorLocations.length;
-    int[] result = new int[s];
-    for (int i = 0; i < s; i++) {
-      int xiInverse = field.inverse(errorLocations[i]);
-      int denominator = 1;
-      for (int j = 0; j < s; j++) {
-        if (i != j) {
-          //denominator = field.multiply(denominator,
-          //    GenericGF.addOrSubtract(1, field.multiply(errorLocations[j], xiInverse)));
-          // Above should work but fails on some Apple and Linux JDKs due to a Hotspot bug.
-          // Below is a funny-looking workaround from Steven Parkes
-          int term = field.multiply(errorLocations[j], xiInverse);
-          int termPlus1 = (term & 0x1) == 0 ? term | 1 : term & ~1;
-          denominator = field.multiply(denominator, termPlus1);
-        }
-      }
-      result[i] = field.multiply(errorEvaluator.evaluateAt(xiInverse),
-          field.inverse(denominator));
-      if (field.getGeneratorBase() != 0) {
-        result[i] = field.multiply(result[i], xiInverse);
+  /**
+   * Computes the error evaluator, syndromes times locator modulo x^numErrors, lowest degree
+   * coefficient first.
+   */
+  private void findErrorEvaluator(int numErrors) {
+    for (int i = 0; i < numErrors; i++) {
+      int coefficient = 0;
+      for (int j = 0; j <= i; j++) {
+        coefficient ^= field.multiply(syndromes[i - j], locator[j]);
       }
+      evaluator[i] = coefficient;
+    }
+  }
+
+  /**
+   * Forney's formula: e = X^(1-b) * omega(1/X) / sigma'(1/X), where X is the error location and b
+   * the generator base. The formal derivative sigma' only keeps the odd terms of sigma.
+   */
+  private int findErrorMagnitude(int location, int numErrors) throws ReedSolomonException {
+    int xInverse = field.inverse(location);
+    int xInverseSquared = field.multiply(xInverse, xInverse);
+    int numerator = 0;
+    for (int i = numErrors - 1; i >= 0; i--) {
+      numerator = field.multiply(numerator, xInverse) ^ evaluator[i];
+    }
+    int denominator = 0;
+    for (int i = numErrors - (numErrors % 2 == 0 ? 1 : 0); i >= 1; i -= 2) {
+      denominator = field.multiply(denominator, xInverseSquared) ^ locator[i];
+    }
+    if (denominator == 0) {
+      throw new ReedSolomonException("Error locator has a repeated root");
+    }
+    int magnitude = field.multiply(numerator, field.inverse(denominator));
+    if (field.getGeneratorBase() == 0) {
+      magnitude = field.multiply(magnitude, location);
     }
-    return result;
+    return magnitude;
   }
 
 }
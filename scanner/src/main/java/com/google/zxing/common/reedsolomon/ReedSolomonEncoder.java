@@ -29,9 +29,12 @@ public final class ReedSolomonEncoder {
 
   private final GenericGF field;
   private final List<GenericGFPoly> cachedGenerators;
+  private final GF256ReedSolomonEncoder tableEncoder;
 
   public ReedSolomonEncoder(GenericGF field) {
     this.field = field;
+    this.tableEncoder = field == GenericGF.QR_CODE_FIELD_256 || field == GenericGF.DATA_MATRIX_FIELD_256 ?
+        GF256ReedSolomonEncoder.forField(field) : null;
     this.cachedGenerators = new ArrayList<>();
     cachedGenerators.add(new GenericGFPoly(field, new int[]{1}));
   }
@@ -50,6 +53,10 @@ public final class ReedSolomonEncoder {
   }
 
   public void encode(int[] toEncode, int ecBytes) {
+    if (tableEncoder != null) {
+      tableEncoder.encode(toEncode, ecBytes);
+      return;
+    }
     if (ecBytes == 0) {
       throw new IllegalArgumentException("No error correction bytes");
     }
@@ -417,19 +417,21 @@ final class BitMatrixParser {
     int sizeDataRegionColumn = numDataRegionsColumn * dataRegionSizeColumns;
 
     BitMatrix bitMatrixWithoutAlignment = new BitMatrix(sizeDataRegionColumn, sizeDataRegionRow);
+    BitMatrix.RowView readRow = null;
     for (int dataRegionRow = 0; dataRegionRow < numDataRegionsRow; ++dataRegionRow) {
       int dataRegionRowOffset = dataRegionRow * dataRegionSizeRows;
-      for (int dataRegionColumn = 0; dataRegionColumn < numDataRegionsColumn; ++dataRegionColumn) {
-        int dataRegionColumnOffset = dataRegionColumn * dataRegionSizeColumns;
-        for (int i = 0; i < dataRegionSizeRows; ++i) {
-          int readRowOffset = dataRegionRow * (dataRegionSizeRows + 2) + 1 + i;
-          int writeRowOffset = dataRegionRowOffset + i;
-          for (int j = 0; j < dataRegionSizeColumns; ++j) {
-            int readColumnOffset = dataRegionColumn * (dataRegionSizeColumns + 2) + 1 + j;
-            if (bitMatrix.get(readColumnOffset, readRowOffset)) {
-              int writeColumnOffset = dataRegionColumnOffset + j;
-              bitMatrixWithoutAlignment.set(writeColumnOffset, writeRowOffset);
-            }
+      for (int i = 0; i < dataRegionSizeRows; ++i) {
+        int readRowOffset = dataRegionRow * (dataRegionSizeRows + 2) + 1 + i;
+        int writeRowOffset = dataRegionRowOffset + i;
+        readRow = bitMatrix.getRowView(readRowOffset, readRow);
+        for (int dataRegionColumn = 0; dataRegionColumn < numDataRegionsColumn; ++dataRegionColumn) {
+          int dataRegionColumnOffset = dataRegionColumn * dataRegionSizeColumns;
+          int readColumnOffset = dataRegionColumn * (dataRegionSizeColumns + 2) + 1;
+          // Copy the row of the data region up to 32 modules at a time
+          for (int j = 0; j < dataRegionSizeColumns; j += 32) {
+            int count = Math.min(32, dataRegionSizeColumns - j);
+            bitMatrixWithoutAlignment.setBits(dataRegionColumnOffset + j, writeRowOffset,
+                readRow.getBits(readColumnOffset + j, count));
           }
         }
       }
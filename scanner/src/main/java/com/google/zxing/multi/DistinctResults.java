@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>Collects the distinct barcodes among the results of decoding overlapping parts of an image.
+ * Two results are the same barcode if they have the same format and text and their centers are
+ * less than the size of the larger one apart. That is measured on the points of the results, so
+ * it allows for a linear barcode read along different rows, while identical labels side by side
+ * are kept apart. Results without points are told apart by text alone, as
+ * {@link GenericMultipleBarcodeReader} does.</p>
+ *
+ * <p>This class is not thread-safe.</p>
+ */
+public final class DistinctResults {
+
+  private final List<Result> results = new ArrayList<>();
+  // Per result: center x, center y and the larger side of the bounding box of its points, or NaN
+  // if it has none.
+  private float[] extents = new float[3 * 8];
+
+  /**
+   * @param result newly decoded result, with points in the coordinates of the whole image
+   * @return true if the result is a barcode not added before
+   */
+  public boolean add(Result result) {
+    float[] extent = extentOf(result.getResultPoints());
+    int count = results.size();
+    for (int i = 0; i < count; i++) {
+      Result existing = results.get(i);
+      if (existing.getBarcodeFormat() == result.getBarcodeFormat() &&
+          existing.getText().equals(result.getText()) &&
+          overlaps(extents, 3 * i, extent)) {
+        return false;
+      }
+    }
+    if (extents.length < 3 * (count + 1)) {
+      float[] newExtents = new float[2 * extents.length];
+      System.arraycopy(extents, 0, newExtents, 0, 3 * count);
+      extents = newExtents;
+    }
+    System.arraycopy(extent, 0, extents, 3 * count, 3);
+    results.add(result);
+    return true;
+  }
+
+  public int size() {
+    return results.size();
+  }
+
+  /**
+   * @return the results added, in the order they were added
+   */
+  public Result[] toArray() {
+    return results.toArray(GenericMultipleBarcodeReader.EMPTY_RESULT_ARRAY);
+  }
+
+  private static boolean overlaps(float[] extents, int offset, float[] extent) {
+    float size = Math.max(extents[offset + 2], extent[2]);
+    if (Float.isNaN(size)) {
+      return true;
+    }
+    return Math.abs(extents[offset] - extent[0]) < size &&
+        Math.abs(extents[offset + 1] - extent[1]) < size;
+  }
+
+  private static float[] extentOf(ResultPoint[] points) {
+    float minX = Float.POSITIVE_INFINITY;
+    float minY = Float.POSITIVE_INFINITY;
+    float maxX = Float.NEGATIVE_INFINITY;
+    float maxY = Float.NEGATIVE_INFINITY;
+    if (points != null) {
+      for (ResultPoint point : points) {
+        if (point != null) {
+          minX = Math.min(minX, point.getX());
+          minY = Math.min(minY, point.getY());
+          maxX = Math.max(maxX, point.getX());
+          maxY = Math.max(maxY, point.getY());
+        }
+      }
+    }
+    if (minX > maxX) {
+      return new float[] {Float.NaN, Float.NaN, Float.NaN};
+    }
+    return new float[] {(minX + maxX) / 2.0f, (minY + maxY) / 2.0f, Math.max(maxX - minX, maxY - minY)};
+  }
+
+}
@@ -44,8 +44,8 @@ import java.util.Map;
  */
 public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader {
 
-  private static final int MIN_DIMENSION_TO_RECUR = 100;
-  private static final int MAX_DEPTH = 4;
+  static final int MIN_DIMENSION_TO_RECUR = 100;
+  static final int MAX_DEPTH = 4;
 
   static final Result[] EMPTY_RESULT_ARRAY = new Result[0];
 
@@ -157,7 +157,7 @@ public final class GenericMultipleBarcodeReader implements MultipleBarcodeReader
     }
   }
 
-  private static Result translateResultPoints(Result result, int xOffset, int yOffset) {
+  static Result translateResultPoints(Result result, int xOffset, int yOffset) {
     ResultPoint[] oldResultPoints = result.getResultPoints();
     if (oldResultPoints == null) {
       return result;
@@ -0,0 +1,259 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.Reader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>Finds the same barcodes as {@link GenericMultipleBarcodeReader}, but decodes the parts of the
+ * image on an executor instead of one after another. Which parts are decoded depends only on
+ * what was found in the part they were cut from, so each part is submitted as soon as its parent
+ * is decoded, and images holding many barcodes keep every thread of the executor busy.</p>
+ *
+ * <p>Results are de-duplicated with {@link DistinctResults}, so the same text found at two
+ * places in the image is reported twice, and can be streamed to a {@link ResultCallback} as they
+ * are decoded. Since the executor is the caller's, so is the bound on the number of threads.</p>
+ *
+ * <p>Delegate readers are not assumed to be thread-safe: each decode takes an idle one, or a new
+ * one from the {@link ReaderFactory}, and gives it back afterwards. Like other readers, this
+ * class itself should not be used by several threads at once. The hints, though, are shared by
+ * all of them, so a {@link DecodeHintType#NEED_RESULT_POINT_CALLBACK} in them is called from
+ * several threads of the executor at once, and must be thread-safe.</p>
+ *
+ * <p>A part whose delegate throws a {@link RuntimeException} is treated like one it found nothing
+ * in, so a delegate failing on one part does not lose the barcodes found in the others.</p>
+ */
+public final class ParallelMultipleBarcodeReader implements MultipleBarcodeReader {
+
+  /**
+   * Creates the readers the parts of the image are decoded with.
+   */
+  public interface ReaderFactory {
+
+    Reader newReader();
+
+  }
+
+  private final ReaderFactory readerFactory;
+  private final ExecutorService executor;
+  private final Queue<Reader> idleReaders;
+
+  /**
+   * @param readerFactory creates delegate readers, as many as there are parts being decoded at once
+   * @param executor executor to decode the parts on; if it rejects a part, that part is decoded on
+   *  the calling thread
+   */
+  public ParallelMultipleBarcodeReader(ReaderFactory readerFactory, ExecutorService executor) {
+    this.readerFactory = readerFactory;
+    this.executor = executor;
+    this.idleReaders = new ConcurrentLinkedQueue<>();
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
+    return decodeMultiple(image, null);
+  }
+
+  @Override
+  public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints)
+      throws NotFoundException {
+    DistinctResults results = new DistinctResults();
+    decodeMultiple(image, hints, results, null);
+    if (results.size() == 0) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return results.toArray();
+  }
+
+  /**
+   * Decodes the barcodes in an image, handing each one to the callback as soon as it is decoded.
+   * The callback is invoked on the calling thread, which returns once all parts of the image are
+   * decoded. If the calling thread is interrupted, the parts not yet decoded are cancelled and the
+   * method returns early with the interrupt status set.
+   *
+   * @param image image to decode
+   * @param hints decode hints, may be {@code null}
+   * @param callback receives each distinct barcode once
+   */
+  public void decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints, ResultCallback callback) {
+    decodeMultiple(image, hints, new DistinctResults(), callback);
+  }
+
+  private void decodeMultiple(BinaryBitmap image,
+                              Map<DecodeHintType,?> hints,
+                              DistinctResults results,
+                              ResultCallback callback) {
+    CompletionService<Part> completionService = new ExecutorCompletionService<>(executor);
+    List<Future<Part>> submitted = new ArrayList<>();
+    // Parts the executor rejected, decoded here instead
+    Deque<Part> decodedHere = new ArrayDeque<>();
+    int outstanding = submit(new Part(image, hints, 0, 0, 0), completionService, submitted, decodedHere);
+    try {
+      while (outstanding > 0 || !decodedHere.isEmpty()) {
+        Part part = decodedHere.poll();
+        if (part == null) {
+          part = completionService.take().get();
+          outstanding--;
+        }
+        Result result = part.result;
+        if (result == null) {
+          continue;
+        }
+        Result translated =
+            GenericMultipleBarcodeReader.translateResultPoints(result, part.xOffset, part.yOffset);
+        if (results.add(translated) && callback != null) {
+          callback.foundResult(translated);
+        }
+        for (Part child : part.children()) {
+          outstanding += submit(child, completionService, submitted, decodedHere);
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException ee) {
+      // Parts catch their own exceptions, so only an Error gets here
+      throw (Error) ee.getCause();
+    } finally {
+      for (Future<Part> future : submitted) {
+        future.cancel(false);
+      }
+    }
+  }
+
+  /**
+   * @return 1 if the part went to the executor, or 0 if it was decoded here
+   */
+  private static int submit(Part part,
+                            CompletionService<Part> completionService,
+                            List<Future<Part>> submitted,
+                            Deque<Part> decodedHere) {
+    try {
+      submitted.add(completionService.submit(part));
+      return 1;
+    } catch (RejectedExecutionException ree) {
+      decodedHere.add(part.call());
+      return 0;
+    }
+  }
+
+  /**
+   * A part of the image, at an offset from the top left of the whole image, and what was found in
+   * it once decoded.
+   */
+  private final class Part implements Callable<Part> {
+
+    private final BinaryBitmap image;
+    private final Map<DecodeHintType,?> hints;
+    private final int xOffset;
+    private final int yOffset;
+    private final int depth;
+    private Result result;
+
+    Part(BinaryBitmap image, Map<DecodeHintType,?> hints, int xOffset, int yOffset, int depth) {
+      this.image = image;
+      this.hints = hints;
+      this.xOffset = xOffset;
+      this.yOffset = yOffset;
+      this.depth = depth;
+    }
+
+    @Override
+    public Part call() {
+      Reader reader = idleReaders.poll();
+      if (reader == null) {
+        reader = readerFactory.newReader();
+      }
+      try {
+        result = reader.decode(image, hints);
+      } catch (ReaderException | RuntimeException ignored) {
+        // Nothing here, nor in parts cut from here
+      } finally {
+        idleReaders.add(reader);
+      }
+      return this;
+    }
+
+    /**
+     * @return the parts left of, above, right of and below the barcode found in this part, as
+     *  {@link GenericMultipleBarcodeReader} cuts them
+     */
+    List<Part> children() {
+      List<Part> children = new ArrayList<>(4);
+      ResultPoint[] resultPoints = result.getResultPoints();
+      if (depth >= GenericMultipleBarcodeReader.MAX_DEPTH || resultPoints == null || resultPoints.length == 0) {
+        return children;
+      }
+      int width = image.getWidth();
+      int height = image.getHeight();
+      float minX = width;
+      float minY = height;
+      float maxX = 0.0f;
+      float maxY = 0.0f;
+      for (ResultPoint point : resultPoints) {
+        if (point == null) {
+          continue;
+        }
+        minX = Math.min(minX, point.getX());
+        minY = Math.min(minY, point.getY());
+        maxX = Math.max(maxX, point.getX());
+        maxY = Math.max(maxY, point.getY());
+      }
+      int minRecur = GenericMultipleBarcodeReader.MIN_DIMENSION_TO_RECUR;
+      int nextDepth = depth + 1;
+      if (minX > minRecur) {
+        children.add(new Part(image.crop(0, 0, (int) minX, height), hints,
+                              xOffset, yOffset, nextDepth));
+      }
+      if (minY > minRecur) {
+        children.add(new Part(image.crop(0, 0, width, (int) minY), hints,
+                              xOffset, yOffset, nextDepth));
+      }
+      if (maxX < width - minRecur) {
+        children.add(new Part(image.crop((int) maxX, 0, width - (int) maxX, height), hints,
+                              xOffset + (int) maxX, yOffset, nextDepth));
+      }
+      if (maxY < height - minRecur) {
+        children.add(new Part(image.crop(0, (int) maxY, width, height - (int) maxY), hints,
+                              xOffset, yOffset + (int) maxY, nextDepth));
+      }
+      return children;
+    }
+
+  }
+
+}
@@ -26,9 +26,12 @@ import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.DecoderResult;
 import com.google.zxing.common.DetectorResult;
+import com.google.zxing.multi.DistinctResults;
 import com.google.zxing.multi.MultipleBarcodeReader;
+import com.google.zxing.multi.ResultCallback;
 import com.google.zxing.multi.qrcode.detector.MultiDetector;
 import com.google.zxing.qrcode.QRCodeReader;
+import com.google.zxing.qrcode.decoder.Decoder;
 import com.google.zxing.qrcode.decoder.QRCodeDecoderMetaData;
 
 import java.io.Serializable;
@@ -38,10 +41,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * This implementation can detect and decode multiple QR Codes in an image.
  *
+ * <p>Given an executor, the codes found are decoded on it all at once. Codes are found on the
+ * calling thread, so a {@link DecodeHintType#NEED_RESULT_POINT_CALLBACK} is still only called
+ * from there. A {@link RuntimeException} thrown decoding one code does not lose the others: it is
+ * rethrown once they are all decoded, the callback variant having handed them over by then.</p>
+ *
  * @author Sean Owen
  * @author Hannes Erven
  */
@@ -50,6 +67,25 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
   private static final Result[] EMPTY_RESULT_ARRAY = new Result[0];
   private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
 
+  private final ExecutorService decodeExecutor;
+  // Decoders for the codes decoded on the executor, which may be several at once
+  private final Queue<Decoder> idleDecoders;
+
+  public QRCodeMultiReader() {
+    this(null);
+  }
+
+  /**
+   * @param executor executor to decode the codes found in an image on, all at once, and to scan
+   *  the rows of large images on when decoding a single code; the results are the same as without
+   *  it. May be {@code null}.
+   */
+  public QRCodeMultiReader(ExecutorService executor) {
+    super(executor);
+    this.decodeExecutor = executor;
+    this.idleDecoders = new ConcurrentLinkedQueue<>();
+  }
+
   @Override
   public Result[] decodeMultiple(BinaryBitmap image) throws NotFoundException {
     return decodeMultiple(image, null);
@@ -57,35 +93,14 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
 
   @Override
   public Result[] decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
-    List<Result> results = new ArrayList<>();
     DetectorResult[] detectorResults = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
-    for (DetectorResult detectorResult : detectorResults) {
-      try {
-        DecoderResult decoderResult = getDecoder().decode(detectorResult.getBits(), hints);
-        ResultPoint[] points = detectorResult.getPoints();
-        // If the code was mirrored: swap the bottom-left and the top-right points.
-        if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
-          ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
-        }
-        Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
-                                   BarcodeFormat.QR_CODE);
-        List<byte[]> byteSegments = decoderResult.getByteSegments();
-        if (byteSegments != null) {
-          result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
-        }
-        String ecLevel = decoderResult.getECLevel();
-        if (ecLevel != null) {
-          result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
-        }
-        if (decoderResult.hasStructuredAppend()) {
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
-                             decoderResult.getStructuredAppendSequenceNumber());
-          result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
-                             decoderResult.getStructuredAppendParity());
-        }
+    Result[] decoded = new Result[detectorResults.length];
+    decodeAll(detectorResults, hints, decoded, null);
+    // In the order the codes were detected, however they finished
+    List<Result> results = new ArrayList<>();
+    for (Result result : decoded) {
+      if (result != null) {
         results.add(result);
-      } catch (ReaderException re) {
-        // ignore and continue 
       }
     }
     if (results.isEmpty()) {
@@ -96,6 +111,148 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     }
   }
 
+  /**
+   * Finds the QR Codes in an image once, then decodes them, on the executor if there is one, and
+   * hands each one to the callback as soon as it is decoded. Codes found more than once are handed
+   * over once, see {@link DistinctResults}. If some of the codes are parts of a structured append
+   * sequence, their concatenation follows them, after all codes are decoded.
+   *
+   * <p>The callback is invoked on the calling thread, which returns once all codes are decoded.
+   * If the calling thread is interrupted, the codes not yet decoded are cancelled and the method
+   * returns early with the interrupt status set.</p>
+   *
+   * @param image image to decode
+   * @param hints decode hints, may be {@code null}
+   * @param callback receives each distinct code
+   * @throws RuntimeException the first one thrown decoding one of the codes, after the others
+   */
+  public void decodeMultiple(BinaryBitmap image, Map<DecodeHintType,?> hints, final ResultCallback callback) {
+    DetectorResult[] detectorResults;
+    try {
+      detectorResults = new MultiDetector(image.getBlackMatrix()).detectMulti(hints);
+    } catch (NotFoundException nfe) {
+      return;
+    }
+    final DistinctResults distinct = new DistinctResults();
+    decodeAll(detectorResults, hints, new Result[detectorResults.length], new ResultCallback() {
+      @Override
+      public void foundResult(Result result) {
+        if (distinct.add(result)) {
+          callback.foundResult(result);
+        }
+      }
+    });
+    if (distinct.size() > 0 && !Thread.currentThread().isInterrupted()) {
+      List<Result> results = new ArrayList<>();
+      Collections.addAll(results, distinct.toArray());
+      List<Result> processed = processStructuredAppend(results);
+      if (processed.size() > results.size()) {
+        callback.foundResult(processed.get(processed.size() - 1));
+      }
+    }
+  }
+
+  /**
+   * Decodes each detected code into the same index of {@code decoded}, or leaves it {@code null}
+   * if it cannot be decoded, and passes the decoded ones to the callback in the order they finish.
+   * A code that fails with a {@link RuntimeException} rather than a {@link ReaderException} is
+   * left {@code null} too, and the first such exception is thrown once the rest are decoded.
+   */
+  private void decodeAll(DetectorResult[] detectorResults,
+                         Map<DecodeHintType,?> hints,
+                         Result[] decoded,
+                         ResultCallback callback) {
+    CompletionService<Candidate> completionService =
+        decodeExecutor == null ? null : new ExecutorCompletionService<Candidate>(decodeExecutor);
+    List<Future<Candidate>> submitted = new ArrayList<>();
+    int outstanding = 0;
+    RuntimeException failure = null;
+    try {
+      for (int i = 0; i < detectorResults.length; i++) {
+        Candidate candidate = new Candidate(i, detectorResults[i], hints);
+        if (completionService != null) {
+          try {
+            submitted.add(completionService.submit(candidate));
+            outstanding++;
+            continue;
+          } catch (RejectedExecutionException ree) {
+            // Shut down; decode it here
+          }
+        }
+        try {
+          candidate.call();
+        } catch (RuntimeException re) {
+          failure = firstFailure(failure, re);
+          continue;
+        }
+        finish(candidate, decoded, callback);
+      }
+      for (; outstanding > 0; outstanding--) {
+        Candidate candidate;
+        try {
+          candidate = completionService.take().get();
+        } catch (ExecutionException ee) {
+          failure = firstFailure(failure, ee.getCause());
+          continue;
+        }
+        finish(candidate, decoded, callback);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } finally {
+      for (Future<Candidate> future : submitted) {
+        future.cancel(false);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  /**
+   * @param cause thrown by {@link Candidate#call()}, which throws no checked exception
+   * @return {@code failure} if there was one already, or else {@code cause}
+   */
+  private static RuntimeException firstFailure(RuntimeException failure, Throwable cause) {
+    if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return failure != null ? failure : (RuntimeException) cause;
+  }
+
+  private static void finish(Candidate candidate, Result[] decoded, ResultCallback callback) {
+    Result result = candidate.result;
+    decoded[candidate.index] = result;
+    if (result != null && callback != null) {
+      callback.foundResult(result);
+    }
+  }
+
+  private static Result toResult(DecoderResult decoderResult, DetectorResult detectorResult) {
+    ResultPoint[] points = detectorResult.getPoints();
+    // If the code was mirrored: swap the bottom-left and the top-right points.
+    if (decoderResult.getOther() instanceof QRCodeDecoderMetaData) {
+      ((QRCodeDecoderMetaData) decoderResult.getOther()).applyMirroredCorrection(points);
+    }
+    Result result = new Result(decoderResult.getText(), decoderResult.getRawBytes(), points,
+                               BarcodeFormat.QR_CODE);
+    List<byte[]> byteSegments = decoderResult.getByteSegments();
+    if (byteSegments != null) {
+      result.putMetadata(ResultMetadataType.BYTE_SEGMENTS, byteSegments);
+    }
+    String ecLevel = decoderResult.getECLevel();
+    if (ecLevel != null) {
+      result.putMetadata(ResultMetadataType.ERROR_CORRECTION_LEVEL, ecLevel);
+    }
+    if (decoderResult.hasStructuredAppend()) {
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_SEQUENCE,
+                         decoderResult.getStructuredAppendSequenceNumber());
+      result.putMetadata(ResultMetadataType.STRUCTURED_APPEND_PARITY,
+                         decoderResult.getStructuredAppendParity());
+    }
+    return result;
+  }
+
   private static List<Result> processStructuredAppend(List<Result> results) {
     boolean hasSA = false;
 
@@ -163,6 +320,40 @@ public final class QRCodeMultiReader extends QRCodeReader implements MultipleBar
     return newResults;
   }
 
+  /**
+   * A detected code and, once decoded, its result.
+   */
+  private final class Candidate implements Callable<Candidate> {
+
+    private final int index;
+    private final DetectorResult detectorResult;
+    private final Map<DecodeHintType,?> hints;
+    private Result result;
+
+    Candidate(int index, DetectorResult detectorResult, Map<DecodeHintType,?> hints) {
+      this.index = index;
+      this.detectorResult = detectorResult;
+      this.hints = hints;
+    }
+
+    @Override
+    public Candidate call() {
+      Decoder decoder = idleDecoders.poll();
+      if (decoder == null) {
+        decoder = new Decoder();
+      }
+      try {
+        result = toResult(decoder.decode(detectorResult.getBits(), hints), detectorResult);
+      } catch (ReaderException re) {
+        // ignore and continue
+      } finally {
+        idleDecoders.add(decoder);
+      }
+      return this;
+    }
+
+  }
+
   private static final class SAComparator implements Comparator<Result>, Serializable {
     @Override
     public int compare(Result a, Result b) {
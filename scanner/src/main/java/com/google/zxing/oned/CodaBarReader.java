@@ -78,10 +78,30 @@ public final class CodaBarReader extends OneDReader {
 
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints) throws NotFoundException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  /**
+   * Codabar is decoded from the runs alone, so the bits of the row are never needed.
+   */
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException {
 
     Arrays.fill(counters, 0);
-    setCounters(row);
+    if (!setCounters(runs)) {
+      return null;
+    }
     int startOffset = findStartPattern();
+    if (startOffset < 0) {
+      return null;
+    }
     int nextStart = startOffset;
 
     decodeRowResult.setLength(0);
@@ -225,29 +245,23 @@ public final class CodaBarReader extends OneDReader {
    * Records the size of all runs of white and black pixels, starting with white.
    * This is just like recordPattern, except it records all the counters, and
    * uses our builtin "counters" member for storage.
-   * @param row row to count from
+   * @param runs row to count from
+   * @return false if the row has no white pixel
    */
-  private void setCounters(BitArray row) throws NotFoundException {
+  private boolean setCounters(RunLengthRow runs) {
     counterLength = 0;
-    // Start from the first white bit.
-    int i = row.getNextUnset(0);
-    int end = row.getSize();
-    if (i >= end) {
-      throw NotFoundException.getNotFoundInstance();
+    int count = runs.getRunCount();
+    // Start from the first white bit, skipping a black run at the start of the row.
+    int first = runs.getRun(0) > 0 ? 0 : 2;
+    if (first >= count || runs.getRunStart(first) >= runs.getSize()) {
+      return false;
     }
-    boolean isWhite = true;
-    int count = 0;
-    while (i < end) {
-      if (row.get(i) != isWhite) {
-        count++;
-      } else {
-        counterAppend(count);
-        count = 1;
-        isWhite = !isWhite;
-      }
-      i++;
+    // The last run is empty when the row ends with a black pixel.
+    int last = runs.getRun(count - 1) > 0 ? count - 1 : count - 2;
+    for (int i = first; i <= last; i++) {
+      counterAppend(runs.getRun(i));
     }
-    counterAppend(count);
+    return true;
   }
 
   private void counterAppend(int e) {
@@ -260,7 +274,10 @@ public final class CodaBarReader extends OneDReader {
     }
   }
 
-  private int findStartPattern() throws NotFoundException {
+  /**
+   * @return the counter the start pattern begins at, or -1 if the row has none
+   */
+  private int findStartPattern() {
     for (int i = 1; i < counterLength; i += 2) {
       int charOffset = toNarrowWidePattern(i);
       if (charOffset != -1 && arrayContains(STARTEND_ENCODING, ALPHABET[charOffset])) {
@@ -275,7 +292,7 @@ public final class CodaBarReader extends OneDReader {
         }
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return -1;
   }
 
   static boolean arrayContains(char[] array, char key) {
@@ -166,49 +166,33 @@ public final class Code128Reader extends OneDReader {
   private static final int CODE_START_C = 105;
   private static final int CODE_STOP = 106;
 
-  private static int[] findStartPattern(BitArray row) throws NotFoundException {
-    int width = row.getSize();
-    int rowOffset = row.getNextSet(0);
-
-    int counterPosition = 0;
+  /**
+   * @return start, end and start code of the start pattern, or {@code null} if the row has none
+   */
+  private static int[] findStartPattern(RunLengthRow runs) {
     int[] counters = new int[6];
-    int patternStart = rowOffset;
-    boolean isWhite = false;
     int patternLength = counters.length;
-
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          float bestVariance = MAX_AVG_VARIANCE;
-          int bestMatch = -1;
-          for (int startCode = CODE_START_A; startCode <= CODE_START_C; startCode++) {
-            float variance = patternMatchVariance(counters, CODE_PATTERNS[startCode],
-                MAX_INDIVIDUAL_VARIANCE);
-            if (variance < bestVariance) {
-              bestVariance = variance;
-              bestMatch = startCode;
-            }
-          }
-          // Look for whitespace before start pattern, >= 50% of width of start pattern
-          if (bestMatch >= 0 &&
-              row.isRange(Math.max(0, patternStart - (i - patternStart) / 2), patternStart, false)) {
-            return new int[]{patternStart, i, bestMatch};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
+    // Black runs are at odd indices; the pattern must end before the row does.
+    for (int i = 1; runs.isEndedBy(i + patternLength); i += 2) {
+      runs.getRuns(i, counters);
+      float bestVariance = MAX_AVG_VARIANCE;
+      int bestMatch = -1;
+      for (int startCode = CODE_START_A; startCode <= CODE_START_C; startCode++) {
+        float variance = patternMatchVariance(counters, CODE_PATTERNS[startCode],
+            MAX_INDIVIDUAL_VARIANCE);
+        if (variance < bestVariance) {
+          bestVariance = variance;
+          bestMatch = startCode;
         }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+      }
+      int patternStart = runs.getRunStart(i);
+      int patternEnd = runs.getRunStart(i + patternLength);
+      // Look for whitespace before start pattern, >= 50% of width of start pattern
+      if (bestMatch >= 0 && runs.isQuietBefore(i, (patternEnd - patternStart) / 2)) {
+        return new int[]{patternStart, patternEnd, bestMatch};
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private static int decodeCode(BitArray row, int[] counters, int rowOffset)
@@ -235,10 +219,26 @@ public final class Code128Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, FormatException, ChecksumException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException, ChecksumException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException, ChecksumException {
 
     boolean convertFNC1 = hints != null && hints.containsKey(DecodeHintType.ASSUME_GS1);
 
-    int[] startPatternInfo = findStartPattern(row);
+    int[] startPatternInfo = findStartPattern(runs);
+    if (startPatternInfo == null) {
+      return null;
+    }
+    BitArray row = runs.getRow();
     int startCode = startPatternInfo[2];
 
     List<Byte> rawCodes = new ArrayList<>(20);
@@ -25,7 +25,6 @@ import com.google.zxing.Result;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
 
-import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -97,13 +96,28 @@ public final class Code39Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
 
     int[] theCounters = counters;
-    Arrays.fill(theCounters, 0);
     StringBuilder result = decodeRowResult;
     result.setLength(0);
 
-    int[] start = findAsteriskPattern(row, theCounters);
+    int[] start = findAsteriskPattern(runs, theCounters);
+    if (start == null) {
+      return null;
+    }
+    BitArray row = runs.getRow();
     // Read off white space
     int nextStart = row.getNextSet(start[1]);
     int end = row.getSize();
@@ -175,38 +189,23 @@ public final class Code39Reader extends OneDReader {
 
   }
 
-  private static int[] findAsteriskPattern(BitArray row, int[] counters) throws NotFoundException {
-    int width = row.getSize();
-    int rowOffset = row.getNextSet(0);
-
-    int counterPosition = 0;
-    int patternStart = rowOffset;
-    boolean isWhite = false;
+  /**
+   * @return start and end of the leading asterisk, or {@code null} if the row has none
+   */
+  private static int[] findAsteriskPattern(RunLengthRow runs, int[] counters) {
     int patternLength = counters.length;
-
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          // Look for whitespace before start pattern, >= 50% of width of start pattern
-          if (toNarrowWidePattern(counters) == ASTERISK_ENCODING &&
-              row.isRange(Math.max(0, patternStart - ((i - patternStart) / 2)), patternStart, false)) {
-            return new int[]{patternStart, i};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+    // Black runs are at odd indices; the pattern must end before the row does.
+    for (int i = 1; runs.isEndedBy(i + patternLength); i += 2) {
+      runs.getRuns(i, counters);
+      int patternStart = runs.getRunStart(i);
+      int patternEnd = runs.getRunStart(i + patternLength);
+      // Look for whitespace before start pattern, >= 50% of width of start pattern
+      if (toNarrowWidePattern(counters) == ASTERISK_ENCODING &&
+          runs.isQuietBefore(i, (patternEnd - patternStart) / 2)) {
+        return new int[]{patternStart, patternEnd};
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   // For efficiency, returns -1 on failure. Not throwing here saved as many as 700 exceptions
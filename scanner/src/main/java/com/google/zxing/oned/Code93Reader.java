@@ -65,8 +65,24 @@ public final class Code93Reader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
 
-    int[] start = findAsteriskPattern(row);
+    int[] start = findAsteriskPattern(runs);
+    if (start == null) {
+      return null;
+    }
+    BitArray row = runs.getRow();
     // Read off white space
     int nextStart = row.getNextSet(start[1]);
     int end = row.getSize();
@@ -128,38 +144,20 @@ public final class Code93Reader extends OneDReader {
 
   }
 
-  private int[] findAsteriskPattern(BitArray row) throws NotFoundException {
-    int width = row.getSize();
-    int rowOffset = row.getNextSet(0);
-
-    Arrays.fill(counters, 0);
+  /**
+   * @return start and end of the leading asterisk, or {@code null} if the row has none
+   */
+  private int[] findAsteriskPattern(RunLengthRow runs) {
     int[] theCounters = counters;
-    int patternStart = rowOffset;
-    boolean isWhite = false;
     int patternLength = theCounters.length;
-
-    int counterPosition = 0;
-    for (int i = rowOffset; i < width; i++) {
-      if (row.get(i) != isWhite) {
-        theCounters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (toPattern(theCounters) == ASTERISK_ENCODING) {
-            return new int[]{patternStart, i};
-          }
-          patternStart += theCounters[0] + theCounters[1];
-          System.arraycopy(theCounters, 2, theCounters, 0, counterPosition - 1);
-          theCounters[counterPosition - 1] = 0;
-          theCounters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        theCounters[counterPosition] = 1;
-        isWhite = !isWhite;
+    // Black runs are at odd indices; the pattern must end before the row does.
+    for (int i = 1; runs.isEndedBy(i + patternLength); i += 2) {
+      runs.getRuns(i, theCounters);
+      if (toPattern(theCounters) == ASTERISK_ENCODING) {
+        return new int[]{runs.getRunStart(i), runs.getRunStart(i + patternLength)};
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   private static int toPattern(int[] counters) {
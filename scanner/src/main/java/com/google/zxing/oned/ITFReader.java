@@ -100,10 +100,29 @@ public final class ITFReader extends OneDReader {
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws FormatException, NotFoundException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws FormatException, NotFoundException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws FormatException, NotFoundException {
 
     // Find out where the Middle section (payload) starts & ends
-    int[] startRange = decodeStart(row);
-    int[] endRange = decodeEnd(row);
+    int[] startRange = decodeStart(runs);
+    if (startRange == null) {
+      return null;
+    }
+    int[] endRange = decodeEnd(runs);
+    if (endRange == null) {
+      return null;
+    }
+    BitArray row = runs.getRow();
 
     StringBuilder result = new StringBuilder(20);
     decodeMiddle(row, startRange[1], endRange[0], result);
@@ -192,155 +211,105 @@ public final class ITFReader extends OneDReader {
   /**
    * Identify where the start of the middle / payload section starts.
    *
-   * @param row row of black/white values to search
+   * @param runs row of black/white values to search
    * @return Array, containing index of start of 'start block' and end of
-   *         'start block'
+   *         'start block', or {@code null} if there is no start block
    */
-  private int[] decodeStart(BitArray row) throws NotFoundException {
-    int endStart = skipWhiteSpace(row);
-    int[] startPattern = findGuardPattern(row, endStart, START_PATTERN);
+  private int[] decodeStart(RunLengthRow runs) {
+    int startRun = findGuardPattern(runs, START_PATTERN);
+    if (startRun < 0) {
+      return null;
+    }
+    int[] startPattern = {runs.getRunStart(startRun), runs.getRunStart(startRun + START_PATTERN.length)};
 
     // Determine the width of a narrow line in pixels. We can do this by
     // getting the width of the start pattern and dividing by 4 because its
     // made up of 4 narrow lines.
     this.narrowLineWidth = (startPattern[1] - startPattern[0]) / 4;
 
-    validateQuietZone(row, startPattern[0]);
+    if (!validateQuietZone(runs, startRun)) {
+      return null;
+    }
 
     return startPattern;
   }
 
   /**
    * The start & end patterns must be pre/post fixed by a quiet zone. This
-   * zone must be at least 10 times the width of a narrow line.  Scan back until
-   * we either get to the start of the barcode or match the necessary number of
-   * quiet zone pixels.
+   * zone must be at least 10 times the width of a narrow line, or reach back
+   * to the start of the row.
    *
-   * Note: Its assumed the row is reversed when using this method to find
+   * Note: Its assumed the row is read backwards when using this method to find
    * quiet zone after the end pattern.
    *
    * ref: http://www.barcode-1.net/i25code.html
    *
-   * @param row bit array representing the scanned barcode.
-   * @param startPattern index into row of the start or end pattern.
-   * @throws NotFoundException if the quiet zone cannot be found
-   */
-  private void validateQuietZone(BitArray row, int startPattern) throws NotFoundException {
-
-    int quietCount = this.narrowLineWidth * 10;  // expect to find this many pixels of quiet zone
-
-    // if there are not so many pixel at all let's try as many as possible
-    quietCount = quietCount < startPattern ? quietCount : startPattern;
-
-    for (int i = startPattern - 1; quietCount > 0 && i >= 0; i--) {
-      if (row.get(i)) {
-        break;
-      }
-      quietCount--;
-    }
-    if (quietCount != 0) {
-      // Unable to find the necessary number of quiet zone pixels.
-      throw NotFoundException.getNotFoundInstance();
-    }
-  }
-
-  /**
-   * Skip all whitespace until we get to the first black line.
-   *
-   * @param row row of black/white values to search
-   * @return index of the first black line.
-   * @throws NotFoundException Throws exception if no black lines are found in the row
+   * @param runs runs of the scanned row.
+   * @param patternRun first run of the start or end pattern.
+   * @return false if the quiet zone cannot be found
    */
-  private static int skipWhiteSpace(BitArray row) throws NotFoundException {
-    int width = row.getSize();
-    int endStart = row.getNextSet(0);
-    if (endStart == width) {
-      throw NotFoundException.getNotFoundInstance();
-    }
-
-    return endStart;
+  private boolean validateQuietZone(RunLengthRow runs, int patternRun) {
+    return runs.isQuietBefore(patternRun, this.narrowLineWidth * 10);
   }
 
   /**
    * Identify where the end of the middle / payload section ends.
    *
-   * @param row row of black/white values to search
+   * @param runs row of black/white values to search
    * @return Array, containing index of start of 'end block' and end of 'end
-   *         block'
+   *         block', or {@code null} if there is no end block
    */
-  private int[] decodeEnd(BitArray row) throws NotFoundException {
+  private int[] decodeEnd(RunLengthRow runs) {
 
-    // For convenience, reverse the row and then
+    // For convenience, read the row backwards and then
     // search from 'the start' for the end block
-    row.reverse();
+    runs.reverse();
     try {
-      int endStart = skipWhiteSpace(row);
-      int[] endPattern;
-      try {
-        endPattern = findGuardPattern(row, endStart, END_PATTERN_REVERSED[0]);
-      } catch (NotFoundException nfe) {
-        endPattern = findGuardPattern(row, endStart, END_PATTERN_REVERSED[1]);
+      int[] endPattern = END_PATTERN_REVERSED[0];
+      int endRun = findGuardPattern(runs, endPattern);
+      if (endRun < 0) {
+        endPattern = END_PATTERN_REVERSED[1];
+        endRun = findGuardPattern(runs, endPattern);
+        if (endRun < 0) {
+          return null;
+        }
       }
 
       // The start & end patterns must be pre/post fixed by a quiet zone. This
       // zone must be at least 10 times the width of a narrow line.
       // ref: http://www.barcode-1.net/i25code.html
-      validateQuietZone(row, endPattern[0]);
+      if (!validateQuietZone(runs, endRun)) {
+        return null;
+      }
 
       // Now recalculate the indices of where the 'endblock' starts & stops to
       // accommodate
       // the reversed nature of the search
-      int temp = endPattern[0];
-      endPattern[0] = row.getSize() - endPattern[1];
-      endPattern[1] = row.getSize() - temp;
-
-      return endPattern;
+      int size = runs.getSize();
+      return new int[]{size - runs.getRunStart(endRun + endPattern.length), size - runs.getRunStart(endRun)};
     } finally {
-      // Put the row back the right way.
-      row.reverse();
+      // Read the row the right way again.
+      runs.reverse();
     }
   }
 
   /**
-   * @param row       row of black/white values to search
-   * @param rowOffset position to start search
+   * @param runs      row of black/white values to search, from its first black run
    * @param pattern   pattern of counts of number of black and white pixels that are
    *                  being searched for as a pattern
-   * @return start/end horizontal offset of guard pattern, as an array of two
-   *         ints
-   * @throws NotFoundException if pattern is not found
+   * @return first run of the guard pattern, or -1 if pattern is not found
    */
-  private static int[] findGuardPattern(BitArray row,
-                                        int rowOffset,
-                                        int[] pattern) throws NotFoundException {
+  private static int findGuardPattern(RunLengthRow runs, int[] pattern) {
     int patternLength = pattern.length;
     int[] counters = new int[patternLength];
-    int width = row.getSize();
-    boolean isWhite = false;
-
-    int counterPosition = 0;
-    int patternStart = rowOffset;
-    for (int x = rowOffset; x < width; x++) {
-      if (row.get(x) != isWhite) {
-        counters[counterPosition]++;
-      } else {
-        if (counterPosition == patternLength - 1) {
-          if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
-            return new int[]{patternStart, x};
-          }
-          patternStart += counters[0] + counters[1];
-          System.arraycopy(counters, 2, counters, 0, counterPosition - 1);
-          counters[counterPosition - 1] = 0;
-          counters[counterPosition] = 0;
-          counterPosition--;
-        } else {
-          counterPosition++;
-        }
-        counters[counterPosition] = 1;
-        isWhite = !isWhite;
+    // Black runs are at odd indices; the pattern must end before the row does.
+    for (int i = 1; runs.isEndedBy(i + patternLength); i += 2) {
+      runs.getRuns(i, counters);
+      if (patternMatchVariance(counters, pattern, MAX_INDIVIDUAL_VARIANCE) < MAX_AVG_VARIANCE) {
+        return i;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return -1;
   }
 
   /**
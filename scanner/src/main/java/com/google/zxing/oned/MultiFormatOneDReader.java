@@ -93,15 +93,35 @@ public final class MultiFormatOneDReader extends OneDReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber,
+                                   BitArray row,
+                                   Map<DecodeHintType,?> hints) {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  /**
+   * Hands the same runs to every reader, so the row is only scanned once whichever format it
+   * holds.
+   */
+  @Override
+  protected Result decodeRowOrNull(int rowNumber,
+                                   RunLengthRow runs,
+                                   Map<DecodeHintType,?> hints) {
     for (OneDReader reader : readers) {
       try {
-        return reader.decodeRow(rowNumber, row, hints);
+        Result result = reader.decodeRowOrNull(rowNumber, runs, hints);
+        if (result != null) {
+          return result;
+        }
       } catch (ReaderException re) {
         // continue
       }
     }
-
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   @Override
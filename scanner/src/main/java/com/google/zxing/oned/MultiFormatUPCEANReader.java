@@ -72,8 +72,26 @@ public final class MultiFormatUPCEANReader extends OneDReader {
   public Result decodeRow(int rowNumber,
                           BitArray row,
                           Map<DecodeHintType,?> hints) throws NotFoundException {
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber,
+                                   BitArray row,
+                                   Map<DecodeHintType,?> hints) {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber,
+                                   RunLengthRow runs,
+                                   Map<DecodeHintType,?> hints) {
     // Compute this location once and reuse it on multiple implementations
-    int[] startGuardPattern = UPCEANReader.findStartGuardPattern(row);
+    int[] startGuardPattern = UPCEANReader.findStartGuardPattern(runs);
+    if (startGuardPattern == null) {
+      return null;
+    }
+    BitArray row = runs.getRow();
     for (UPCEANReader reader : readers) {
       try {
         Result result = reader.decodeRow(rowNumber, row, startGuardPattern, hints);
@@ -112,7 +130,7 @@ public final class MultiFormatUPCEANReader extends OneDReader {
       }
     }
 
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   @Override
@@ -18,28 +18,79 @@ package com.google.zxing.oned;
 
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
+import com.google.zxing.ConfiguredReader;
+import com.google.zxing.DecodeConfig;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.Reader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.common.BitArray;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Encapsulates functionality and implementation that is common to all families
  * of one-dimensional barcodes.
  *
+ * <p>Given an executor with {@link #setRowScanExecutor}, the rows of tall images are decoded in
+ * bands on it when trying harder. The barcode returned is still the one nearest the middle, as
+ * without it.</p>
+ *
  * @author dswitkin@google.com (Daniel Switkin)
  * @author Sean Owen
  */
-public abstract class OneDReader implements Reader {
+public abstract class OneDReader implements ConfiguredReader {
+
+  // Fewer rows are scanned on the calling thread, which covers every scan that isn't trying harder.
+  private static final int PARALLEL_MIN_ROWS = 64;
+  // Rows per task when scanning on the executor.
+  private static final int BAND_ROWS = 8;
+
+  /**
+   * Creates the readers the rows are decoded with on the executor, as many as there are bands
+   * being decoded at once.
+   */
+  public interface ReaderFactory {
+
+    OneDReader newReader();
+
+  }
+
+  private ExecutorService rowScanExecutor;
+  private ReaderFactory rowReaderFactory;
+  private Queue<OneDReader> idleRowReaders;
+
+  /**
+   * Decodes the rows of tall images on an executor. Readers are not thread-safe, so each band of
+   * rows is decoded with an idle reader, or a new one from the factory, which should be set up like
+   * this one. Each reader is {@link #reset} after a band, so readers that piece a barcode together
+   * from several rows, like those for stacked RSS, only see the rows of one band at a time.
+   *
+   * @param executor executor to decode rows on, or {@code null} to decode them all on the calling
+   *  thread; if it rejects a band, that band is decoded on the calling thread
+   * @param readerFactory creates the readers rows are decoded with on the executor
+   */
+  public final void setRowScanExecutor(ExecutorService executor, ReaderFactory readerFactory) {
+    this.rowScanExecutor = executor;
+    this.rowReaderFactory = readerFactory;
+    this.idleRowReaders = new ConcurrentLinkedQueue<>();
+  }
 
   @Override
   public Result decode(BinaryBitmap image) throws NotFoundException, FormatException {
@@ -50,35 +101,67 @@ public abstract class OneDReader implements Reader {
   @Override
   public Result decode(BinaryBitmap image,
                        Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
-    try {
-      return doDecode(image, hints);
-    } catch (NotFoundException nfe) {
-      boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
-      if (tryHarder && image.isRotateSupported()) {
-        BinaryBitmap rotatedImage = image.rotateCounterClockwise();
-        Result result = doDecode(rotatedImage, hints);
-        // Record that we found it rotated 90 degrees CCW / 270 degrees CW
-        Map<ResultMetadataType,?> metadata = result.getResultMetadata();
-        int orientation = 270;
-        if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
-          // But if we found it reversed in doDecode(), add in that result here:
-          orientation = (orientation +
-              (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
-        }
-        result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
-        // Update result points
-        ResultPoint[] points = result.getResultPoints();
-        if (points != null) {
-          int height = rotatedImage.getHeight();
-          for (int i = 0; i < points.length; i++) {
-            points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
-          }
-        }
-        return result;
-      } else {
-        throw nfe;
+    Result result = decodeOrNull(image, hints);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  /**
+   * Like {@link #decodeOrNull(BinaryBitmap, Map)}, with the hints of {@code config}, which are
+   * built once with it.
+   *
+   * @param image The image to decode
+   * @param config Precompiled decode hints
+   * @return The contents of the decoded barcode, or {@code null}
+   */
+  @Override
+  public final Result decodeOrNull(BinaryBitmap image, DecodeConfig config) {
+    return decodeOrNull(image, config.getHints());
+  }
+
+  /**
+   * Like {@link #decode(BinaryBitmap, Map)}, but returns {@code null} rather than throwing if no
+   * barcode is found. Rows are rejected through {@link #decodeRowOrNull(int, BitArray, Map)}, so
+   * an image without a barcode costs no exception in readers that implement it.
+   *
+   * @param image The image to decode
+   * @param hints Any hints that were requested
+   * @return The contents of the decoded barcode, or {@code null}
+   */
+  public Result decodeOrNull(BinaryBitmap image, Map<DecodeHintType,?> hints) {
+    Result result = doDecode(image, hints);
+    if (result != null) {
+      return result;
+    }
+    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+    if (!tryHarder || !image.isRotateSupported() || Thread.currentThread().isInterrupted()) {
+      return null;
+    }
+    BinaryBitmap rotatedImage = image.rotateCounterClockwise();
+    result = doDecode(rotatedImage, hints);
+    if (result == null) {
+      return null;
+    }
+    // Record that we found it rotated 90 degrees CCW / 270 degrees CW
+    Map<ResultMetadataType,?> metadata = result.getResultMetadata();
+    int orientation = 270;
+    if (metadata != null && metadata.containsKey(ResultMetadataType.ORIENTATION)) {
+      // But if we found it reversed in doDecode(), add in that result here:
+      orientation = (orientation +
+          (Integer) metadata.get(ResultMetadataType.ORIENTATION)) % 360;
+    }
+    result.putMetadata(ResultMetadataType.ORIENTATION, orientation);
+    // Update result points
+    ResultPoint[] points = result.getResultPoints();
+    if (points != null) {
+      int height = rotatedImage.getHeight();
+      for (int i = 0; i < points.length; i++) {
+        points[i] = new ResultPoint(height - points[i].getY() - 1, points[i].getX());
       }
     }
+    return result;
   }
 
   @Override
@@ -97,14 +180,11 @@ public abstract class OneDReader implements Reader {
    *
    * @param image The image to decode
    * @param hints Any hints that were requested
-   * @return The contents of the decoded barcode
-   * @throws NotFoundException Any spontaneous errors which occur
+   * @return The contents of the decoded barcode, or {@code null} if none is found
    */
   private Result doDecode(BinaryBitmap image,
-                          Map<DecodeHintType,?> hints) throws NotFoundException {
-    int width = image.getWidth();
+                          Map<DecodeHintType,?> hints) {
     int height = image.getHeight();
-    BitArray row = new BitArray(width);
 
     boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
     int rowStep = Math.max(1, height >> (tryHarder ? 8 : 5));
@@ -114,64 +194,162 @@ public abstract class OneDReader implements Reader {
     } else {
       maxLines = 15; // 15 rows spaced 1/32 apart is roughly the middle half of the image
     }
-
-    int middle = height / 2;
-    for (int x = 0; x < maxLines; x++) {
-
-      // Scanning from the middle out. Determine which row we're looking at next:
-      int rowStepsAboveOrBelow = (x + 1) / 2;
-      boolean isAbove = (x & 0x01) == 0; // i.e. is x even?
-      int rowNumber = middle + rowStep * (isAbove ? rowStepsAboveOrBelow : -rowStepsAboveOrBelow);
+    int lines = 0;
+    while (lines < maxLines) {
+      int rowNumber = rowNumber(height, rowStep, lines);
       if (rowNumber < 0 || rowNumber >= height) {
         // Oops, if we run off the top or bottom, stop
         break;
       }
+      lines++;
+    }
+
+    // This means we will only ever draw result points *once* in the life of this method
+    // since we want to avoid drawing the wrong points after flipping the row, and,
+    // don't want to clutter with noise from every single row scan -- just the scans
+    // that start on the center line.
+    Map<DecodeHintType,?> laterHints = hints;
+    if (hints != null && hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
+      Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
+      newHints.putAll(hints);
+      newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+      laterHints = newHints;
+    }
+
+    // With a single core scanning ahead only adds work.
+    if (rowScanExecutor != null && lines >= PARALLEL_MIN_ROWS &&
+        Runtime.getRuntime().availableProcessors() > 1) {
+      return doDecodeInParallel(image, rowStep, lines, hints, laterHints);
+    }
+
+    BitArray row = new BitArray(image.getWidth());
+    RunLengthRow runs = new RunLengthRow();
+    for (int x = 0; x < lines; x++) {
+      // Scanning from the middle out. Determine which row we're looking at next:
+      int rowNumber = rowNumber(height, rowStep, x);
 
       // Estimate black point for this row and load it:
-      try {
-        row = image.getBlackRow(rowNumber, row);
-      } catch (NotFoundException ignored) {
+      BitArray blackRow = image.getBlackRowOrNull(rowNumber, row);
+      if (blackRow == null) {
         continue;
       }
+      row = blackRow;
+      // Every reader looks for its start pattern in these runs, so the row is only scanned once.
+      runs.setRow(row);
+
+      Result result = decodeRowBothWays(rowNumber, runs, hints, laterHints);
+      if (result != null) {
+        return result;
+      }
+      hints = laterHints;
+    }
 
-      // While we have the image data in a BitArray, it's fairly cheap to reverse it in place to
-      // handle decoding upside down barcodes.
-      for (int attempt = 0; attempt < 2; attempt++) {
-        if (attempt == 1) { // trying again?
-          row.reverse(); // reverse the row and continue
-          // This means we will only ever draw result points *once* in the life of this method
-          // since we want to avoid drawing the wrong points after flipping the row, and,
-          // don't want to clutter with noise from every single row scan -- just the scans
-          // that start on the center line.
-          if (hints != null && hints.containsKey(DecodeHintType.NEED_RESULT_POINT_CALLBACK)) {
-            Map<DecodeHintType,Object> newHints = new EnumMap<>(DecodeHintType.class);
-            newHints.putAll(hints);
-            newHints.remove(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
-            hints = newHints;
+    return null;
+  }
+
+  /**
+   * @param x how many rows were looked at before this one
+   * @return the row to look at next, alternately above and below the middle
+   */
+  private static int rowNumber(int height, int rowStep, int x) {
+    int rowStepsAboveOrBelow = (x + 1) / 2;
+    boolean isAbove = (x & 0x01) == 0; // i.e. is x even?
+    return height / 2 + rowStep * (isAbove ? rowStepsAboveOrBelow : -rowStepsAboveOrBelow);
+  }
+
+  /**
+   * Looks for a barcode in a row, and then in the same row reversed, to handle decoding upside
+   * down barcodes.
+   *
+   * @param hints hints for reading the row forwards
+   * @param reversedHints hints for reading it reversed
+   * @return the barcode found, with its orientation and result points set as in the image
+   */
+  private Result decodeRowBothWays(int rowNumber,
+                                   RunLengthRow runs,
+                                   Map<DecodeHintType,?> hints,
+                                   Map<DecodeHintType,?> reversedHints) {
+    // The runs can as well be read backwards to handle decoding upside down barcodes; the row
+    // itself is only reversed for readers that find a start pattern that way.
+    for (int attempt = 0; attempt < 2; attempt++) {
+      if (attempt == 1) { // trying again?
+        runs.reverse(); // reverse the row and continue
+      }
+      try {
+        // Look for a barcode
+        Result result = decodeRowOrNull(rowNumber, runs, attempt == 0 ? hints : reversedHints);
+        if (result == null) {
+          continue;
+        }
+        // We found our barcode
+        if (attempt == 1) {
+          // But it was upside down, so note that
+          result.putMetadata(ResultMetadataType.ORIENTATION, 180);
+          // And remember to flip the result points horizontally.
+          ResultPoint[] points = result.getResultPoints();
+          if (points != null) {
+            int width = runs.getSize();
+            points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
+            points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
           }
         }
+        return result;
+      } catch (ReaderException re) {
+        // continue -- just couldn't decode this row
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Scans the same rows as {@link #doDecode(BinaryBitmap, Map)}, but decodes them in bands on the
+   * executor, each with a reader of its own. The rows are binarized here, since binarizers are not
+   * thread-safe, and the bands are taken in scan order, so the barcode returned is the one a
+   * sequential scan would have found first. A band the executor has not started on is decoded here
+   * rather than waited for. Once a row is decoded, bands farther out are cancelled, and those
+   * already running stop at their next row. If interrupted, the scan gives up and returns
+   * {@code null} with the interrupt flag set.
+   *
+   * <p>The middle row is decoded here first, as it is where most barcodes are found, so those cost
+   * no more than without the executor. It is also the only row whose result points go to the
+   * callback.</p>
+   */
+  private Result doDecodeInParallel(BinaryBitmap image,
+                                    int rowStep,
+                                    int lines,
+                                    Map<DecodeHintType,?> hints,
+                                    Map<DecodeHintType,?> laterHints) {
+    int middle = rowNumber(image.getHeight(), rowStep, 0);
+    BitArray row = image.getBlackRowOrNull(middle, null);
+    if (row != null) {
+      Result result = decodeRowBothWays(middle, new RunLengthRow(row), hints, laterHints);
+      if (result != null) {
+        return result;
+      }
+    }
+    RowBands bands = new RowBands(image, rowStep, lines, laterHints);
+    try {
+      for (int band = 0; band < bands.size(); band++) {
+        bands.submitThrough(band + bands.bandsAhead);
+        Result result;
         try {
-          // Look for a barcode
-          Result result = decodeRow(rowNumber, row, hints);
-          // We found our barcode
-          if (attempt == 1) {
-            // But it was upside down, so note that
-            result.putMetadata(ResultMetadataType.ORIENTATION, 180);
-            // And remember to flip the result points horizontally.
-            ResultPoint[] points = result.getResultPoints();
-            if (points != null) {
-              points[0] = new ResultPoint(width - points[0].getX() - 1, points[0].getY());
-              points[1] = new ResultPoint(width - points[1].getX() - 1, points[1].getY());
-            }
-          }
-          return result;
+          result = bands.get(band);
         } catch (ReaderException re) {
-          // continue -- just couldn't decode this row
+          // continue -- just couldn't decode this band
+          continue;
+        }
+        if (result != null) {
+          return result;
         }
       }
+      return null;
+    } catch (InterruptedException ie) {
+      // Give up on the image, and leave the interrupt to the caller
+      Thread.currentThread().interrupt();
+      return null;
+    } finally {
+      bands.cancel();
     }
-
-    throw NotFoundException.getNotFoundInstance();
   }
 
   /**
@@ -293,4 +471,218 @@ public abstract class OneDReader implements Reader {
   public abstract Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException;
 
+  /**
+   * <p>Like {@link #decodeRow(int, BitArray, Map)}, but returns {@code null} rather than throwing
+   * when the row plainly holds no barcode of this format, which is most rows of most images.
+   * Readers override this to reject such rows, typically ones without a start pattern, without an
+   * exception; rows that looked like a barcode but fail to decode may still throw.</p>
+   *
+   * @param rowNumber row number from top of the row
+   * @param row the black/white pixel data of the row
+   * @param hints decode hints
+   * @return {@link Result} containing encoded string and start/end of barcode, or {@code null}
+   * @throws NotFoundException if a potential barcode is found but cannot be read
+   * @throws ChecksumException if a potential barcode is found but does not pass its checksum
+   * @throws FormatException if a potential barcode is found but format is invalid
+   */
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    try {
+      return decodeRow(rowNumber, row, hints);
+    } catch (NotFoundException nfe) {
+      return null;
+    }
+  }
+
+  /**
+   * <p>Like {@link #decodeRowOrNull(int, BitArray, Map)}, given the row as the runs computed once
+   * for all readers. Readers override this to look for their start pattern among the runs, and
+   * only get the bits of the row from {@link RunLengthRow#getRow()} when they find one; this
+   * default decodes the bits straight away.</p>
+   *
+   * @param rowNumber row number from top of the row
+   * @param runs the black/white pixel data of the row, as runs
+   * @param hints decode hints
+   * @return {@link Result} containing encoded string and start/end of barcode, or {@code null}
+   * @throws NotFoundException if a potential barcode is found but cannot be read
+   * @throws ChecksumException if a potential barcode is found but does not pass its checksum
+   * @throws FormatException if a potential barcode is found but format is invalid
+   */
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decodeRowOrNull(rowNumber, runs.getRow(), hints);
+  }
+
+  /**
+   * For readers implementing {@link #decodeRow(int, BitArray, Map)} on top of
+   * {@link #decodeRowOrNull(int, BitArray, Map)}.
+   *
+   * @return the result, if not {@code null}
+   * @throws NotFoundException if it is {@code null}
+   */
+  static Result foundOrThrow(Result result) throws NotFoundException {
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  /**
+   * The rows after the middle one, in scan order, cut into bands of {@value #BAND_ROWS} that are
+   * binarized here and decoded on the executor.
+   */
+  private final class RowBands {
+
+    private final BinaryBitmap image;
+    private final int rowStep;
+    private final int lines;
+    private final Map<DecodeHintType,?> hints;
+    private final int bandsAhead;
+    private final List<RowBand> bands;
+    private final List<Future<Result>> futures;
+    // Scan index of the row nearest the middle found to hold a barcode so far.
+    private final AtomicInteger found;
+
+    RowBands(BinaryBitmap image, int rowStep, int lines, Map<DecodeHintType,?> hints) {
+      this.image = image;
+      this.rowStep = rowStep;
+      this.lines = lines;
+      this.hints = hints;
+      this.bandsAhead = 2 * Runtime.getRuntime().availableProcessors();
+      this.bands = new ArrayList<>();
+      this.futures = new ArrayList<>();
+      this.found = new AtomicInteger(Integer.MAX_VALUE);
+    }
+
+    int size() {
+      return (lines - 1 + BAND_ROWS - 1) / BAND_ROWS;
+    }
+
+    void submitThrough(int lastBand) {
+      int height = image.getHeight();
+      while (bands.size() <= lastBand && bands.size() < size()) {
+        int first = 1 + bands.size() * BAND_ROWS;
+        int count = Math.min(BAND_ROWS, lines - first);
+        RowBand band = new RowBand(first, count);
+        for (int i = 0; i < count; i++) {
+          band.rowNumbers[i] = rowNumber(height, rowStep, first + i);
+          band.rows[i] = image.getBlackRowOrNull(band.rowNumbers[i], null);
+        }
+        bands.add(band);
+        Future<Result> future = null;
+        if (bands.size() > 1) {
+          // The first band is decoded by the caller, which would only wait for it otherwise
+          try {
+            future = rowScanExecutor.submit(band);
+          } catch (RejectedExecutionException ree) {
+            // Shut down; get() decodes the band itself
+          }
+        }
+        futures.add(future);
+      }
+    }
+
+    /**
+     * Decodes a band here if no thread of the executor has started on it yet, and only waits for
+     * bands that are being decoded, so scanning never waits on an executor whose threads are all
+     * busy, for instance with scans of their own.
+     *
+     * @throws ReaderException as thrown while decoding the band on the executor
+     * @throws InterruptedException if interrupted before or while waiting for the band
+     */
+    Result get(int band) throws ReaderException, InterruptedException {
+      if (Thread.interrupted()) {
+        throw new InterruptedException();
+      }
+      RowBand rowBand = bands.get(band);
+      if (rowBand.claim()) {
+        return rowBand.decode();
+      }
+      try {
+        return futures.get(band).get();
+      } catch (ExecutionException ee) {
+        Throwable cause = ee.getCause();
+        if (cause instanceof ReaderException) {
+          throw (ReaderException) cause;
+        }
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    void cancel() {
+      // Bands already running see this and stop at their next row
+      found.set(-1);
+      for (Future<Result> future : futures) {
+        if (future != null) {
+          future.cancel(false);
+        }
+      }
+    }
+
+    private final class RowBand implements Callable<Result> {
+
+      private final int first;
+      private final int[] rowNumbers;
+      private final BitArray[] rows;
+      // Set by whichever thread decodes the band, the caller or one of the executor
+      private final AtomicBoolean claimed = new AtomicBoolean();
+
+      RowBand(int first, int count) {
+        this.first = first;
+        this.rowNumbers = new int[count];
+        this.rows = new BitArray[count];
+      }
+
+      boolean claim() {
+        return claimed.compareAndSet(false, true);
+      }
+
+      @Override
+      public Result call() {
+        // Left alone if the caller got to the band first
+        return claim() ? decode() : null;
+      }
+
+      Result decode() {
+        OneDReader reader = idleRowReaders.poll();
+        if (reader == null) {
+          reader = rowReaderFactory.newReader();
+        }
+        try {
+          RunLengthRow runs = new RunLengthRow();
+          for (int i = 0; i < rows.length; i++) {
+            if (first + i > found.get() || Thread.currentThread().isInterrupted()) {
+              // A row nearer the middle holds a barcode, or the scan is given up
+              return null;
+            }
+            if (rows[i] == null) {
+              continue;
+            }
+            runs.setRow(rows[i]);
+            Result result = reader.decodeRowBothWays(rowNumbers[i], runs, hints, hints);
+            if (result != null) {
+              int nearest = found.get();
+              while (first + i < nearest && !found.compareAndSet(nearest, first + i)) {
+                nearest = found.get();
+              }
+              return result;
+            }
+          }
+          return null;
+        } finally {
+          reader.reset();
+          idleRowReaders.add(reader);
+        }
+      }
+
+    }
+
+  }
+
 }
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.common.BitArray;
+
+/**
+ * <p>A row of pixels as the widths of its runs of white and black pixels. {@link OneDReader}
+ * computes it once for each row it scans and hands it to every reader, which look for their start
+ * patterns among the run widths instead of each scanning the bits of the row again.</p>
+ *
+ * <p>Runs alternate in color, starting and ending with a white one; the first and last runs are
+ * empty if the row starts or ends with a black pixel, so black runs are those at odd indices.
+ * {@link #reverse()} makes the runs read from the other end of the row, for codes held upside
+ * down, without scanning anything again. Indices and pixel offsets are always those of the row as
+ * it is currently read, and {@link #getRow()} gives the bits the same way round.</p>
+ *
+ * <p>Instances are reused from row to row and are not thread-safe.</p>
+ */
+public final class RunLengthRow {
+
+  private BitArray row;
+  private boolean reversed;
+  private boolean rowReversed;
+  private int size;
+  private int count;
+  private int[] runs;
+  // offsets[i] is where run i starts when the row is read forwards; offsets[count] is the size.
+  private int[] offsets;
+
+  public RunLengthRow() {
+    runs = new int[32];
+    offsets = new int[33];
+  }
+
+  /**
+   * @param row row to take the runs of, read forwards
+   */
+  public RunLengthRow(BitArray row) {
+    this();
+    setRow(row);
+  }
+
+  /**
+   * Takes the runs of a new row, read forwards. The row is kept, not copied.
+   */
+  public void setRow(BitArray row) {
+    this.row = row;
+    reversed = false;
+    rowReversed = false;
+    size = row.getSize();
+    count = 0;
+    int x = 0;
+    while (true) {
+      int black = row.getNextSet(x);
+      addRun(x, black - x);
+      if (black >= size) {
+        break;
+      }
+      x = row.getNextUnset(black);
+      addRun(black, x - black);
+      if (x >= size) {
+        addRun(size, 0);
+        break;
+      }
+    }
+    offsets[count] = size;
+  }
+
+  private void addRun(int start, int width) {
+    if (count == runs.length) {
+      int[] newRuns = new int[runs.length * 2];
+      System.arraycopy(runs, 0, newRuns, 0, count);
+      runs = newRuns;
+      int[] newOffsets = new int[newRuns.length + 1];
+      System.arraycopy(offsets, 0, newOffsets, 0, count);
+      offsets = newOffsets;
+    }
+    runs[count] = width;
+    offsets[count] = start;
+    count++;
+  }
+
+  /**
+   * Switches between reading the row forwards and backwards.
+   */
+  public void reverse() {
+    reversed = !reversed;
+  }
+
+  public boolean isReversed() {
+    return reversed;
+  }
+
+  /**
+   * @return the bits of the row, the same way round as the runs are read. The row is only
+   *  reversed when this is called, so readers that find no start pattern never pay for it.
+   */
+  public BitArray getRow() {
+    if (rowReversed != reversed) {
+      row.reverse();
+      rowReversed = reversed;
+    }
+    return row;
+  }
+
+  /**
+   * @return number of pixels in the row
+   */
+  public int getSize() {
+    return size;
+  }
+
+  /**
+   * @return number of runs, which is always odd
+   */
+  public int getRunCount() {
+    return count;
+  }
+
+  /**
+   * @param index run to get, 0 to {@link #getRunCount()} - 1
+   * @return width of the run in pixels
+   */
+  public int getRun(int index) {
+    return runs[reversed ? count - 1 - index : index];
+  }
+
+  /**
+   * @param index run to get, 0 to {@link #getRunCount()}; the latter gives the size of the row
+   * @return offset of the first pixel of the run
+   */
+  public int getRunStart(int index) {
+    return reversed ? size - offsets[count - index] : offsets[index];
+  }
+
+  /**
+   * Copies the widths of successive runs, like {@link OneDReader#recordPattern} does from a
+   * {@link BitArray} starting at the first pixel of the run.
+   *
+   * @param index first run to copy
+   * @param counters receives the widths; the runs copied must exist
+   */
+  public void getRuns(int index, int[] counters) {
+    for (int i = 0; i < counters.length; i++) {
+      counters[i] = getRun(index + i);
+    }
+  }
+
+  /**
+   * @param index run after the last one of a pattern
+   * @return whether the pattern ends before the end of the row, so that its last run is known to
+   *  be complete
+   */
+  public boolean isEndedBy(int index) {
+    return index < count && getRunStart(index) < size;
+  }
+
+  /**
+   * @param index a black run
+   * @param quietZone pixels that must be white before the run
+   * @return whether the run has at least that many white pixels before it, or white pixels back to
+   *  the start of the row
+   */
+  public boolean isQuietBefore(int index, int quietZone) {
+    return getRunStart(index - 1) <= Math.max(0, getRunStart(index) - quietZone);
+  }
+
+}
@@ -28,7 +28,6 @@ import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.BitArray;
 
-import java.util.Arrays;
 import java.util.Map;
 
 /**
@@ -104,31 +103,56 @@ public abstract class UPCEANReader extends OneDReader {
     eanManSupport = new EANManufacturerOrgSupport();
   }
 
-  static int[] findStartGuardPattern(BitArray row) throws NotFoundException {
-    boolean foundStart = false;
-    int[] startRange = null;
-    int nextStart = 0;
-    int[] counters = new int[START_END_PATTERN.length];
-    while (!foundStart) {
-      Arrays.fill(counters, 0, START_END_PATTERN.length, 0);
-      startRange = findGuardPattern(row, nextStart, false, START_END_PATTERN, counters);
-      int start = startRange[0];
-      nextStart = startRange[1];
+  /**
+   * @return start/end horizontal offset of the start guard pattern, or {@code null} if the row has
+   *  none with a quiet zone before it
+   */
+  static int[] findStartGuardPattern(RunLengthRow runs) {
+    int patternLength = START_END_PATTERN.length;
+    int[] counters = new int[patternLength];
+    // Black runs are at odd indices; the pattern must end before the row does.
+    int i = 1;
+    while (runs.isEndedBy(i + patternLength)) {
+      runs.getRuns(i, counters);
+      if (patternMatchVariance(counters, START_END_PATTERN, MAX_INDIVIDUAL_VARIANCE) >= MAX_AVG_VARIANCE) {
+        i += 2;
+        continue;
+      }
+      int start = runs.getRunStart(i);
+      int end = runs.getRunStart(i + patternLength);
       // Make sure there is a quiet zone at least as big as the start pattern before the barcode.
       // If this check would run off the left edge of the image, do not accept this barcode,
       // as it is very likely to be a false positive.
-      int quietStart = start - (nextStart - start);
-      if (quietStart >= 0) {
-        foundStart = row.isRange(quietStart, start, false);
+      int quietStart = start - (end - start);
+      if (quietStart >= 0 && runs.getRunStart(i - 1) <= quietStart) {
+        return new int[]{start, end};
       }
+      // Carry on after the pattern
+      i += patternLength + 1;
     }
-    return startRange;
+    return null;
   }
 
   @Override
   public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
       throws NotFoundException, ChecksumException, FormatException {
-    return decodeRow(rowNumber, row, findStartGuardPattern(row), hints);
+    return foundOrThrow(decodeRowOrNull(rowNumber, row, hints));
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    return decodeRowOrNull(rowNumber, new RunLengthRow(row), hints);
+  }
+
+  @Override
+  protected Result decodeRowOrNull(int rowNumber, RunLengthRow runs, Map<DecodeHintType,?> hints)
+      throws NotFoundException, ChecksumException, FormatException {
+    int[] startGuardRange = findStartGuardPattern(runs);
+    if (startGuardRange == null) {
+      return null;
+    }
+    return decodeRow(rowNumber, runs.getRow(), startGuardRange, hints);
   }
 
   /**
@@ -298,7 +322,11 @@ public abstract class UPCEANReader extends OneDReader {
                                 int rowOffset,
                                 boolean whiteFirst,
                                 int[] pattern) throws NotFoundException {
-    return findGuardPattern(row, rowOffset, whiteFirst, pattern, new int[pattern.length]);
+    int[] range = findGuardPattern(row, rowOffset, whiteFirst, pattern, new int[pattern.length]);
+    if (range == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return range;
   }
 
   /**
@@ -309,14 +337,14 @@ public abstract class UPCEANReader extends OneDReader {
    * @param pattern pattern of counts of number of black and white pixels that are being
    * searched for as a pattern
    * @param counters array of counters, as long as pattern, to re-use
-   * @return start/end horizontal offset of guard pattern, as an array of two ints
-   * @throws NotFoundException if pattern is not found
+   * @return start/end horizontal offset of guard pattern, as an array of two ints, or
+   *  {@code null} if pattern is not found
    */
   private static int[] findGuardPattern(BitArray row,
                                         int rowOffset,
                                         boolean whiteFirst,
                                         int[] pattern,
-                                        int[] counters) throws NotFoundException {
+                                        int[] counters) {
     int width = row.getSize();
     rowOffset = whiteFirst ? row.getNextUnset(rowOffset) : row.getNextSet(rowOffset);
     int counterPosition = 0;
@@ -343,7 +371,7 @@ public abstract class UPCEANReader extends OneDReader {
         isWhite = !isWhite;
       }
     }
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   /**
@@ -15,7 +15,6 @@
  */
 package com.google.zxing.pdf417;
 
-import java.util.Arrays;
 import java.util.Collection;
 
 import com.google.zxing.common.detector.MathUtils;
@@ -39,6 +38,9 @@ public final class PDF417Common {
 
   private static final int[] EMPTY_INT_ARRAY = {};
 
+  // Built on first use, see getCodeword()
+  private static volatile SymbolIndex symbolIndex;
+
   private PDF417Common() {
   }
 
@@ -69,11 +71,13 @@ public final class PDF417Common {
    * @return the codeword corresponding to the symbol.
    */
   public static int getCodeword(int symbol) {
-    int i = Arrays.binarySearch(SYMBOL_TABLE, symbol & 0x3FFFF);
-    if (i < 0) {
-      return -1;
+    SymbolIndex index = symbolIndex;
+    if (index == null) {
+      // Racing threads build equal indexes, so whichever is kept does not matter.
+      index = new SymbolIndex();
+      symbolIndex = index;
     }
-    return (CODEWORD_TABLE[i] - 1) % NUMBER_OF_CODEWORDS;
+    return index.getCodeword(symbol & 0x3FFFF);
   }
 
   /**
@@ -460,4 +464,49 @@ public final class PDF417Common {
       2058, 2054, 1145, 1142, 2005, 2002, 1999, 2009, 1488, 1429, 1426, 2200, 1698, 1659, 1656, 1975, 1053, 1957, 1954,
       1001, 998, 1924, 1921, 1918, 1928, 937, 934, 931, 1879, 1876, 1873, 1870, 945, 1885, 1882, 1323, 1273, 1270,
       2105, 1202, 1199, 1196, 1211, 2061, 2057, 1576, 1543, 1540, 1484, 1481, 1478, 1491, 1700};
+
+  /**
+   * Looks codewords up in constant time rather than by a binary search of {@link #SYMBOL_TABLE},
+   * as every codeword of a PDF417 barcode is looked up. All symbols are 17 bits long with the top
+   * bit set, so a bit set over the other 16 bits tells whether a symbol exists, and the number of
+   * bits set below its own is its index into the sorted tables.
+   */
+  private static final class SymbolIndex {
+
+    private final long[] symbols;
+    // Number of symbols in the words of symbols before each one
+    private final char[] ranks;
+    private final short[] codewords;
+
+    SymbolIndex() {
+      symbols = new long[1 << (MODULES_IN_CODEWORD - 1 - 6)];
+      ranks = new char[symbols.length];
+      codewords = new short[SYMBOL_TABLE.length];
+      for (int i = 0; i < SYMBOL_TABLE.length; i++) {
+        int symbol = SYMBOL_TABLE[i];
+        symbols[(symbol >> 6) & (symbols.length - 1)] |= 1L << symbol;
+        codewords[i] = (short) ((CODEWORD_TABLE[i] - 1) % NUMBER_OF_CODEWORDS);
+      }
+      int rank = 0;
+      for (int i = 0; i < symbols.length; i++) {
+        ranks[i] = (char) rank;
+        rank += Long.bitCount(symbols[i]);
+      }
+    }
+
+    int getCodeword(int symbol) {
+      if (symbol >> (MODULES_IN_CODEWORD - 1) != 1) {
+        return -1;
+      }
+      int word = (symbol >> 6) & (symbols.length - 1);
+      long bit = 1L << symbol;
+      long bits = symbols[word];
+      if ((bits & bit) == 0) {
+        return -1;
+      }
+      return codewords[ranks[word] + Long.bitCount(bits & (bit - 1))];
+    }
+
+  }
+
 }
@@ -65,4 +65,15 @@ final class BarcodeValue {
     return values.get(value);
   }
 
+  /**
+   * @return how many times any value was set
+   */
+  int getOccurrences() {
+    int occurrences = 0;
+    for (Integer confidence : values.values()) {
+      occurrences += confidence;
+    }
+    return occurrences;
+  }
+
 }
@@ -25,26 +25,6 @@ import com.google.zxing.pdf417.PDF417Common;
  */
 final class PDF417CodewordDecoder {
 
-  private static final float[][] RATIOS_TABLE =
-      new float[PDF417Common.SYMBOL_TABLE.length][PDF417Common.BARS_IN_MODULE];
-
-  static {
-    // Pre-computes the symbol ratio table.
-    for (int i = 0; i < PDF417Common.SYMBOL_TABLE.length; i++) {
-      int currentSymbol = PDF417Common.SYMBOL_TABLE[i];
-      int currentBit = currentSymbol & 0x1;
-      for (int j = 0; j < PDF417Common.BARS_IN_MODULE; j++) {
-        float size = 0.0f;
-        while ((currentSymbol & 0x1) == currentBit) {
-          size += 1.0f;
-          currentSymbol >>= 1;
-        }
-        currentBit = currentSymbol & 0x1;
-        RATIOS_TABLE[i][PDF417Common.BARS_IN_MODULE - j - 1] = size / PDF417Common.MODULES_IN_CODEWORD;
-      }
-    }
-  }
-
   private PDF417CodewordDecoder() {
   }
 
@@ -97,24 +77,7 @@ final class PDF417CodewordDecoder {
         bitCountRatios[i] = moduleBitCount[i] / (float) bitCountSum;
       }
     }
-    float bestMatchError = Float.MAX_VALUE;
-    int bestMatch = -1;
-    for (int j = 0; j < RATIOS_TABLE.length; j++) {
-      float error = 0.0f;
-      float[] ratioTableRow = RATIOS_TABLE[j];
-      for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
-        float diff = ratioTableRow[k] - bitCountRatios[k];
-        error += diff * diff;
-        if (error >= bestMatchError) {
-          break;
-        }
-      }
-      if (error < bestMatchError) {
-        bestMatchError = error;
-        bestMatch = PDF417Common.SYMBOL_TABLE[j];
-      }
-    }
-    return bestMatch;
+    return SymbolRatioTree.getInstance().getClosestSymbol(bitCountRatios);
   }
 
 }
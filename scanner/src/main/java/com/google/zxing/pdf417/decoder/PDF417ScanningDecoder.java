@@ -17,6 +17,7 @@
 package com.google.zxing.pdf417.decoder;
 
 import com.google.zxing.ChecksumException;
+import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
@@ -25,11 +26,15 @@ import com.google.zxing.common.DecoderResult;
 import com.google.zxing.common.detector.MathUtils;
 import com.google.zxing.pdf417.PDF417Common;
 import com.google.zxing.pdf417.decoder.ec.ErrorCorrection;
+import com.google.zxing.pdf417.decoder.ec.Syndromes;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Formatter;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author Guenther Grau
@@ -40,6 +45,10 @@ public final class PDF417ScanningDecoder {
 
   private static final int MAX_ERRORS = 3;
   private static final int MAX_EC_CODEWORDS = 512;
+  private static final int DEFAULT_AMBIGUOUS_ATTEMPTS = 100;
+  // Checking the syndromes of a combination of ambiguous values costs a few hundredths of a full
+  // error correction attempt, so this many checks cost a fraction of the attempts they may save.
+  private static final int SYNDROME_CHECKS_PER_ATTEMPT = 64;
   private static final ErrorCorrection errorCorrection = new ErrorCorrection();
 
   private PDF417ScanningDecoder() {
@@ -56,6 +65,24 @@ public final class PDF417ScanningDecoder {
                                      ResultPoint imageBottomRight,
                                      int minCodewordWidth,
                                      int maxCodewordWidth) throws NotFoundException, FormatException, ChecksumException {
+    return decode(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight, minCodewordWidth,
+        maxCodewordWidth, null);
+  }
+
+  /**
+   * Like {@link #decode(BitMatrix, ResultPoint, ResultPoint, ResultPoint, ResultPoint, int, int)}, with hints
+   * bounding the search over codewords that were read with more than one value, see
+   * {@link DecodeHintType#PDF417_AMBIGUOUS_ATTEMPTS} and {@link DecodeHintType#PDF417_AMBIGUOUS_TIME_BUDGET}.
+   */
+  public static DecoderResult decode(BitMatrix image,
+                                     ResultPoint imageTopLeft,
+                                     ResultPoint imageBottomLeft,
+                                     ResultPoint imageTopRight,
+                                     ResultPoint imageBottomRight,
+                                     int minCodewordWidth,
+                                     int maxCodewordWidth,
+                                     Map<DecodeHintType,?> hints)
+      throws NotFoundException, FormatException, ChecksumException {
     BoundingBox boundingBox = new BoundingBox(image, imageTopLeft, imageBottomLeft, imageTopRight, imageBottomRight);
     DetectionResultRowIndicatorColumn leftRowIndicatorColumn = null;
     DetectionResultRowIndicatorColumn rightRowIndicatorColumn = null;
@@ -121,7 +148,7 @@ public final class PDF417ScanningDecoder {
         }
       }
     }
-    return createDecoderResult(detectionResult);
+    return createDecoderResult(detectionResult, hints);
   }
 
   private static DetectionResult merge(DetectionResultRowIndicatorColumn leftRowIndicatorColumn,
@@ -249,14 +276,15 @@ public final class PDF417ScanningDecoder {
     }
   }
 
-  private static DecoderResult createDecoderResult(DetectionResult detectionResult) throws FormatException,
-      ChecksumException, NotFoundException {
+  private static DecoderResult createDecoderResult(DetectionResult detectionResult, Map<DecodeHintType,?> hints)
+      throws FormatException, ChecksumException, NotFoundException {
     BarcodeValue[][] barcodeMatrix = createBarcodeMatrix(detectionResult);
     adjustCodewordCount(detectionResult, barcodeMatrix);
     Collection<Integer> erasures = new ArrayList<>();
     int[] codewords = new int[detectionResult.getBarcodeRowCount() * detectionResult.getBarcodeColumnCount()];
     List<int[]> ambiguousIndexValuesList = new ArrayList<>();
-    Collection<Integer> ambiguousIndexesList = new ArrayList<>();
+    List<Integer> ambiguousIndexesList = new ArrayList<>();
+    final List<BarcodeValue> ambiguousBarcodeValues = new ArrayList<>();
     for (int row = 0; row < detectionResult.getBarcodeRowCount(); row++) {
       for (int column = 0; column < detectionResult.getBarcodeColumnCount(); column++) {
         int[] values = barcodeMatrix[row][column + 1].getValue();
@@ -268,64 +296,150 @@ public final class PDF417ScanningDecoder {
         } else {
           ambiguousIndexesList.add(codewordIndex);
           ambiguousIndexValuesList.add(values);
+          ambiguousBarcodeValues.add(barcodeMatrix[row][column + 1]);
         }
       }
     }
-    int[][] ambiguousIndexValues = new int[ambiguousIndexValuesList.size()][];
-    for (int i = 0; i < ambiguousIndexValues.length; i++) {
-      ambiguousIndexValues[i] = ambiguousIndexValuesList.get(i);
+    // The codewords whose most likely values got the smallest share of all reads are the likeliest to be
+    // wrong, so they are varied first.
+    List<Integer> order = new ArrayList<>(ambiguousIndexesList.size());
+    for (int i = 0; i < ambiguousIndexesList.size(); i++) {
+      order.add(i);
+    }
+    Collections.sort(order, new Comparator<Integer>() {
+      @Override
+      public int compare(Integer a, Integer b) {
+        BarcodeValue valueA = ambiguousBarcodeValues.get(a);
+        BarcodeValue valueB = ambiguousBarcodeValues.get(b);
+        long shareA = (long) getMaxConfidence(valueA) * valueB.getOccurrences();
+        long shareB = (long) getMaxConfidence(valueB) * valueA.getOccurrences();
+        return shareA < shareB ? -1 : shareA == shareB ? 0 : 1;
+      }
+    });
+    int[] ambiguousIndexes = new int[order.size()];
+    int[][] ambiguousIndexValues = new int[order.size()][];
+    for (int i = 0; i < ambiguousIndexes.length; i++) {
+      ambiguousIndexes[i] = ambiguousIndexesList.get(order.get(i));
+      ambiguousIndexValues[i] = ambiguousIndexValuesList.get(order.get(i));
+    }
+    int maxAttempts = DEFAULT_AMBIGUOUS_ATTEMPTS;
+    long timeBudget = Long.MAX_VALUE;
+    if (hints != null) {
+      if (hints.containsKey(DecodeHintType.PDF417_AMBIGUOUS_ATTEMPTS)) {
+        maxAttempts = ((Number) hints.get(DecodeHintType.PDF417_AMBIGUOUS_ATTEMPTS)).intValue();
+      }
+      if (hints.containsKey(DecodeHintType.PDF417_AMBIGUOUS_TIME_BUDGET)) {
+        timeBudget = ((Number) hints.get(DecodeHintType.PDF417_AMBIGUOUS_TIME_BUDGET)).longValue() * 1000000L;
+      }
     }
     return createDecoderResultFromAmbiguousValues(detectionResult.getBarcodeECLevel(), codewords,
-        PDF417Common.toIntArray(erasures), PDF417Common.toIntArray(ambiguousIndexesList), ambiguousIndexValues);
+        PDF417Common.toIntArray(erasures), ambiguousIndexes, ambiguousIndexValues, maxAttempts, timeBudget);
+  }
+
+  private static int getMaxConfidence(BarcodeValue barcodeValue) {
+    return barcodeValue.getConfidence(barcodeValue.getValue()[0]);
   }
 
   /**
    * This method deals with the fact, that the decoding process doesn't always yield a single most likely value. The
    * current error correction implementation doesn't deal with erasures very well, so it's better to provide a value
    * for these ambiguous codewords instead of treating it as an erasure. The problem is that we don't know which of
-   * the ambiguous values to choose. We try decode using the first value, and if that fails, we use another of the
-   * ambiguous values and try to decode again. This usually only happens on very hard to read and decode barcodes,
-   * so decoding the normal barcodes is not affected by this.
+   * the ambiguous values to choose. This usually only happens on very hard to read and decode barcodes, so decoding
+   * the normal barcodes is not affected by this.
+   *
+   * <p>Since the syndromes of the codewords can be updated as a single codeword changes, every combination of the
+   * ambiguous values is first checked for one that needs no error correction at all, changing one codeword at a time.
+   * Only if there is none is error correction run on one combination after another, in order of the codewords most
+   * likely to be wrong, until one decodes or the budget runs out.</p>
    *
    * @param erasureArray contains the indexes of erasures
-   * @param ambiguousIndexes array with the indexes that have more than one most likely value
+   * @param ambiguousIndexes array with the indexes that have more than one most likely value, those to vary first
    * @param ambiguousIndexValues two dimensional array that contains the ambiguous values. The first dimension must
    * be the same length as the ambiguousIndexes array
+   * @param maxAttempts most combinations to run error correction on; at least one is
+   * @param timeBudget nanoseconds after which to give up, once at least one combination was tried
    */
-  private static DecoderResult createDecoderResultFromAmbiguousValues(int ecLevel,
-                                                                      int[] codewords,
-                                                                      int[] erasureArray,
-                                                                      int[] ambiguousIndexes,
-                                                                      int[][] ambiguousIndexValues)
+  static DecoderResult createDecoderResultFromAmbiguousValues(int ecLevel,
+                                                              int[] codewords,
+                                                              int[] erasureArray,
+                                                              int[] ambiguousIndexes,
+                                                              int[][] ambiguousIndexValues,
+                                                              int maxAttempts,
+                                                              long timeBudget)
       throws FormatException, ChecksumException {
+    if (ambiguousIndexes.length == 0) {
+      return decodeCodewords(codewords, ecLevel, erasureArray);
+    }
+    long start = System.nanoTime();
+    int numECCodewords = 1 << (ecLevel + 1);
     int[] ambiguousIndexCount = new int[ambiguousIndexes.length];
+    for (int i = 0; i < ambiguousIndexCount.length; i++) {
+      codewords[ambiguousIndexes[i]] = ambiguousIndexValues[i][0];
+    }
+    Syndromes syndromes = new Syndromes(codewords, numECCodewords);
 
-    int tries = 100;
-    while (tries-- > 0) {
-      for (int i = 0; i < ambiguousIndexCount.length; i++) {
-        codewords[ambiguousIndexes[i]] = ambiguousIndexValues[i][ambiguousIndexCount[i]];
+    // Every combination, in reflected Gray code order so that each differs from the last in one codeword only
+    int[] direction = new int[ambiguousIndexes.length];
+    for (int i = 0; i < direction.length; i++) {
+      direction[i] = 1;
+    }
+    long maxChecks = (long) Math.max(1, maxAttempts) * SYNDROME_CHECKS_PER_ATTEMPT;
+    for (long checks = 1; !syndromes.isZero(); checks++) {
+      if (checks == maxChecks || (checks & 0xFF) == 0 && System.nanoTime() - start > timeBudget) {
+        break;
+      }
+      int i = 0;
+      while (i < ambiguousIndexCount.length &&
+          (ambiguousIndexCount[i] + direction[i] < 0 ||
+           ambiguousIndexCount[i] + direction[i] >= ambiguousIndexValues[i].length)) {
+        direction[i] = -direction[i];
+        i++;
+      }
+      if (i == ambiguousIndexCount.length) {
+        break;
       }
+      ambiguousIndexCount[i] += direction[i];
+      setAmbiguousValue(codewords, syndromes, ambiguousIndexes[i], ambiguousIndexValues[i][ambiguousIndexCount[i]]);
+    }
+    if (syndromes.isZero()) {
+      return decodeCodewords(codewords, ecLevel, erasureArray, syndromes);
+    }
+
+    // None is free of errors, so correct the likeliest ones
+    for (int i = 0; i < ambiguousIndexCount.length; i++) {
+      ambiguousIndexCount[i] = 0;
+      setAmbiguousValue(codewords, syndromes, ambiguousIndexes[i], ambiguousIndexValues[i][0]);
+    }
+    int attempts = 0;
+    while (true) {
       try {
-        return decodeCodewords(codewords, ecLevel, erasureArray);
+        return decodeCodewords(codewords, ecLevel, erasureArray, syndromes);
       } catch (ChecksumException ignored) {
         //
       }
-      if (ambiguousIndexCount.length == 0) {
+      if (++attempts >= maxAttempts || System.nanoTime() - start > timeBudget) {
         throw ChecksumException.getChecksumInstance();
       }
       for (int i = 0; i < ambiguousIndexCount.length; i++) {
         if (ambiguousIndexCount[i] < ambiguousIndexValues[i].length - 1) {
           ambiguousIndexCount[i]++;
+          setAmbiguousValue(codewords, syndromes, ambiguousIndexes[i],
+              ambiguousIndexValues[i][ambiguousIndexCount[i]]);
           break;
         } else {
           ambiguousIndexCount[i] = 0;
+          setAmbiguousValue(codewords, syndromes, ambiguousIndexes[i], ambiguousIndexValues[i][0]);
           if (i == ambiguousIndexCount.length - 1) {
             throw ChecksumException.getChecksumInstance();
           }
         }
       }
     }
-    throw ChecksumException.getChecksumInstance();
+  }
+
+  private static void setAmbiguousValue(int[] codewords, Syndromes syndromes, int index, int value) {
+    syndromes.update(index, codewords[index], value);
+    codewords[index] = value;
   }
 
   private static BarcodeValue[][] createBarcodeMatrix(DetectionResult detectionResult) {
@@ -522,12 +636,20 @@ public final class PDF417ScanningDecoder {
 
   private static DecoderResult decodeCodewords(int[] codewords, int ecLevel, int[] erasures) throws FormatException,
       ChecksumException {
+    return decodeCodewords(codewords, ecLevel, erasures, null);
+  }
+
+  /**
+   * @param syndromes syndromes of the codewords if already computed, or {@code null}
+   */
+  private static DecoderResult decodeCodewords(int[] codewords, int ecLevel, int[] erasures, Syndromes syndromes)
+      throws FormatException, ChecksumException {
     if (codewords.length == 0) {
       throw FormatException.getFormatInstance();
     }
 
     int numECCodewords = 1 << (ecLevel + 1);
-    int correctedErrorsCount = correctErrors(codewords, erasures, numECCodewords);
+    int correctedErrorsCount = correctErrors(codewords, erasures, numECCodewords, syndromes);
     verifyCodewordCount(codewords, numECCodewords);
 
     // Decode the codewords
@@ -544,9 +666,11 @@ public final class PDF417ScanningDecoder {
    * @param codewords   data and error correction codewords
    * @param erasures positions of any known erasures
    * @param numECCodewords number of error correction codewords that are available in codewords
+   * @param syndromes syndromes of the codewords if already computed, or {@code null}
    * @throws ChecksumException if error correction fails
    */
-  private static int correctErrors(int[] codewords, int[] erasures, int numECCodewords) throws ChecksumException {
+  private static int correctErrors(int[] codewords, int[] erasures, int numECCodewords, Syndromes syndromes)
+      throws ChecksumException {
     if (erasures != null &&
         erasures.length > numECCodewords / 2 + MAX_ERRORS ||
         numECCodewords < 0 ||
@@ -554,7 +678,10 @@ public final class PDF417ScanningDecoder {
       // Too many errors or EC Codewords is corrupted
       throw ChecksumException.getChecksumInstance();
     }
-    return errorCorrection.decode(codewords, numECCodewords, erasures);
+    if (syndromes == null) {
+      return errorCorrection.decode(codewords, numECCodewords, erasures);
+    }
+    return errorCorrection.decode(codewords, syndromes, erasures);
   }
 
   /**
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.pdf417.PDF417Common;
+
+import java.util.Arrays;
+
+/**
+ * <p>Finds the symbol whose bar widths are nearest to those read for a codeword that matches no
+ * symbol exactly. Symbols are kept in a tree by the widths of their bars, first to last, so a
+ * search can skip every symbol starting with bars that are already farther off than the best
+ * match found so far, rather than comparing all of them.</p>
+ *
+ * <p>Distances are the sums of the squared differences between the bar widths as ratios of the
+ * codeword width, added up bar by bar, so the symbol found is the one a comparison with every
+ * symbol in table order finds, the first in the table among equally near ones.</p>
+ *
+ * @see PDF417CodewordDecoder
+ */
+final class SymbolRatioTree {
+
+  private static final int BARS = PDF417Common.BARS_IN_MODULE;
+  // Ratio of each possible bar width to the width of a codeword
+  private static final float[] WIDTH_RATIOS = new float[PDF417Common.MODULES_IN_CODEWORD + 1];
+  // Bits per bar width in the sort keys of the symbols, and bits for their index
+  private static final int WIDTH_BITS = 3;
+  private static final int INDEX_BITS = 12;
+
+  static {
+    for (int width = 0; width < WIDTH_RATIOS.length; width++) {
+      WIDTH_RATIOS[width] = (float) width / PDF417Common.MODULES_IN_CODEWORD;
+    }
+  }
+
+  // Built on first use, see getInstance()
+  private static volatile SymbolRatioTree instance;
+
+  // Nodes in breadth first order, node 0 being the root. The children of node n are nodes
+  // firstChild[n] to firstChild[n + 1] - 1, by increasing width of the bar they add; the nodes of
+  // the last bar, from firstLeaf on, are the symbols.
+  private final byte[] widths;
+  private final char[] firstChild;
+  private final int firstLeaf;
+  // Index into SYMBOL_TABLE of each leaf
+  private final char[] leafSymbols;
+
+  private SymbolRatioTree() {
+    int[] symbolTable = PDF417Common.SYMBOL_TABLE;
+    int symbolCount = symbolTable.length;
+    // Sorting the symbols by their bar widths puts those sharing their first bars next to each other
+    long[] keys = new long[symbolCount];
+    for (int i = 0; i < symbolCount; i++) {
+      long key = 0;
+      for (int width : getBarWidths(symbolTable[i])) {
+        key = (key << WIDTH_BITS) | width;
+      }
+      keys[i] = (key << INDEX_BITS) | i;
+    }
+    Arrays.sort(keys);
+
+    byte[] nodeWidths = new byte[1 + BARS * symbolCount];
+    char[] nodeFirstChild = new char[1 + BARS * symbolCount];
+    // Node each symbol has got to in the bars added so far
+    int[] symbolNodes = new int[symbolCount];
+    int nodes = 1;
+    for (int bar = 0; bar < BARS; bar++) {
+      int shift = INDEX_BITS + WIDTH_BITS * (BARS - 1 - bar);
+      long previousPrefix = -1;
+      for (int i = 0; i < symbolCount; i++) {
+        long prefix = keys[i] >>> shift;
+        if (prefix != previousPrefix) {
+          int parent = symbolNodes[i];
+          if (nodeFirstChild[parent] == 0) {
+            nodeFirstChild[parent] = (char) nodes;
+          }
+          nodeWidths[nodes] = (byte) (prefix & ((1 << WIDTH_BITS) - 1));
+          nodes++;
+          previousPrefix = prefix;
+        }
+        symbolNodes[i] = nodes - 1;
+      }
+    }
+    firstLeaf = nodes - symbolCount;
+    // Every node before the leaves has children, and those of the last one end with the tree
+    nodeFirstChild[firstLeaf] = (char) nodes;
+    widths = Arrays.copyOf(nodeWidths, nodes);
+    firstChild = Arrays.copyOf(nodeFirstChild, firstLeaf + 1);
+    leafSymbols = new char[symbolCount];
+    for (int i = 0; i < symbolCount; i++) {
+      leafSymbols[symbolNodes[i] - firstLeaf] = (char) (keys[i] & ((1 << INDEX_BITS) - 1));
+    }
+  }
+
+  static SymbolRatioTree getInstance() {
+    SymbolRatioTree tree = instance;
+    if (tree == null) {
+      // Racing threads build equal trees, so whichever is kept does not matter.
+      tree = new SymbolRatioTree();
+      instance = tree;
+    }
+    return tree;
+  }
+
+  /**
+   * @return widths of the bars of a symbol, first to last
+   */
+  private static int[] getBarWidths(int symbol) {
+    int[] barWidths = new int[BARS];
+    int currentBit = symbol & 0x1;
+    for (int j = 0; j < BARS; j++) {
+      int width = 0;
+      while ((symbol & 0x1) == currentBit) {
+        width++;
+        symbol >>= 1;
+      }
+      currentBit = symbol & 0x1;
+      barWidths[BARS - j - 1] = width;
+    }
+    return barWidths;
+  }
+
+  /**
+   * @param ratios widths of the bars read, as ratios of the width of the codeword
+   * @return the nearest symbol
+   */
+  int getClosestSymbol(float[] ratios) {
+    // Following the nearest bar at every step gives a close symbol to start from, so that most of
+    // the tree is skipped from the start.
+    int node = 0;
+    float bestError = 0.0f;
+    for (int bar = 0; bar < BARS; bar++) {
+      int nearest = -1;
+      float nearestSquare = Float.MAX_VALUE;
+      for (int child = firstChild[node]; child < firstChild[node + 1]; child++) {
+        float diff = WIDTH_RATIOS[widths[child]] - ratios[bar];
+        if (diff * diff < nearestSquare) {
+          nearestSquare = diff * diff;
+          nearest = child;
+        }
+      }
+      bestError += nearestSquare;
+      node = nearest;
+    }
+    int bestSymbol = leafSymbols[node - firstLeaf];
+
+    // Then every branch that may hold a nearer symbol, depth first
+    int[] next = new int[BARS];
+    int[] end = new int[BARS];
+    float[] errors = new float[BARS + 1];
+    int bar = 0;
+    next[0] = firstChild[0];
+    end[0] = firstChild[1];
+    while (bar >= 0) {
+      if (next[bar] == end[bar]) {
+        bar--;
+        continue;
+      }
+      int child = next[bar]++;
+      float diff = WIDTH_RATIOS[widths[child]] - ratios[bar];
+      float error = errors[bar] + diff * diff;
+      if (error > bestError) {
+        if (diff > 0.0f) {
+          // The remaining children have wider bars still
+          next[bar] = end[bar];
+        }
+        continue;
+      }
+      if (bar == BARS - 1) {
+        int symbol = leafSymbols[child - firstLeaf];
+        if (error < bestError || symbol < bestSymbol) {
+          bestError = error;
+          bestSymbol = symbol;
+        }
+      } else {
+        bar++;
+        errors[bar] = error;
+        next[bar] = firstChild[child];
+        end[bar] = firstChild[child + 1];
+      }
+    }
+    return PDF417Common.SYMBOL_TABLE[bestSymbol];
+  }
+
+}
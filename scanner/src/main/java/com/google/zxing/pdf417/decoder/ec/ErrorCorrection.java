@@ -17,6 +17,7 @@
 package com.google.zxing.pdf417.decoder.ec;
 
 import com.google.zxing.ChecksumException;
+import com.google.zxing.pdf417.PDF417Common;
 
 /**
  * <p>PDF417 error correction implementation.</p>
@@ -24,11 +25,19 @@ import com.google.zxing.ChecksumException;
  * <p>This <a href="http://en.wikipedia.org/wiki/Reed%E2%80%93Solomon_error_correction#Example">example</a>
  * is quite useful in understanding the algorithm.</p>
  *
+ * <p>Polynomials are kept in {@code int[]} workspaces, lowest degree coefficient first, that are
+ * worked on in place, rather than as a {@link ModulusPoly} for every intermediate result. The
+ * workspaces belong to the {@link Syndromes} being corrected, so attempts on the same codewords
+ * with other values for some of them reuse them. Instances hold no state, so one may be shared by
+ * several threads.</p>
+ *
  * @author Sean Owen
  * @see com.google.zxing.common.reedsolomon.ReedSolomonDecoder
  */
 public final class ErrorCorrection {
 
+  private static final int MODULUS = PDF417Common.NUMBER_OF_CODEWORDS;
+
   private final ModulusGF field;
 
   public ErrorCorrection() {
@@ -45,113 +54,180 @@ public final class ErrorCorrection {
   public int decode(int[] received,
                     int numECCodewords,
                     int[] erasures) throws ChecksumException {
+    return decode(received, new Syndromes(received, numECCodewords), erasures);
+  }
 
-    ModulusPoly poly = new ModulusPoly(field, received);
-    int[] S = new int[numECCodewords];
-    boolean error = false;
-    for (int i = numECCodewords; i > 0; i--) {
-      int eval = poly.evaluateAt(field.exp(i));
-      S[numECCodewords - i] = eval;
-      if (eval != 0) {
-        error = true;
-      }
-    }
-
-    if (!error) {
+  /**
+   * Like {@link #decode(int[], int, int[])}, with the syndromes of the received codewords already
+   * at hand, as when trying one value after another for uncertain codewords. The received
+   * codewords are only changed if all errors can be corrected.
+   *
+   * <p>Erased codewords are expected to hold some value, such as 0, and are corrected like any
+   * other wrong codeword; callers bound their number against the EC codewords available.</p>
+   *
+   * @param received received codewords
+   * @param syndromes syndromes of the received codewords
+   * @param erasures location of erasures
+   * @return number of errors
+   * @throws ChecksumException if errors cannot be corrected, maybe because of too many errors
+   */
+  public int decode(int[] received,
+                    Syndromes syndromes,
+                    int[] erasures) throws ChecksumException {
+    if (syndromes.isZero()) {
       return 0;
     }
+    int[] S = syndromes.getValues();
+    int numECCodewords = S.length;
 
-    ModulusPoly knownErrors = field.getOne();
-    if (erasures != null) {
-      for (int erasure : erasures) {
-        int b = field.exp(received.length - 1 - erasure);
-        // Add (1 - bx) term:
-        ModulusPoly term = new ModulusPoly(field, new int[]{field.subtract(0, b), 1});
-        knownErrors = knownErrors.multiply(term);
-      }
+    // The syndrome polynomial has the syndrome at 3^i as its x^(i-1) coefficient
+    int[][] workspace = syndromes.getWorkspace(4);
+    int[] sigma = workspace[0];
+    int[] omega = workspace[1];
+    for (int i = 0; i < numECCodewords; i++) {
+      omega[i] = S[numECCodewords - 1 - i];
+    }
+    int numErrors = runEuclideanAlgorithm(sigma, omega, workspace[2], workspace[3], numECCodewords);
+    if (numErrors == 0) {
+      // Some syndrome is not zero, yet no error was located
+      throw ChecksumException.getChecksumInstance();
     }
 
-    ModulusPoly syndrome = new ModulusPoly(field, S);
-    //syndrome = syndrome.multiply(knownErrors);
-
-    ModulusPoly[] sigmaOmega =
-        runEuclideanAlgorithm(field.buildMonomial(numECCodewords, 1), syndrome, numECCodewords);
-    ModulusPoly sigma = sigmaOmega[0];
-    ModulusPoly omega = sigmaOmega[1];
-
-    //sigma = sigma.multiply(knownErrors);
-
-    int[] errorLocations = findErrorLocations(sigma);
-    int[] errorMagnitudes = findErrorMagnitudes(omega, sigma, errorLocations);
+    int[] errorLocations = findErrorLocations(sigma, numErrors);
+    int[] errorMagnitudes = findErrorMagnitudes(omega, sigma, numErrors, errorLocations);
 
-    for (int i = 0; i < errorLocations.length; i++) {
-      int position = received.length - 1 - field.log(errorLocations[i]);
-      if (position < 0) {
+    int[] positions = new int[numErrors];
+    for (int i = 0; i < numErrors; i++) {
+      positions[i] = received.length - 1 - field.log(errorLocations[i]);
+      if (positions[i] < 0) {
         throw ChecksumException.getChecksumInstance();
       }
-      received[position] = field.subtract(received[position], errorMagnitudes[i]);
     }
-    return errorLocations.length;
+    for (int i = 0; i < numErrors; i++) {
+      received[positions[i]] = field.subtract(received[positions[i]], errorMagnitudes[i]);
+    }
+    return numErrors;
   }
 
-  private ModulusPoly[] runEuclideanAlgorithm(ModulusPoly a, ModulusPoly b, int R)
+  /**
+   * Runs the Euclidean algorithm on x^R and the syndrome polynomial, until the remainder has a
+   * degree under R/2.
+   *
+   * @param sigma receives the error locator
+   * @param omega holds the syndrome polynomial, and receives the error evaluator
+   * @param rLast zeroed workspace
+   * @param tLast zeroed workspace
+   * @param R number of EC codewords
+   * @return degree of the error locator
+   */
+  private int runEuclideanAlgorithm(int[] sigma, int[] omega, int[] rLast, int[] tLast, int R)
       throws ChecksumException {
-    // Assume a's degree is >= b's
-    if (a.getDegree() < b.getDegree()) {
-      ModulusPoly temp = a;
-      a = b;
-      b = temp;
-    }
-
-    ModulusPoly rLast = a;
-    ModulusPoly r = b;
-    ModulusPoly tLast = field.getZero();
-    ModulusPoly t = field.getOne();
+    rLast[R] = 1;
+    int rLastDegree = R;
+    int[] r = omega;
+    int rDegree = getDegree(r, R - 1);
+    int tLastDegree = 0;
+    int[] t = sigma;
+    t[0] = 1;
+    int tDegree = 0;
 
     // Run Euclidean algorithm until r's degree is less than R/2
-    while (r.getDegree() >= R / 2) {
-      ModulusPoly rLastLast = rLast;
-      ModulusPoly tLastLast = tLast;
+    while (rDegree >= R / 2) {
+      // The new remainder and t are worked out in place of the ones before the last
+      int[] temp = rLast;
       rLast = r;
+      r = temp;
+      int tempDegree = rLastDegree;
+      rLastDegree = rDegree;
+      rDegree = tempDegree;
+      temp = tLast;
       tLast = t;
+      t = temp;
+      tempDegree = tLastDegree;
+      tLastDegree = tDegree;
+      tDegree = tempDegree;
 
-      // Divide rLastLast by rLast, with quotient in q and remainder in r
-      if (rLast.isZero()) {
+      if (rLastDegree == 0 && rLast[0] == 0) {
         // Oops, Euclidean algorithm already terminated?
         throw ChecksumException.getChecksumInstance();
       }
-      r = rLastLast;
-      ModulusPoly q = field.getZero();
-      int denominatorLeadingTerm = rLast.getCoefficient(rLast.getDegree());
-      int dltInverse = field.inverse(denominatorLeadingTerm);
-      while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
-        int degreeDiff = r.getDegree() - rLast.getDegree();
-        int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
-        q = q.add(field.buildMonomial(degreeDiff, scale));
-        r = r.subtract(rLast.multiplyByMonomial(degreeDiff, scale));
+      // Divide r by rLast, subtracting each term of the quotient times tLast from t, so that t ends
+      // up as tLastLast - quotient * tLast
+      int dltInverse = field.inverse(rLast[rLastDegree]);
+      while (rDegree >= rLastDegree && !(rDegree == 0 && r[0] == 0)) {
+        int degreeDiff = rDegree - rLastDegree;
+        int scale = r[rDegree] * dltInverse % MODULUS;
+        subtractScaled(r, rLast, rLastDegree, degreeDiff, scale);
+        rDegree = getDegree(r, rDegree);
+        if (!(tLastDegree == 0 && tLast[0] == 0)) {
+          subtractScaled(t, tLast, tLastDegree, degreeDiff, scale);
+          tDegree = getDegree(t, Math.max(tDegree, tLastDegree + degreeDiff));
+        }
       }
-
-      t = q.multiply(tLast).subtract(tLastLast).negative();
     }
 
-    int sigmaTildeAtZero = t.getCoefficient(0);
+    int sigmaTildeAtZero = t[0];
     if (sigmaTildeAtZero == 0) {
       throw ChecksumException.getChecksumInstance();
     }
 
     int inverse = field.inverse(sigmaTildeAtZero);
-    ModulusPoly sigma = t.multiply(inverse);
-    ModulusPoly omega = r.multiply(inverse);
-    return new ModulusPoly[]{sigma, omega};
+    for (int i = 0; i <= R; i++) {
+      sigma[i] = t[i] * inverse % MODULUS;
+      omega[i] = r[i] * inverse % MODULUS;
+    }
+    return tDegree;
+  }
+
+  /**
+   * Subtracts {@code scale * x^degreeDiff} times a polynomial from another, in place.
+   */
+  private static void subtractScaled(int[] target, int[] poly, int polyDegree, int degreeDiff, int scale) {
+    int negativeScale = MODULUS - scale;
+    for (int i = 0; i <= polyDegree; i++) {
+      target[i + degreeDiff] = (target[i + degreeDiff] + poly[i] * negativeScale) % MODULUS;
+    }
+  }
+
+  /**
+   * @return degree of a polynomial, which has no terms above a given degree
+   */
+  private static int getDegree(int[] poly, int maxDegree) {
+    int degree = maxDegree;
+    while (degree > 0 && poly[degree] == 0) {
+      degree--;
+    }
+    return degree;
+  }
+
+  /**
+   * Evaluates a polynomial by Horner's rule, taking the coefficients four at a time once those left
+   * come in fours, which keeps the sums within an int while reducing them once instead of four
+   * times.
+   */
+  private static int evaluateAt(int[] poly, int degree, int a) {
+    int result = 0;
+    int i = degree;
+    for (; i >= 0 && i % 4 != 3; i--) {
+      result = (result * a + poly[i]) % MODULUS;
+    }
+    if (i > 0) {
+      int a2 = a * a % MODULUS;
+      int a3 = a2 * a % MODULUS;
+      int a4 = a3 * a % MODULUS;
+      for (; i > 0; i -= 4) {
+        result = (result * a4 + poly[i] * a3 + poly[i - 1] * a2 + poly[i - 2] * a + poly[i - 3]) % MODULUS;
+      }
+    }
+    return result;
   }
 
-  private int[] findErrorLocations(ModulusPoly errorLocator) throws ChecksumException {
+  private int[] findErrorLocations(int[] errorLocator, int numErrors) throws ChecksumException {
     // This is a direct application of Chien's search
-    int numErrors = errorLocator.getDegree();
     int[] result = new int[numErrors];
     int e = 0;
-    for (int i = 1; i < field.getSize() && e < numErrors; i++) {
-      if (errorLocator.evaluateAt(i) == 0) {
+    for (int i = 1; i < MODULUS && e < numErrors; i++) {
+      if (evaluateAt(errorLocator, numErrors, i) == 0) {
         result[e] = field.inverse(i);
         e++;
       }
@@ -162,25 +238,26 @@ public final class ErrorCorrection {
     return result;
   }
 
-  private int[] findErrorMagnitudes(ModulusPoly errorEvaluator,
-                                    ModulusPoly errorLocator,
+  private int[] findErrorMagnitudes(int[] errorEvaluator,
+                                    int[] errorLocator,
+                                    int errorLocatorDegree,
                                     int[] errorLocations) {
-    int errorLocatorDegree = errorLocator.getDegree();
-    int[] formalDerivativeCoefficients = new int[errorLocatorDegree];
+    // The formal derivative, worked out in place of the error locator, which is no longer needed
+    int[] formalDerivative = errorLocator;
     for (int i = 1; i <= errorLocatorDegree; i++) {
-      formalDerivativeCoefficients[errorLocatorDegree - i] =
-          field.multiply(i, errorLocator.getCoefficient(i));
+      formalDerivative[i - 1] = i * errorLocator[i] % MODULUS;
     }
-    ModulusPoly formalDerivative = new ModulusPoly(field, formalDerivativeCoefficients);
+    int formalDerivativeDegree = getDegree(formalDerivative, Math.max(0, errorLocatorDegree - 1));
+    int errorEvaluatorDegree = getDegree(errorEvaluator, errorEvaluator.length - 1);
 
     // This is directly applying Forney's Formula
     int s = errorLocations.length;
     int[] result = new int[s];
     for (int i = 0; i < s; i++) {
       int xiInverse = field.inverse(errorLocations[i]);
-      int numerator = field.subtract(0, errorEvaluator.evaluateAt(xiInverse));
-      int denominator = field.inverse(formalDerivative.evaluateAt(xiInverse));
-      result[i] = field.multiply(numerator, denominator);
+      int numerator = field.subtract(0, evaluateAt(errorEvaluator, errorEvaluatorDegree, xiInverse));
+      int denominator = field.inverse(evaluateAt(formalDerivative, formalDerivativeDegree, xiInverse));
+      result[i] = numerator * denominator % MODULUS;
     }
     return result;
   }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder.ec;
+
+import com.google.zxing.pdf417.PDF417Common;
+
+import java.util.Arrays;
+
+/**
+ * <p>The syndromes of a sequence of received codewords, which are all zero if and only if the
+ * sequence needs no error correction.</p>
+ *
+ * <p>Each syndrome is the received sequence evaluated as a polynomial, so it depends linearly on
+ * every codeword. When a single codeword changes, the syndromes are updated in time proportional
+ * to their number rather than computed again from the whole sequence, which lets a decoder try
+ * many values for codewords it could not read with certainty.</p>
+ *
+ * <p>The polynomials {@link ErrorCorrection} decodes with are kept here as well, so that trying
+ * one value after another does not allocate them again for every attempt. An instance therefore
+ * belongs to the thread decoding the codewords.</p>
+ *
+ * @see ErrorCorrection#decode(int[], Syndromes, int[])
+ */
+public final class Syndromes {
+
+  private static final int MODULUS = PDF417Common.NUMBER_OF_CODEWORDS;
+
+  private final ModulusGF field;
+  private final int length;
+  // values[numECCodewords - i] is the received sequence evaluated at 3^i, for i from 1 up
+  private final int[] values;
+  private int nonZero;
+  // Polynomials ErrorCorrection works on, kept for the next attempt on the same codewords
+  private int[][] workspace;
+
+  /**
+   * @param received received codewords
+   * @param numECCodewords number of those codewords used for EC
+   */
+  public Syndromes(int[] received, int numECCodewords) {
+    this.field = ModulusGF.PDF417_GF;
+    this.length = received.length;
+    this.values = new int[numECCodewords];
+    // Horner's rule four codewords at a time, which keeps the sums within an int while reducing
+    // them once instead of four times
+    int head = received.length % 4;
+    for (int i = numECCodewords; i > 0; i--) {
+      int x = field.exp(i);
+      int x2 = x * x % MODULUS;
+      int x3 = x2 * x % MODULUS;
+      int x4 = x3 * x % MODULUS;
+      int eval = 0;
+      for (int j = 0; j < head; j++) {
+        eval = (eval * x + received[j]) % MODULUS;
+      }
+      for (int j = head; j < received.length; j += 4) {
+        eval = (eval * x4 + received[j] * x3 + received[j + 1] * x2 + received[j + 2] * x + received[j + 3]) %
+            MODULUS;
+      }
+      values[numECCodewords - i] = eval;
+      if (eval != 0) {
+        nonZero++;
+      }
+    }
+  }
+
+  /**
+   * Accounts for a change to one of the received codewords.
+   *
+   * @param position index of the codeword that changed
+   * @param oldValue its value so far
+   * @param newValue its new value
+   */
+  public void update(int position, int oldValue, int newValue) {
+    int delta = field.subtract(newValue, oldValue);
+    if (delta == 0) {
+      return;
+    }
+    // The codeword is the coefficient of x^(length - 1 - position), so it adds delta * (3^i)^that
+    // to the evaluation at 3^i.
+    int power = field.exp((length - 1 - position) % (field.getSize() - 1));
+    int term = delta;
+    int numECCodewords = values.length;
+    for (int i = 1; i <= numECCodewords; i++) {
+      term = term * power % MODULUS;
+      int index = numECCodewords - i;
+      int oldSyndrome = values[index];
+      int newSyndrome = field.add(oldSyndrome, term);
+      values[index] = newSyndrome;
+      if (oldSyndrome == 0) {
+        nonZero++;
+      }
+      if (newSyndrome == 0) {
+        nonZero--;
+      }
+    }
+  }
+
+  /**
+   * @return true iff the received codewords need no error correction
+   */
+  public boolean isZero() {
+    return nonZero == 0;
+  }
+
+  /**
+   * @return the syndromes, in the order {@link ErrorCorrection} builds its syndrome polynomial from
+   */
+  int[] getValues() {
+    return values;
+  }
+
+  /**
+   * @param count number of polynomials needed
+   * @return that many zeroed polynomials of the degree of the syndrome polynomial plus one,
+   *  allocated on the first call and cleared on later ones
+   */
+  int[][] getWorkspace(int count) {
+    if (workspace == null || workspace.length < count) {
+      workspace = new int[count][values.length + 1];
+    } else {
+      for (int[] poly : workspace) {
+        Arrays.fill(poly, 0);
+      }
+    }
+    return workspace;
+  }
+
+}
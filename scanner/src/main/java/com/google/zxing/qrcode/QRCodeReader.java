@@ -16,16 +16,14 @@
 
 package com.google.zxing.qrcode;
 
-import android.graphics.Rect;
-import android.hardware.Camera;
-
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.BinaryBitmap;
 import com.google.zxing.ChecksumException;
+import com.google.zxing.ConfiguredReader;
+import com.google.zxing.DecodeConfig;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.Reader;
 import com.google.zxing.Result;
 import com.google.zxing.ResultMetadataType;
 import com.google.zxing.ResultPoint;
@@ -35,20 +33,38 @@ import com.google.zxing.common.DetectorResult;
 import com.google.zxing.qrcode.decoder.Decoder;
 import com.google.zxing.qrcode.decoder.QRCodeDecoderMetaData;
 import com.google.zxing.qrcode.detector.Detector;
+import com.google.zxing.qrcode.detector.FinderPatternFinder;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 /**
  * This implementation can detect and decode QR Codes in an image.
  *
  * @author Sean Owen
  */
-public class QRCodeReader implements Reader {
+public class QRCodeReader implements ConfiguredReader {
 
     private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
 
     private final Decoder decoder = new Decoder();
+    private final ExecutorService rowScanExecutor;
+    // Reused from frame to frame; readers are not shared between threads.
+    private FinderPatternFinder finder;
+
+    public QRCodeReader() {
+        this(null);
+    }
+
+    /**
+     * @param rowScanExecutor executor to scan the rows of large images for finder patterns on, so
+     *                        that decoding photos uses every core; the result is the same as without
+     *                        it. May be {@code null}.
+     */
+    public QRCodeReader(ExecutorService rowScanExecutor) {
+        this.rowScanExecutor = rowScanExecutor;
+    }
 
     protected final Decoder getDecoder() {
         return decoder;
@@ -64,56 +80,73 @@ public class QRCodeReader implements Reader {
      */
     @Override
     public Result decode(BinaryBitmap image) throws NotFoundException, ChecksumException, FormatException {
-        return decode(image, null);
+        return decode(image, DecodeConfig.DEFAULT);
     }
 
+    @Override
+    public final Result decode(BinaryBitmap image, Map<DecodeHintType, ?> hints)
+            throws NotFoundException, ChecksumException, FormatException {
+        return decode(image, hints == null ? DecodeConfig.DEFAULT : DecodeConfig.fromHints(hints));
+    }
 
     /**
-     * 判断是否需要放大
+     * Like {@link #decode(BinaryBitmap, Map)}, but with hints that were compiled once up front, so
+     * nothing needs to be looked up or allocated for them per frame.
+     *
+     * @param image  image to decode
+     * @param config precompiled decode hints
+     * @return a String representing the content encoded by the QR code
+     * @throws NotFoundException if a QR code cannot be found
+     * @throws FormatException   if a QR code cannot be decoded
+     * @throws ChecksumException if error correction fails
      */
-    private boolean zoomCamera(Camera camera, ResultPoint[] p, Rect frameRect) {
-        int qrWidth = getQRCodeWidth(p);
-        if (qrWidth == 0 || camera == null) {
-            return false;
-        }
-        int frameWidth = frameRect.right - frameRect.left;
-        Camera.Parameters parameters = camera.getParameters();
-        if (parameters.isZoomSupported()) {
-            int maxZoom = parameters.getMaxZoom();
-            int curZoom = parameters.getZoom();
-            if (qrWidth <= frameWidth / 10) {
-                if (curZoom < maxZoom) {
-                    parameters.setZoom(maxZoom);
-                    camera.setParameters(parameters);
-                    return true;
-                }
-            } else if (qrWidth <= frameWidth / 6) {
-                if (curZoom < maxZoom / 2) {
-                    parameters.setZoom(maxZoom / 2);
-                    camera.setParameters(parameters);
-                    return true;
-                }
-            }
+    public final Result decode(BinaryBitmap image, DecodeConfig config)
+            throws NotFoundException, ChecksumException, FormatException {
+        Result result = decodeOrNull(image, config);
+        if (result == null) {
+            throw NotFoundException.getNotFoundInstance();
         }
-        return false;
-    }
-
-    private int getQRCodeWidth(ResultPoint[] p) {
-        return (int) (p[p.length - 1].getX() - p[0].getX());
+        return result;
     }
 
-
+    /**
+     * Like {@link #decode(BinaryBitmap, DecodeConfig)}, but returns {@code null} rather than
+     * throwing if no QR code is found, so that the frames without one, which are most of them
+     * when scanning continuously, are rejected without an exception. Codes that are found but
+     * cannot be decoded still throw.
+     *
+     * @param image  image to decode
+     * @param config precompiled decode hints
+     * @return the decoded QR code, or {@code null} if none is found
+     * @throws FormatException   if a QR code cannot be decoded
+     * @throws ChecksumException if error correction fails
+     */
     @Override
-    public final Result decode(BinaryBitmap image, Map<DecodeHintType, ?> hints)
-            throws NotFoundException, ChecksumException, FormatException {
+    public final Result decodeOrNull(BinaryBitmap image, DecodeConfig config)
+            throws ChecksumException, FormatException {
+        Map<DecodeHintType, ?> hints = config.getHints();
+        BitMatrix bits = image.getBlackMatrixOrNull();
+        if (bits == null) {
+            return null;
+        }
         DecoderResult decoderResult;
         ResultPoint[] points;
-        if (hints != null && hints.containsKey(DecodeHintType.PURE_BARCODE)) {
-            BitMatrix bits = extractPureBits(image.getBlackMatrix());
+        if (config.isPureBarcode()) {
+            try {
+                bits = extractPureBits(bits);
+            } catch (NotFoundException nfe) {
+                return null;
+            }
             decoderResult = decoder.decode(bits, hints);
             points = NO_POINTS;
         } else {
-            DetectorResult detectorResult = new Detector(image.getBlackMatrix()).detect(hints);
+            if (finder == null) {
+                finder = new FinderPatternFinder(bits, null, rowScanExecutor);
+            }
+            DetectorResult detectorResult = new Detector(bits, finder).detectOrNull(config);
+            if (detectorResult == null) {
+                return null;
+            }
             decoderResult = decoder.decode(detectorResult.getBits(), hints);
             points = detectorResult.getPoints();
         }
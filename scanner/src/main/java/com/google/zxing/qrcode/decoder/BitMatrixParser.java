@@ -157,50 +157,24 @@ final class BitMatrixParser {
 
     // Get the data mask for the format used in this QR Code. This will exclude
     // some bits from reading as we wind through the bit matrix.
-    DataMask dataMask = DataMask.values()[formatInfo.getDataMask()];
+    DataMask dataMask = DataMask.forReference(formatInfo.getDataMask());
     int dimension = bitMatrix.getHeight();
     dataMask.unmaskBitMatrix(bitMatrix, dimension);
 
-    BitMatrix functionPattern = version.buildFunctionPattern();
-
-    boolean readingUp = true;
+    // The modules outside the function patterns, in reading order
+    int[] modules = version.getCodewordModules();
     byte[] result = new byte[version.getTotalCodewords()];
-    int resultOffset = 0;
-    int currentByte = 0;
-    int bitsRead = 0;
-    // Read columns in pairs, from right to left
-    for (int j = dimension - 1; j > 0; j -= 2) {
-      if (j == 6) {
-        // Skip whole column with vertical alignment pattern;
-        // saves time and makes the other code proceed more cleanly
-        j--;
-      }
-      // Read alternatingly from bottom to top then top to bottom
-      for (int count = 0; count < dimension; count++) {
-        int i = readingUp ? dimension - 1 - count : count;
-        for (int col = 0; col < 2; col++) {
-          // Ignore bits covered by the function pattern
-          if (!functionPattern.get(j - col, i)) {
-            // Read a bit
-            bitsRead++;
-            currentByte <<= 1;
-            if (bitMatrix.get(j - col, i)) {
-              currentByte |= 1;
-            }
-            // If we've made a whole byte, save it off
-            if (bitsRead == 8) {
-              result[resultOffset++] = (byte) currentByte;
-              bitsRead = 0;
-              currentByte = 0;
-            }
-          }
-        }
-      }
-      readingUp ^= true; // readingUp = !readingUp; // switch directions
-    }
-    if (resultOffset != version.getTotalCodewords()) {
+    if (modules.length / 8 != result.length) {
       throw FormatException.getFormatInstance();
     }
+    for (int resultOffset = 0, module = 0; resultOffset < result.length; resultOffset++) {
+      int currentByte = 0;
+      for (int bit = 0; bit < 8; bit++) {
+        int position = modules[module++];
+        currentByte = (currentByte << 1) | (bitMatrix.get(position & 0xFF, position >>> 8) ? 1 : 0);
+      }
+      result[resultOffset] = (byte) currentByte;
+    }
     return result;
   }
 
@@ -211,7 +185,7 @@ final class BitMatrixParser {
     if (parsedFormatInfo == null) {
       return; // We have no format information, and have no data mask
     }
-    DataMask dataMask = DataMask.values()[parsedFormatInfo.getDataMask()];
+    DataMask dataMask = DataMask.forReference(parsedFormatInfo.getDataMask());
     int dimension = bitMatrix.getHeight();
     dataMask.unmaskBitMatrix(bitMatrix, dimension);
   }
@@ -232,13 +206,12 @@ final class BitMatrixParser {
 
   /** Mirror the bit matrix in order to attempt a second reading. */
   void mirror() {
-    for (int x = 0; x < bitMatrix.getWidth(); x++) {
-      for (int y = x + 1; y < bitMatrix.getHeight(); y++) {
-        if (bitMatrix.get(x, y) != bitMatrix.get(y, x)) {
-          bitMatrix.flip(y, x);
-          bitMatrix.flip(x, y);
-        }
-      }
+    // The matrix is square, so its transpose can be copied back row by row
+    BitMatrix transposed = bitMatrix.transpose();
+    int[] words = null;
+    for (int y = 0; y < transposed.getHeight(); y++) {
+      words = transposed.getRowWords(y, words);
+      bitMatrix.setRowWords(y, words);
     }
   }
 
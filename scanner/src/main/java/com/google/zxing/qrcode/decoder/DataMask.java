@@ -18,6 +18,8 @@ package com.google.zxing.qrcode.decoder;
 
 import com.google.zxing.common.BitMatrix;
 
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
  * <p>Encapsulates data masks for the data bits in a QR code, per ISO 18004:2006 6.8. Implementations
  * of this class can un-mask a raw BitMatrix. For simplicity, they will unmask the entire BitMatrix,
@@ -119,6 +121,19 @@ enum DataMask {
   // End of enum constants.
 
 
+  private static final DataMask[] VALUES = values();
+
+  // The masked modules of each version as a bit plane, built on first use, by version number.
+  private final AtomicReferenceArray<BitMatrix> planes = new AtomicReferenceArray<>(41);
+
+  /**
+   * @param reference the data mask bits of the format information
+   * @return the mask they refer to
+   */
+  static DataMask forReference(int reference) {
+    return VALUES[reference];
+  }
+
   /**
    * <p>Implementations of this method reverse the data masking process applied to a QR Code and
    * make its bits ready to read.</p>
@@ -127,13 +142,33 @@ enum DataMask {
    * @param dimension dimension of QR Code, represented by bits, being unmasked
    */
   final void unmaskBitMatrix(BitMatrix bits, int dimension) {
+    bits.xor(getPlane(dimension));
+  }
+
+  private BitMatrix getPlane(int dimension) {
+    int versionNumber = (dimension - 17) / 4;
+    if (versionNumber < 1 || versionNumber >= planes.length()) {
+      return buildPlane(dimension);
+    }
+    BitMatrix plane = planes.get(versionNumber);
+    if (plane == null) {
+      // Racing threads build equal planes, so whichever is stored does not matter.
+      plane = buildPlane(dimension);
+      planes.set(versionNumber, plane);
+    }
+    return plane;
+  }
+
+  private BitMatrix buildPlane(int dimension) {
+    BitMatrix plane = new BitMatrix(dimension);
     for (int i = 0; i < dimension; i++) {
       for (int j = 0; j < dimension; j++) {
         if (isMasked(i, j)) {
-          bits.flip(j, i);
+          plane.set(j, i);
         }
       }
     }
+    return plane;
   }
 
   abstract boolean isMasked(int i, int j);
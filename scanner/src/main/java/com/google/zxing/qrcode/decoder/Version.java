@@ -46,6 +46,8 @@ public final class Version {
   private final int[] alignmentPatternCenters;
   private final ECBlocks[] ecBlocks;
   private final int totalCodewords;
+  // Built on first use, see getCodewordModules()
+  private volatile int[] codewordModules;
 
   private Version(int versionNumber,
                   int[] alignmentPatternCenters,
@@ -133,6 +135,48 @@ public final class Version {
     return null;
   }
 
+  /**
+   * @return the modules outside the function patterns, in the order their bits are read into
+   *   codewords: up and down pairs of columns, from the right. Each is {@code (y << 8) | x}. Built
+   *   once per version and shared, so must not be modified.
+   */
+  int[] getCodewordModules() {
+    int[] modules = codewordModules;
+    if (modules == null) {
+      // Racing threads build equal tables, so whichever is kept does not matter.
+      modules = buildCodewordModules();
+      codewordModules = modules;
+    }
+    return modules;
+  }
+
+  private int[] buildCodewordModules() {
+    BitMatrix functionPattern = buildFunctionPattern();
+    int dimension = getDimensionForVersion();
+    int[] modules = new int[dimension * dimension - functionPattern.countSetBits(0, 0, dimension, dimension)];
+    int count = 0;
+    boolean readingUp = true;
+    // Read columns in pairs, from right to left
+    for (int j = dimension - 1; j > 0; j -= 2) {
+      if (j == 6) {
+        // Skip whole column with vertical alignment pattern
+        j--;
+      }
+      // Read alternatingly from bottom to top then top to bottom
+      for (int row = 0; row < dimension; row++) {
+        int i = readingUp ? dimension - 1 - row : row;
+        for (int col = 0; col < 2; col++) {
+          // Ignore bits covered by the function pattern
+          if (!functionPattern.get(j - col, i)) {
+            modules[count++] = (i << 8) | (j - col);
+          }
+        }
+      }
+      readingUp ^= true;
+    }
+    return modules;
+  }
+
   /**
    * See ISO 18004:2006 Annex E
    */
@@ -16,7 +16,6 @@
 
 package com.google.zxing.qrcode.detector;
 
-import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.BitMatrix;
 
@@ -81,10 +80,9 @@ final class AlignmentPatternFinder {
    * <p>This method attempts to find the bottom-right alignment pattern in the image. It is a bit messy since
    * it's pretty performance-critical and so is written to be fast foremost.</p>
    *
-   * @return {@link AlignmentPattern} if found
-   * @throws NotFoundException if not found
+   * @return {@link AlignmentPattern} if found, or {@code null}
    */
-  AlignmentPattern find() throws NotFoundException {
+  AlignmentPattern find() {
     int startX = this.startX;
     int height = this.height;
     int maxJ = startX + width;
@@ -92,48 +90,49 @@ final class AlignmentPatternFinder {
     // We are looking for black/white/black modules in 1:1:1 ratio;
     // this tracks the number of black/white/black modules seen so far
     int[] stateCount = new int[3];
+    BitMatrix.RowView row = null;
     for (int iGen = 0; iGen < height; iGen++) {
       // Search from middle outwards
       int i = middleI + ((iGen & 0x01) == 0 ? (iGen + 1) / 2 : -((iGen + 1) / 2));
+      row = image.getRowView(i, row);
       stateCount[0] = 0;
       stateCount[1] = 0;
       stateCount[2] = 0;
-      int j = startX;
       // Burn off leading white pixels before anything else; if we start in the middle of
       // a white run, it doesn't make sense to count its length, since we don't know if the
       // white run continued to the left of the start point
-      while (j < maxJ && !image.get(j, i)) {
-        j++;
-      }
+      int j = Math.min(row.getNextSet(startX), maxJ);
       int currentState = 0;
+      // Read the row a run at a time
       while (j < maxJ) {
-        if (image.get(j, i)) {
-          // Black pixel
-          if (currentState == 1) { // Counting black pixels
-            stateCount[1]++;
-          } else { // Counting white pixels
-            if (currentState == 2) { // A winner?
-              if (foundPatternCross(stateCount)) { // Yes
-                AlignmentPattern confirmed = handlePossibleCenter(stateCount, i, j);
-                if (confirmed != null) {
-                  return confirmed;
-                }
+        if (row.get(j)) {
+          // Black pixels
+          int end = Math.min(row.getNextUnset(j), maxJ);
+          if (currentState == 2) { // A winner?
+            if (foundPatternCross(stateCount)) { // Yes
+              AlignmentPattern confirmed = handlePossibleCenter(stateCount, i, j);
+              if (confirmed != null) {
+                return confirmed;
               }
-              stateCount[0] = stateCount[2];
-              stateCount[1] = 1;
-              stateCount[2] = 0;
-              currentState = 1;
-            } else {
-              stateCount[++currentState]++;
             }
+            stateCount[0] = stateCount[2];
+            stateCount[1] = 1;
+            stateCount[2] = 0;
+            currentState = 1;
+            j++;
+          } else if (currentState == 0) {
+            currentState = 1;
           }
-        } else { // White pixel
+          stateCount[1] += end - j;
+          j = end;
+        } else { // White pixels
+          int end = Math.min(row.getNextSet(j), maxJ);
           if (currentState == 1) { // Counting black pixels
             currentState++;
           }
-          stateCount[currentState]++;
+          stateCount[currentState] += end - j;
+          j = end;
         }
-        j++;
       }
       if (foundPatternCross(stateCount)) {
         AlignmentPattern confirmed = handlePossibleCenter(stateCount, i, maxJ);
@@ -150,7 +149,7 @@ final class AlignmentPatternFinder {
       return possibleCenters.get(0);
     }
 
-    throw NotFoundException.getNotFoundInstance();
+    return null;
   }
 
   /**
@@ -16,6 +16,7 @@
 
 package com.google.zxing.qrcode.detector;
 
+import com.google.zxing.DecodeConfig;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.FormatException;
 import com.google.zxing.NotFoundException;
@@ -38,11 +39,26 @@ import java.util.Map;
  */
 public class Detector {
 
+  // Versions 1 to 40
+  private static final int MIN_DIMENSION = 21;
+  private static final int MAX_DIMENSION = 177;
+
   private final BitMatrix image;
+  private final FinderPatternFinder finder;
   private ResultPointCallback resultPointCallback;
 
   public Detector(BitMatrix image) {
+    this(image, null);
+  }
+
+  /**
+   * @param image image to search
+   * @param finder finder left over from detecting in an earlier image, reset and reused so its
+   *  buffers need not be allocated again; {@code null} to create one
+   */
+  public Detector(BitMatrix image, FinderPatternFinder finder) {
     this.image = image;
+    this.finder = finder;
   }
 
   protected final BitMatrix getImage() {
@@ -61,7 +77,7 @@ public class Detector {
    * @throws FormatException if a QR Code cannot be decoded
    */
   public DetectorResult detect() throws NotFoundException, FormatException {
-    return detect(null);
+    return detect(DecodeConfig.DEFAULT);
   }
 
   /**
@@ -73,18 +89,62 @@ public class Detector {
    * @throws FormatException if a QR Code cannot be decoded
    */
   public final DetectorResult detect(Map<DecodeHintType,?> hints) throws NotFoundException, FormatException {
+    return detect(hints == null ? DecodeConfig.DEFAULT : DecodeConfig.fromHints(hints));
+  }
+
+  /**
+   * <p>Detects a QR Code in an image.</p>
+   *
+   * @param config precompiled hints to detector
+   * @return {@link DetectorResult} encapsulating results of detecting a QR Code
+   * @throws NotFoundException if QR Code cannot be found
+   * @throws FormatException if a QR Code cannot be decoded
+   */
+  public final DetectorResult detect(DecodeConfig config) throws NotFoundException, FormatException {
+    DetectorResult result = detectOrNull(config);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
 
-    resultPointCallback = hints == null ? null :
-        (ResultPointCallback) hints.get(DecodeHintType.NEED_RESULT_POINT_CALLBACK);
+  /**
+   * <p>Like {@link #detect(DecodeConfig)}, but returns {@code null} rather than throwing if no
+   * QR Code is found. Most frames have none, and the usual ways of telling so, too few finder
+   * patterns or finder patterns that cannot belong to one code, cost no exception.</p>
+   *
+   * @param config precompiled hints to detector
+   * @return {@link DetectorResult} encapsulating results of detecting a QR Code, or {@code null}
+   * @throws FormatException if a QR Code cannot be decoded
+   */
+  public final DetectorResult detectOrNull(DecodeConfig config) throws FormatException {
 
-    FinderPatternFinder finder = new FinderPatternFinder(image, resultPointCallback);
-    FinderPatternInfo info = finder.find(hints);
+    resultPointCallback = config.getResultPointCallback();
 
-    return processFinderPatternInfo(info);
+    FinderPatternFinder finder = this.finder;
+    if (finder == null) {
+      finder = new FinderPatternFinder(image, resultPointCallback);
+    } else {
+      finder.reset(image, resultPointCallback);
+    }
+    FinderPatternInfo info = finder.find(config.isTryHarder());
+    if (info == null) {
+      return null;
+    }
+
+    return processFinderPatternInfoOrNull(info);
   }
 
   protected final DetectorResult processFinderPatternInfo(FinderPatternInfo info)
       throws NotFoundException, FormatException {
+    DetectorResult result = processFinderPatternInfoOrNull(info);
+    if (result == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return result;
+  }
+
+  private DetectorResult processFinderPatternInfoOrNull(FinderPatternInfo info) throws FormatException {
 
     FinderPattern topLeft = info.getTopLeft();
     FinderPattern topRight = info.getTopRight();
@@ -92,9 +152,16 @@ public class Detector {
 
     float moduleSize = calculateModuleSize(topLeft, topRight, bottomLeft);
     if (moduleSize < 1.0f) {
-      throw NotFoundException.getNotFoundInstance();
+      return null;
     }
     int dimension = computeDimension(topLeft, topRight, bottomLeft, moduleSize);
+    if (dimension < MIN_DIMENSION || dimension > MAX_DIMENSION) {
+      // Not the size of any version, including the -1 of a dimension that is 3 mod 4
+      return null;
+    }
+    if (resultPointCallback instanceof FinderPatternCallback) {
+      ((FinderPatternCallback) resultPointCallback).foundFinderPatterns(bottomLeft, topLeft, topRight);
+    }
     Version provisionalVersion = Version.getProvisionalVersionForDimension(dimension);
     int modulesBetweenFPCenters = provisionalVersion.getDimensionForVersion() - 7;
 
@@ -113,16 +180,11 @@ public class Detector {
       int estAlignmentY = (int) (topLeft.getY() + correctionToTopLeft * (bottomRightY - topLeft.getY()));
 
       // Kind of arbitrary -- expand search radius before giving up
-      for (int i = 4; i <= 16; i <<= 1) {
-        try {
-          alignmentPattern = findAlignmentInRegion(moduleSize,
-              estAlignmentX,
-              estAlignmentY,
-              i);
-          break;
-        } catch (NotFoundException re) {
-          // try next round
-        }
+      for (int i = 4; i <= 16 && alignmentPattern == null; i <<= 1) {
+        alignmentPattern = findAlignmentInRegionOrNull(moduleSize,
+            estAlignmentX,
+            estAlignmentY,
+            i);
       }
       // If we didn't find alignment pattern... well try anyway without it
     }
@@ -130,7 +192,13 @@ public class Detector {
     PerspectiveTransform transform =
         createTransform(topLeft, topRight, bottomLeft, alignmentPattern, dimension);
 
-    BitMatrix bits = sampleGrid(image, transform, dimension);
+    BitMatrix bits;
+    try {
+      bits = sampleGrid(image, transform, dimension);
+    } catch (NotFoundException nfe) {
+      // Only if the grid runs off the image, which the finder patterns found in it rarely allow
+      return null;
+    }
 
     ResultPoint[] points;
     if (alignmentPattern == null) {
@@ -194,11 +262,13 @@ public class Detector {
   /**
    * <p>Computes the dimension (number of modules on a size) of the QR Code based on the position
    * of the finder patterns and estimated module size.</p>
+   *
+   * @return the dimension, or -1 if the finder patterns are not where they could be in any version
    */
   private static int computeDimension(ResultPoint topLeft,
                                       ResultPoint topRight,
                                       ResultPoint bottomLeft,
-                                      float moduleSize) throws NotFoundException {
+                                      float moduleSize) {
     int tltrCentersDimension = MathUtils.round(ResultPoint.distance(topLeft, topRight) / moduleSize);
     int tlblCentersDimension = MathUtils.round(ResultPoint.distance(topLeft, bottomLeft) / moduleSize);
     int dimension = ((tltrCentersDimension + tlblCentersDimension) / 2) + 7;
@@ -211,7 +281,7 @@ public class Detector {
         dimension--;
         break;
       case 3:
-        throw NotFoundException.getNotFoundInstance();
+        return -1;
     }
     return dimension;
   }
@@ -367,27 +437,39 @@ public class Detector {
    * @param estAlignmentX x coordinate of center of area probably containing alignment pattern
    * @param estAlignmentY y coordinate of above
    * @param allowanceFactor number of pixels in all directions to search from the center
-   * @return {@link AlignmentPattern} if found, or null otherwise
-   * @throws NotFoundException if an unexpected error occurs during detection
+   * @return {@link AlignmentPattern} if found
+   * @throws NotFoundException if no alignment pattern is found
    */
   protected final AlignmentPattern findAlignmentInRegion(float overallEstModuleSize,
                                                          int estAlignmentX,
                                                          int estAlignmentY,
                                                          float allowanceFactor)
       throws NotFoundException {
+    AlignmentPattern alignmentPattern =
+        findAlignmentInRegionOrNull(overallEstModuleSize, estAlignmentX, estAlignmentY, allowanceFactor);
+    if (alignmentPattern == null) {
+      throw NotFoundException.getNotFoundInstance();
+    }
+    return alignmentPattern;
+  }
+
+  private AlignmentPattern findAlignmentInRegionOrNull(float overallEstModuleSize,
+                                                       int estAlignmentX,
+                                                       int estAlignmentY,
+                                                       float allowanceFactor) {
     // Look for an alignment pattern (3 modules in size) around where it
     // should be
     int allowance = (int) (allowanceFactor * overallEstModuleSize);
     int alignmentAreaLeftX = Math.max(0, estAlignmentX - allowance);
     int alignmentAreaRightX = Math.min(image.getWidth() - 1, estAlignmentX + allowance);
     if (alignmentAreaRightX - alignmentAreaLeftX < overallEstModuleSize * 3) {
-      throw NotFoundException.getNotFoundInstance();
+      return null;
     }
 
     int alignmentAreaTopY = Math.max(0, estAlignmentY - allowance);
     int alignmentAreaBottomY = Math.min(image.getHeight() - 1, estAlignmentY + allowance);
     if (alignmentAreaBottomY - alignmentAreaTopY < overallEstModuleSize * 3) {
-      throw NotFoundException.getNotFoundInstance();
+      return null;
     }
 
     AlignmentPatternFinder alignmentFinder =
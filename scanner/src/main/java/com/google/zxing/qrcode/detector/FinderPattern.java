@@ -34,7 +34,7 @@ public final class FinderPattern extends ResultPoint {
     this(posX, posY, estimatedModuleSize, 1);
   }
 
-  private FinderPattern(float posX, float posY, float estimatedModuleSize, int count) {
+  FinderPattern(float posX, float posY, float estimatedModuleSize, int count) {
     super(posX, posY);
     this.estimatedModuleSize = estimatedModuleSize;
     this.count = count;
@@ -66,17 +66,4 @@ public final class FinderPattern extends ResultPoint {
     return false;
   }
 
-  /**
-   * Combines this object's current estimate of a finder pattern position and module size
-   * with a new estimate. It returns a new {@code FinderPattern} containing a weighted average
-   * based on count.
-   */
-  FinderPattern combineEstimate(float i, float j, float newModuleSize) {
-    int combinedCount = count + 1;
-    float combinedX = (count * getX() + j) / combinedCount;
-    float combinedY = (count * getY() + i) / combinedCount;
-    float combinedModuleSize = (count * estimatedModuleSize + newModuleSize) / combinedCount;
-    return new FinderPattern(combinedX, combinedY, combinedModuleSize, combinedCount);
-  }
-
 }
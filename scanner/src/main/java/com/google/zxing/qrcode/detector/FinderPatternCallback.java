@@ -0,0 +1,37 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.qrcode.detector;
+
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+
+/**
+ * A {@link ResultPointCallback} that is also told which three finder patterns the {@link Detector}
+ * settled on, whether or not the code they belong to then decodes. Continuous scan clients can use
+ * them to look for the code near the same place in the next frame.
+ *
+ * @see com.google.zxing.DecodeHintType#NEED_RESULT_POINT_CALLBACK
+ */
+public interface FinderPatternCallback extends ResultPointCallback {
+
+  /**
+   * Called once the detector chose three finder patterns that span a plausible QR Code, before
+   * it samples the code between them.
+   */
+  void foundFinderPatterns(ResultPoint bottomLeft, ResultPoint topLeft, ResultPoint topRight);
+
+}
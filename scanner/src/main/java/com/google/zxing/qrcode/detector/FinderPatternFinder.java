@@ -17,37 +17,68 @@
 package com.google.zxing.qrcode.detector;
 
 import com.google.zxing.DecodeHintType;
-import com.google.zxing.NotFoundException;
 import com.google.zxing.ResultPoint;
 import com.google.zxing.ResultPointCallback;
 import com.google.zxing.common.BitMatrix;
 
-import java.io.Serializable;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * <p>This class attempts to find finder patterns in a QR Code. Finder patterns are the square
  * markers at three corners of a QR Code.</p>
  *
- * <p>This class is thread-safe but not reentrant. Each thread must allocate its own object.
+ * <p>This class is thread-safe but not reentrant. Each thread must allocate its own object.</p>
+ *
+ * <p>Candidate centers are kept in primitive arrays, and a finder can be {@link #reset} for the
+ * next image, so a search allocates little more than the three patterns it returns. Points passed
+ * to the {@link ResultPointCallback} are new objects, since callers may hold on to them.</p>
+ *
+ * <p>Given an executor, rows of large images are scanned ahead in bands on it. The centers found
+ * are still combined on the calling thread in row order, so the result is the same as that of a
+ * sequential scan.</p>
  *
  * @author Sean Owen
  */
 public class FinderPatternFinder {
 
   private static final int CENTER_QUORUM = 2;
+  private static final int INITIAL_CANDIDATES = 16;
+  // Smaller images are scanned on the calling thread.
+  private static final int PARALLEL_MIN_PIXELS = 1 << 21;
+  // Rows per task when scanning ahead on the executor.
+  private static final int BAND_ROWS = 8;
   protected static final int MIN_SKIP = 3; // 1 pixel/module times 3 modules/center
   protected static final int MAX_MODULES = 97; // support up to version 20 for mobile clients
 
-  private final BitMatrix image;
-  private final List<FinderPattern> possibleCenters;
+  private BitMatrix image;
   private boolean hasSkipped;
+  private final int[] stateCount;
   private final int[] crossCheckStateCount;
-  private final ResultPointCallback resultPointCallback;
+  // Cross checked center of the last possible center, {i, j, estimated module size}.
+  private final float[] center;
+  private final BitMatrix.RowView rowView;
+  private final BitMatrix.RowView crossCheckRow;
+  private final RowHits rowHits;
+  private ResultPointCallback resultPointCallback;
+  private final ExecutorService rowScanExecutor;
+
+  // Candidate centers in the order they were first seen, with the number of times each was seen.
+  private int candidates;
+  private float[] candidateX;
+  private float[] candidateY;
+  private float[] candidateModuleSize;
+  private int[] candidateCount;
+  // Scratch space of selectBestPatterns().
+  private int[] order;
+  private float[] sortKeys;
 
   /**
    * <p>Creates a finder that will search the image for three finder patterns.</p>
@@ -59,22 +90,72 @@ public class FinderPatternFinder {
   }
 
   public FinderPatternFinder(BitMatrix image, ResultPointCallback resultPointCallback) {
+    this(image, resultPointCallback, null);
+  }
+
+  /**
+   * @param image image to search
+   * @param resultPointCallback callback for candidate centers, may be {@code null}
+   * @param rowScanExecutor executor to scan rows of large images on, or {@code null} to scan
+   *  them all on the calling thread
+   */
+  public FinderPatternFinder(BitMatrix image, ResultPointCallback resultPointCallback,
+      ExecutorService rowScanExecutor) {
     this.image = image;
-    this.possibleCenters = new ArrayList<>();
+    this.stateCount = new int[5];
     this.crossCheckStateCount = new int[5];
+    this.center = new float[3];
+    this.rowView = new BitMatrix.RowView();
+    this.crossCheckRow = new BitMatrix.RowView();
+    this.rowHits = new RowHits();
+    this.resultPointCallback = resultPointCallback;
+    this.rowScanExecutor = rowScanExecutor;
+    this.candidateX = new float[INITIAL_CANDIDATES];
+    this.candidateY = new float[INITIAL_CANDIDATES];
+    this.candidateModuleSize = new float[INITIAL_CANDIDATES];
+    this.candidateCount = new int[INITIAL_CANDIDATES];
+    this.order = new int[INITIAL_CANDIDATES];
+    this.sortKeys = new float[INITIAL_CANDIDATES];
+  }
+
+  /**
+   * Forgets the candidates of the previous search, so this finder can search another image.
+   *
+   * @param image image to search next
+   * @param resultPointCallback callback for the next search, may be {@code null}
+   */
+  final void reset(BitMatrix image, ResultPointCallback resultPointCallback) {
+    this.image = image;
     this.resultPointCallback = resultPointCallback;
+    hasSkipped = false;
+    candidates = 0;
   }
 
   protected final BitMatrix getImage() {
     return image;
   }
 
+  /**
+   * @return the candidate centers found so far, as new {@link FinderPattern}s
+   */
   protected final List<FinderPattern> getPossibleCenters() {
+    List<FinderPattern> possibleCenters = new ArrayList<>(candidates);
+    for (int index = 0; index < candidates; index++) {
+      possibleCenters.add(toFinderPattern(index));
+    }
     return possibleCenters;
   }
 
-  final FinderPatternInfo find(Map<DecodeHintType,?> hints) throws NotFoundException {
-    boolean tryHarder = hints != null && hints.containsKey(DecodeHintType.TRY_HARDER);
+  /**
+   * @return the three finder patterns, or {@code null} if three were not found or the calling
+   *  thread was interrupted
+   */
+  final FinderPatternInfo find(Map<DecodeHintType,?> hints) {
+    return find(hints != null && hints.containsKey(DecodeHintType.TRY_HARDER));
+  }
+
+  final FinderPatternInfo find(boolean tryHarder) {
+    BitMatrix image = this.image;
     int maxI = image.getHeight();
     int maxJ = image.getWidth();
     // We are looking for black/white/black/white/black modules in
@@ -89,78 +170,75 @@ public class FinderPatternFinder {
       iSkip = MIN_SKIP;
     }
 
+    // Rows of large images are scanned ahead on the executor, but the centers found are combined
+    // here in row order, so the skipping below works on the same candidates either way.
+    // With a single core scanning ahead only adds work.
+    boolean parallel = rowScanExecutor != null && (long) maxI * maxJ >= PARALLEL_MIN_PIXELS &&
+        Runtime.getRuntime().availableProcessors() > 1;
+    RowBands bands = null;
     boolean done = false;
-    int[] stateCount = new int[5];
-    for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
-      // Get a row of black/white values
-      clearCounts(stateCount);
-      int currentState = 0;
-      for (int j = 0; j < maxJ; j++) {
-        if (image.get(j, i)) {
-          // Black pixel
-          if ((currentState & 1) == 1) { // Counting white pixels
-            currentState++;
+    try {
+      for (int i = iSkip - 1; i < maxI && !done; i += iSkip) {
+        if (Thread.currentThread().isInterrupted()) {
+          // Give up on the image, and leave the interrupt to the caller
+          return null;
+        }
+        RowHits row;
+        if (parallel) {
+          if (bands == null || !bands.covers(i, iSkip)) {
+            // The rows to look at changed, scan ahead from here instead
+            if (bands != null) {
+              bands.cancel();
+            }
+            bands = new RowBands(image, i, iSkip);
           }
-          stateCount[currentState]++;
-        } else { // White pixel
-          if ((currentState & 1) == 0) { // Counting black pixels
-            if (currentState == 4) { // A winner?
-              if (foundPatternCross(stateCount)) { // Yes
-                boolean confirmed = handlePossibleCenter(stateCount, i, j);
-                if (confirmed) {
-                  // Start examining every other line. Checking each line turned out to be too
-                  // expensive and didn't improve performance.
-                  iSkip = 2;
-                  if (hasSkipped) {
-                    done = haveMultiplyConfirmedCenters();
-                  } else {
-                    int rowSkip = findRowSkip();
-                    if (rowSkip > stateCount[2]) {
-                      // Skip rows between row of lower confirmed center
-                      // and top of presumed third confirmed center
-                      // but back up a bit to get a full chance of detecting
-                      // it, entire width of center of finder pattern
-
-                      // Skip by rowSkip, but back off by stateCount[2] (size of last center
-                      // of pattern we saw) to be conservative, and also back off by iSkip which
-                      // is about to be re-added
-                      i += rowSkip - stateCount[2] - iSkip;
-                      j = maxJ - 1;
-                    }
-                  }
-                } else {
-                  shiftCounts2(stateCount);
-                  currentState = 3;
-                  continue;
-                }
-                // Clear state to start looking again
-                currentState = 0;
-                clearCounts(stateCount);
-              } else { // No, shift counts back by two
-                shiftCounts2(stateCount);
-                currentState = 3;
-              }
+          row = bands.get(i);
+        } else {
+          row = rowHits;
+          scanRow(image, i, row, stateCount, rowView, crossCheckRow, crossCheckStateCount, center);
+        }
+        for (int hit = 0; hit < row.size; hit++) {
+          addPossibleCenter(row.centerI[hit], row.centerJ[hit], row.moduleSize[hit]);
+          if (row.endOfRow && hit == row.size - 1) {
+            iSkip = row.counts[hit];
+            if (hasSkipped) {
+              // Found a third one
+              done = haveMultiplyConfirmedCenters();
+            }
+          } else {
+            // Start examining every other line. Checking each line turned out to be too
+            // expensive and didn't improve performance.
+            iSkip = 2;
+            if (hasSkipped) {
+              done = haveMultiplyConfirmedCenters();
             } else {
-              stateCount[++currentState]++;
+              int rowSkip = findRowSkip();
+              if (rowSkip > row.counts[hit]) {
+                // Skip rows between row of lower confirmed center
+                // and top of presumed third confirmed center
+                // but back up a bit to get a full chance of detecting
+                // it, entire width of center of finder pattern
+
+                // Skip by rowSkip, but back off by stateCount[2] (size of last center
+                // of pattern we saw) to be conservative, and also back off by iSkip which
+                // is about to be re-added. The rest of this row is not looked at.
+                i += rowSkip - row.counts[hit] - iSkip;
+                break;
+              }
             }
-          } else { // Counting white pixels
-            stateCount[currentState]++;
           }
         }
       }
-      if (foundPatternCross(stateCount)) {
-        boolean confirmed = handlePossibleCenter(stateCount, i, maxJ);
-        if (confirmed) {
-          iSkip = stateCount[0];
-          if (hasSkipped) {
-            // Found a third one
-            done = haveMultiplyConfirmedCenters();
-          }
-        }
+    } finally {
+      if (bands != null) {
+        bands.cancel();
       }
     }
 
     FinderPattern[] patternInfo = selectBestPatterns();
+    if (patternInfo == null) {
+      return null;
+    }
     ResultPoint.orderBestPatterns(patternInfo);
 
     return new FinderPatternInfo(patternInfo);
@@ -230,11 +308,6 @@ public class FinderPatternFinder {
                     Math.abs(moduleSize - stateCount[4]) < maxVariance;
   }
 
-  private int[] getCrossCheckStateCount() {
-    clearCounts(crossCheckStateCount);
-    return crossCheckStateCount;
-  }
-
   protected final void clearCounts(int[] counts) {
     for (int x = 0; x < counts.length; x++) {
       counts[x] = 0;
@@ -254,12 +327,14 @@ public class FinderPatternFinder {
    * "cross-cross-cross-checks" by scanning down diagonally through the center of the possible
    * finder pattern to see if the same proportion is detected.
    * 
+   * @param image image to search
+   * @param stateCount scratch space for the counts
    * @param centerI row where a finder pattern was detected
    * @param centerJ center of the section that appears to cross a finder pattern
    * @return true if proportions are withing expected limits
    */
-  private boolean crossCheckDiagonal(int centerI, int centerJ) {
-    int[] stateCount = getCrossCheckStateCount();
+  private boolean crossCheckDiagonal(BitMatrix image, int[] stateCount, int centerI, int centerJ) {
+    clearCounts(stateCount);
 
     // Start counting up, left from center finding black center mass
     int i = 0;
@@ -323,18 +398,18 @@ public class FinderPatternFinder {
    * "cross-checks" by scanning down vertically through the center of the possible
    * finder pattern to see if the same proportion is detected.</p>
    *
+   * @param image image to search
+   * @param stateCount scratch space for the counts
    * @param startI row where a finder pattern was detected
    * @param centerJ center of the section that appears to cross a finder pattern
    * @param maxCount maximum reasonable number of modules that should be
    * observed in any reading state, based on the results of the horizontal scan
    * @return vertical center of finder pattern, or {@link Float#NaN} if not found
    */
-  private float crossCheckVertical(int startI, int centerJ, int maxCount,
-      int originalStateCountTotal) {
-    BitMatrix image = this.image;
-
+  private float crossCheckVertical(BitMatrix image, int[] stateCount, int startI, int centerJ,
+      int maxCount, int originalStateCountTotal) {
     int maxI = image.getHeight();
-    int[] stateCount = getCrossCheckStateCount();
+    clearCounts(stateCount);
 
     // Start counting up from center
     int i = startI;
@@ -397,59 +472,48 @@ public class FinderPatternFinder {
   }
 
   /**
-   * <p>Like {@link #crossCheckVertical(int, int, int, int)}, and in fact is basically identical,
-   * except it reads horizontally instead of vertically. This is used to cross-cross
-   * check a vertical cross check and locate the real center of the alignment pattern.</p>
+   * <p>Like {@link #crossCheckVertical(BitMatrix, int[], int, int, int, int)}, and in fact is
+   * basically identical, except it reads horizontally instead of vertically. This is used to
+   * cross-cross check a vertical cross check and locate the real center of the alignment
+   * pattern.</p>
    */
-  private float crossCheckHorizontal(int startJ, int centerI, int maxCount,
-      int originalStateCountTotal) {
-    BitMatrix image = this.image;
-
-    int maxJ = image.getWidth();
-    int[] stateCount = getCrossCheckStateCount();
-
-    int j = startJ;
-    while (j >= 0 && image.get(j, centerI)) {
-      stateCount[2]++;
-      j--;
-    }
+  private float crossCheckHorizontal(BitMatrix.RowView row, int[] stateCount, int startJ,
+      int maxCount, int originalStateCountTotal) {
+    int maxJ = row.getSize();
+    clearCounts(stateCount);
+
+    // Whole runs are skipped at once; a run longer than maxCount fails the same checks as the
+    // part of it up to maxCount would.
+    int j = row.getPreviousUnset(startJ);
+    stateCount[2] = startJ - j;
     if (j < 0) {
       return Float.NaN;
     }
-    while (j >= 0 && !image.get(j, centerI) && stateCount[1] <= maxCount) {
-      stateCount[1]++;
-      j--;
-    }
+    int end = row.getPreviousSet(j);
+    stateCount[1] = j - end;
+    j = end;
     if (j < 0 || stateCount[1] > maxCount) {
       return Float.NaN;
     }
-    while (j >= 0 && image.get(j, centerI) && stateCount[0] <= maxCount) {
-      stateCount[0]++;
-      j--;
-    }
+    stateCount[0] = j - row.getPreviousUnset(j);
     if (stateCount[0] > maxCount) {
       return Float.NaN;
     }
 
-    j = startJ + 1;
-    while (j < maxJ && image.get(j, centerI)) {
-      stateCount[2]++;
-      j++;
-    }
+    j = row.getNextUnset(startJ + 1);
+    stateCount[2] += j - (startJ + 1);
     if (j == maxJ) {
       return Float.NaN;
     }
-    while (j < maxJ && !image.get(j, centerI) && stateCount[3] < maxCount) {
-      stateCount[3]++;
-      j++;
-    }
+    end = row.getNextSet(j);
+    stateCount[3] = end - j;
+    j = end;
     if (j == maxJ || stateCount[3] >= maxCount) {
       return Float.NaN;
     }
-    while (j < maxJ && image.get(j, centerI) && stateCount[4] < maxCount) {
-      stateCount[4]++;
-      j++;
-    }
+    end = row.getNextUnset(j);
+    stateCount[4] = end - j;
+    j = end;
     if (stateCount[4] >= maxCount) {
       return Float.NaN;
     }
@@ -497,38 +561,182 @@ public class FinderPatternFinder {
    * @return true if a finder pattern candidate was found this time
    */
   protected final boolean handlePossibleCenter(int[] stateCount, int i, int j) {
+    if (crossCheck(image, stateCount, i, j, crossCheckRow, crossCheckStateCount, center)) {
+      addPossibleCenter(center[0], center[1], center[2]);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Runs the vertical, horizontal and diagonal cross checks of
+   * {@link #handlePossibleCenter(int[], int, int)} without recording anything.
+   *
+   * @param crossCheckRow view to scratch for the horizontal cross check
+   * @param crossCheckStateCount scratch space for the cross checks
+   * @param center receives the center found, {i, j, estimated module size}
+   * @return true if all cross checks passed
+   */
+  private boolean crossCheck(BitMatrix image, int[] stateCount, int i, int j,
+      BitMatrix.RowView crossCheckRow, int[] crossCheckStateCount, float[] center) {
     int stateCountTotal = stateCount[0] + stateCount[1] + stateCount[2] + stateCount[3] +
         stateCount[4];
     float centerJ = centerFromEnd(stateCount, j);
-    float centerI = crossCheckVertical(i, (int) centerJ, stateCount[2], stateCountTotal);
+    float centerI = crossCheckVertical(image, crossCheckStateCount, i, (int) centerJ, stateCount[2],
+        stateCountTotal);
     if (!Float.isNaN(centerI)) {
       // Re-cross check
-      centerJ = crossCheckHorizontal((int) centerJ, (int) centerI, stateCount[2], stateCountTotal);
-      if (!Float.isNaN(centerJ) && crossCheckDiagonal((int) centerI, (int) centerJ)) {
-        float estimatedModuleSize = stateCountTotal / 7.0f;
-        boolean found = false;
-        for (int index = 0; index < possibleCenters.size(); index++) {
-          FinderPattern center = possibleCenters.get(index);
-          // Look for about the same center and module size:
-          if (center.aboutEquals(estimatedModuleSize, centerI, centerJ)) {
-            possibleCenters.set(index, center.combineEstimate(centerI, centerJ, estimatedModuleSize));
-            found = true;
-            break;
-          }
+      centerJ = crossCheckHorizontal(image.getRowView((int) centerI, crossCheckRow), crossCheckStateCount,
+          (int) centerJ, stateCount[2], stateCountTotal);
+      if (!Float.isNaN(centerJ) &&
+          crossCheckDiagonal(image, crossCheckStateCount, (int) centerI, (int) centerJ)) {
+        center[0] = centerI;
+        center[1] = centerJ;
+        center[2] = stateCountTotal / 7.0f;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds a cross checked center to the candidates, or combines it with the candidate it is about
+   * equal to.
+   */
+  private void addPossibleCenter(float centerI, float centerJ, float estimatedModuleSize) {
+    for (int index = 0; index < candidates; index++) {
+      // Look for about the same center and module size:
+      if (aboutEquals(index, estimatedModuleSize, centerI, centerJ)) {
+        combineEstimate(index, centerI, centerJ, estimatedModuleSize);
+        return;
+      }
+    }
+    addCandidate(centerJ, centerI, estimatedModuleSize);
+    if (resultPointCallback != null) {
+      resultPointCallback.foundPossibleResultPoint(new FinderPattern(centerJ, centerI, estimatedModuleSize));
+    }
+  }
+
+  /**
+   * Scans one row for black/white/black/white/black runs in 1:1:3:1:1 ratio that pass all cross
+   * checks. Only looks at the image, not at the candidates, so rows can be scanned in any order
+   * and on any thread.
+   */
+  private void scanRow(BitMatrix image, int i, RowHits row, int[] stateCount, BitMatrix.RowView rowView,
+      BitMatrix.RowView crossCheckRow, int[] crossCheckStateCount, float[] center) {
+    int maxJ = image.getWidth();
+    BitMatrix.RowView pixels = image.getRowView(i, rowView);
+    row.size = 0;
+    row.endOfRow = false;
+    clearCounts(stateCount);
+    int currentState = 0;
+    // Read the row a run at a time; only the first pixel of a white run, and the one after a
+    // pattern was found, can move the state on by itself
+    int j = 0;
+    while (j < maxJ) {
+      if (pixels.get(j)) {
+        // Black pixels
+        int end = pixels.getNextUnset(j);
+        if ((currentState & 1) == 1) { // Counting white pixels
+          currentState++;
         }
-        if (!found) {
-          FinderPattern point = new FinderPattern(centerJ, centerI, estimatedModuleSize);
-          possibleCenters.add(point);
-          if (resultPointCallback != null) {
-            resultPointCallback.foundPossibleResultPoint(point);
+        stateCount[currentState] += end - j;
+        j = end;
+      } else { // White pixels
+        int end = pixels.getNextSet(j);
+        for (; j < end && (currentState & 1) == 0; j++) { // Counting black pixels
+          if (currentState == 4) { // A winner?
+            if (foundPatternCross(stateCount) &&
+                crossCheck(image, stateCount, i, j, crossCheckRow, crossCheckStateCount, center)) { // Yes
+              row.add(center, stateCount[2]);
+              // Clear state to start looking again
+              currentState = 0;
+              clearCounts(stateCount);
+            } else { // No, shift counts back by two
+              shiftCounts2(stateCount);
+              currentState = 3;
+            }
+          } else {
+            stateCount[++currentState]++;
           }
         }
-        return true;
+        // Counting white pixels
+        stateCount[currentState] += end - j;
+        j = end;
+      }
+    }
+    if (foundPatternCross(stateCount) &&
+        crossCheck(image, stateCount, i, maxJ, crossCheckRow, crossCheckStateCount, center)) {
+      row.add(center, stateCount[0]);
+      row.endOfRow = true;
+    }
+  }
+
+  private RowHits[] scanBand(BitMatrix image, int first, int last, int step) {
+    int[] stateCount = new int[5];
+    int[] crossCheckStateCount = new int[5];
+    float[] center = new float[3];
+    BitMatrix.RowView rowView = new BitMatrix.RowView();
+    BitMatrix.RowView crossCheckRow = new BitMatrix.RowView();
+    RowHits[] rows = new RowHits[(last - first + step - 1) / step];
+    RowHits row = new RowHits();
+    for (int r = 0, i = first; i < last; r++, i += step) {
+      scanRow(image, i, row, stateCount, rowView, crossCheckRow, crossCheckStateCount, center);
+      if (row.size > 0) {
+        rows[r] = row;
+        row = new RowHits();
       }
     }
+    return rows;
+  }
+
+  /**
+   * Like {@link FinderPattern#aboutEquals(float, float, float)}, for the candidate at index.
+   */
+  private boolean aboutEquals(int index, float moduleSize, float i, float j) {
+    if (Math.abs(i - candidateY[index]) <= moduleSize && Math.abs(j - candidateX[index]) <= moduleSize) {
+      float estimatedModuleSize = candidateModuleSize[index];
+      float moduleSizeDiff = Math.abs(moduleSize - estimatedModuleSize);
+      return moduleSizeDiff <= 1.0f || moduleSizeDiff <= estimatedModuleSize;
+    }
     return false;
   }
 
+  /**
+   * Combines the current estimate of the candidate at index with a new estimate, weighted by how
+   * often the candidate has been seen.
+   */
+  private void combineEstimate(int index, float i, float j, float newModuleSize) {
+    int count = candidateCount[index];
+    int combinedCount = count + 1;
+    candidateX[index] = (count * candidateX[index] + j) / combinedCount;
+    candidateY[index] = (count * candidateY[index] + i) / combinedCount;
+    candidateModuleSize[index] = (count * candidateModuleSize[index] + newModuleSize) / combinedCount;
+    candidateCount[index] = combinedCount;
+  }
+
+  private void addCandidate(float x, float y, float estimatedModuleSize) {
+    if (candidates == candidateX.length) {
+      int capacity = 2 * candidates;
+      candidateX = Arrays.copyOf(candidateX, capacity);
+      candidateY = Arrays.copyOf(candidateY, capacity);
+      candidateModuleSize = Arrays.copyOf(candidateModuleSize, capacity);
+      candidateCount = Arrays.copyOf(candidateCount, capacity);
+      order = new int[capacity];
+      sortKeys = new float[capacity];
+    }
+    candidateX[candidates] = x;
+    candidateY[candidates] = y;
+    candidateModuleSize[candidates] = estimatedModuleSize;
+    candidateCount[candidates] = 1;
+    candidates++;
+  }
+
+  private FinderPattern toFinderPattern(int index) {
+    return new FinderPattern(candidateX[index], candidateY[index], candidateModuleSize[index],
+        candidateCount[index]);
+  }
+
   /**
    * @return number of rows we could safely skip during scanning, based on the first
    *         two finder patterns that have been located. In some cases their position will
@@ -536,15 +744,15 @@ public class FinderPatternFinder {
    *         down in the image.
    */
   private int findRowSkip() {
-    int max = possibleCenters.size();
+    int max = candidates;
     if (max <= 1) {
       return 0;
     }
-    ResultPoint firstConfirmedCenter = null;
-    for (FinderPattern center : possibleCenters) {
-      if (center.getCount() >= CENTER_QUORUM) {
-        if (firstConfirmedCenter == null) {
-          firstConfirmedCenter = center;
+    int firstConfirmedCenter = -1;
+    for (int index = 0; index < max; index++) {
+      if (candidateCount[index] >= CENTER_QUORUM) {
+        if (firstConfirmedCenter < 0) {
+          firstConfirmedCenter = index;
         } else {
           // We have two confirmed centers
           // How far down can we skip before resuming looking for the next
@@ -552,8 +760,8 @@ public class FinderPatternFinder {
           // difference in the x / y coordinates of the two centers.
           // This is the case where you find top left last.
           hasSkipped = true;
-          return (int) (Math.abs(firstConfirmedCenter.getX() - center.getX()) -
-              Math.abs(firstConfirmedCenter.getY() - center.getY())) / 2;
+          return (int) (Math.abs(candidateX[firstConfirmedCenter] - candidateX[index]) -
+              Math.abs(candidateY[firstConfirmedCenter] - candidateY[index])) / 2;
         }
       }
     }
@@ -568,11 +776,11 @@ public class FinderPatternFinder {
   private boolean haveMultiplyConfirmedCenters() {
     int confirmedCount = 0;
     float totalModuleSize = 0.0f;
-    int max = possibleCenters.size();
-    for (FinderPattern pattern : possibleCenters) {
-      if (pattern.getCount() >= CENTER_QUORUM) {
+    int max = candidates;
+    for (int index = 0; index < max; index++) {
+      if (candidateCount[index] >= CENTER_QUORUM) {
         confirmedCount++;
-        totalModuleSize += pattern.getEstimatedModuleSize();
+        totalModuleSize += candidateModuleSize[index];
       }
     }
     if (confirmedCount < 3) {
@@ -584,8 +792,8 @@ public class FinderPatternFinder {
     // 5% of the total module size estimates, it's too much.
     float average = totalModuleSize / max;
     float totalDeviation = 0.0f;
-    for (FinderPattern pattern : possibleCenters) {
-      totalDeviation += Math.abs(pattern.getEstimatedModuleSize() - average);
+    for (int index = 0; index < max; index++) {
+      totalDeviation += Math.abs(candidateModuleSize[index] - average);
     }
     return totalDeviation <= 0.05f * totalModuleSize;
   }
@@ -594,96 +802,206 @@ public class FinderPatternFinder {
    * @return the 3 best {@link FinderPattern}s from our list of candidates. The "best" are
    *         those that have been detected at least {@link #CENTER_QUORUM} times, and whose module
    *         size differs from the average among those patterns the least
-   * @throws NotFoundException if 3 such finder patterns do not exist
+   *         or {@code null} if there are not 3 candidates
    */
-  private FinderPattern[] selectBestPatterns() throws NotFoundException {
+  private FinderPattern[] selectBestPatterns() {
 
-    int startSize = possibleCenters.size();
+    int startSize = candidates;
     if (startSize < 3) {
       // Couldn't find enough finder patterns
-      throw NotFoundException.getNotFoundInstance();
+      return null;
+    }
+
+    // Candidate indices, best first once sorted
+    int[] order = this.order;
+    float[] sortKeys = this.sortKeys;
+    for (int index = 0; index < startSize; index++) {
+      order[index] = index;
     }
+    int size = startSize;
 
     // Filter outlier possibilities whose module size is too different
     if (startSize > 3) {
       // But we can only afford to do so if we have at least 4 possibilities to choose from
       double totalModuleSize = 0.0;
       double square = 0.0;
-      for (FinderPattern center : possibleCenters) {
-        float size = center.getEstimatedModuleSize();
-        totalModuleSize += size;
-        square += size * size;
+      for (int index = 0; index < startSize; index++) {
+        float moduleSize = candidateModuleSize[index];
+        totalModuleSize += moduleSize;
+        square += moduleSize * moduleSize;
       }
       double average = totalModuleSize / startSize;
       float stdDev = (float) Math.sqrt(square / startSize - average * average);
 
-      Collections.sort(possibleCenters, new FurthestFromAverageComparator((float) average));
+      // Furthest from average first
+      for (int index = 0; index < startSize; index++) {
+        sortKeys[index] = -Math.abs(candidateModuleSize[index] - (float) average);
+      }
+      sortCandidates(order, size, null, sortKeys);
 
       float limit = Math.max(0.2f * (float) average, stdDev);
 
-      for (int i = 0; i < possibleCenters.size() && possibleCenters.size() > 3; i++) {
-        FinderPattern pattern = possibleCenters.get(i);
-        if (Math.abs(pattern.getEstimatedModuleSize() - average) > limit) {
-          possibleCenters.remove(i);
+      for (int i = 0; i < size && size > 3; i++) {
+        if (Math.abs(candidateModuleSize[order[i]] - average) > limit) {
+          System.arraycopy(order, i + 1, order, i, size - i - 1);
+          size--;
           i--;
         }
       }
     }
 
-    if (possibleCenters.size() > 3) {
+    if (size > 3) {
       // Throw away all but those first size candidate points we found.
 
       float totalModuleSize = 0.0f;
-      for (FinderPattern possibleCenter : possibleCenters) {
-        totalModuleSize += possibleCenter.getEstimatedModuleSize();
+      for (int i = 0; i < size; i++) {
+        totalModuleSize += candidateModuleSize[order[i]];
       }
 
-      float average = totalModuleSize / possibleCenters.size();
+      float average = totalModuleSize / size;
 
-      Collections.sort(possibleCenters, new CenterComparator(average));
-
-      possibleCenters.subList(3, possibleCenters.size()).clear();
+      // Most often seen first, then closest to average
+      for (int index = 0; index < startSize; index++) {
+        sortKeys[index] = Math.abs(candidateModuleSize[index] - average);
+      }
+      sortCandidates(order, size, candidateCount, sortKeys);
     }
 
     return new FinderPattern[]{
-        possibleCenters.get(0),
-        possibleCenters.get(1),
-        possibleCenters.get(2)
+        toFinderPattern(order[0]),
+        toFinderPattern(order[1]),
+        toFinderPattern(order[2])
     };
   }
 
   /**
-   * <p>Orders by furthest from average</p>
+   * Stable insertion sort of the first length candidate indices in order: by descending count if
+   * counts are given, then by ascending key. There are rarely more than a handful of candidates.
    */
-  private static final class FurthestFromAverageComparator implements Comparator<FinderPattern>, Serializable {
-    private final float average;
-    private FurthestFromAverageComparator(float f) {
-      average = f;
+  private static void sortCandidates(int[] order, int length, int[] counts, float[] keys) {
+    for (int i = 1; i < length; i++) {
+      int index = order[i];
+      int j = i - 1;
+      while (j >= 0 && precedes(index, order[j], counts, keys)) {
+        order[j + 1] = order[j];
+        j--;
+      }
+      order[j + 1] = index;
     }
-    @Override
-    public int compare(FinderPattern center1, FinderPattern center2) {
-      return Float.compare(Math.abs(center2.getEstimatedModuleSize() - average),
-                           Math.abs(center1.getEstimatedModuleSize() - average));
+  }
+
+  private static boolean precedes(int index, int other, int[] counts, float[] keys) {
+    if (counts != null && counts[index] != counts[other]) {
+      return counts[index] > counts[other];
     }
+    return keys[index] < keys[other];
   }
 
   /**
-   * <p>Orders by {@link FinderPattern#getCount()}, descending.</p>
+   * Centers that passed all cross checks in one row, in the order they were found.
    */
-  private static final class CenterComparator implements Comparator<FinderPattern>, Serializable {
-    private final float average;
-    private CenterComparator(float f) {
-      average = f;
-    }
-    @Override
-    public int compare(FinderPattern center1, FinderPattern center2) {
-      int countCompare = Integer.compare(center2.getCount(), center1.getCount());
-      if (countCompare == 0) {
-        return Float.compare(Math.abs(center1.getEstimatedModuleSize() - average),
-                             Math.abs(center2.getEstimatedModuleSize() - average));
+  private static final class RowHits {
+
+    private static final RowHits EMPTY = new RowHits();
+
+    int size;
+    float[] centerI = new float[2];
+    float[] centerJ = new float[2];
+    float[] moduleSize = new float[2];
+    // stateCount[2] of the horizontal scan, or stateCount[0] for a center at the end of the row
+    int[] counts = new int[2];
+    // Whether the last center was found at the end of the row
+    boolean endOfRow;
+
+    void add(float[] center, int count) {
+      if (size == counts.length) {
+        int capacity = 2 * size;
+        centerI = Arrays.copyOf(centerI, capacity);
+        centerJ = Arrays.copyOf(centerJ, capacity);
+        moduleSize = Arrays.copyOf(moduleSize, capacity);
+        counts = Arrays.copyOf(counts, capacity);
       }
-      return countCompare;
+      centerI[size] = center[0];
+      centerJ[size] = center[1];
+      moduleSize[size] = center[2];
+      counts[size] = count;
+      size++;
     }
+
+  }
+
+  /**
+   * Rows start, start + step, ... of an image, scanned ahead in bands of {@link #BAND_ROWS} rows
+   * on the executor. Only a few bands per core are scanned ahead of the row asked for, since the
+   * rows to look at change once centers are found.
+   */
+  private final class RowBands {
+
+    private final BitMatrix image;
+    private final int start;
+    private final int step;
+    private final int bandsAhead;
+    private final List<Future<RowHits[]>> bands;
+    private boolean rejected;
+
+    RowBands(BitMatrix image, int start, int step) {
+      this.image = image;
+      this.start = start;
+      this.step = step;
+      this.bandsAhead = 2 * Runtime.getRuntime().availableProcessors();
+      this.bands = new ArrayList<>();
+    }
+
+    boolean covers(int i, int step) {
+      return step == this.step && i >= start && (i - start) % step == 0;
+    }
+
+    RowHits get(int i) {
+      int index = (i - start) / step;
+      int band = index / BAND_ROWS;
+      submitThrough(band + bandsAhead);
+      if (band < bands.size()) {
+        try {
+          RowHits row = bands.get(band).get()[index % BAND_ROWS];
+          return row == null ? RowHits.EMPTY : row;
+        } catch (InterruptedException ie) {
+          Thread.currentThread().interrupt();
+        } catch (ExecutionException ee) {
+          throw new IllegalStateException(ee.getCause());
+        }
+      }
+      scanRow(image, i, rowHits, stateCount, rowView, crossCheckRow, crossCheckStateCount, center);
+      return rowHits;
+    }
+
+    private void submitThrough(int lastBand) {
+      int maxI = image.getHeight();
+      while (!rejected && bands.size() <= lastBand) {
+        final int first = start + bands.size() * BAND_ROWS * step;
+        if (first >= maxI) {
+          return;
+        }
+        final int last = Math.min(maxI, first + BAND_ROWS * step);
+        try {
+          bands.add(rowScanExecutor.submit(new Callable<RowHits[]>() {
+            @Override
+            public RowHits[] call() {
+              return scanBand(image, first, last, step);
+            }
+          }));
+        } catch (RejectedExecutionException ree) {
+          // Shut down; get() scans the remaining rows itself
+          rejected = true;
+        }
+      }
+    }
+
+    void cancel() {
+      for (Future<RowHits[]> band : bands) {
+        band.cancel(false);
+      }
+    }
+
   }
 
 }
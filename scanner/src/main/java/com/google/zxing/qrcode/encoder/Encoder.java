@@ -20,8 +20,8 @@ import com.google.zxing.EncodeHintType;
 import com.google.zxing.WriterException;
 import com.google.zxing.common.BitArray;
 import com.google.zxing.common.CharacterSetECI;
+import com.google.zxing.common.reedsolomon.GF256ReedSolomonEncoder;
 import com.google.zxing.common.reedsolomon.GenericGF;
-import com.google.zxing.common.reedsolomon.ReedSolomonEncoder;
 import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
 import com.google.zxing.qrcode.decoder.Mode;
 import com.google.zxing.qrcode.decoder.Version;
@@ -463,17 +463,8 @@ public final class Encoder {
   }
 
   static byte[] generateECBytes(byte[] dataBytes, int numEcBytesInBlock) {
-    int numDataBytes = dataBytes.length;
-    int[] toEncode = new int[numDataBytes + numEcBytesInBlock];
-    for (int i = 0; i < numDataBytes; i++) {
-      toEncode[i] = dataBytes[i] & 0xFF;
-    }
-    new ReedSolomonEncoder(GenericGF.QR_CODE_FIELD_256).encode(toEncode, numEcBytesInBlock);
-
     byte[] ecBytes = new byte[numEcBytesInBlock];
-    for (int i = 0; i < numEcBytesInBlock; i++) {
-      ecBytes[i] = (byte) toEncode[numDataBytes + i];
-    }
+    GF256ReedSolomonEncoder.forField(GenericGF.QR_CODE_FIELD_256).encode(dataBytes, ecBytes);
     return ecBytes;
   }
 
@@ -28,6 +28,8 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import com.google.zxing.common.AffineGridSampler;
+import com.google.zxing.common.GridSampler;
 import com.nanchen.scanner.R;
 import com.nanchen.scanner.utils.PermissionConstants;
 import com.nanchen.scanner.utils.PermissionUtils;
@@ -93,6 +95,9 @@ public class CaptureActivity extends BaseCaptureActivity implements View.OnClick
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        // 网格采样器是整个进程共用的设置，只在这里装一次，预览和相册解码都会用到。
+        // 镜头前的码大多接近正对，按定点步进采样比逐点做透视除法快；和默认采样器的差别见 AffineGridSamplerTest
+        GridSampler.setGridSampler(new AffineGridSampler());
         // 保持屏幕常亮
         Window window = getWindow();
         window.addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
@@ -285,6 +290,8 @@ public class CaptureActivity extends BaseCaptureActivity implements View.OnClick
         // first launch. That led to bugs where the scanning rectangle was the wrong size and partially
         // off screen.
         cameraManager = new CameraManager(getApplication());
+        // 复用预览帧缓冲区，避免每帧分配新的 byte[]
+        cameraManager.setBufferedPreview(true);
 
         viewfinderView.setCameraManager(cameraManager);
 
@@ -15,11 +15,20 @@ import com.google.zxing.common.GlobalHistogramBinarizer;
 import com.google.zxing.qrcode.QRCodeReader;
 
 import java.util.Hashtable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 public class QRUtils {
-    private static QRUtils instance;
+    private static final int ROW_SCAN_KEEP_ALIVE_SECONDS = 30;
 
+    private static QRUtils instance;
+    // 相册里的大图按行分段，在所有核上并行查找定位点
+    private ExecutorService rowScanExecutor;
 
     public static QRUtils getInstance() {
         if (instance == null)
@@ -40,7 +49,7 @@ public class QRUtils {
         scanBitmap.getPixels(data, 0, scanBitmap.getWidth(), 0, 0, scanBitmap.getWidth(), scanBitmap.getHeight());
         RGBLuminanceSource rgbLuminanceSource = new RGBLuminanceSource(scanBitmap.getWidth(), scanBitmap.getHeight(), data);
         BinaryBitmap binaryBitmap = new BinaryBitmap(new GlobalHistogramBinarizer(rgbLuminanceSource));
-        QRCodeReader reader = new QRCodeReader();
+        QRCodeReader reader = new QRCodeReader(getRowScanExecutor());
         try {
             Result result = reader.decode(binaryBitmap, hints);
             return result.getText();
@@ -53,4 +62,29 @@ public class QRUtils {
         }
 
     }
+
+    private synchronized ExecutorService getRowScanExecutor() {
+        if (rowScanExecutor == null) {
+            int threads = Runtime.getRuntime().availableProcessors();
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads,
+                    ROW_SCAN_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                    new RowScanThreadFactory());
+            // Idle between pictures, so let the threads go
+            executor.allowCoreThreadTimeOut(true);
+            rowScanExecutor = executor;
+        }
+        return rowScanExecutor;
+    }
+
+    private static final class RowScanThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "QRUtils-RowScan-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
 }
@@ -0,0 +1,346 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * Cheap check run before the full decode of a frame, so that frames which clearly hold no barcode
+ * (a wall, a desk, the sky while the phone is being raised) do not go through binarization and
+ * pattern finding. The frame is sampled on a grid of about {@value #GRID_SIZE} rows along its
+ * shorter side and given a confidence score between 0 and 1 from three measures:
+ *
+ * <ul>
+ * <li>edge density: the share of grid points where the luminance changes over
+ * {@value #GRADIENT_DISTANCE} pixels, across or down, by a good part of the local dynamic range,
+ * and by at least {@value #MIN_EDGE_CONTRAST} luminance steps;</li>
+ * <li>gradient energy: the mean size of those changes, again against the local dynamic range, so
+ * that the soft edges of a shadow count for less than the hard ones of print;</li>
+ * <li>finder-like runs: sampled rows holding black and white runs in the 1:1:3:1:1 proportions of a
+ * QR Code finder pattern, which carry the score on their own.</li>
+ * </ul>
+ *
+ * <p>The local dynamic range is that of the grid points in a square of {@value #TILE_SIZE} by
+ * {@value #TILE_SIZE} of them and the squares next to it, so a dim or low contrast code scores about
+ * as well as a bright one, as long as its edges stand out against the sensor noise. Grainy frames
+ * from a dim scene score high for the same reason, and are decoded as if there were no filter.</p>
+ *
+ * <p>The score is meant to rather let an empty frame through than to drop one with a code in it; a
+ * frame let through only costs the decode it would have had anyway. The counts of scored and
+ * skipped frames tell how many full decodes the filter saved.</p>
+ *
+ * <p>Not thread-safe: the row buffers are reused from frame to frame, so each {@link FrameDecoder}
+ * needs a filter of its own.</p>
+ */
+public final class BarcodePresenceFilter {
+
+    /** Low enough that codes far from the camera, or a little out of focus, still get decoded. */
+    public static final float DEFAULT_THRESHOLD = 0.2f;
+
+    private static final int GRID_SIZE = 64;
+    /** Taking gradients over two pixels keeps slightly blurred edges at full contrast. */
+    private static final int GRADIENT_DISTANCE = 2;
+    /** Same as {@code HybridBinarizer}: less contrast than this is sensor noise, not print. */
+    private static final int MIN_DYNAMIC_RANGE = 24;
+    /** Smaller changes are sensor noise whatever the dynamic range around them. */
+    private static final int MIN_EDGE_CONTRAST = 16;
+    /** Grid points along each side of the squares the local dynamic range is taken over. */
+    private static final int TILE_SIZE = 8;
+    /** Share of the local dynamic range a change must reach to count as an edge. */
+    private static final float MIN_EDGE_SHARE = 0.25f;
+    /** Share of grid points on an edge at which a frame scores fully for its edges. */
+    private static final float FULL_EDGE_DENSITY = 0.08f;
+    /**
+     * Mean edge gradient, as a share of the local dynamic range, at which a frame scores fully for
+     * its edges. Edges just over {@link #MIN_EDGE_SHARE} score next to nothing, as soft shading and
+     * noise mostly give those.
+     */
+    private static final float FULL_EDGE_SHARE = 0.6f;
+    /** Rows with finder-like runs at which a frame scores fully for them. */
+    private static final int FULL_FINDER_ROWS = 3;
+    /** Narrower finder-like runs are more likely to be texture than a finder pattern. */
+    private static final int MIN_MODULE_SIZE = 3;
+    /** Bounds the time spent on frames full of finder-like runs, such as noisy low-light ones. */
+    private static final int MAX_CROSS_CHECKS = 24;
+
+    private final float threshold;
+    private final int[] runs = new int[5];
+    private byte[] row;
+    private byte[] gradientRow;
+    private byte[] columnRow;
+    // Luminance and gradient at each grid point, and the range of the luminance in each tile
+    private int[] gridLuminance = new int[0];
+    private int[] gridGradient = new int[0];
+    private int[] tileMin = new int[0];
+    private int[] tileMax = new int[0];
+    private int crossChecks;
+    private long scoredFrames;
+    private long skippedFrames;
+    private float lastScore;
+
+    public BarcodePresenceFilter() {
+        this(DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold frames scoring below this are skipped; 0 lets every frame through
+     */
+    public BarcodePresenceFilter(float threshold) {
+        this.threshold = threshold;
+    }
+
+    public float getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * Scores a frame and counts it.
+     *
+     * @return whether the frame is worth a full decode
+     */
+    public boolean accept(LuminanceSource source) {
+        lastScore = score(source);
+        scoredFrames++;
+        if (lastScore < threshold) {
+            skippedFrames++;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return confidence between 0 and 1 that the frame holds a barcode
+     */
+    public float score(LuminanceSource source) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        if (width <= GRADIENT_DISTANCE || height <= GRADIENT_DISTANCE) {
+            // Too small to judge, and cheap to decode anyway.
+            return 1.0f;
+        }
+        int step = Math.max(1, Math.min(width, height) / GRID_SIZE);
+        int columns = (width - GRADIENT_DISTANCE - step / 2 + step - 1) / step;
+        int rows = (height - GRADIENT_DISTANCE - step / 2 + step - 1) / step;
+        if (columns <= 0 || rows <= 0) {
+            return 1.0f;
+        }
+        int samples = columns * rows;
+        if (gridLuminance.length < samples) {
+            gridLuminance = new int[samples];
+            gridGradient = new int[samples];
+        }
+        int finderRows = 0;
+        crossChecks = 0;
+        for (int j = 0; j < rows; j++) {
+            int y = step / 2 + j * step;
+            byte[] row = source.getRow(y, this.row);
+            this.row = row;
+            byte[] below = source.getRow(y + GRADIENT_DISTANCE, gradientRow);
+            gradientRow = below;
+            for (int i = 0; i < columns; i++) {
+                int x = step / 2 + i * step;
+                int luminance = row[x] & 0xff;
+                int across = Math.abs((row[x + GRADIENT_DISTANCE] & 0xff) - luminance);
+                int down = Math.abs((below[x] & 0xff) - luminance);
+                gridLuminance[j * columns + i] = luminance;
+                gridGradient[j * columns + i] = Math.max(across, down);
+            }
+            if (finderRows < FULL_FINDER_ROWS && hasFinderRuns(source, row, y)) {
+                finderRows++;
+            }
+        }
+        float finderScore = (float) finderRows / FULL_FINDER_ROWS;
+        return Math.max(finderScore, scoreEdges(columns, rows));
+    }
+
+    /**
+     * @return score of the frame for its edges, each weighed against the dynamic range around it
+     */
+    private float scoreEdges(int columns, int rows) {
+        int tileColumns = (columns + TILE_SIZE - 1) / TILE_SIZE;
+        int tileRows = (rows + TILE_SIZE - 1) / TILE_SIZE;
+        int tiles = tileColumns * tileRows;
+        if (tileMin.length < tiles) {
+            tileMin = new int[tiles];
+            tileMax = new int[tiles];
+        }
+        for (int t = 0; t < tiles; t++) {
+            tileMin[t] = 255;
+            tileMax[t] = 0;
+        }
+        for (int j = 0; j < rows; j++) {
+            for (int i = 0; i < columns; i++) {
+                int t = (j / TILE_SIZE) * tileColumns + i / TILE_SIZE;
+                int luminance = gridLuminance[j * columns + i];
+                tileMin[t] = Math.min(tileMin[t], luminance);
+                tileMax[t] = Math.max(tileMax[t], luminance);
+            }
+        }
+
+        int edges = 0;
+        float edgeShares = 0.0f;
+        for (int tj = 0; tj < tileRows; tj++) {
+            for (int ti = 0; ti < tileColumns; ti++) {
+                // The tile and the ones next to it, so that edges along a tile border see both sides
+                int min = 255;
+                int max = 0;
+                for (int nj = Math.max(0, tj - 1); nj <= Math.min(tileRows - 1, tj + 1); nj++) {
+                    for (int ni = Math.max(0, ti - 1); ni <= Math.min(tileColumns - 1, ti + 1); ni++) {
+                        min = Math.min(min, tileMin[nj * tileColumns + ni]);
+                        max = Math.max(max, tileMax[nj * tileColumns + ni]);
+                    }
+                }
+                int range = Math.max(max - min, MIN_DYNAMIC_RANGE);
+                for (int j = tj * TILE_SIZE; j < Math.min(rows, (tj + 1) * TILE_SIZE); j++) {
+                    for (int i = ti * TILE_SIZE; i < Math.min(columns, (ti + 1) * TILE_SIZE); i++) {
+                        int gradient = gridGradient[j * columns + i];
+                        float share = Math.min(1.0f, (float) gradient / range);
+                        if (gradient >= MIN_EDGE_CONTRAST && share >= MIN_EDGE_SHARE) {
+                            edges++;
+                            edgeShares += share - MIN_EDGE_SHARE;
+                        }
+                    }
+                }
+            }
+        }
+        if (edges == 0) {
+            return 0.0f;
+        }
+        float density = Math.min(1.0f, (float) edges / (columns * rows) / FULL_EDGE_DENSITY);
+        float energy = Math.min(1.0f, edgeShares / edges / (FULL_EDGE_SHARE - MIN_EDGE_SHARE));
+        return density * energy;
+    }
+
+    /**
+     * Runs a row at full resolution, thresholded halfway between its darkest and lightest pixel,
+     * through the same 1:1:3:1:1 test as {@code FinderPatternFinder}, and checks the runs it finds
+     * down the column through their middle as well. Noise and texture give plenty of such runs
+     * across a row, but rarely down the column too.
+     */
+    private boolean hasFinderRuns(LuminanceSource source, byte[] row, int y) {
+        int width = source.getWidth();
+        int min = 255;
+        int max = 0;
+        for (int x = 0; x < width; x++) {
+            int luminance = row[x] & 0xff;
+            min = Math.min(min, luminance);
+            max = Math.max(max, luminance);
+        }
+        if (max - min < MIN_DYNAMIC_RANGE) {
+            return false;
+        }
+        int blackPoint = (min + max) >> 1;
+        int[] runs = this.runs;
+        int runCount = 0;
+        boolean black = (row[0] & 0xff) < blackPoint;
+        int length = 0;
+        for (int x = 0; x <= width; x++) {
+            if (x < width && ((row[x] & 0xff) < blackPoint) == black) {
+                length++;
+                continue;
+            }
+            System.arraycopy(runs, 1, runs, 0, 4);
+            runs[4] = length;
+            runCount++;
+            // Colors alternate, so five runs ending in a black one are black-white-black-white-black.
+            if (black && runCount >= 5 && isFinderRatio(runs)) {
+                if (crossChecks >= MAX_CROSS_CHECKS) {
+                    return false;
+                }
+                crossChecks++;
+                int total = runs[0] + runs[1] + runs[2] + runs[3] + runs[4];
+                int centerX = x - runs[4] - runs[3] - runs[2] / 2;
+                if (crossCheckColumn(source, centerX, y, total, blackPoint)) {
+                    return true;
+                }
+            }
+            black = !black;
+            length = 1;
+        }
+        return false;
+    }
+
+    /**
+     * Like {@code FinderPatternFinder.crossCheckVertical}, with the column sampled every third of
+     * a module.
+     */
+    private boolean crossCheckColumn(LuminanceSource source, int x, int centerY, int total, int blackPoint) {
+        int height = source.getHeight();
+        int step = Math.max(1, total / 21);
+        int[] runs = this.runs;
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = 0;
+        }
+        // Up from the middle: the center run, then the white and the black one above it.
+        int y = centerY;
+        for (int state = 2; state >= 0; state--) {
+            boolean black = state != 1;
+            while (y >= 0 && isBlack(source, x, y, blackPoint) == black && runs[state] <= total) {
+                runs[state] += step;
+                y -= step;
+            }
+            if (runs[state] == 0 || runs[state] > total) {
+                return false;
+            }
+        }
+        y = centerY + step;
+        for (int state = 2; state < 5; state++) {
+            boolean black = state != 3;
+            while (y < height && isBlack(source, x, y, blackPoint) == black && runs[state] <= total) {
+                runs[state] += step;
+                y += step;
+            }
+            if (state > 2 && (runs[state] == 0 || runs[state] > total)) {
+                return false;
+            }
+        }
+        int columnTotal = runs[0] + runs[1] + runs[2] + runs[3] + runs[4];
+        // Same tolerance as FinderPatternFinder for the size of the pattern across and down.
+        return 5 * Math.abs(columnTotal - total) < 2 * total && isFinderRatio(runs);
+    }
+
+    private boolean isBlack(LuminanceSource source, int x, int y, int blackPoint) {
+        byte[] column = source.getRow(y, columnRow);
+        columnRow = column;
+        return (column[x] & 0xff) < blackPoint;
+    }
+
+    private static boolean isFinderRatio(int[] runs) {
+        int total = 0;
+        for (int run : runs) {
+            total += run;
+        }
+        if (total < 7 * MIN_MODULE_SIZE) {
+            return false;
+        }
+        float moduleSize = total / 7.0f;
+        float maxVariance = moduleSize / 2.0f;
+        return Math.abs(moduleSize - runs[0]) < maxVariance &&
+                Math.abs(moduleSize - runs[1]) < maxVariance &&
+                Math.abs(3.0f * moduleSize - runs[2]) < 3 * maxVariance &&
+                Math.abs(moduleSize - runs[3]) < maxVariance &&
+                Math.abs(moduleSize - runs[4]) < maxVariance;
+    }
+
+    /**
+     * @return score of the frame last passed to {@link #accept}
+     */
+    public float getLastScore() {
+        return lastScore;
+    }
+
+    public long getScoredFrames() {
+        return scoredFrames;
+    }
+
+    /**
+     * @return frames that were not decoded, which is the number of full decodes saved
+     */
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    @Override
+    public String toString() {
+        return "prefilter skipped " + skippedFrames + "/" + scoredFrames;
+    }
+
+}
@@ -42,4 +42,14 @@ public abstract class BaseCaptureActivity extends Activity implements SurfaceHol
     public abstract void handleDecode(String result, Bitmap barcode, float scaleFactor);
 
     public abstract void drawViewfinder();
+
+    /**
+     * Preview frames that score below this in a {@link BarcodePresenceFilter} are not decoded at
+     * all; 0 decodes every frame. Off by default until a recorded corpus shows the filter skips no
+     * frame that decodes ({@code ./gradlew :benchmark:test -Pframes=/path/to/frames}). Override
+     * with e.g. {@link BarcodePresenceFilter#DEFAULT_THRESHOLD} to turn it on.
+     */
+    public float getPresenceThreshold() {
+        return 0.0f;
+    }
 }
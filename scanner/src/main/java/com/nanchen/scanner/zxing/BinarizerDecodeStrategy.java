@@ -0,0 +1,195 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeConfig;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.detector.FinderPatternCallback;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decodes a frame with zxing after binarizing it with a given {@link Binarizer}. The reader is set
+ * up once from a {@link DecodeConfig}, so decoding a frame does not touch the hints again.
+ *
+ * <p>Large crops are first decoded from a 2x or 4x downscaled copy, which is usually enough when
+ * the code fills a good part of the framing rectangle; the full resolution crop is only tried when
+ * that finds nothing.</p>
+ */
+abstract class BinarizerDecodeStrategy implements DecodeStrategy {
+
+    /**
+     * Downscaling never makes the shorter side of the crop smaller than this, so codes keep a few
+     * pixels per module.
+     */
+    private static final int MIN_SCALED_DIMENSION = 240;
+
+    private final String name;
+    private final DecodeConfig config;
+    private final MultiFormatReader reader;
+    private MultiFormatReader scaledReader;
+    private int readerScale;
+    // One binarizer per pass, so the buffers of each stay sized for its frames.
+    private Binarizer binarizer;
+    private Binarizer scaledBinarizer;
+
+    BinarizerDecodeStrategy(String name, DecodeConfig config) {
+        this.name = name;
+        this.config = config;
+        this.reader = new MultiFormatReader();
+        reader.setDecodeConfig(config);
+    }
+
+    static BinarizerDecodeStrategy globalHistogram(DecodeConfig config) {
+        return new BinarizerDecodeStrategy("global", config) {
+            @Override
+            Binarizer createBinarizer(LuminanceSource source, Binarizer recycled) {
+                return new GlobalHistogramBinarizer(source, (GlobalHistogramBinarizer) recycled);
+            }
+        };
+    }
+
+    static BinarizerDecodeStrategy hybrid(DecodeConfig config) {
+        return new BinarizerDecodeStrategy("hybrid", config) {
+            @Override
+            Binarizer createBinarizer(LuminanceSource source, Binarizer recycled) {
+                return new HybridBinarizer(source, (HybridBinarizer) recycled);
+            }
+        };
+    }
+
+    /**
+     * @param recycled binarizer this strategy used on the previous frame of the same pass, whose
+     *                 buffers the new one may take over; {@code null} on the first frame
+     */
+    abstract Binarizer createBinarizer(LuminanceSource source, Binarizer recycled);
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Synchronized because the readers and binarizers are reused between frames, and an
+     * attempt that lost the race on one frame may still be running, until it notices it was
+     * cancelled, when the next frame comes in.
+     */
+    @Override
+    public synchronized Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+        int scale = chooseScale(source.getWidth(), source.getHeight());
+        if (scale > 1) {
+            scaledBinarizer = createBinarizer(source.scaleDown(scale), scaledBinarizer);
+            Result result = decode(scaledReader(scale), scaledBinarizer);
+            if (result != null) {
+                return scaleResult(result, scale);
+            }
+        }
+        binarizer = createBinarizer(source, binarizer);
+        return decode(reader, binarizer);
+    }
+
+    private static Result decode(MultiFormatReader reader, Binarizer binarizer) {
+        if (Thread.currentThread().isInterrupted()) {
+            // Another strategy won the frame, so neither binarize nor read it.
+            return null;
+        }
+        BinaryBitmap bitmap = new BinaryBitmap(binarizer);
+        try {
+            // 大多数预览帧里没有码，不要为每一帧都创建异常
+            return reader.decodeWithStateOrNull(bitmap);
+        } finally {
+            reader.reset();
+        }
+    }
+
+    /**
+     * @return the largest of 4 and 2 that keeps the crop at least {@link #MIN_SCALED_DIMENSION}
+     * pixels on its shorter side, or 1 if the crop is too small to downscale
+     */
+    static int chooseScale(int width, int height) {
+        int shorter = Math.min(width, height);
+        for (int scale = 4; scale > 1; scale >>= 1) {
+            if (shorter / scale >= MIN_SCALED_DIMENSION) {
+                return scale;
+            }
+        }
+        return 1;
+    }
+
+    /**
+     * The preview size is fixed for a session, so the reader for the scaled pass is built on the
+     * first frame and only rebuilt if the scale changes.
+     */
+    private MultiFormatReader scaledReader(int scale) {
+        if (scaledReader == null || readerScale != scale) {
+            ResultPointCallback callback = config.getResultPointCallback();
+            DecodeConfig scaledConfig = config;
+            if (callback != null) {
+                Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+                hints.putAll(config.getHints());
+                hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, new ScaledResultPointCallback(callback, scale));
+                scaledConfig = DecodeConfig.fromHints(hints);
+            }
+            scaledReader = new MultiFormatReader();
+            scaledReader.setDecodeConfig(scaledConfig);
+            readerScale = scale;
+        }
+        return scaledReader;
+    }
+
+    private static Result scaleResult(Result result, int scale) {
+        ResultPoint[] points = result.getResultPoints();
+        if (points == null) {
+            return result;
+        }
+        ResultPoint[] scaled = new ResultPoint[points.length];
+        for (int i = 0; i < points.length; i++) {
+            scaled[i] = points[i] == null ? null : scalePoint(points[i], scale);
+        }
+        Result scaledResult = new Result(result.getText(), result.getRawBytes(), result.getNumBits(),
+                scaled, result.getBarcodeFormat(), result.getTimestamp());
+        scaledResult.putAllMetadata(result.getResultMetadata());
+        return scaledResult;
+    }
+
+    /**
+     * Maps a point from the scaled source back to the center of the pixel block it came from.
+     */
+    private static ResultPoint scalePoint(ResultPoint point, int scale) {
+        return new ResultPoint((point.getX() + 0.5f) * scale - 0.5f, (point.getY() + 0.5f) * scale - 0.5f);
+    }
+
+    private static final class ScaledResultPointCallback implements FinderPatternCallback {
+
+        private final ResultPointCallback delegate;
+        private final int scale;
+
+        ScaledResultPointCallback(ResultPointCallback delegate, int scale) {
+            this.delegate = delegate;
+            this.scale = scale;
+        }
+
+        @Override
+        public void foundPossibleResultPoint(ResultPoint point) {
+            delegate.foundPossibleResultPoint(scalePoint(point, scale));
+        }
+
+        @Override
+        public void foundFinderPatterns(ResultPoint bottomLeft, ResultPoint topLeft, ResultPoint topRight) {
+            if (delegate instanceof FinderPatternCallback) {
+                ((FinderPatternCallback) delegate).foundFinderPatterns(scalePoint(bottomLeft, scale),
+                        scalePoint(topLeft, scale), scalePoint(topRight, scale));
+            }
+        }
+    }
+
+}
@@ -46,8 +46,14 @@ public final class CaptureActivityHandler extends Handler {
 
     private static final String TAG = CaptureActivityHandler.class.getSimpleName();
 
+    /**
+     * Number of decode workers used by default. Each worker already races several decode
+     * strategies on its own threads, so a couple of workers are enough to keep frames in flight.
+     */
+    public static final int DEFAULT_DECODE_WORKERS = 2;
+
     private final BaseCaptureActivity activity;
-    private final DecodeThread decodeThread;
+    private final FrameScheduler frameScheduler;
     private State state;
     private final CameraManager cameraManager;
 
@@ -59,13 +65,29 @@ public final class CaptureActivityHandler extends Handler {
 
     public CaptureActivityHandler(BaseCaptureActivity activity,
                                   CameraManager cameraManager) {
+        this(activity, cameraManager, DEFAULT_DECODE_WORKERS, FrameDropPolicy.DROP_OLDEST);
+    }
+
+    /**
+     * @param activity      the capture activity
+     * @param cameraManager the opened camera
+     * @param decodeWorkers number of threads decoding frames concurrently
+     * @param dropPolicy    which frame to drop when a frame arrives while all workers are busy
+     */
+    public CaptureActivityHandler(BaseCaptureActivity activity,
+                                  CameraManager cameraManager,
+                                  int decodeWorkers,
+                                  FrameDropPolicy dropPolicy) {
         this.activity = activity;
-        decodeThread = new DecodeThread(activity);
-        decodeThread.start();
+        frameScheduler = new FrameScheduler(activity, cameraManager, this, decodeWorkers, dropPolicy);
         state = State.SUCCESS;
 
         // Start ourselves capturing previews and decoding.
         this.cameraManager = cameraManager;
+        // Two buffers per worker, for the frame it decodes and one the losing strategies of its
+        // last decode may still be reading, one for the frame waiting for a worker and one being
+        // filled.
+        cameraManager.setPreviewBufferCount(2 * decodeWorkers + 2);
         cameraManager.startPreview();
         restartPreviewAndDecode();
     }
@@ -74,7 +96,13 @@ public final class CaptureActivityHandler extends Handler {
     public void handleMessage(Message message) {
         if (message.what == R.id.restart_preview) {
             restartPreviewAndDecode();
+        } else if (message.what == R.id.preview_frame) {
+            frameScheduler.onPreviewFrame((byte[]) message.obj, message.arg1, message.arg2);
         } else if (message.what == R.id.decode_succeeded) {
+            if (!frameScheduler.onDecodeSucceeded(message.arg1) || state != State.PREVIEW) {
+                // Another worker already delivered a result for this scan, or the frame is stale.
+                return;
+            }
             state = State.SUCCESS;
             Bundle bundle = message.getData();
             Bitmap barcode = null;
@@ -90,9 +118,9 @@ public final class CaptureActivityHandler extends Handler {
             }
             activity.handleDecode((String) message.obj, barcode, scaleFactor);
 
-        } else if (message.what == R.id.decode_failed) {// We're decoding as fast as possible, so when one decode fails, start another.
-            state = State.PREVIEW;
-            cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+        } else if (message.what == R.id.decode_failed) {
+            // The scheduler already keeps the next frames coming; it only needs the worker back.
+            frameScheduler.onDecodeFailed(message.arg1);
         } else if (message.what == R.id.return_scan_result) {
             activity.setResult(Activity.RESULT_OK, (Intent) message.obj);
             activity.finish();
@@ -136,16 +164,11 @@ public final class CaptureActivityHandler extends Handler {
     public void quitSynchronously() {
         state = State.DONE;
         cameraManager.stopPreview();
-        Message quit = Message.obtain(decodeThread.getHandler(), R.id.quit);
-        quit.sendToTarget();
-        try {
-            // Wait at most half a second; should be enough time, and onPause() will timeout quickly
-            decodeThread.join(500L);
-        } catch (InterruptedException e) {
-            // continue
-        }
+        // Wait at most half a second; should be enough time, and onPause() will timeout quickly
+        frameScheduler.quitSynchronously(500L);
 
         // Be absolutely sure we don't send any queued up messages
+        removeMessages(R.id.preview_frame);
         removeMessages(R.id.decode_succeeded);
         removeMessages(R.id.decode_failed);
     }
@@ -153,7 +176,7 @@ public final class CaptureActivityHandler extends Handler {
     private void restartPreviewAndDecode() {
         if (state == State.SUCCESS) {
             state = State.PREVIEW;
-            cameraManager.requestPreviewFrame(decodeThread.getHandler(), R.id.decode);
+            frameScheduler.start();
             activity.drawViewfinder();
         }
     }
@@ -18,23 +18,13 @@ package com.nanchen.scanner.zxing;
 
 import android.graphics.Bitmap;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeConfig;
 import com.google.zxing.DecodeHintType;
 import com.google.zxing.PlanarYUVLuminanceSource;
-import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.ResultPoint;
-import com.google.zxing.common.GlobalHistogramBinarizer;
-import com.google.zxing.common.HybridBinarizer;
-import com.google.zxing.qrcode.QRCodeReader;
 import com.nanchen.scanner.R;
-import com.yanzhenjie.zbar.Image;
-import com.yanzhenjie.zbar.ImageScanner;
-import com.yanzhenjie.zbar.Symbol;
-import com.yanzhenjie.zbar.SymbolSet;
+import com.nanchen.scanner.zxing.camera.CameraManager;
 
-import android.graphics.Rect;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
@@ -42,23 +32,41 @@ import android.os.Message;
 import android.util.Log;
 
 import java.io.ByteArrayOutputStream;
-import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collections;
 
 final class DecodeHandler extends Handler {
 
     private static final String TAG = DecodeHandler.class.getSimpleName();
 
     private final BaseCaptureActivity activity;
-    private QRCodeReader qrCodeReader;
-    private ViewfinderResultPointCallback callback;
+    private final int workerIndex;
+    private final FrameDecoder frameDecoder;
+    private final SharedFrame.Releaser previewReleaser;
     private boolean running = true;
 
-    DecodeHandler(BaseCaptureActivity activity) {
-        qrCodeReader = new QRCodeReader();
+    DecodeHandler(BaseCaptureActivity activity, int workerIndex) {
         this.activity = activity;
-        this.callback = new ViewfinderResultPointCallback(activity.getViewfinderView());
+        this.workerIndex = workerIndex;
+        final CameraManager cameraManager = activity.getCameraManager();
+        // 输了的解码策略可能还在读这一帧，等最后一个读完了再把缓冲区还给相机
+        previewReleaser = new SharedFrame.Releaser() {
+            @Override
+            public void release(byte[] data) {
+                // Hand a pooled preview buffer back to the camera; no-op for one-shot frames.
+                cameraManager.releasePreviewBuffer(data);
+            }
+        };
+        // 解码配置只构建一次，每一帧都复用
+        DecodeConfig config = DecodeHintManager.buildDecodeConfig(DecodeFormatManager.QR_CODE_FORMATS,
+                Collections.singletonMap(DecodeHintType.TRY_HARDER, Boolean.TRUE), "utf-8", null);
+        // global、hybrid 和 zbar 并行解码，并记住上一帧定位点的位置，下一帧先在附近的小窗口里找
+        frameDecoder = new FrameDecoder(config, new ViewfinderResultPointCallback(activity.getViewfinderView()),
+                new ZBarDecodeStrategy(config));
+        // 大多数帧里没有码，先粗略打个分，明显没有码的帧直接跳过
+        float presenceThreshold = activity.getPresenceThreshold();
+        if (presenceThreshold > 0.0f) {
+            frameDecoder.setPresenceFilter(new BarcodePresenceFilter(presenceThreshold));
+        }
     }
 
     @Override
@@ -67,10 +75,17 @@ final class DecodeHandler extends Handler {
             return;
         }
         if (message.what == R.id.decode) {
-            decode((byte[]) message.obj, message.arg1, message.arg2);
+            SharedFrame frame = new SharedFrame((byte[]) message.obj, previewReleaser);
+            try {
+                decode(frame, message.arg1, message.arg2);
+            } finally {
+                frame.release();
+            }
 
         } else if (message.what == R.id.quit) {
             running = false;
+            frameDecoder.shutdown();
+            Log.d(TAG, "Decode strategy wins: " + frameDecoder);
             Looper.myLooper().quit();
 
         }
@@ -80,86 +95,36 @@ final class DecodeHandler extends Handler {
      * Decode the data within the viewfinder rectangle, and time how long it took. For efficiency,
      * reuse the same reader objects from one decode to the next.
      *
-     * @param data   The YUV preview frame.
+     * @param frame  The YUV preview frame.
      * @param width  The width of the preview frame.
      * @param height The height of the preview frame.
      */
-    private void decode(byte[] data, int width, int height) {
-        Map<DecodeHintType, Object> hints = new HashMap<>();
-        hints.put(DecodeHintType.POSSIBLE_FORMATS, BarcodeFormat.QR_CODE);
-        hints.put(DecodeHintType.CHARACTER_SET, "utf-8");
-        hints.put(DecodeHintType.TRY_HARDER, Boolean.TRUE);
-        hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, callback);
-
+    private void decode(SharedFrame frame, int width, int height) {
         long start = System.currentTimeMillis();
         Result rawResult = null;
 
         String strResult = null;
 
-        // zxing
-        PlanarYUVLuminanceSource source = activity.getCameraManager().buildLuminanceSource(data, width, height);
-        Log.d(TAG, "width:" + width + ",height:" + height + ",newWidth:" + source.getWidth() + ",newHeight:" + source.getHeight());
-        BinaryBitmap globalBitmap = new BinaryBitmap(new GlobalHistogramBinarizer(source));
-        try {
-            rawResult = qrCodeReader.decode(globalBitmap, hints);
-            if (rawResult != null)
+        PlanarYUVLuminanceSource source = activity.getCameraManager().buildLuminanceSource(frame.getData(), width, height);
+        if (source != null) {
+            Log.d(TAG, "width:" + width + ",height:" + height + ",newWidth:" + source.getWidth() + ",newHeight:" + source.getHeight());
+            rawResult = frameDecoder.decode(frame, width, height, source);
+            if (rawResult != null) {
                 strResult = rawResult.getText();
-        } catch (ReaderException re) {
-            // continue
-        } finally {
-            qrCodeReader.reset();
+            }
         }
-        // hybrid 解码
-//        BinaryBitmap bitmap = new BinaryBitmap(new HybridBinarizer(source));
-//        try {
-//            rawResult = qrCodeReader.decode(bitmap, hints);
-//            if (rawResult != null)
-//                strResult = rawResult.getText();
-//        } catch (ReaderException re) {
-//            // continue
-//        } finally {
-//            qrCodeReader.reset();
-//        }
-//
-//        // zbar 解码
-//        Image barcode = new Image(width, height, "Y800");
-//        barcode.setData(data);
-//        Rect rect = activity.getCameraManager().getFramingRectInPreview();
-//        if (rect != null) {
-//            /* zbar 解码库,不需要将数据进行旋转,因此设置裁剪区域是的x为 top, y为left 设置了裁剪区域,解码速度快了近5倍左右 */
-//            barcode.setCrop(rect.top, rect.left, rect.width(), rect.height()); // 设置截取区域，也就是你的扫描框在图片上的区域.
-//        }
-//        ImageScanner mImageScanner = new ImageScanner();
-//        int result = mImageScanner.scanImage(barcode);
-//        if (result != 0) {
-//            SymbolSet symSet = mImageScanner.getResults();
-//            for (Symbol sym : symSet) {
-//                // 未能识别的格式继续遍历
-//                if (sym.getType() == Symbol.NONE) {
-//                    continue;
-//                }
-//                if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.KITKAT) {
-//                    strResult = new String(sym.getDataBytes(), StandardCharsets.UTF_8);
-//                } else {
-//                    strResult = sym.getData();
-//                }
-//            }
-//        }
 
         Handler handler = activity.getHandler();
         if (strResult != null) {
             // Don't log the barcode contents for security.
             long end = System.currentTimeMillis();
-            Log.d(TAG, "Found barcode in " + (end - start) + " ms");
+            Log.d(TAG, "Found barcode in " + (end - start) + " ms, " + frameDecoder);
             if (handler != null) {
                 Message message = Message.obtain(handler, R.id.decode_succeeded, strResult);
+                message.arg1 = workerIndex;
                 if (rawResult != null) {
                     Bundle bundle = new Bundle();
                     bundleThumbnail(source, bundle);
-                    // 绘制点点
-                    for (ResultPoint points : rawResult.getResultPoints()) {
-                        callback.foundPossibleResultPoint(points);
-                    }
                     message.setData(bundle);
                 }
                 message.sendToTarget();
@@ -167,6 +132,7 @@ final class DecodeHandler extends Handler {
         } else {
             if (handler != null) {
                 Message message = Message.obtain(handler, R.id.decode_failed);
+                message.arg1 = workerIndex;
                 message.sendToTarget();
             }
         }
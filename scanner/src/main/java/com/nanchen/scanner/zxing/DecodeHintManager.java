@@ -16,6 +16,7 @@
 
 package com.nanchen.scanner.zxing;
 
+import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
@@ -26,7 +27,10 @@ import android.net.Uri;
 import android.os.Bundle;
 import android.util.Log;
 
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeConfig;
 import com.google.zxing.DecodeHintType;
+import com.google.zxing.ResultPointCallback;
 
 /**
  * @author Lachezar Dobrev
@@ -232,4 +236,35 @@ public final class DecodeHintManager {
         return hints;
     }
 
+    /**
+     * Compiles the formats, character set and result point callback chosen for a scan, together
+     * with any hints parsed from the intent, into a {@link DecodeConfig}. Build it once per scan
+     * session and reuse it for every frame.
+     *
+     * @param decodeFormats       formats to look for, or {@code null} for all
+     * @param baseHints           hints from {@link #parseDecodeHints(Intent)}, may be {@code null}
+     * @param characterSet        character set to decode with, may be {@code null}
+     * @param resultPointCallback callback for possible result points, may be {@code null}
+     * @return the compiled configuration
+     */
+    public static DecodeConfig buildDecodeConfig(Collection<BarcodeFormat> decodeFormats,
+                                                 Map<DecodeHintType, ?> baseHints,
+                                                 String characterSet,
+                                                 ResultPointCallback resultPointCallback) {
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        if (baseHints != null) {
+            hints.putAll(baseHints);
+        }
+        if (decodeFormats != null && !decodeFormats.isEmpty()) {
+            hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
+        }
+        if (characterSet != null) {
+            hints.put(DecodeHintType.CHARACTER_SET, characterSet);
+        }
+        if (resultPointCallback != null) {
+            hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, resultPointCallback);
+        }
+        return DecodeConfig.fromHints(hints);
+    }
+
 }
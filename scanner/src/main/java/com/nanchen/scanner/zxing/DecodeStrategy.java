@@ -0,0 +1,31 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+
+/**
+ * One way of decoding a preview frame, e.g. zxing with a particular binarizer or zbar. Several
+ * strategies are raced against each other by {@link DecodeStrategyEngine}, so implementations may
+ * be called from a worker thread and must not share mutable reader state with other strategies.
+ *
+ * <p>Once another strategy won, the engine interrupts the worker thread. Implementations should
+ * check {@link Thread#isInterrupted()} between their passes and return {@code null} when it is set,
+ * so that the frame is handed back soon; the zxing readers give up on their own at the next row.</p>
+ */
+public interface DecodeStrategy {
+
+    /**
+     * @return short name used when reporting win rates
+     */
+    String getName();
+
+    /**
+     * @param data       The full YUV preview frame.
+     * @param dataWidth  The width of the preview frame.
+     * @param dataHeight The height of the preview frame.
+     * @param source     The frame cropped to the framing rectangle.
+     * @return the decoded result, or {@code null} if nothing was found
+     */
+    Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source);
+
+}
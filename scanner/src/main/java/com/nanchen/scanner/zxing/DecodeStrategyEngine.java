@@ -0,0 +1,236 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Races several {@link DecodeStrategy} instances against the same frame on a small worker pool.
+ * The first strategy to return a result wins and {@link #decode} returns it right away. The other
+ * attempts are cancelled: those that have not started yet are withdrawn, and those already running
+ * are interrupted and give up at their next check, see {@link DecodeStrategy}. They read the frame
+ * buffer without copying it, so each attempt holds the {@link SharedFrame} until it is over, and the
+ * buffer goes back to the camera once the caller and the last attempt let go of it.
+ *
+ * <p>The engine counts how often each strategy wins, so strategies that never contribute on a given
+ * label stock can be dropped. A strategy that throws counts as a miss and as a failure. The engine
+ * has no Android dependencies, so the same decode path also runs headless on a plain JVM.</p>
+ */
+public final class DecodeStrategyEngine {
+
+    private final DecodeStrategy[] strategies;
+    private final ExecutorService executor;
+    private final AtomicInteger frames = new AtomicInteger();
+    private final AtomicIntegerArray wins;
+    private final AtomicInteger failures = new AtomicInteger();
+
+    public DecodeStrategyEngine(DecodeStrategy... strategies) {
+        if (strategies.length == 0) {
+            throw new IllegalArgumentException("At least one decode strategy is required");
+        }
+        this.strategies = strategies.clone();
+        this.wins = new AtomicIntegerArray(strategies.length);
+        this.executor = strategies.length == 1 ? null :
+                Executors.newFixedThreadPool(strategies.length, new WorkerThreadFactory());
+    }
+
+    /**
+     * Decodes one frame with all strategies in parallel. The frame is held by every attempt that
+     * starts, so it may still be held by cancelled attempts when this returns; the caller releases
+     * only its own hold.
+     *
+     * @param frame      The full YUV preview frame.
+     * @param dataWidth  The width of the preview frame.
+     * @param dataHeight The height of the preview frame.
+     * @param source     The frame cropped to the framing rectangle.
+     * @return the first result found, or {@code null} if no strategy found anything
+     */
+    public Result decode(SharedFrame frame,
+                         int dataWidth,
+                         int dataHeight,
+                         PlanarYUVLuminanceSource source) {
+        frames.incrementAndGet();
+        if (executor == null) {
+            Result result = strategies[0].decode(frame.getData(), dataWidth, dataHeight, source);
+            if (result != null) {
+                wins.incrementAndGet(0);
+            }
+            return result;
+        }
+
+        CompletionService<Result> completionService = new ExecutorCompletionService<>(executor);
+        Attempt[] attempts = new Attempt[strategies.length];
+        Future<?>[] futures = new Future<?>[strategies.length];
+        try {
+            for (int i = 0; i < strategies.length; i++) {
+                frame.retain();
+                attempts[i] = new Attempt(strategies[i], frame, dataWidth, dataHeight, source);
+                futures[i] = completionService.submit(attempts[i]);
+            }
+            for (int remaining = futures.length; remaining > 0; remaining--) {
+                Future<Result> done = completionService.take();
+                Result result;
+                try {
+                    result = done.get();
+                } catch (ExecutionException ee) {
+                    failures.incrementAndGet();
+                    continue;
+                }
+                if (result != null) {
+                    wins.incrementAndGet(indexOf(futures, done));
+                    return result;
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            for (int i = 0; i < attempts.length && attempts[i] != null; i++) {
+                // Withdrawn attempts let go of the frame here, running ones once they gave up.
+                if (!attempts[i].withdraw() && futures[i] != null) {
+                    futures[i].cancel(true);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static int indexOf(Future<?>[] attempts, Future<?> attempt) {
+        for (int i = 0; i < attempts.length; i++) {
+            if (attempts[i] == attempt) {
+                return i;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    public int getStrategyCount() {
+        return strategies.length;
+    }
+
+    public String getStrategyName(int index) {
+        return strategies[index].getName();
+    }
+
+    /**
+     * @return number of frames passed to {@link #decode}
+     */
+    public int getFrameCount() {
+        return frames.get();
+    }
+
+    /**
+     * @return number of attempts that ended with an exception instead of a result
+     */
+    public int getFailureCount() {
+        return failures.get();
+    }
+
+    /**
+     * @return number of frames the given strategy decoded first
+     */
+    public int getWinCount(int index) {
+        return wins.get(index);
+    }
+
+    /**
+     * @return share of all successful decodes won by the given strategy, between 0 and 1
+     */
+    public float getWinRate(int index) {
+        int total = 0;
+        for (int i = 0; i < wins.length(); i++) {
+            total += wins.get(i);
+        }
+        return total == 0 ? 0.0f : (float) wins.get(index) / total;
+    }
+
+    /**
+     * Stops the worker threads. Call it between frames, not while {@link #decode} runs. Attempts
+     * still running on an earlier frame are interrupted, and let go of it once they gave up.
+     */
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append("frames=").append(getFrameCount()).append(" failures=").append(getFailureCount());
+        for (int i = 0; i < strategies.length; i++) {
+            result.append(' ').append(strategies[i].getName()).append('=').append(getWinCount(i))
+                    .append(" (").append(Math.round(getWinRate(i) * 100.0f)).append("%)");
+        }
+        return result.toString();
+    }
+
+    /**
+     * One strategy's attempt at a frame. It holds the frame until it is over, or until it is
+     * withdrawn before it started, in which case it never touches the frame.
+     */
+    private static final class Attempt implements Callable<Result> {
+
+        private final DecodeStrategy strategy;
+        private final SharedFrame frame;
+        private final int dataWidth;
+        private final int dataHeight;
+        private final PlanarYUVLuminanceSource source;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        Attempt(DecodeStrategy strategy, SharedFrame frame, int dataWidth, int dataHeight,
+                PlanarYUVLuminanceSource source) {
+            this.strategy = strategy;
+            this.frame = frame;
+            this.dataWidth = dataWidth;
+            this.dataHeight = dataHeight;
+            this.source = source;
+        }
+
+        @Override
+        public Result call() {
+            if (!claimed.compareAndSet(false, true)) {
+                return null;
+            }
+            try {
+                return strategy.decode(frame.getData(), dataWidth, dataHeight, source);
+            } finally {
+                frame.release();
+            }
+        }
+
+        /**
+         * @return {@code true} if the attempt had not started and now never will
+         */
+        boolean withdraw() {
+            if (claimed.compareAndSet(false, true)) {
+                frame.release();
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "DecodeStrategy-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+
+}
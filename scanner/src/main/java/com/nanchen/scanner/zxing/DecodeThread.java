@@ -38,11 +38,18 @@ final class DecodeThread extends Thread {
     public static final String BARCODE_SCALED_FACTOR = "barcode_scaled_factor";
 
     private final BaseCaptureActivity activity;
+    private final int workerIndex;
     private Handler handler;
     private final CountDownLatch handlerInitLatch;
 
-    DecodeThread(BaseCaptureActivity activity) {
+    /**
+     * @param activity    the capture activity
+     * @param workerIndex index of this thread among the decode workers, reported back with results
+     */
+    DecodeThread(BaseCaptureActivity activity, int workerIndex) {
+        super("DecodeThread-" + workerIndex);
         this.activity = activity;
+        this.workerIndex = workerIndex;
         handlerInitLatch = new CountDownLatch(1);
     }
 
@@ -58,7 +65,7 @@ final class DecodeThread extends Thread {
     @Override
     public void run() {
         Looper.prepare();
-        handler = new DecodeHandler(activity);
+        handler = new DecodeHandler(activity, workerIndex);
         handlerInitLatch.countDown();
         Looper.loop();
     }
@@ -0,0 +1,94 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.DecodeConfig;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPointCallback;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Decodes preview frames that have already been cropped to the framing rectangle: the frame is
+ * first narrowed to the window kept by a {@link RegionTracker}, then raced through the zxing
+ * binarizer strategies and any extra {@link DecodeStrategy} on a {@link DecodeStrategyEngine}. A
+ * frame whose window held no code is not decoded again; the next frame is decoded whole.
+ * With a {@link BarcodePresenceFilter} set, frames that clearly hold no barcode are dropped before
+ * any of that.
+ *
+ * <p>This is the decode path of {@link DecodeHandler} without the Android plumbing around it, so
+ * recorded preview streams can be replayed through exactly the same code on a plain JVM.</p>
+ */
+public final class FrameDecoder {
+
+    private final RegionTracker regionTracker;
+    private final DecodeStrategyEngine engine;
+    private BarcodePresenceFilter presenceFilter;
+
+    /**
+     * @param config          hints to decode with; a result point callback in them is ignored
+     * @param pointCallback   receives result points in framing rectangle coordinates, may be
+     *                        {@code null}
+     * @param extraStrategies strategies to race against the global and hybrid binarizers
+     */
+    public FrameDecoder(DecodeConfig config, ResultPointCallback pointCallback, DecodeStrategy... extraStrategies) {
+        regionTracker = new RegionTracker(pointCallback);
+        Map<DecodeHintType, Object> hints = new EnumMap<>(DecodeHintType.class);
+        hints.putAll(config.getHints());
+        hints.put(DecodeHintType.NEED_RESULT_POINT_CALLBACK, regionTracker);
+        DecodeConfig trackedConfig = DecodeConfig.fromHints(hints);
+
+        // Each strategy gets its own reader since they run concurrently.
+        DecodeStrategy[] strategies = new DecodeStrategy[2 + extraStrategies.length];
+        strategies[0] = BinarizerDecodeStrategy.globalHistogram(trackedConfig);
+        strategies[1] = BinarizerDecodeStrategy.hybrid(trackedConfig);
+        System.arraycopy(extraStrategies, 0, strategies, 2, extraStrategies.length);
+        engine = new DecodeStrategyEngine(strategies);
+    }
+
+    /**
+     * @param presenceFilter filter to score frames with before decoding them, or {@code null} to
+     *                       decode every frame
+     */
+    public void setPresenceFilter(BarcodePresenceFilter presenceFilter) {
+        this.presenceFilter = presenceFilter;
+    }
+
+    /**
+     * Decodes a frame. Strategies that lost the race may still read the frame after this
+     * returns, so the caller only releases its own hold on it, see {@link SharedFrame}.
+     *
+     * @param frame  The full YUV preview frame.
+     * @param width  The width of the preview frame.
+     * @param height The height of the preview frame.
+     * @param source The frame cropped to the framing rectangle.
+     * @return the decoded barcode, or {@code null} if none was found
+     */
+    public Result decode(SharedFrame frame, int width, int height, PlanarYUVLuminanceSource source) {
+        if (presenceFilter != null && !presenceFilter.accept(source)) {
+            return null;
+        }
+        Result result = engine.decode(frame, width, height, regionTracker.beginFrame(source));
+        // After a miss in the window the next frame is decoded whole again.
+        regionTracker.endFrame(source, result);
+        return result;
+    }
+
+    /**
+     * Stops the strategy worker threads.
+     */
+    public void shutdown() {
+        engine.shutdown();
+    }
+
+    /**
+     * @return frame, failure and win counts of the strategies, and how many frames the presence
+     * filter skipped
+     */
+    @Override
+    public String toString() {
+        return presenceFilter == null ? engine.toString() : engine + ", " + presenceFilter;
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.nanchen.scanner.zxing;
+
+/**
+ * Decides which preview frame is dropped when a new frame arrives while every decode worker is busy
+ * and a frame is already waiting.
+ */
+public enum FrameDropPolicy {
+
+    /** Drop the waiting frame and keep the new one, so workers always get the freshest frame. */
+    DROP_OLDEST,
+    /** Keep the waiting frame and drop the new one, and stop fetching frames until a worker frees up. */
+    DROP_NEWEST
+
+}
@@ -0,0 +1,205 @@
+package com.nanchen.scanner.zxing;
+
+import android.os.Handler;
+import android.os.Message;
+
+import com.nanchen.scanner.R;
+import com.nanchen.scanner.zxing.camera.CameraManager;
+
+/**
+ * Keeps several preview frames in flight across a pool of {@link DecodeThread} workers. The next
+ * frame is requested as soon as one has been handed out, instead of after the previous decode
+ * failed, and at most one frame waits for a free worker; {@link FrameDropPolicy} decides which frame
+ * goes when another one arrives.
+ *
+ * <p>Frames are numbered in arrival order, so results coming back from the workers can be checked
+ * against the last delivered frame. All methods must be called on the thread of the result handler.</p>
+ */
+final class FrameScheduler {
+
+    private final CameraManager cameraManager;
+    private final Handler resultHandler;
+    private final FrameDropPolicy dropPolicy;
+    private final DecodeThread[] workers;
+    private final long[] workerFrames;
+
+    private byte[] pendingData;
+    private int pendingWidth;
+    private int pendingHeight;
+    private long pendingFrame;
+
+    private long frameSequence;
+    // Frames up to this number can no longer deliver a result.
+    private long closedFrame;
+    private boolean frameRequested;
+    private boolean running;
+
+    FrameScheduler(BaseCaptureActivity activity,
+                   CameraManager cameraManager,
+                   Handler resultHandler,
+                   int workerCount,
+                   FrameDropPolicy dropPolicy) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("At least one decode worker is required");
+        }
+        this.cameraManager = cameraManager;
+        this.resultHandler = resultHandler;
+        this.dropPolicy = dropPolicy;
+        workers = new DecodeThread[workerCount];
+        workerFrames = new long[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            workers[i] = new DecodeThread(activity, i);
+            workers[i].start();
+        }
+    }
+
+    int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Starts fetching and dispatching preview frames.
+     */
+    void start() {
+        running = true;
+        // Results from frames taken before a restart are not wanted any more.
+        closedFrame = frameSequence;
+        requestFrame();
+    }
+
+    /**
+     * Stops fetching frames and drops the frame waiting for a worker, if any. Frames already being
+     * decoded still report back, but their results are rejected.
+     */
+    void stop() {
+        running = false;
+        dropPendingFrame();
+    }
+
+    /**
+     * Called with each preview frame requested through the camera.
+     */
+    void onPreviewFrame(byte[] data, int width, int height) {
+        frameRequested = false;
+        if (!running) {
+            cameraManager.releasePreviewBuffer(data);
+            return;
+        }
+        long frame = ++frameSequence;
+        int worker = findIdleWorker();
+        if (worker >= 0) {
+            dispatch(worker, data, width, height, frame);
+        } else if (pendingData == null) {
+            setPendingFrame(data, width, height, frame);
+        } else if (dropPolicy == FrameDropPolicy.DROP_OLDEST) {
+            dropPendingFrame();
+            setPendingFrame(data, width, height, frame);
+        } else {
+            cameraManager.releasePreviewBuffer(data);
+        }
+        requestFrame();
+    }
+
+    /**
+     * Called when a worker found a barcode. Decides whether the result is delivered: results from
+     * frames taken before the last delivered one or before a restart are dropped, and so are
+     * duplicates from frames that were still in flight when the first result came in. An accepted
+     * result stops the scheduler.
+     *
+     * @param worker index of the worker, as sent in {@code message.arg1}
+     * @return {@code true} if the result should be delivered
+     */
+    boolean onDecodeSucceeded(int worker) {
+        long frame = workerFrames[worker];
+        workerFrames[worker] = 0L;
+        if (running && frame > closedFrame) {
+            closedFrame = frame;
+            stop();
+            return true;
+        }
+        dispatchPendingFrame(worker);
+        return false;
+    }
+
+    /**
+     * Called when a worker found nothing in its frame.
+     *
+     * @param worker index of the worker, as sent in {@code message.arg1}
+     */
+    void onDecodeFailed(int worker) {
+        workerFrames[worker] = 0L;
+        dispatchPendingFrame(worker);
+    }
+
+    /**
+     * Stops every worker, waiting up to {@code timeoutMs} in total for them to exit.
+     */
+    void quitSynchronously(long timeoutMs) {
+        stop();
+        for (DecodeThread worker : workers) {
+            Message.obtain(worker.getHandler(), R.id.quit).sendToTarget();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        try {
+            for (DecodeThread worker : workers) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0L) {
+                    break;
+                }
+                worker.join(remaining);
+            }
+        } catch (InterruptedException e) {
+            // continue
+        }
+    }
+
+    private void dispatchPendingFrame(int worker) {
+        if (running && pendingData != null) {
+            byte[] data = pendingData;
+            pendingData = null;
+            dispatch(worker, data, pendingWidth, pendingHeight, pendingFrame);
+        }
+        requestFrame();
+    }
+
+    private void requestFrame() {
+        if (!running || frameRequested) {
+            return;
+        }
+        if (pendingData != null && dropPolicy == FrameDropPolicy.DROP_NEWEST && findIdleWorker() < 0) {
+            // The next frame would be dropped anyway; wait for a worker to report back.
+            return;
+        }
+        frameRequested = true;
+        cameraManager.requestPreviewFrame(resultHandler, R.id.preview_frame);
+    }
+
+    private void dispatch(int worker, byte[] data, int width, int height, long frame) {
+        workerFrames[worker] = frame;
+        Message.obtain(workers[worker].getHandler(), R.id.decode, width, height, data).sendToTarget();
+    }
+
+    private int findIdleWorker() {
+        for (int i = 0; i < workerFrames.length; i++) {
+            if (workerFrames[i] == 0L) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void setPendingFrame(byte[] data, int width, int height, long frame) {
+        pendingData = data;
+        pendingWidth = width;
+        pendingHeight = height;
+        pendingFrame = frame;
+    }
+
+    private void dropPendingFrame() {
+        if (pendingData != null) {
+            cameraManager.releasePreviewBuffer(pendingData);
+            pendingData = null;
+        }
+    }
+
+}
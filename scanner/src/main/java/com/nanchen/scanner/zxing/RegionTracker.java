@@ -0,0 +1,170 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.ResultPointCallback;
+import com.google.zxing.qrcode.detector.FinderPatternCallback;
+
+/**
+ * Remembers where the code was in the last frame, so the next frame can first be decoded from a
+ * small window around it instead of the whole framing rectangle. While an operator holds a label
+ * steady most frames then only binarize and search a fraction of the crop.
+ *
+ * <p>The tracker sits between the readers and the viewfinder as the {@link ResultPointCallback}:
+ * points found in the window are moved back into framing rectangle coordinates before they are
+ * forwarded. The window for the next frame is set around the three finder patterns the QR Code
+ * detector settled on, whether or not the code then decoded, or around the points of a decoded
+ * result. The many possible points of a frame, which are as often texture as finder patterns,
+ * never set it. A frame in which the window held no finder patterns drops it, and the next frame
+ * is decoded from the whole framing rectangle again.</p>
+ *
+ * <p>A strategy that lost the race on a frame may report its finder patterns after the next frame
+ * began; they then count for that frame, which at worst sets a window that misses once.</p>
+ */
+final class RegionTracker implements FinderPatternCallback {
+
+    /**
+     * Finder pattern centers sit a few modules inside the symbol, and the label moves between frames,
+     * so the window extends this many times the size of the pattern box on each side.
+     */
+    private static final float MARGIN = 0.5f;
+    /** Smaller windows cannot be binarized locally, see {@code HybridBinarizer}. */
+    private static final int MIN_WINDOW_SIZE = 80;
+    /** Not worth cropping when the window would cover most of the framing rectangle anyway. */
+    private static final float MAX_WINDOW_AREA = 0.6f;
+    /** A QR code reports its three finder patterns. */
+    private static final int MIN_POINTS = 3;
+
+    private final ResultPointCallback delegate;
+
+    // Window in framing rectangle coordinates, empty when there is none.
+    private int windowLeft;
+    private int windowTop;
+    private int windowRight;
+    private int windowBottom;
+    private int offsetX;
+    private int offsetY;
+    // Box around the finder patterns found in the current frame, in framing rectangle coordinates.
+    private boolean found;
+    private float foundMinX;
+    private float foundMinY;
+    private float foundMaxX;
+    private float foundMaxY;
+
+    RegionTracker(ResultPointCallback delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Starts a new frame.
+     *
+     * @param source the frame cropped to the framing rectangle
+     * @return the part of {@code source} to decode, either the window or all of it
+     */
+    synchronized PlanarYUVLuminanceSource beginFrame(PlanarYUVLuminanceSource source) {
+        if (windowRight > source.getWidth() || windowBottom > source.getHeight()) {
+            // The framing rectangle changed size.
+            clearWindow();
+        }
+        offsetX = windowLeft;
+        offsetY = windowTop;
+        found = false;
+        if (!hasWindow()) {
+            return source;
+        }
+        return (PlanarYUVLuminanceSource) source.crop(windowLeft, windowTop,
+                windowRight - windowLeft, windowBottom - windowTop);
+    }
+
+    /**
+     * Finishes the frame started by the last {@link #beginFrame} call and picks the window for the
+     * next one.
+     *
+     * @param source the frame cropped to the framing rectangle, as passed to {@link #beginFrame}
+     * @param result the result the frame was decoded to, or {@code null} if it was not
+     */
+    synchronized void endFrame(PlanarYUVLuminanceSource source, Result result) {
+        clearWindow();
+        ResultPoint[] points = result == null ? null : result.getResultPoints();
+        if (points != null && points.length >= MIN_POINTS) {
+            for (ResultPoint point : points) {
+                if (point != null) {
+                    include(point);
+                }
+            }
+        }
+        if (found) {
+            expandWindow(foundMinX, foundMinY, foundMaxX, foundMaxY, source.getWidth(), source.getHeight());
+        }
+    }
+
+    @Override
+    public synchronized void foundFinderPatterns(ResultPoint bottomLeft, ResultPoint topLeft, ResultPoint topRight) {
+        include(bottomLeft);
+        include(topLeft);
+        include(topRight);
+    }
+
+    @Override
+    public void foundPossibleResultPoint(ResultPoint point) {
+        if (delegate == null) {
+            return;
+        }
+        ResultPoint cropPoint;
+        synchronized (this) {
+            cropPoint = offsetX == 0 && offsetY == 0 ? point :
+                    new ResultPoint(point.getX() + offsetX, point.getY() + offsetY);
+        }
+        delegate.foundPossibleResultPoint(cropPoint);
+    }
+
+    /**
+     * Adds a point found in the part of the frame being decoded to the box around the code.
+     */
+    private void include(ResultPoint point) {
+        float x = point.getX() + offsetX;
+        float y = point.getY() + offsetY;
+        if (!found) {
+            foundMinX = foundMaxX = x;
+            foundMinY = foundMaxY = y;
+            found = true;
+        } else {
+            foundMinX = Math.min(foundMinX, x);
+            foundMaxX = Math.max(foundMaxX, x);
+            foundMinY = Math.min(foundMinY, y);
+            foundMaxY = Math.max(foundMaxY, y);
+        }
+    }
+
+    private boolean hasWindow() {
+        return windowRight > windowLeft;
+    }
+
+    private void clearWindow() {
+        windowLeft = 0;
+        windowTop = 0;
+        windowRight = 0;
+        windowBottom = 0;
+    }
+
+    private void expandWindow(float minX, float minY, float maxX, float maxY, int width, int height) {
+        float size = Math.max(maxX - minX, maxY - minY);
+        int margin = (int) (size * MARGIN) + 1;
+        int left = Math.max(0, (int) minX - margin);
+        int top = Math.max(0, (int) minY - margin);
+        int right = Math.min(width, (int) maxX + margin + 1);
+        int bottom = Math.min(height, (int) maxY + margin + 1);
+        int windowWidth = right - left;
+        int windowHeight = bottom - top;
+        if (windowWidth < MIN_WINDOW_SIZE || windowHeight < MIN_WINDOW_SIZE ||
+                windowWidth * windowHeight > MAX_WINDOW_AREA * width * height) {
+            return;
+        }
+        windowLeft = left;
+        windowTop = top;
+        windowRight = right;
+        windowBottom = bottom;
+    }
+
+}
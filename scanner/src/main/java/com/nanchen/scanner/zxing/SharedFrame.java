@@ -0,0 +1,74 @@
+package com.nanchen.scanner.zxing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A preview frame read by the caller of {@link FrameDecoder#decode} and by the decode attempts the
+ * {@link DecodeStrategyEngine} started on it. Attempts that lost the race may still be reading the
+ * frame after the winner's result came back, so nobody hands the buffer back directly: each reader
+ * lets go of the frame once it is done with it, and the last one to do so gives the buffer to the
+ * {@link Releaser}, on whatever thread that happens.
+ *
+ * <p>The frame starts out held once, by the caller, who must call {@link #release()} exactly once
+ * when it no longer reads the buffer.</p>
+ */
+public final class SharedFrame {
+
+    /**
+     * Takes a frame buffer back once nothing reads it any more, e.g. to queue it to the camera
+     * again. Called from the decode thread or from a strategy worker thread.
+     */
+    public interface Releaser {
+
+        void release(byte[] data);
+
+    }
+
+    private final byte[] data;
+    private final Releaser releaser;
+    private final AtomicInteger holds = new AtomicInteger(1);
+
+    /**
+     * @param data     the full YUV preview frame
+     * @param releaser receives the buffer once the frame is released by everyone holding it, may be
+     *                 {@code null} if the buffer need not go anywhere
+     */
+    public SharedFrame(byte[] data, Releaser releaser) {
+        this.data = data;
+        this.releaser = releaser;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * Holds the frame once more, for an attempt about to read it.
+     */
+    void retain() {
+        if (holds.getAndIncrement() <= 0) {
+            throw new IllegalStateException("Frame was already released");
+        }
+    }
+
+    /**
+     * Lets go of the frame. The last release hands the buffer to the {@link Releaser}.
+     */
+    public void release() {
+        int left = holds.decrementAndGet();
+        if (left < 0) {
+            throw new IllegalStateException("Frame was released more often than it was held");
+        }
+        if (left == 0 && releaser != null) {
+            releaser.release(data);
+        }
+    }
+
+    /**
+     * @return {@code true} once every holder let go of the frame
+     */
+    public boolean isReleased() {
+        return holds.get() <= 0;
+    }
+
+}
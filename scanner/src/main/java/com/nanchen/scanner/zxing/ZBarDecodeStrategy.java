@@ -0,0 +1,106 @@
+package com.nanchen.scanner.zxing;
+
+import android.os.Build;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeConfig;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.yanzhenjie.zbar.Config;
+import com.yanzhenjie.zbar.Image;
+import com.yanzhenjie.zbar.ImageScanner;
+import com.yanzhenjie.zbar.Symbol;
+import com.yanzhenjie.zbar.SymbolSet;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+
+/**
+ * Decodes the raw preview frame with zbar, restricted to the crop of the source it is given, which
+ * is the framing rectangle or the window the {@link RegionTracker} keeps. Only the formats of the
+ * {@link DecodeConfig} are looked for and returned, as with the zxing strategies.
+ */
+final class ZBarDecodeStrategy implements DecodeStrategy {
+
+    private static final ResultPoint[] NO_POINTS = new ResultPoint[0];
+
+    /** zbar symbol types and the formats they are reported as. */
+    private static final int[] SYMBOL_TYPES = {
+            Symbol.QRCODE, Symbol.CODE128, Symbol.CODE39, Symbol.CODE93, Symbol.EAN13, Symbol.ISBN13,
+            Symbol.EAN8, Symbol.UPCA, Symbol.ISBN10, Symbol.UPCE, Symbol.I25, Symbol.CODABAR,
+            Symbol.PDF417, Symbol.DATABAR, Symbol.DATABAR_EXP,
+    };
+    private static final BarcodeFormat[] SYMBOL_FORMATS = {
+            BarcodeFormat.QR_CODE, BarcodeFormat.CODE_128, BarcodeFormat.CODE_39, BarcodeFormat.CODE_93,
+            BarcodeFormat.EAN_13, BarcodeFormat.EAN_13, BarcodeFormat.EAN_8, BarcodeFormat.UPC_A,
+            BarcodeFormat.UPC_A, BarcodeFormat.UPC_E, BarcodeFormat.ITF, BarcodeFormat.CODABAR,
+            BarcodeFormat.PDF_417, BarcodeFormat.RSS_14, BarcodeFormat.RSS_EXPANDED,
+    };
+
+    private final Collection<BarcodeFormat> formats;
+    private final ImageScanner imageScanner;
+
+    /**
+     * @param config hints to decode with; only its possible formats are used
+     */
+    ZBarDecodeStrategy(DecodeConfig config) {
+        this.formats = config.getPossibleFormats();
+        this.imageScanner = new ImageScanner();
+        if (formats != null) {
+            // 只识别配置里的格式，其余的全部关掉
+            imageScanner.setConfig(Symbol.NONE, Config.ENABLE, 0);
+            for (int i = 0; i < SYMBOL_TYPES.length; i++) {
+                if (formats.contains(SYMBOL_FORMATS[i])) {
+                    imageScanner.setConfig(SYMBOL_TYPES[i], Config.ENABLE, 1);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "zbar";
+    }
+
+    /**
+     * Synchronized because the native scanner is reused between frames and is not thread-safe.
+     */
+    @Override
+    public synchronized Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+        Image barcode = new Image(dataWidth, dataHeight, "Y800");
+        barcode.setData(data);
+        // 只扫描 source 所在的区域（取景框，或上一帧定位到的小窗口），设置了裁剪区域,解码速度快了近5倍左右
+        barcode.setCrop(source.getLeft(), source.getTop(), source.getWidth(), source.getHeight());
+        if (imageScanner.scanImage(barcode) == 0) {
+            return null;
+        }
+        SymbolSet symSet = imageScanner.getResults();
+        for (Symbol sym : symSet) {
+            BarcodeFormat format = toBarcodeFormat(sym.getType());
+            // 未能识别或未配置的格式继续遍历
+            if (format == null || (formats != null && !formats.contains(format))) {
+                continue;
+            }
+            byte[] rawBytes = sym.getDataBytes();
+            String text;
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                text = new String(rawBytes, StandardCharsets.UTF_8);
+            } else {
+                text = sym.getData();
+            }
+            return new Result(text, rawBytes, NO_POINTS, format);
+        }
+        return null;
+    }
+
+    private static BarcodeFormat toBarcodeFormat(int type) {
+        for (int i = 0; i < SYMBOL_TYPES.length; i++) {
+            if (SYMBOL_TYPES[i] == type) {
+                return SYMBOL_FORMATS[i];
+            }
+        }
+        return null;
+    }
+
+}
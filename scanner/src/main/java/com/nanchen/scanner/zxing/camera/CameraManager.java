@@ -17,6 +17,7 @@
 package com.nanchen.scanner.zxing.camera;
 
 import android.content.Context;
+import android.graphics.ImageFormat;
 import android.graphics.Point;
 import android.graphics.Rect;
 import android.hardware.Camera;
@@ -42,10 +43,7 @@ public final class CameraManager {
 
     private static final String TAG = CameraManager.class.getSimpleName();
 
-    private static final int MIN_FRAME_WIDTH = 240;
-    private static final int MIN_FRAME_HEIGHT = 240;
-    private static final int MAX_FRAME_WIDTH = 1200; // = 5/8 * 1920
-    private static final int MAX_FRAME_HEIGHT = 675; // = 5/8 * 1080
+    private static final int DEFAULT_PREVIEW_BUFFER_COUNT = 3;
 
     private final Context context;
     private final CameraConfigurationManager configManager;
@@ -58,6 +56,9 @@ public final class CameraManager {
     private int requestedCameraId = OpenCameraInterface.NO_REQUESTED_CAMERA;
     private int requestedFramingRectWidth;
     private int requestedFramingRectHeight;
+    private boolean bufferedPreview;
+    private int previewBufferCount = DEFAULT_PREVIEW_BUFFER_COUNT;
+    private FrameBufferPool previewBuffers;
     /**
      * Preview frames are delivered here, which we pass on to the registered handler. Make sure to
      * clear the handler so it will only receive one message.
@@ -148,6 +149,9 @@ public final class CameraManager {
         if (theCamera != null && !previewing) {
             theCamera.getCamera().startPreview();
             previewing = true;
+            if (bufferedPreview) {
+                setUpPreviewBuffers(theCamera.getCamera());
+            }
             autoFocusManager = new AutoFocusManager(context, theCamera.getCamera());
         }
     }
@@ -161,12 +165,83 @@ public final class CameraManager {
             autoFocusManager = null;
         }
         if (camera != null && previewing) {
+            if (previewBuffers != null) {
+                // Clears the buffer queue; buffers still being decoded are simply dropped.
+                camera.getCamera().setPreviewCallbackWithBuffer(null);
+                previewCallback.setBuffered(false);
+                previewBuffers = null;
+            }
             camera.getCamera().stopPreview();
             previewCallback.setHandler(null, 0);
             previewing = false;
         }
     }
 
+    /**
+     * Enables delivering preview frames into a small ring of preallocated buffers instead of a new
+     * array per frame. Takes effect the next time the preview is started. Frames obtained through
+     * {@link #requestPreviewFrame(Handler, int)} must then be handed back with
+     * {@link #releasePreviewBuffer(byte[])} once decoding is done.
+     *
+     * @param bufferedPreview {@code true} to use buffered preview callbacks
+     */
+    public synchronized void setBufferedPreview(boolean bufferedPreview) {
+        this.bufferedPreview = bufferedPreview;
+    }
+
+    /**
+     * Sets how many buffers a buffered preview allocates. It should cover every frame that can be
+     * held by decoders at once plus one for the camera to fill. Takes effect the next time the
+     * preview is started.
+     *
+     * @param previewBufferCount number of preview buffers, at least 1
+     */
+    public synchronized void setPreviewBufferCount(int previewBufferCount) {
+        if (previewBufferCount < 1) {
+            throw new IllegalArgumentException("At least one preview buffer is required");
+        }
+        this.previewBufferCount = previewBufferCount;
+    }
+
+    /**
+     * Returns a preview frame to the camera so it can be filled again. Does nothing if the preview
+     * is not buffered or the frame belongs to an earlier preview session.
+     *
+     * @param data A frame delivered through {@link #requestPreviewFrame(Handler, int)}.
+     */
+    public synchronized void releasePreviewBuffer(byte[] data) {
+        FrameBufferPool pool = previewBuffers;
+        if (pool == null || camera == null || !pool.release(data)) {
+            return;
+        }
+        queuePreviewBuffers(camera.getCamera(), pool);
+    }
+
+    private void setUpPreviewBuffers(Camera theCamera) {
+        Point cameraResolution = configManager.getCameraResolution();
+        Camera.Parameters parameters = theCamera.getParameters();
+        if (cameraResolution == null || parameters == null) {
+            Log.w(TAG, "Preview size unknown, falling back to one-shot preview callbacks");
+            return;
+        }
+        int bitsPerPixel = ImageFormat.getBitsPerPixel(parameters.getPreviewFormat());
+        if (bitsPerPixel <= 0) {
+            bitsPerPixel = ImageFormat.getBitsPerPixel(ImageFormat.NV21);
+        }
+        int bufferSize = cameraResolution.x * cameraResolution.y * bitsPerPixel / 8;
+        previewBuffers = new FrameBufferPool(previewBufferCount, bufferSize);
+        previewCallback.setBuffered(true);
+        theCamera.setPreviewCallbackWithBuffer(previewCallback);
+        queuePreviewBuffers(theCamera, previewBuffers);
+    }
+
+    private static void queuePreviewBuffers(Camera theCamera, FrameBufferPool pool) {
+        byte[] buffer;
+        while ((buffer = pool.acquire()) != null) {
+            theCamera.addCallbackBuffer(buffer);
+        }
+    }
+
     /**
      * Convenience method for
      *
@@ -191,7 +266,8 @@ public final class CameraManager {
     /**
      * A single preview frame will be returned to the handler supplied. The data will arrive as byte[]
      * in the message.obj field, with width and height encoded as message.arg1 and message.arg2,
-     * respectively.
+     * respectively. With a buffered preview the array is pooled and has to be given back through
+     * {@link #releasePreviewBuffer(byte[])}.
      *
      * @param handler The handler to send the message to.
      * @param message The what field of the message to be sent.
@@ -200,7 +276,9 @@ public final class CameraManager {
         OpenCamera theCamera = camera;
         if (theCamera != null && previewing) {
             previewCallback.setHandler(handler, message);
-            theCamera.getCamera().setOneShotPreviewCallback(previewCallback);
+            if (previewBuffers == null) {
+                theCamera.getCamera().setOneShotPreviewCallback(previewCallback);
+            }
         }
     }
 
@@ -222,8 +300,8 @@ public final class CameraManager {
                 return null;
             }
 
-            int width = findDesiredDimensionInRange(screenResolution.x, MIN_FRAME_WIDTH, MAX_FRAME_WIDTH);
-            int height = findDesiredDimensionInRange(screenResolution.y, MIN_FRAME_HEIGHT, MAX_FRAME_HEIGHT);
+            int width = FramingRects.width(screenResolution.x);
+            int height = FramingRects.height(screenResolution.y);
 
             int leftOffset = (screenResolution.x - width) / 2;
             int topOffset = (screenResolution.y - height) / 2;
@@ -233,17 +311,6 @@ public final class CameraManager {
         return framingRect;
     }
 
-    private static int findDesiredDimensionInRange(int resolution, int hardMin, int hardMax) {
-        int dim = 5 * resolution / 8; // Target 5/8 of each dimension
-        if (dim < hardMin) {
-            return hardMin;
-        }
-        if (dim > hardMax) {
-            return hardMax;
-        }
-        return dim;
-    }
-
     /**
      * Like {@link #getFramingRect} but coordinates are in terms of the preview frame,
      * not UI / screen.
@@ -0,0 +1,127 @@
+package com.nanchen.scanner.zxing.camera;
+
+/**
+ * A bounded ring of preallocated preview frame buffers. Buffers are handed out with
+ * {@link #acquire()} and must come back through {@link #release(byte[])} once the frame has been
+ * decoded, so a running preview recycles the same few arrays instead of producing a fresh
+ * {@code byte[]} per frame.
+ *
+ * <p>The pool does not depend on the camera, so the same buffers can be filled from recorded
+ * YUV frames (see {@link YuvFrameReader}) when decoding off-device.</p>
+ */
+public final class FrameBufferPool {
+
+    private final byte[][] buffers;
+    private final boolean[] inUse;
+    private final byte[][] ring;
+    private final int bufferSize;
+    private int head;
+    private int count;
+
+    /**
+     * @param capacity   number of buffers to preallocate
+     * @param bufferSize size in bytes of each buffer, usually one full YUV frame
+     */
+    public FrameBufferPool(int capacity, int bufferSize) {
+        if (capacity < 1 || bufferSize < 1) {
+            throw new IllegalArgumentException("Capacity and buffer size must be positive");
+        }
+        this.bufferSize = bufferSize;
+        buffers = new byte[capacity][];
+        inUse = new boolean[capacity];
+        ring = new byte[capacity][];
+        for (int i = 0; i < capacity; i++) {
+            buffers[i] = new byte[bufferSize];
+            ring[i] = buffers[i];
+        }
+        count = capacity;
+    }
+
+    public int getCapacity() {
+        return buffers.length;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * @return number of buffers currently free in the ring
+     */
+    public synchronized int available() {
+        return count;
+    }
+
+    /**
+     * @return a free buffer, or {@code null} if every buffer is currently handed out
+     */
+    public synchronized byte[] acquire() {
+        if (count == 0) {
+            return null;
+        }
+        byte[] buffer = ring[head];
+        ring[head] = null;
+        head = (head + 1) % ring.length;
+        count--;
+        inUse[indexOf(buffer)] = true;
+        return buffer;
+    }
+
+    /**
+     * Like {@link #acquire()}, but waits for a buffer to be released if none is free.
+     *
+     * @param timeoutMillis how long to wait at most, in milliseconds
+     * @return a free buffer, or {@code null} if none was released in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized byte[] acquire(long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        while (count == 0) {
+            long remainingMillis = (deadline - System.nanoTime()) / 1000000L;
+            if (remainingMillis <= 0L) {
+                return null;
+            }
+            wait(remainingMillis);
+        }
+        return acquire();
+    }
+
+    /**
+     * Returns a buffer to the ring. Buffers that were not allocated by this pool, or that are
+     * already free, are ignored.
+     *
+     * @param buffer buffer previously obtained from {@link #acquire()}
+     * @return {@code true} if the buffer was taken back
+     */
+    public synchronized boolean release(byte[] buffer) {
+        int index = indexOf(buffer);
+        if (index < 0 || !inUse[index]) {
+            return false;
+        }
+        inUse[index] = false;
+        ring[(head + count) % ring.length] = buffer;
+        count++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the buffer was allocated by this pool
+     */
+    public boolean owns(byte[] buffer) {
+        return indexOf(buffer) >= 0;
+    }
+
+    private int indexOf(byte[] buffer) {
+        if (buffer == null || buffer.length != bufferSize) {
+            return -1;
+        }
+        for (int i = 0; i < buffers.length; i++) {
+            if (buffers[i] == buffer) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+}
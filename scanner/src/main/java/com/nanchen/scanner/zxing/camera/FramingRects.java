@@ -0,0 +1,45 @@
+package com.nanchen.scanner.zxing.camera;
+
+/**
+ * Sizes the framing rectangle, the part of the screen and of each preview frame that is scanned.
+ * Kept free of Android types so the headless replay harness crops frames the same way as
+ * {@link CameraManager}.
+ */
+public final class FramingRects {
+
+    private static final int MIN_FRAME_WIDTH = 240;
+    private static final int MIN_FRAME_HEIGHT = 240;
+    private static final int MAX_FRAME_WIDTH = 1200; // = 5/8 * 1920
+    private static final int MAX_FRAME_HEIGHT = 675; // = 5/8 * 1080
+
+    private FramingRects() {
+    }
+
+    /**
+     * @param resolution width of the screen, or of the frame when there is no screen
+     * @return width of the framing rectangle
+     */
+    public static int width(int resolution) {
+        return findDesiredDimensionInRange(resolution, MIN_FRAME_WIDTH, MAX_FRAME_WIDTH);
+    }
+
+    /**
+     * @param resolution height of the screen, or of the frame when there is no screen
+     * @return height of the framing rectangle
+     */
+    public static int height(int resolution) {
+        return findDesiredDimensionInRange(resolution, MIN_FRAME_HEIGHT, MAX_FRAME_HEIGHT);
+    }
+
+    private static int findDesiredDimensionInRange(int resolution, int hardMin, int hardMax) {
+        int dim = 5 * resolution / 8; // Target 5/8 of each dimension
+        if (dim < hardMin) {
+            return hardMin;
+        }
+        if (dim > hardMax) {
+            return hardMax;
+        }
+        return dim;
+    }
+
+}
@@ -30,6 +30,7 @@ final class PreviewCallback implements Camera.PreviewCallback {
   private final CameraConfigurationManager configManager;
   private Handler previewHandler;
   private int previewMessage;
+  private boolean buffered;
 
   PreviewCallback(CameraConfigurationManager configManager) {
     this.configManager = configManager;
@@ -40,6 +41,14 @@ final class PreviewCallback implements Camera.PreviewCallback {
     this.previewMessage = previewMessage;
   }
 
+  /**
+   * In buffered mode the camera keeps delivering frames into the callback buffers, so frames that
+   * arrive while nobody asked for one are handed straight back to the camera.
+   */
+  void setBuffered(boolean buffered) {
+    this.buffered = buffered;
+  }
+
   @Override
   public void onPreviewFrame(byte[] data, Camera camera) {
     Point cameraResolution = configManager.getCameraResolution();
@@ -49,6 +58,8 @@ final class PreviewCallback implements Camera.PreviewCallback {
           cameraResolution.y, data);
       message.sendToTarget();
       previewHandler = null;
+    } else if (buffered) {
+      camera.addCallbackBuffer(data);
     } else {
       Log.d(TAG, "Got preview callback, but no handler or resolution available");
     }
@@ -0,0 +1,88 @@
+package com.nanchen.scanner.zxing.camera;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Reads recorded NV21 preview frames, stored back to back in a stream, into buffers taken from a
+ * {@link FrameBufferPool}. This gives the same pooled path as the buffered camera preview, so
+ * decoding can be exercised without a device. Every frame returned by {@link #nextFrame()} must be
+ * handed back to the pool once it has been decoded. Frames may be handed back from other threads,
+ * as by decode strategies that lost the race on a frame, and the reader waits for them.
+ */
+public final class YuvFrameReader implements Closeable {
+
+    /** How long {@link #nextFrame()} waits for a frame to be handed back before giving up. */
+    private static final long RELEASE_TIMEOUT_MS = 5000L;
+
+    private final InputStream in;
+    private final FrameBufferPool pool;
+    private final int width;
+    private final int height;
+    private final int frameSize;
+
+    public YuvFrameReader(InputStream in, int width, int height, FrameBufferPool pool) {
+        int frameSize = frameSize(width, height);
+        if (pool.getBufferSize() < frameSize) {
+            throw new IllegalArgumentException("Pool buffers are smaller than a " + width + "x" + height + " frame");
+        }
+        this.in = in;
+        this.pool = pool;
+        this.width = width;
+        this.height = height;
+        this.frameSize = frameSize;
+    }
+
+    /**
+     * @return size in bytes of one NV21 frame of the given dimensions
+     */
+    public static int frameSize(int width, int height) {
+        return width * height * 3 / 2;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return a pooled buffer holding the next frame, or {@code null} at the end of the stream
+     * @throws IOException           if the stream cannot be read, or if interrupted while
+     *                               waiting for a free buffer
+     * @throws IllegalStateException if no buffer of the pool was handed back in time
+     */
+    public byte[] nextFrame() throws IOException {
+        byte[] buffer;
+        try {
+            buffer = pool.acquire(RELEASE_TIMEOUT_MS);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a free frame buffer");
+        }
+        if (buffer == null) {
+            throw new IllegalStateException("No free frame buffer; release decoded frames first");
+        }
+        int read = 0;
+        while (read < frameSize) {
+            int n = in.read(buffer, read, frameSize - read);
+            if (n < 0) {
+                // A truncated trailing frame is treated as the end of the recording.
+                pool.release(buffer);
+                return null;
+            }
+            read += n;
+        }
+        return buffer;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.zxing.qrcode.decoder.Decoder;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares {@link AffineGridSampler} with {@link DefaultGridSampler} on QR Codes drawn through
+ * random rotations and perspective. Sampled through the transform they were drawn with, both give
+ * the same modules. Sampled through a transform off by up to 0.3 module at each corner, as from a
+ * detector, points land near module edges and the two round some of them differently; the tests
+ * bound how often that happens and how often it changes what the symbol decodes to.
+ */
+public final class AffineGridSamplerTest {
+
+  private static final int IMAGE_SIZE = 400;
+  private static final int SYMBOLS = 400;
+
+  @Test
+  public void exactTransformsSampleTheSameModules() throws WriterException {
+    Random random = new Random(1);
+    for (int symbol = 0; symbol < SYMBOLS / 4; symbol++) {
+      Drawing drawing = new Drawing(random, symbol);
+      BitMatrix affine = sample(new AffineGridSampler(), drawing.image, drawing.dimension, drawing.transform);
+      BitMatrix exact = sample(new DefaultGridSampler(), drawing.image, drawing.dimension, drawing.transform);
+      assertEquals("symbol " + symbol, exact, affine);
+    }
+  }
+
+  @Test
+  public void detectorErrorRarelyChangesTheResult() throws WriterException {
+    Random random = new Random(2);
+    int modules = 0;
+    int differing = 0;
+    int affineWrong = 0;
+    int defaultWrong = 0;
+    int symbols = 0;
+    int decodedDifferently = 0;
+    for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+      Drawing drawing = new Drawing(random, symbol);
+      PerspectiveTransform detected = drawing.detectedTransform(random);
+      BitMatrix affine = sample(new AffineGridSampler(), drawing.image, drawing.dimension, detected);
+      BitMatrix exact = sample(new DefaultGridSampler(), drawing.image, drawing.dimension, detected);
+      if (affine == null || exact == null) {
+        // Off the image, for both or neither, see the other test
+        assertEquals(exact, affine);
+        continue;
+      }
+      symbols++;
+      for (int y = 0; y < drawing.dimension; y++) {
+        for (int x = 0; x < drawing.dimension; x++) {
+          modules++;
+          boolean module = drawing.symbol.get(x, y);
+          if (affine.get(x, y) != exact.get(x, y)) {
+            differing++;
+          }
+          if (affine.get(x, y) != module) {
+            affineWrong++;
+          }
+          if (exact.get(x, y) != module) {
+            defaultWrong++;
+          }
+        }
+      }
+      String affineText = decode(affine);
+      String exactText = decode(exact);
+      if (affineText == null ? exactText != null : !affineText.equals(exactText)) {
+        decodedDifferently++;
+      }
+    }
+    assertTrue("only " + symbols + " symbols sampled", symbols > SYMBOLS * 3 / 4);
+    // About 1 in 10000 modules differs, and the affine sampler is not the one more often wrong
+    assertTrue(differing + " of " + modules + " modules differ", differing * 2000L < modules);
+    assertTrue(affineWrong + " modules wrong against " + defaultWrong,
+        affineWrong <= defaultWrong + defaultWrong / 10 + 5);
+    // About 1 in 400 symbols decodes differently, either way
+    assertTrue(decodedDifferently + " of " + symbols + " symbols decode differently",
+        decodedDifferently * 100 <= symbols);
+  }
+
+  private static BitMatrix sample(GridSampler sampler, BitMatrix image, int dimension,
+                                  PerspectiveTransform transform) {
+    try {
+      return sampler.sampleGrid(image, dimension, dimension, transform);
+    } catch (NotFoundException e) {
+      return null;
+    }
+  }
+
+  private static String decode(BitMatrix bits) {
+    try {
+      return new Decoder().decode(bits).getText();
+    } catch (Exception e) {
+      return null;
+    }
+  }
+
+  /**
+   * A QR Code drawn into an image through a random rotation and perspective, at 2.5 to 7.5 pixels
+   * per module.
+   */
+  private static final class Drawing {
+
+    final BitMatrix symbol;
+    final int dimension;
+    final BitMatrix image = new BitMatrix(IMAGE_SIZE, IMAGE_SIZE);
+    final float[] corners = new float[8];
+    final PerspectiveTransform transform;
+    final float moduleSize;
+
+    Drawing(Random random, int index) throws WriterException {
+      StringBuilder content = new StringBuilder("symbol ").append(index);
+      for (int i = random.nextInt(200); i > 0; i--) {
+        content.append((char) ('a' + random.nextInt(26)));
+      }
+      symbol = new QRCodeWriter().encode(content.toString(), BarcodeFormat.QR_CODE, 0, 0,
+          Collections.singletonMap(EncodeHintType.MARGIN, 0));
+      dimension = symbol.getWidth();
+      float size = Math.min(dimension * (2.5f + random.nextFloat() * 5.0f), IMAGE_SIZE * 0.9f);
+      moduleSize = size / dimension;
+      double angle = random.nextDouble() * 2.0 * Math.PI;
+      float perspective = random.nextFloat() * 0.15f;
+      float center = IMAGE_SIZE / 2.0f;
+      int[] signs = {-1, -1, 1, -1, 1, 1, -1, 1};
+      for (int i = 0; i < 4; i++) {
+        double x = signs[2 * i] * size / 2 + (random.nextFloat() - 0.5f) * perspective * size;
+        double y = signs[2 * i + 1] * size / 2 + (random.nextFloat() - 0.5f) * perspective * size;
+        corners[2 * i] = (float) (center + Math.cos(angle) * x - Math.sin(angle) * y);
+        corners[2 * i + 1] = (float) (center + Math.sin(angle) * x + Math.cos(angle) * y);
+      }
+      transform = toImage(corners);
+      PerspectiveTransform toModules = PerspectiveTransform.quadrilateralToQuadrilateral(
+          corners[0], corners[1], corners[2], corners[3], corners[4], corners[5], corners[6], corners[7],
+          0, 0, dimension, 0, dimension, dimension, 0, dimension);
+      float[] point = new float[2];
+      for (int y = 0; y < IMAGE_SIZE; y++) {
+        for (int x = 0; x < IMAGE_SIZE; x++) {
+          point[0] = x + 0.5f;
+          point[1] = y + 0.5f;
+          toModules.transformPoints(point);
+          int u = (int) Math.floor(point[0]);
+          int v = (int) Math.floor(point[1]);
+          if (u >= 0 && v >= 0 && u < dimension && v < dimension && symbol.get(u, v)) {
+            image.set(x, y);
+          }
+        }
+      }
+    }
+
+    /**
+     * @return the transform with each corner moved by up to 0.3 module
+     */
+    PerspectiveTransform detectedTransform(Random random) {
+      float[] detected = new float[8];
+      for (int i = 0; i < 8; i++) {
+        detected[i] = corners[i] + (random.nextFloat() - 0.5f) * 0.6f * moduleSize;
+      }
+      return toImage(detected);
+    }
+
+    private PerspectiveTransform toImage(float[] imageCorners) {
+      return PerspectiveTransform.quadrilateralToQuadrilateral(
+          0, 0, dimension, 0, dimension, dimension, 0, dimension,
+          imageCorners[0], imageCorners[1], imageCorners[2], imageCorners[3],
+          imageCorners[4], imageCorners[5], imageCorners[6], imageCorners[7]);
+    }
+  }
+}
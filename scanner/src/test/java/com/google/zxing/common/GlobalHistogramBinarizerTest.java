@@ -0,0 +1,237 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Compares the word at a time {@link GlobalHistogramBinarizer#getBlackMatrixOrNull()} with the
+ * matrix it used to build by copying the whole image and setting every pixel darker than the black
+ * point on its own. Widths around multiples of 32 exercise the partial last word, and every
+ * luminance from 0 to 255 occurs, so both sides of the sign bit of {@code pixel - blackPoint} do.
+ * Noisy images are thresholded without branches, smooth ones mostly with.
+ */
+public final class GlobalHistogramBinarizerTest {
+
+  private static final int LUMINANCE_SHIFT = 3;
+  private static final int LUMINANCE_BUCKETS = 32;
+  private static final int[] WIDTHS = {2, 5, 31, 32, 33, 63, 64, 65, 96, 100, 127, 129, 641};
+  private static final int[] HEIGHTS = {5, 7, 33, 48};
+
+  @Test
+  public void matricesMatchThePerPixelThreshold() {
+    Random random = new Random(1);
+    for (int width : WIDTHS) {
+      for (int height : HEIGHTS) {
+        LuminanceSource source = source(random, width, height, 0, 0, width, height);
+        assertSameMatrix(width + "x" + height, source, new GlobalHistogramBinarizer(source));
+      }
+    }
+  }
+
+  @Test
+  public void smoothMatricesMatchThePerPixelThreshold() {
+    Random random = new Random(4);
+    for (int width : WIDTHS) {
+      for (int height : HEIGHTS) {
+        LuminanceSource source = smoothSource(random, width, height);
+        assertSameMatrix(width + "x" + height, source, new GlobalHistogramBinarizer(source));
+      }
+    }
+  }
+
+  @Test
+  public void recycledBinarizersMatchAcrossWidths() {
+    Random random = new Random(2);
+    GlobalHistogramBinarizer previous = null;
+    for (int i = 0; i < 3 * WIDTHS.length; i++) {
+      // Widths out of order, so the row buffers are both grown and shrunk
+      int width = WIDTHS[i * 5 % WIDTHS.length];
+      int height = HEIGHTS[i % HEIGHTS.length];
+      LuminanceSource source = source(random, width, height, 0, 0, width, height);
+      GlobalHistogramBinarizer binarizer = new GlobalHistogramBinarizer(source, previous);
+      assertSameMatrix("frame " + i, source, binarizer);
+      previous = binarizer;
+    }
+  }
+
+  @Test
+  public void croppedSourcesMatch() {
+    Random random = new Random(3);
+    for (int width : WIDTHS) {
+      LuminanceSource source = source(random, width, 40, 7, 3, width + 20, 50);
+      assertSameMatrix("width " + width, source, new GlobalHistogramBinarizer(source));
+    }
+  }
+
+  @Test
+  public void flatImagesHaveNoMatrix() {
+    byte[] data = new byte[64 * 64];
+    LuminanceSource source = new PlanarYUVLuminanceSource(data, 64, 64, 0, 0, 64, 64, false);
+    assertNull(perPixelBlackMatrix(source));
+    assertNull(new GlobalHistogramBinarizer(source).getBlackMatrixOrNull());
+  }
+
+  private static void assertSameMatrix(String message, LuminanceSource source,
+                                       GlobalHistogramBinarizer binarizer) {
+    BitMatrix expected = perPixelBlackMatrix(source);
+    assertNotNull(message, expected);
+    assertEquals(message, expected, binarizer.getBlackMatrixOrNull());
+  }
+
+  /**
+   * A dark and a light half of labels, with one pixel in eight of any luminance at all, cropped
+   * from a frame of {@code dataWidth} by {@code dataHeight} at {@code left}, {@code top}.
+   */
+  private static LuminanceSource source(Random random, int width, int height, int left, int top,
+                                        int dataWidth, int dataHeight) {
+    byte[] data = new byte[dataWidth * dataHeight];
+    for (int i = 0; i < data.length; i++) {
+      int luminance;
+      if (random.nextInt(8) == 0) {
+        luminance = random.nextInt(256);
+      } else if (random.nextBoolean()) {
+        luminance = random.nextInt(64);
+      } else {
+        luminance = 160 + random.nextInt(96);
+      }
+      data[i] = (byte) luminance;
+    }
+    // The extremes, in the first and last pixel of the crop
+    data[top * dataWidth + left] = 0;
+    data[(top + height - 1) * dataWidth + left + width - 1] = (byte) 255;
+    return new PlanarYUVLuminanceSource(data, dataWidth, dataHeight, left, top, width, height, false);
+  }
+
+  /**
+   * Rows of light background crossed by one dark bar, with one pixel in 256 of any luminance, so
+   * that most rows have few edges between black and white.
+   */
+  private static LuminanceSource smoothSource(Random random, int width, int height) {
+    byte[] data = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int luminance;
+        if (random.nextInt(256) == 0) {
+          luminance = random.nextInt(256);
+        } else if (x >= width / 3 && x < width / 2) {
+          luminance = random.nextInt(64);
+        } else {
+          luminance = 160 + random.nextInt(96);
+        }
+        data[y * width + x] = (byte) luminance;
+      }
+    }
+    return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+  }
+
+  /**
+   * The black matrix as {@code GlobalHistogramBinarizer} built it before it thresholded whole
+   * words, or {@code null} where that threw for want of contrast.
+   */
+  private static BitMatrix perPixelBlackMatrix(LuminanceSource source) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    BitMatrix matrix = new BitMatrix(width, height);
+
+    int[] buckets = new int[LUMINANCE_BUCKETS];
+    byte[] luminances = new byte[width];
+    for (int y = 1; y < 5; y++) {
+      int row = height * y / 5;
+      byte[] localLuminances = source.getRow(row, luminances);
+      int right = (width * 4) / 5;
+      for (int x = width / 5; x < right; x++) {
+        int pixel = localLuminances[x] & 0xff;
+        buckets[pixel >> LUMINANCE_SHIFT]++;
+      }
+    }
+    int blackPoint = estimateBlackPoint(buckets);
+    if (blackPoint < 0) {
+      return null;
+    }
+
+    byte[] localLuminances = source.getMatrix();
+    for (int y = 0; y < height; y++) {
+      int offset = y * width;
+      for (int x = 0; x < width; x++) {
+        int pixel = localLuminances[offset + x] & 0xff;
+        if (pixel < blackPoint) {
+          matrix.set(x, y);
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private static int estimateBlackPoint(int[] buckets) {
+    int numBuckets = buckets.length;
+    int maxBucketCount = 0;
+    int firstPeak = 0;
+    int firstPeakSize = 0;
+    for (int x = 0; x < numBuckets; x++) {
+      if (buckets[x] > firstPeakSize) {
+        firstPeak = x;
+        firstPeakSize = buckets[x];
+      }
+      if (buckets[x] > maxBucketCount) {
+        maxBucketCount = buckets[x];
+      }
+    }
+
+    int secondPeak = 0;
+    int secondPeakScore = 0;
+    for (int x = 0; x < numBuckets; x++) {
+      int distanceToBiggest = x - firstPeak;
+      int score = buckets[x] * distanceToBiggest * distanceToBiggest;
+      if (score > secondPeakScore) {
+        secondPeak = x;
+        secondPeakScore = score;
+      }
+    }
+
+    if (firstPeak > secondPeak) {
+      int temp = firstPeak;
+      firstPeak = secondPeak;
+      secondPeak = temp;
+    }
+    if (secondPeak - firstPeak <= numBuckets / 16) {
+      return -1;
+    }
+
+    int bestValley = secondPeak - 1;
+    int bestValleyScore = -1;
+    for (int x = secondPeak - 1; x > firstPeak; x--) {
+      int fromFirst = x - firstPeak;
+      int score = fromFirst * fromFirst * (secondPeak - x) * (maxBucketCount - buckets[x]);
+      if (score > bestValleyScore) {
+        bestValley = x;
+        bestValleyScore = score;
+      }
+    }
+    return bestValley << LUMINANCE_SHIFT;
+  }
+
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.PlanarYUVLuminanceSource;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares {@link HybridBinarizer#getBlackMatrixOrNull()}, which sums the 5x5 block neighborhoods
+ * from a summed-area table and thresholds 8 pixels per mask, with the nested loops it replaced:
+ * 25 black points added up per block and every pixel set in the matrix on its own. Sizes that are
+ * not a multiple of the block size exercise the partial last block, which overlaps the one before.
+ */
+public final class HybridBinarizerTest {
+
+  private static final int BLOCK_SIZE_POWER = 3;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER;
+  private static final int BLOCK_SIZE_MASK = BLOCK_SIZE - 1;
+  private static final int MIN_DYNAMIC_RANGE = 24;
+  private static final int[] SIZES = {40, 41, 47, 48, 55, 64, 65, 100, 257};
+
+  @Test
+  public void noisyMatricesMatchTheNestedLoops() {
+    Random random = new Random(1);
+    for (int width : SIZES) {
+      for (int height : SIZES) {
+        LuminanceSource source = noisySource(random, width, height, 0, 0, width, height);
+        assertSameMatrix(width + "x" + height, source, new HybridBinarizer(source));
+      }
+    }
+  }
+
+  @Test
+  public void flatRegionsMatchTheNestedLoops() {
+    Random random = new Random(2);
+    for (int width : SIZES) {
+      for (int height : SIZES) {
+        LuminanceSource source = patchSource(random, width, height);
+        assertSameMatrix(width + "x" + height, source, new HybridBinarizer(source));
+      }
+    }
+  }
+
+  @Test
+  public void largeFramesMatchTheNestedLoops() {
+    Random random = new Random(3);
+    LuminanceSource noisy = noisySource(random, 641, 479, 0, 0, 641, 479);
+    assertSameMatrix("noisy", noisy, new HybridBinarizer(noisy));
+    LuminanceSource patches = patchSource(random, 641, 479);
+    assertSameMatrix("patches", patches, new HybridBinarizer(patches));
+  }
+
+  @Test
+  public void recycledBinarizersMatchAcrossSizes() {
+    Random random = new Random(4);
+    HybridBinarizer previous = null;
+    for (int i = 0; i < 3 * SIZES.length; i++) {
+      // Sizes out of order, so the buffers are both grown and reused for smaller frames
+      int width = SIZES[i * 4 % SIZES.length];
+      int height = SIZES[i * 7 % SIZES.length];
+      LuminanceSource source = i % 2 == 0 ? noisySource(random, width, height, 0, 0, width, height) :
+          patchSource(random, width, height);
+      HybridBinarizer binarizer = new HybridBinarizer(source, previous);
+      assertSameMatrix("frame " + i, source, binarizer);
+      previous = binarizer;
+    }
+  }
+
+  @Test
+  public void croppedSourcesMatch() {
+    Random random = new Random(5);
+    for (int size : SIZES) {
+      LuminanceSource source = noisySource(random, size, size + 3, 5, 9, size + 17, size + 20);
+      assertSameMatrix("size " + size, source, new HybridBinarizer(source));
+    }
+  }
+
+  private static void assertSameMatrix(String message, LuminanceSource source, HybridBinarizer binarizer) {
+    assertEquals(message, nestedLoopBlackMatrix(source), binarizer.getBlackMatrixOrNull());
+  }
+
+  /**
+   * Dark and light pixels with one in eight of any luminance, cropped from a frame of
+   * {@code dataWidth} by {@code dataHeight} at {@code left}, {@code top}.
+   */
+  private static LuminanceSource noisySource(Random random, int width, int height, int left, int top,
+                                             int dataWidth, int dataHeight) {
+    byte[] data = new byte[dataWidth * dataHeight];
+    for (int i = 0; i < data.length; i++) {
+      int luminance;
+      if (random.nextInt(8) == 0) {
+        luminance = random.nextInt(256);
+      } else if (random.nextBoolean()) {
+        luminance = random.nextInt(64);
+      } else {
+        luminance = 160 + random.nextInt(96);
+      }
+      data[i] = (byte) luminance;
+    }
+    return new PlanarYUVLuminanceSource(data, dataWidth, dataHeight, left, top, width, height, false);
+  }
+
+  /**
+   * Patches of nearly even luminance, from pure black to white, so that many blocks have too
+   * little contrast for their own average and take half their minimum or their neighbors' black
+   * point instead.
+   */
+  private static LuminanceSource patchSource(Random random, int width, int height) {
+    int patchSize = 4 + random.nextInt(20);
+    int patchesX = width / patchSize + 1;
+    int[] levels = new int[patchesX * (height / patchSize + 1)];
+    for (int i = 0; i < levels.length; i++) {
+      levels[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(256);
+    }
+    byte[] data = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int level = levels[(y / patchSize) * patchesX + x / patchSize];
+        data[y * width + x] = (byte) Math.max(0, Math.min(255, level + random.nextInt(9) - 4));
+      }
+    }
+    return new PlanarYUVLuminanceSource(data, width, height, 0, 0, width, height, false);
+  }
+
+  /**
+   * The black matrix as {@code HybridBinarizer} built it with a black point array per block row and
+   * a 5x5 loop per block.
+   */
+  private static BitMatrix nestedLoopBlackMatrix(LuminanceSource source) {
+    int width = source.getWidth();
+    int height = source.getHeight();
+    byte[] luminances = source.getMatrix();
+    int subWidth = width >> BLOCK_SIZE_POWER;
+    if ((width & BLOCK_SIZE_MASK) != 0) {
+      subWidth++;
+    }
+    int subHeight = height >> BLOCK_SIZE_POWER;
+    if ((height & BLOCK_SIZE_MASK) != 0) {
+      subHeight++;
+    }
+    int[][] blackPoints = calculateBlackPoints(luminances, subWidth, subHeight, width, height);
+    BitMatrix matrix = new BitMatrix(width, height);
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+      int top = cap(y, 2, subHeight - 3);
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+        int left = cap(x, 2, subWidth - 3);
+        int sum = 0;
+        for (int z = -2; z <= 2; z++) {
+          int[] blackRow = blackPoints[top + z];
+          sum += blackRow[left - 2] + blackRow[left - 1] + blackRow[left] + blackRow[left + 1] + blackRow[left + 2];
+        }
+        int threshold = sum / 25;
+        for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+          for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+            if ((luminances[offset + xx] & 0xFF) <= threshold) {
+              matrix.set(xoffset + xx, yoffset + yy);
+            }
+          }
+        }
+      }
+    }
+    return matrix;
+  }
+
+  private static int cap(int value, int min, int max) {
+    return value < min ? min : value > max ? max : value;
+  }
+
+  private static int[][] calculateBlackPoints(byte[] luminances, int subWidth, int subHeight, int width,
+                                              int height) {
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    int[][] blackPoints = new int[subHeight][subWidth];
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = Math.min(y << BLOCK_SIZE_POWER, maxYOffset);
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = Math.min(x << BLOCK_SIZE_POWER, maxXOffset);
+        int sum = 0;
+        int min = 0xFF;
+        int max = 0;
+        for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+          for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+            int pixel = luminances[offset + xx] & 0xFF;
+            sum += pixel;
+            if (pixel < min) {
+              min = pixel;
+            }
+            if (pixel > max) {
+              max = pixel;
+            }
+          }
+          if (max - min > MIN_DYNAMIC_RANGE) {
+            for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
+              for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                sum += luminances[offset + xx] & 0xFF;
+              }
+            }
+          }
+        }
+
+        int average = sum >> (BLOCK_SIZE_POWER * 2);
+        if (max - min <= MIN_DYNAMIC_RANGE) {
+          average = min / 2;
+          if (y > 0 && x > 0) {
+            int averageNeighborBlackPoint =
+                (blackPoints[y - 1][x] + (2 * blackPoints[y][x - 1]) + blackPoints[y - 1][x - 1]) / 4;
+            if (min < averageNeighborBlackPoint) {
+              average = averageNeighborBlackPoint;
+            }
+          }
+        }
+        blackPoints[y][x] = average;
+      }
+    }
+    return blackPoints;
+  }
+
+}
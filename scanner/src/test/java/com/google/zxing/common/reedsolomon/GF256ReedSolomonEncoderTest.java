@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks {@link GF256ReedSolomonEncoder} against published error correction codewords and
+ * against {@link PolynomialEncoder}, the {@link GenericGFPoly} division {@link ReedSolomonEncoder}
+ * did before it handed the 8-bit fields to the table.
+ */
+public final class GF256ReedSolomonEncoderTest {
+
+  private static final GenericGF[] FIELDS = {
+      GenericGF.QR_CODE_FIELD_256,
+      GenericGF.DATA_MATRIX_FIELD_256,
+  };
+  private static final int TRIALS = 500;
+
+  @Test
+  public void qrCodeExample() {
+    // ISO/IEC 18004, version 1-M, "01234567"
+    int[] block = {
+        0x10, 0x20, 0x0C, 0x56, 0x61, 0x80, 0xEC, 0x11, 0xEC, 0x11, 0xEC, 0x11, 0xEC, 0x11, 0xEC, 0x11,
+        0xA5, 0x24, 0xD4, 0xC1, 0xED, 0x36, 0xC7, 0x87, 0x2C, 0x55,
+    };
+    assertEncodes(GenericGF.QR_CODE_FIELD_256, block, 10);
+  }
+
+  @Test
+  public void dataMatrixExample() {
+    // ISO/IEC 16022, "123456"
+    int[] block = {142, 164, 186, 114, 25, 5, 88, 102};
+    assertEncodes(GenericGF.DATA_MATRIX_FIELD_256, block, 5);
+  }
+
+  @Test
+  public void matchesPolynomialDivision() {
+    Random random = new Random(12);
+    for (GenericGF field : FIELDS) {
+      GF256ReedSolomonEncoder encoder = GF256ReedSolomonEncoder.forField(field);
+      PolynomialEncoder reference = new PolynomialEncoder(field);
+      for (int trial = 0; trial < TRIALS; trial++) {
+        int length = 2 + random.nextInt(254);
+        int ecBytes = 1 + random.nextInt(Math.min(length - 1, 68));
+        int[] expected = new int[length];
+        // Some blocks of zeros only, and of 255 only
+        int kind = random.nextInt(10);
+        for (int i = 0; i < length - ecBytes; i++) {
+          expected[i] = kind == 0 ? 0 : kind == 1 ? 255 : random.nextInt(256);
+        }
+        int[] actual = expected.clone();
+        // Whatever the error correction codewords held before is overwritten
+        for (int i = length - ecBytes; i < length; i++) {
+          actual[i] = random.nextInt(256);
+        }
+        reference.encode(expected, ecBytes);
+        encoder.encode(actual, ecBytes);
+        String message = field + ", " + length + " codewords, " + ecBytes + " for error correction";
+        assertArrayEquals(message, expected, actual);
+
+        byte[] dataBytes = new byte[length - ecBytes];
+        for (int i = 0; i < dataBytes.length; i++) {
+          dataBytes[i] = (byte) expected[i];
+        }
+        byte[] ecBytesOut = new byte[ecBytes];
+        Arrays.fill(ecBytesOut, (byte) 0x5A);
+        encoder.encode(dataBytes, ecBytesOut);
+        for (int i = 0; i < ecBytes; i++) {
+          actual[length - ecBytes + i] = ecBytesOut[i] & 0xFF;
+        }
+        assertArrayEquals(message + ", as bytes", expected, actual);
+      }
+    }
+  }
+
+  private static void assertEncodes(GenericGF field, int[] block, int ecBytes) {
+    int[] actual = Arrays.copyOf(block, block.length);
+    Arrays.fill(actual, block.length - ecBytes, block.length, 0);
+    GF256ReedSolomonEncoder.forField(field).encode(actual, ecBytes);
+    assertArrayEquals(block, actual);
+    int[] expected = Arrays.copyOf(block, block.length);
+    new PolynomialEncoder(field).encode(expected, ecBytes);
+    assertArrayEquals(block, expected);
+  }
+
+  /**
+   * The encoder as it was on {@link GenericGFPoly}.
+   */
+  private static final class PolynomialEncoder {
+
+    private final GenericGF field;
+
+    PolynomialEncoder(GenericGF field) {
+      this.field = field;
+    }
+
+    void encode(int[] toEncode, int ecBytes) {
+      GenericGFPoly generator = new GenericGFPoly(field, new int[] {1});
+      for (int d = 0; d < ecBytes; d++) {
+        generator = generator.multiply(
+            new GenericGFPoly(field, new int[] {1, field.exp(d + field.getGeneratorBase())}));
+      }
+      int dataBytes = toEncode.length - ecBytes;
+      int[] infoCoefficients = new int[dataBytes];
+      System.arraycopy(toEncode, 0, infoCoefficients, 0, dataBytes);
+      GenericGFPoly info = new GenericGFPoly(field, infoCoefficients);
+      info = info.multiplyByMonomial(ecBytes, 1);
+      GenericGFPoly remainder = info.divide(generator)[1];
+      int[] coefficients = remainder.getCoefficients();
+      int numZeroCoefficients = ecBytes - coefficients.length;
+      for (int i = 0; i < numZeroCoefficients; i++) {
+        toEncode[dataBytes + i] = 0;
+      }
+      System.arraycopy(coefficients, 0, toEncode, dataBytes + numZeroCoefficients, coefficients.length);
+    }
+  }
+
+}
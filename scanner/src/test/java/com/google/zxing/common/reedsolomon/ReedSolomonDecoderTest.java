@@ -0,0 +1,300 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.common.reedsolomon;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Round trips through {@link ReedSolomonEncoder} and {@link ReedSolomonDecoder}, with errors up to
+ * and beyond what the error-correction codewords can correct, checked against
+ * {@link EuclideanDecoder}, the Euclidean decoder the Berlekamp-Massey one replaced.
+ */
+public final class ReedSolomonDecoderTest {
+
+  private static final GenericGF[] FIELDS = {
+      GenericGF.QR_CODE_FIELD_256,
+      GenericGF.DATA_MATRIX_FIELD_256,
+      GenericGF.AZTEC_DATA_6,
+      GenericGF.AZTEC_DATA_10,
+      GenericGF.AZTEC_DATA_12,
+      GenericGF.AZTEC_PARAM,
+  };
+  private static final int TRIALS = 200;
+
+  @Test
+  public void correctsUpToHalfTheErrorCorrectionCodewords() throws ReedSolomonException {
+    Random random = new Random(0xC0DE);
+    for (GenericGF field : FIELDS) {
+      ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+      for (int trial = 0; trial < TRIALS; trial++) {
+        int[] sent = randomCodeword(field, random);
+        int twoS = sent[sent.length - 1];
+        sent = Arrays.copyOf(sent, sent.length - 1);
+        int[] received = sent.clone();
+        corrupt(received, random.nextInt(twoS / 2 + 1), field, random);
+        decoder.decode(received, twoS);
+        assertArrayEquals(field + ", " + twoS + " error-correction codewords", sent, received);
+      }
+    }
+  }
+
+  @Test
+  public void beyondHalfTheErrorCorrectionCodewordsAgreesWithEuclideanDecoder() {
+    Random random = new Random(0xBEEF);
+    int failures = 0;
+    for (GenericGF field : FIELDS) {
+      ReedSolomonDecoder decoder = new ReedSolomonDecoder(field);
+      EuclideanDecoder reference = new EuclideanDecoder(field);
+      for (int trial = 0; trial < TRIALS; trial++) {
+        int[] sent = randomCodeword(field, random);
+        int twoS = sent[sent.length - 1];
+        sent = Arrays.copyOf(sent, sent.length - 1);
+        int[] received = sent.clone();
+        int errors = twoS / 2 + 1 + random.nextInt(twoS - twoS / 2);
+        corrupt(received, Math.min(errors, received.length), field, random);
+
+        int[] expected = received.clone();
+        if (!reference.decode(expected, twoS)
+            || !isCodeword(field, expected, twoS)
+            || 2 * changed(received, expected) > twoS) {
+          // The Euclidean decoder could also return a block it had not corrected, when the first
+          // syndrome was zero, or, with an odd number of error-correction codewords, settle on a
+          // codeword one change too far, which need not be the only one that close
+          expected = null;
+        }
+        int[] actual = received.clone();
+        try {
+          decoder.decode(actual, twoS);
+        } catch (ReedSolomonException e) {
+          actual = null;
+          failures++;
+        }
+        String message = field + ", " + twoS + " error-correction codewords, " + errors + " errors";
+        if (expected == null) {
+          assertEquals(message, null, actual);
+        } else {
+          // Close enough to another codeword, which both decoders settle on
+          assertArrayEquals(message, expected, actual);
+        }
+      }
+    }
+    if (failures == 0) {
+      fail("No block was beyond correction");
+    }
+  }
+
+  @Test
+  public void locatorWithoutRootIsRejected() {
+    // x + alpha is zero at alpha but not at 1, the roots of the QR Code generator for two
+    // error-correction codewords, so it has syndromes (3, 0) and a locator of degree one whose
+    // coefficient is zero
+    int[] received = {0, 0, 0, 0, 0, 0, 1, 2};
+    try {
+      new ReedSolomonDecoder(GenericGF.QR_CODE_FIELD_256).decode(received, 2);
+      fail("Decoded " + Arrays.toString(received));
+    } catch (ReedSolomonException e) {
+      // good
+    }
+  }
+
+  /**
+   * @return data and error-correction codewords of a random block, followed by the number of
+   *  error-correction codewords
+   */
+  private static int[] randomCodeword(GenericGF field, Random random) {
+    int maxLength = Math.min(field.getSize() - 1, 255);
+    int length = 4 + random.nextInt(maxLength - 3);
+    int twoS = 2 + random.nextInt(Math.min(length - 2, 64) - 1);
+    int[] block = new int[length + 1];
+    for (int i = 0; i < length - twoS; i++) {
+      block[i] = random.nextInt(field.getSize());
+    }
+    int[] codeword = Arrays.copyOf(block, length);
+    new ReedSolomonEncoder(field).encode(codeword, twoS);
+    System.arraycopy(codeword, 0, block, 0, length);
+    block[length] = twoS;
+    return block;
+  }
+
+  private static boolean isCodeword(GenericGF field, int[] codewords, int twoS) {
+    GenericGFPoly poly = new GenericGFPoly(field, codewords);
+    for (int i = 0; i < twoS; i++) {
+      if (poly.evaluateAt(field.exp(i + field.getGeneratorBase())) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int changed(int[] before, int[] after) {
+    int changed = 0;
+    for (int i = 0; i < before.length; i++) {
+      if (before[i] != after[i]) {
+        changed++;
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Changes {@code errors} distinct codewords, each to some other value.
+   */
+  private static void corrupt(int[] codewords, int errors, GenericGF field, Random random) {
+    boolean[] changed = new boolean[codewords.length];
+    for (int i = 0; i < errors; i++) {
+      int position;
+      do {
+        position = random.nextInt(codewords.length);
+      } while (changed[position]);
+      changed[position] = true;
+      codewords[position] ^= 1 + random.nextInt(field.getSize() - 1);
+    }
+  }
+
+  /**
+   * The Euclidean decoder as it was before the Berlekamp-Massey one, on {@link GenericGFPoly}.
+   */
+  private static final class EuclideanDecoder {
+
+    private final GenericGF field;
+
+    EuclideanDecoder(GenericGF field) {
+      this.field = field;
+    }
+
+    /**
+     * @return false where the old decoder failed, also with the exceptions it threw by mistake
+     */
+    boolean decode(int[] received, int twoS) {
+      try {
+        decodeOrThrow(received, twoS);
+        return true;
+      } catch (ReedSolomonException e) {
+        return false;
+      } catch (IllegalArgumentException e) {
+        // The logarithm of zero, for a locator of degree one without a root
+        return false;
+      }
+    }
+
+    private void decodeOrThrow(int[] received, int twoS) throws ReedSolomonException {
+      GenericGFPoly poly = new GenericGFPoly(field, received);
+      int[] syndromeCoefficients = new int[twoS];
+      boolean noError = true;
+      for (int i = 0; i < twoS; i++) {
+        int eval = poly.evaluateAt(field.exp(i + field.getGeneratorBase()));
+        syndromeCoefficients[syndromeCoefficients.length - 1 - i] = eval;
+        if (eval != 0) {
+          noError = false;
+        }
+      }
+      if (noError) {
+        return;
+      }
+      GenericGFPoly syndrome = new GenericGFPoly(field, syndromeCoefficients);
+      GenericGFPoly[] sigmaOmega = runEuclideanAlgorithm(field.buildMonomial(twoS, 1), syndrome, twoS);
+      int[] errorLocations = findErrorLocations(sigmaOmega[0]);
+      int[] errorMagnitudes = findErrorMagnitudes(sigmaOmega[1], errorLocations);
+      for (int i = 0; i < errorLocations.length; i++) {
+        int position = received.length - 1 - field.log(errorLocations[i]);
+        if (position < 0) {
+          throw new ReedSolomonException("Bad error location");
+        }
+        received[position] = GenericGF.addOrSubtract(received[position], errorMagnitudes[i]);
+      }
+    }
+
+    private GenericGFPoly[] runEuclideanAlgorithm(GenericGFPoly a, GenericGFPoly b, int R)
+        throws ReedSolomonException {
+      GenericGFPoly rLast = a;
+      GenericGFPoly r = b;
+      GenericGFPoly tLast = field.getZero();
+      GenericGFPoly t = field.getOne();
+      while (r.getDegree() >= R / 2) {
+        GenericGFPoly rLastLast = rLast;
+        GenericGFPoly tLastLast = tLast;
+        rLast = r;
+        tLast = t;
+        if (rLast.isZero()) {
+          throw new ReedSolomonException("r_{i-1} was zero");
+        }
+        r = rLastLast;
+        GenericGFPoly q = field.getZero();
+        int dltInverse = field.inverse(rLast.getCoefficient(rLast.getDegree()));
+        while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
+          int degreeDiff = r.getDegree() - rLast.getDegree();
+          int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
+          q = q.addOrSubtract(field.buildMonomial(degreeDiff, scale));
+          r = r.addOrSubtract(rLast.multiplyByMonomial(degreeDiff, scale));
+        }
+        t = q.multiply(tLast).addOrSubtract(tLastLast);
+      }
+      int sigmaTildeAtZero = t.getCoefficient(0);
+      if (sigmaTildeAtZero == 0) {
+        throw new ReedSolomonException("sigmaTilde(0) was zero");
+      }
+      int inverse = field.inverse(sigmaTildeAtZero);
+      return new GenericGFPoly[] {t.multiply(inverse), r.multiply(inverse)};
+    }
+
+    private int[] findErrorLocations(GenericGFPoly errorLocator) throws ReedSolomonException {
+      int numErrors = errorLocator.getDegree();
+      if (numErrors == 1) {
+        return new int[] {errorLocator.getCoefficient(1)};
+      }
+      int[] result = new int[numErrors];
+      int e = 0;
+      for (int i = 1; i < field.getSize() && e < numErrors; i++) {
+        if (errorLocator.evaluateAt(i) == 0) {
+          result[e] = field.inverse(i);
+          e++;
+        }
+      }
+      if (e != numErrors) {
+        throw new ReedSolomonException("Error locator degree does not match number of roots");
+      }
+      return result;
+    }
+
+    private int[] findErrorMagnitudes(GenericGFPoly errorEvaluator, int[] errorLocations) {
+      int s = errorLocations.length;
+      int[] result = new int[s];
+      for (int i = 0; i < s; i++) {
+        int xiInverse = field.inverse(errorLocations[i]);
+        int denominator = 1;
+        for (int j = 0; j < s; j++) {
+          if (i != j) {
+            int term = field.multiply(errorLocations[j], xiInverse);
+            denominator = field.multiply(denominator, GenericGF.addOrSubtract(1, term));
+          }
+        }
+        result[i] = field.multiply(errorEvaluator.evaluateAt(xiInverse), field.inverse(denominator));
+        if (field.getGeneratorBase() != 0) {
+          result[i] = field.multiply(result[i], xiInverse);
+        }
+      }
+      return result;
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class DistinctResultsTest {
+
+  @Test
+  public void labelReadAlongAnotherRowIsTheSameBarcode() {
+    DistinctResults results = new DistinctResults();
+    assertTrue(results.add(linear("LABEL", 10, 50)));
+    assertFalse(results.add(linear("LABEL", 12, 70)));
+    assertEquals(1, results.size());
+  }
+
+  @Test
+  public void identicalLabelsAtDifferentPlacesAreBothKept() {
+    DistinctResults results = new DistinctResults();
+    assertTrue(results.add(linear("LABEL", 10, 50)));
+    assertTrue(results.add(linear("LABEL", 300, 50)));
+    assertTrue(results.add(linear("LABEL", 10, 250)));
+    assertFalse(results.add(linear("LABEL", 302, 55)));
+    Result[] distinct = results.toArray();
+    assertEquals(3, distinct.length);
+    assertEquals(10.0f, distinct[0].getResultPoints()[0].getX(), 0.0f);
+    assertEquals(300.0f, distinct[1].getResultPoints()[0].getX(), 0.0f);
+    assertEquals(250.0f, distinct[2].getResultPoints()[0].getY(), 0.0f);
+  }
+
+  @Test
+  public void otherTextOrFormatAtTheSamePlaceIsKept() {
+    DistinctResults results = new DistinctResults();
+    assertTrue(results.add(linear("LABEL", 10, 50)));
+    assertTrue(results.add(linear("OTHER", 10, 50)));
+    assertTrue(results.add(new Result("LABEL", null,
+        new ResultPoint[] {new ResultPoint(10, 50), new ResultPoint(110, 50)}, BarcodeFormat.CODE_39)));
+    assertEquals(3, results.size());
+  }
+
+  @Test
+  public void resultsWithoutPointsAreToldApartByTextAlone() {
+    DistinctResults results = new DistinctResults();
+    assertTrue(results.add(new Result("LABEL", null, null, BarcodeFormat.CODE_128)));
+    assertFalse(results.add(linear("LABEL", 300, 50)));
+    assertTrue(results.add(new Result("OTHER", null, new ResultPoint[0], BarcodeFormat.CODE_128)));
+    assertFalse(results.add(new Result("OTHER", null, null, BarcodeFormat.CODE_128)));
+    assertEquals(2, results.size());
+  }
+
+  /**
+   * @return a linear barcode 100 pixels wide, read along a row from {@code (x, y)}
+   */
+  private static Result linear(String text, float x, float y) {
+    ResultPoint[] points = {new ResultPoint(x, y), new ResultPoint(x + 100, y)};
+    return new Result(text, null, points, BarcodeFormat.CODE_128);
+  }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.multi;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Reader;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public final class ParallelMultipleBarcodeReaderTest {
+
+  private static final int WIDTH = 400;
+  private static final int HEIGHT = 100;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void failingPartDoesNotLoseTheOthers() throws NotFoundException {
+    ParallelMultipleBarcodeReader reader = new ParallelMultipleBarcodeReader(
+        new ParallelMultipleBarcodeReader.ReaderFactory() {
+          @Override
+          public Reader newReader() {
+            return new PartReader();
+          }
+        }, executor);
+    Result[] results = reader.decodeMultiple(image());
+    assertEquals(2, results.length);
+    assertEquals("middle", results[0].getText());
+    assertEquals("right", results[1].getText());
+    // In the coordinates of the whole image
+    assertEquals(280.0f, results[1].getResultPoints()[0].getX(), 0.0f);
+  }
+
+  @Test
+  public void failingPartDoesNotLoseTheOthersWhenDecodedOnTheCallingThread() throws NotFoundException {
+    executor.shutdown();
+    ParallelMultipleBarcodeReader reader = new ParallelMultipleBarcodeReader(
+        new ParallelMultipleBarcodeReader.ReaderFactory() {
+          @Override
+          public Reader newReader() {
+            return new PartReader();
+          }
+        }, executor);
+    assertEquals(2, reader.decodeMultiple(image()).length);
+  }
+
+  private static BinaryBitmap image() {
+    byte[] pixels = new byte[WIDTH * HEIGHT];
+    return new BinaryBitmap(new GlobalHistogramBinarizer(
+        new PlanarYUVLuminanceSource(pixels, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false)));
+  }
+
+  /**
+   * Finds a barcode in the middle of the whole image and one in the part right of it, and fails
+   * on the part left of it.
+   */
+  private static final class PartReader implements Reader {
+
+    @Override
+    public Result decode(BinaryBitmap image) throws NotFoundException {
+      return decode(image, null);
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image, Map<DecodeHintType,?> hints) throws NotFoundException {
+      switch (image.getWidth()) {
+        case WIDTH:
+          return found("middle", 150, 230);
+        case 150:
+          throw new IllegalStateException("bad part");
+        case WIDTH - 230:
+          return found("right", 50, 70);
+        default:
+          throw NotFoundException.getNotFoundInstance();
+      }
+    }
+
+    @Override
+    public void reset() {
+    }
+
+    private static Result found(String text, float left, float right) {
+      ResultPoint[] points = {new ResultPoint(left, HEIGHT / 2), new ResultPoint(right, HEIGHT / 2)};
+      return new Result(text, null, points, BarcodeFormat.CODE_128);
+    }
+  }
+
+}
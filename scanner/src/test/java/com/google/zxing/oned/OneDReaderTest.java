@@ -0,0 +1,227 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scanning rows in bands on an executor, which only happens on more than one core.
+ */
+public final class OneDReaderTest {
+
+  private static final String BAND_THREAD = "band";
+  private static final int WIDTH = 200;
+  private static final int HEIGHT = 300;
+
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final CountDownLatch blocked = new CountDownLatch(1);
+  private final AtomicInteger rowsAfterInterrupt = new AtomicInteger();
+  private ExecutorService executor;
+
+  @After
+  public void tearDown() {
+    release.countDown();
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void busyExecutorDoesNotHoldUpTheScan() throws InterruptedException {
+    executor = Executors.newFixedThreadPool(1, new BandThreads());
+    final CountDownLatch busy = new CountDownLatch(1);
+    executor.execute(new Runnable() {
+      @Override
+      public void run() {
+        busy.countDown();
+        awaitRelease();
+      }
+    });
+    assertTrue(busy.await(10, TimeUnit.SECONDS));
+
+    Scan scan = new Scan(new FakeReader(Behaviour.NOT_FOUND));
+    scan.start();
+    scan.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse("scan waited for the busy executor", scan.isAlive());
+    assertNull(scan.result.get());
+  }
+
+  @Test
+  public void interruptEndsTheScanWithTheFlagSet() throws InterruptedException {
+    if (!parallel()) {
+      return;
+    }
+    executor = Executors.newFixedThreadPool(2, new BandThreads());
+    Scan scan = new Scan(new FakeReader(Behaviour.BLOCK_ON_EXECUTOR));
+    scan.start();
+    assertTrue(blocked.await(10, TimeUnit.SECONDS));
+    scan.interrupt();
+    scan.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse("interrupted scan went on", scan.isAlive());
+    assertNull(scan.result.get());
+    assertTrue("interrupt was swallowed", scan.interrupted.get());
+    // At most the row being decoded when the interrupt came, read the other way
+    assertTrue(rowsAfterInterrupt.get() + " rows decoded after the interrupt", rowsAfterInterrupt.get() <= 1);
+  }
+
+  @Test
+  public void runtimeExceptionIsRethrownAsIs() throws InterruptedException {
+    if (!parallel()) {
+      return;
+    }
+    executor = Executors.newFixedThreadPool(2, new BandThreads());
+    Scan scan = new Scan(new FakeReader(Behaviour.THROW_ON_EXECUTOR));
+    scan.start();
+    scan.join(TimeUnit.SECONDS.toMillis(10));
+    assertFalse(scan.isAlive());
+    assertEquals(IllegalArgumentException.class, scan.failure.get().getClass());
+  }
+
+  private static boolean parallel() {
+    // A single core scans on the calling thread only
+    return Runtime.getRuntime().availableProcessors() > 1;
+  }
+
+  private void awaitRelease() {
+    boolean done = false;
+    while (!done) {
+      try {
+        done = release.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        done = true;
+      }
+    }
+  }
+
+  private static BinaryBitmap noise() {
+    byte[] pixels = new byte[WIDTH * HEIGHT];
+    new Random(3).nextBytes(pixels);
+    return new BinaryBitmap(new GlobalHistogramBinarizer(
+        new PlanarYUVLuminanceSource(pixels, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false)));
+  }
+
+  private enum Behaviour {
+    NOT_FOUND,
+    BLOCK_ON_EXECUTOR,
+    THROW_ON_EXECUTOR,
+  }
+
+  /**
+   * Finds nothing, and behaves as told on the threads of the executor.
+   */
+  private final class FakeReader extends OneDReader {
+
+    private final Behaviour behaviour;
+
+    FakeReader(final Behaviour behaviour) {
+      this.behaviour = behaviour;
+      setRowScanExecutor(executor, new ReaderFactory() {
+        @Override
+        public OneDReader newReader() {
+          return new FakeReader(behaviour);
+        }
+      });
+    }
+
+    @Override
+    public Result decodeRow(int rowNumber, BitArray row, Map<DecodeHintType,?> hints)
+        throws NotFoundException {
+      if (Thread.currentThread().getName().startsWith(BAND_THREAD)) {
+        if (behaviour == Behaviour.BLOCK_ON_EXECUTOR) {
+          blocked.countDown();
+          awaitRelease();
+        } else if (behaviour == Behaviour.THROW_ON_EXECUTOR) {
+          throw new IllegalArgumentException("bad row");
+        }
+      } else {
+        if (Thread.currentThread().isInterrupted()) {
+          rowsAfterInterrupt.incrementAndGet();
+        }
+        // Slow enough for the executor to start on some bands
+        try {
+          Thread.sleep(1);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      throw NotFoundException.getNotFoundInstance();
+    }
+  }
+
+  private static final class Scan extends Thread {
+
+    private final OneDReader reader;
+    final AtomicReference<Result> result = new AtomicReference<>();
+    final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+    final AtomicBoolean interrupted = new AtomicBoolean();
+
+    Scan(OneDReader reader) {
+      this.reader = reader;
+      // A scan stuck waiting must not keep the tests from ending
+      setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+      try {
+        result.set(reader.decodeOrNull(noise(),
+            Collections.singletonMap(DecodeHintType.TRY_HARDER, Boolean.TRUE)));
+      } catch (RuntimeException e) {
+        failure.set(e);
+      }
+      interrupted.set(Thread.currentThread().isInterrupted());
+    }
+  }
+
+  private static final class BandThreads implements ThreadFactory {
+
+    private int count;
+
+    @Override
+    public synchronized Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, BAND_THREAD + "-" + count++);
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+}
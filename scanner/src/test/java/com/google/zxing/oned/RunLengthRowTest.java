@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.oned;
+
+import com.google.zxing.NotFoundException;
+import com.google.zxing.ReaderException;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.common.BitArray;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link RunLengthRow} against the bits it was taken from, and the 1D readers that look for
+ * their start patterns in it against what they read from the bits of the same rows before.
+ */
+public final class RunLengthRowTest {
+
+  private static final int ROWS = 400;
+  /**
+   * MD5 of the outcomes of {@link #readersFindWhatTheyFoundInTheBits()}, as the readers gave them
+   * from {@code decodeRow} before they read runs, the reversed ones on a reversed copy of the row.
+   */
+  private static final String BASELINE_OUTCOMES = "69e890057564e2f3376d7b082f185cfa";
+
+  @Test
+  public void runsMatchTheBits() {
+    Random random = new Random(21);
+    int[] sizes = {1, 2, 31, 32, 33, 64, 65, 640};
+    for (int trial = 0; trial < ROWS; trial++) {
+      int size = trial < sizes.length ? sizes[trial] : 1 + random.nextInt(700);
+      BitArray row = randomRow(random, size);
+      RunLengthRow runs = new RunLengthRow(row.clone());
+      assertRunsMatch("row " + trial, row, runs);
+
+      BitArray reversedRow = row.clone();
+      reversedRow.reverse();
+      runs.reverse();
+      assertTrue(runs.isReversed());
+      assertRunsMatch("reversed row " + trial, reversedRow, runs);
+      assertEquals("reversed row " + trial, reversedRow, runs.getRow());
+      runs.reverse();
+      assertEquals("row " + trial, row, runs.getRow());
+    }
+  }
+
+  @Test
+  public void reusedForLongerAndShorterRows() {
+    Random random = new Random(22);
+    RunLengthRow runs = new RunLengthRow();
+    for (int trial = 0; trial < ROWS; trial++) {
+      BitArray row = randomRow(random, 1 + random.nextInt(trial % 2 == 0 ? 40 : 2000));
+      runs.setRow(row.clone());
+      assertRunsMatch("row " + trial, row, runs);
+    }
+  }
+
+  @Test
+  public void readersFindWhatTheyFoundInTheBits() throws NoSuchAlgorithmException {
+    StringBuilder outcomes = new StringBuilder();
+    int found = 0;
+    for (BitArray row : rows(new Random(2101))) {
+      for (OneDReader reader : readers()) {
+        RunLengthRow runs = new RunLengthRow(row.clone());
+        String forward = outcome(reader, runs);
+        runs.reverse();
+        String reversed = outcome(reader, runs);
+        outcomes.append(forward).append('\n').append(reversed).append('\n');
+        found += (forward.startsWith("+") ? 1 : 0) + (reversed.startsWith("+") ? 1 : 0);
+      }
+    }
+    // Enough rendered symbols are found for the digest to tell a difference
+    assertTrue(found + " found", found > ROWS / 4);
+    assertEquals(BASELINE_OUTCOMES, md5(outcomes.toString()));
+  }
+
+  private static void assertRunsMatch(String message, BitArray row, RunLengthRow runs) {
+    int size = row.getSize();
+    assertEquals(message, size, runs.getSize());
+    int count = runs.getRunCount();
+    assertEquals(message, 1, count % 2);
+    int x = 0;
+    for (int i = 0; i < count; i++) {
+      assertEquals(message + ", run " + i, x, runs.getRunStart(i));
+      int width = runs.getRun(i);
+      boolean black = i % 2 == 1;
+      // Only the first and last runs may be empty
+      assertTrue(message + ", run " + i, width > 0 || i == 0 || i == count - 1);
+      for (int j = x; j < x + width; j++) {
+        assertEquals(message + ", pixel " + j, black, row.get(j));
+      }
+      if (black) {
+        int quietZone = 1 + i % 10;
+        boolean quiet = true;
+        for (int j = Math.max(0, x - quietZone); j < x; j++) {
+          quiet &= !row.get(j);
+        }
+        assertEquals(message + ", quiet zone before run " + i, quiet, runs.isQuietBefore(i, quietZone));
+      }
+      assertEquals(message + ", run " + i, x < size, runs.isEndedBy(i));
+      x += width;
+    }
+    assertEquals(message, size, x);
+    assertEquals(message, size, runs.getRunStart(count));
+    int[] counters = new int[Math.min(count, 5)];
+    runs.getRuns(count - counters.length, counters);
+    for (int i = 0; i < counters.length; i++) {
+      assertEquals(message, runs.getRun(count - counters.length + i), counters[i]);
+    }
+  }
+
+  private static String outcome(OneDReader reader, RunLengthRow runs) {
+    String name = reader.getClass().getSimpleName();
+    try {
+      return describe(name, reader.decodeRowOrNull(0, runs, null));
+    } catch (ReaderException e) {
+      return describe(name, e);
+    }
+  }
+
+  // The rows, readers and outcomes below are those the baseline outcomes were recorded with.
+
+  private static final Object[][] SYMBOLS = {
+      {new Code128Writer(), "RunLength-0123"},
+      {new Code39Writer(), "RUN 39"},
+      {new Code93Writer(), "RUN93"},
+      {new CodaBarWriter(), "A40156B"},
+      {new ITFWriter(), "12345678"},
+      {new EAN13Writer(), "5901234123457"},
+      {new EAN13Writer(), "0036000291452"},
+      {new EAN8Writer(), "96385074"},
+      {new UPCEWriter(), "01234565"},
+  };
+
+  private static OneDReader[] readers() {
+    return new OneDReader[] {
+        new Code128Reader(),
+        new Code39Reader(),
+        new Code93Reader(),
+        new CodaBarReader(),
+        new ITFReader(),
+        new EAN13Reader(),
+        new EAN8Reader(),
+        new UPCAReader(),
+        new UPCEReader(),
+        new MultiFormatUPCEANReader(null),
+    };
+  }
+
+  /**
+   * @return rendered symbols, at 1 to 3.5 pixels per module with some pixels flipped, and random
+   *  rows
+   */
+  private static List<BitArray> rows(Random random) {
+    List<BitArray> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      if (random.nextInt(5) == 0) {
+        rows.add(randomRow(random, 50 + random.nextInt(600)));
+        continue;
+      }
+      Object[] symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+      boolean[] modules = ((OneDimensionalCodeWriter) symbol[0]).encode((String) symbol[1]);
+      float scale = 1.0f + random.nextFloat() * 2.5f;
+      int left = random.nextInt(30);
+      int width = left + (int) Math.ceil(modules.length * scale) + random.nextInt(30);
+      float[] noise = {0.0f, 0.002f, 0.01f};
+      float flip = noise[random.nextInt(noise.length)];
+      BitArray row = new BitArray(width);
+      for (int x = 0; x < width; x++) {
+        int module = (int) ((x - left) / scale);
+        boolean black = x >= left && module < modules.length && modules[module];
+        if (random.nextFloat() < flip) {
+          black = !black;
+        }
+        if (black) {
+          row.set(x);
+        }
+      }
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private static BitArray randomRow(Random random, int size) {
+    BitArray row = new BitArray(size);
+    boolean black = random.nextBoolean();
+    int maxRun = 1 + random.nextInt(12);
+    for (int x = 0; x < size; ) {
+      int end = Math.min(size, x + 1 + random.nextInt(maxRun));
+      if (black) {
+        row.setRange(x, end);
+      }
+      x = end;
+      black = !black;
+    }
+    return row;
+  }
+
+  private static String describe(String reader, Result result) {
+    if (result == null) {
+      return reader + " -";
+    }
+    StringBuilder description = new StringBuilder("+").append(reader).append(' ')
+        .append(result.getBarcodeFormat()).append(' ').append(result.getText());
+    for (ResultPoint point : result.getResultPoints()) {
+      description.append(' ').append(point.getX()).append(',').append(point.getY());
+    }
+    return description.toString();
+  }
+
+  private static String describe(String reader, ReaderException e) {
+    // Not found, whether thrown or returned as null
+    return e instanceof NotFoundException ? reader + " -" : reader + " " + e.getClass().getSimpleName();
+  }
+
+  private static String md5(String text) throws NoSuchAlgorithmException {
+    byte[] digest = MessageDigest.getInstance("MD5").digest(text.getBytes(StandardCharsets.UTF_8));
+    StringBuilder hex = new StringBuilder();
+    for (byte b : digest) {
+      hex.append(String.format("%02x", b & 0xFF));
+    }
+    return hex.toString();
+  }
+
+}
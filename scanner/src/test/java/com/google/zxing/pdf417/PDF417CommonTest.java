@@ -0,0 +1,100 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417;
+
+import org.junit.Test;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class PDF417CommonTest {
+
+  /**
+   * MD5 of {@link PDF417Common#getCodeword} of every value below 0x80000, two bytes each, as
+   * the binary search of {@link PDF417Common#SYMBOL_TABLE} gave them.
+   */
+  private static final String BINARY_SEARCH_CODEWORDS = "17612433d99fd136e37d7e90a541245b";
+
+  @Test
+  public void codewordsAreThoseTheBinarySearchFound() throws NoSuchAlgorithmException {
+    MessageDigest md5 = MessageDigest.getInstance("MD5");
+    int symbols = 0;
+    for (int symbol = 0; symbol < 0x80000; symbol++) {
+      int codeword = PDF417Common.getCodeword(symbol);
+      boolean inTable = Arrays.binarySearch(PDF417Common.SYMBOL_TABLE, symbol & 0x3FFFF) >= 0;
+      assertEquals("symbol " + symbol, inTable, codeword >= 0);
+      if (inTable && symbol < 0x40000) {
+        symbols++;
+      }
+      md5.update((byte) (codeword >> 8));
+      md5.update((byte) codeword);
+    }
+    assertEquals(PDF417Common.SYMBOL_TABLE.length, symbols);
+    StringBuilder hex = new StringBuilder();
+    for (byte b : md5.digest()) {
+      hex.append(String.format("%02x", b & 0xFF));
+    }
+    assertEquals(BINARY_SEARCH_CODEWORDS, hex.toString());
+  }
+
+  @Test
+  public void eachClusterHoldsEveryCodewordOnce() {
+    int[][] clusters = new int[9][PDF417Common.NUMBER_OF_CODEWORDS];
+    for (int symbol : PDF417Common.SYMBOL_TABLE) {
+      int codeword = PDF417Common.getCodeword(symbol);
+      assertTrue("symbol " + symbol, codeword >= 0 && codeword < PDF417Common.NUMBER_OF_CODEWORDS);
+      clusters[cluster(symbol)][codeword]++;
+    }
+    for (int cluster = 0; cluster < clusters.length; cluster++) {
+      for (int codeword = 0; codeword < PDF417Common.NUMBER_OF_CODEWORDS; codeword++) {
+        assertEquals("cluster " + cluster + ", codeword " + codeword, cluster % 3 == 0 ? 1 : 0,
+            clusters[cluster][codeword]);
+      }
+    }
+  }
+
+  @Test
+  public void bitsAboveTheSymbolAreIgnored() {
+    Random random = new Random(23);
+    for (int i = 0; i < 1000000; i++) {
+      int value = random.nextInt();
+      assertEquals("value " + value, PDF417Common.getCodeword(value & 0x3FFFF), PDF417Common.getCodeword(value));
+    }
+  }
+
+  /**
+   * @return (b1 - b3 + b5 - b7 + 9) mod 9 over the widths of the bars of a symbol, which is 0, 3
+   *  or 6
+   */
+  private static int cluster(int symbol) {
+    int[] widths = new int[PDF417Common.BARS_IN_MODULE];
+    int bar = 0;
+    for (int bit = PDF417Common.MODULES_IN_CODEWORD - 1; bit >= 0; bit--) {
+      widths[bar]++;
+      if (bit > 0 && ((symbol >> bit) & 1) != ((symbol >> (bit - 1)) & 1)) {
+        bar++;
+      }
+    }
+    return (widths[0] - widths[2] + widths[4] - widths[6] + 9) % 9;
+  }
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.ChecksumException;
+import com.google.zxing.FormatException;
+import com.google.zxing.common.DecoderResult;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Decodes PDF417 blocks in which some codewords were read with more than one value, one of them
+ * right, through {@link PDF417ScanningDecoder#createDecoderResultFromAmbiguousValues}.
+ */
+public final class PDF417ScanningDecoderTest {
+
+  private static final int MODULUS = 929;
+  private static final int TRIALS = 300;
+  private static final int DEFAULT_ATTEMPTS = 100;
+
+  @Test
+  public void combinationWithoutErrorsIsFoundWithoutCorrection() throws Exception {
+    Random random = new Random(24);
+    for (int trial = 0; trial < TRIALS; trial++) {
+      Block block = new Block(random);
+      // Few enough for every combination to be checked
+      int[][] values = block.makeAmbiguous(1 + random.nextInt(6), random);
+      DecoderResult result = PDF417ScanningDecoder.createDecoderResultFromAmbiguousValues(block.ecLevel,
+          block.received, new int[0], block.ambiguousIndexes, values, DEFAULT_ATTEMPTS, Long.MAX_VALUE);
+      assertEquals("trial " + trial, block.text, result.getText());
+      assertEquals("trial " + trial, 0, result.getErrorsCorrected().intValue());
+    }
+  }
+
+  @Test
+  public void wrongValuesAndErrorsWithinCapacityAreCorrected() throws Exception {
+    Random random = new Random(25);
+    for (int trial = 0; trial < TRIALS; trial++) {
+      Block block = new Block(random);
+      int capacity = block.numECCodewords / 2;
+      int ambiguous = 1 + random.nextInt(Math.min(8, capacity));
+      int[][] values = block.makeAmbiguous(ambiguous, random);
+      block.corrupt(random.nextInt(capacity - ambiguous + 1), random);
+      DecoderResult result = PDF417ScanningDecoder.createDecoderResultFromAmbiguousValues(block.ecLevel,
+          block.received, new int[0], block.ambiguousIndexes, values, DEFAULT_ATTEMPTS, Long.MAX_VALUE);
+      assertEquals("trial " + trial, block.text, result.getText());
+    }
+  }
+
+  @Test
+  public void rightValuesAreFoundBeyondCapacity() throws Exception {
+    Random random = new Random(26);
+    int decoded = 0;
+    for (int trial = 0; trial < TRIALS; trial++) {
+      Block block = new Block(random);
+      int capacity = block.numECCodewords / 2;
+      // With the first value of each wrong, but one attempt away from being correctable
+      int[][] values = block.makeAmbiguous(2, random);
+      for (int i = 0; i < values.length; i++) {
+        if (values[i][0] == block.sent[block.ambiguousIndexes[i]]) {
+          values[i][0] = values[i][1];
+          values[i][1] = block.sent[block.ambiguousIndexes[i]];
+          block.received[block.ambiguousIndexes[i]] = values[i][0];
+        }
+      }
+      block.corrupt(capacity - 1, random);
+      try {
+        DecoderResult result = PDF417ScanningDecoder.createDecoderResultFromAmbiguousValues(block.ecLevel,
+            block.received, new int[0], block.ambiguousIndexes, values, DEFAULT_ATTEMPTS, Long.MAX_VALUE);
+        if (block.text.equals(result.getText())) {
+          decoded++;
+        }
+      } catch (ChecksumException | FormatException e) {
+        // Miscorrected into a block that does not parse
+      }
+    }
+    // Only a miscorrection of a wrong combination, into another block, stops the search
+    assertTrue(decoded + " of " + TRIALS + " decoded", decoded >= TRIALS * 19 / 20);
+  }
+
+  @Test
+  public void budgetBoundsTheSearch() throws Exception {
+    Random random = new Random(27);
+    for (int trial = 0; trial < TRIALS / 10; trial++) {
+      Block block = new Block(random);
+      // Far more combinations than could be tried, none of them correctable
+      int[][] values = block.makeAmbiguous(Math.min(20, block.sent.length / 2), random);
+      for (int i = 0; i < values.length; i++) {
+        for (int j = 0; j < values[i].length; j++) {
+          if (values[i][j] == block.sent[block.ambiguousIndexes[i]]) {
+            values[i][j] = (values[i][j] + 1) % MODULUS;
+          }
+        }
+      }
+      block.corrupt(block.numECCodewords / 2 + 1, random);
+      long start = System.nanoTime();
+      try {
+        PDF417ScanningDecoder.createDecoderResultFromAmbiguousValues(block.ecLevel, block.received, new int[0],
+            block.ambiguousIndexes, values, trial % 2 == 0 ? 1 : DEFAULT_ATTEMPTS, trial % 2 == 0 ? Long.MAX_VALUE : 0);
+        fail("trial " + trial + " decoded");
+      } catch (ChecksumException | FormatException e) {
+        // expected
+      }
+      long millis = (System.nanoTime() - start) / 1000000;
+      assertTrue("trial " + trial + " took " + millis + " ms", millis < 1000);
+    }
+  }
+
+  /**
+   * A block of text compaction codewords, holding upper case letters, with its error correction
+   * codewords.
+   */
+  private static final class Block {
+
+    final int ecLevel;
+    final int numECCodewords;
+    final String text;
+    final int[] sent;
+    final int[] received;
+    int[] ambiguousIndexes;
+    private final Set<Integer> changed = new HashSet<>();
+
+    Block(Random random) {
+      ecLevel = 2 + random.nextInt(4);
+      numECCodewords = 1 << (ecLevel + 1);
+      int letterPairs = 10 + random.nextInt(100);
+      StringBuilder letters = new StringBuilder();
+      int[] data = new int[1 + letterPairs];
+      data[0] = data.length;
+      for (int i = 1; i < data.length; i++) {
+        int high = random.nextInt(26);
+        int low = random.nextInt(26);
+        data[i] = 30 * high + low;
+        letters.append((char) ('A' + high)).append((char) ('A' + low));
+      }
+      text = letters.toString();
+      sent = encode(data, numECCodewords);
+      received = sent.clone();
+    }
+
+    /**
+     * @return two or three values for each of {@code count} codewords, one of them the one sent,
+     *  and the first of them set in the received codewords
+     */
+    int[][] makeAmbiguous(int count, Random random) {
+      ambiguousIndexes = new int[count];
+      int[][] values = new int[count][];
+      for (int i = 0; i < count; i++) {
+        int index = pickUnchanged(random);
+        ambiguousIndexes[i] = index;
+        values[i] = new int[2 + random.nextInt(2)];
+        int right = random.nextInt(values[i].length);
+        for (int j = 0; j < values[i].length; j++) {
+          values[i][j] = j == right ? sent[index] : (sent[index] + 1 + random.nextInt(MODULUS - 1)) % MODULUS;
+        }
+        received[index] = values[i][0];
+      }
+      return values;
+    }
+
+    void corrupt(int errors, Random random) {
+      for (int i = 0; i < errors; i++) {
+        int index = pickUnchanged(random);
+        received[index] = (sent[index] + 1 + random.nextInt(MODULUS - 1)) % MODULUS;
+      }
+    }
+
+    private int pickUnchanged(Random random) {
+      int index;
+      do {
+        // The length descriptor is left alone
+        index = 1 + random.nextInt(sent.length - 1);
+      } while (!changed.add(index));
+      return index;
+    }
+  }
+
+  /**
+   * @return the data codewords followed by error correction codewords, so that the block evaluates
+   *  to zero at 3^1 to 3^numECCodewords as a polynomial with the first codeword the highest term
+   */
+  private static int[] encode(int[] data, int numECCodewords) {
+    // The generator polynomial, (x - 3^1) ... (x - 3^numECCodewords), highest term first
+    int[] generator = {1};
+    int root = 1;
+    for (int i = 1; i <= numECCodewords; i++) {
+      root = root * 3 % MODULUS;
+      int[] product = new int[generator.length + 1];
+      for (int j = 0; j < generator.length; j++) {
+        product[j] = (product[j] + generator[j]) % MODULUS;
+        product[j + 1] = (product[j + 1] + (MODULUS - root) * generator[j]) % MODULUS;
+      }
+      generator = product;
+    }
+    // The remainder of data * x^numECCodewords by the generator, subtracted from it
+    int[] block = new int[data.length + numECCodewords];
+    System.arraycopy(data, 0, block, 0, data.length);
+    int[] remainder = block.clone();
+    for (int i = 0; i < data.length; i++) {
+      int scale = remainder[i];
+      for (int j = 0; j < generator.length; j++) {
+        remainder[i + j] = (remainder[i + j] + (MODULUS - scale) * generator[j]) % MODULUS;
+      }
+    }
+    for (int i = data.length; i < block.length; i++) {
+      block[i] = (MODULUS - remainder[i]) % MODULUS;
+    }
+    return block;
+  }
+
+}
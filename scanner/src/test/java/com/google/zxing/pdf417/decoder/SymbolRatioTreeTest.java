@@ -0,0 +1,160 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder;
+
+import com.google.zxing.pdf417.PDF417Common;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Checks {@link SymbolRatioTree} against {@link LinearSearch}, the scan over the ratios of every
+ * symbol that {@link PDF417CodewordDecoder} did before.
+ */
+public final class SymbolRatioTreeTest {
+
+  private static final int TRIALS = 20000;
+
+  private final LinearSearch reference = new LinearSearch();
+  private final SymbolRatioTree tree = SymbolRatioTree.getInstance();
+
+  @Test
+  public void symbolsAreClosestToThemselves() {
+    for (int symbol : PDF417Common.SYMBOL_TABLE) {
+      assertEquals(symbol, tree.getClosestSymbol(ratios(barWidths(symbol))));
+    }
+  }
+
+  @Test
+  public void sampledBarWidthsMatchTheLinearSearch() {
+    Random random = new Random(23);
+    for (int trial = 0; trial < TRIALS; trial++) {
+      int[] widths = new int[PDF417Common.BARS_IN_MODULE];
+      for (int i = 0; i < widths.length; i++) {
+        widths[i] = random.nextInt(trial % 2 == 0 ? 7 : 30);
+      }
+      assertMatches(widths);
+    }
+  }
+
+  @Test
+  public void symbolsOffByAModuleMatchTheLinearSearch() {
+    Random random = new Random(24);
+    for (int trial = 0; trial < TRIALS; trial++) {
+      int[] widths = barWidths(PDF417Common.SYMBOL_TABLE[random.nextInt(PDF417Common.SYMBOL_TABLE.length)]);
+      for (int changes = 1 + random.nextInt(3); changes > 0; changes--) {
+        int bar = random.nextInt(widths.length);
+        widths[bar] = Math.max(0, widths[bar] + (random.nextBoolean() ? 1 : -1));
+      }
+      assertMatches(widths);
+    }
+  }
+
+  @Test
+  public void tooFewModulesMatchTheLinearSearch() {
+    // Sums of 0 or 1 leave all ratios 0
+    assertMatches(new int[PDF417Common.BARS_IN_MODULE]);
+    int[] widths = new int[PDF417Common.BARS_IN_MODULE];
+    widths[3] = 1;
+    assertMatches(widths);
+  }
+
+  private void assertMatches(int[] widths) {
+    float[] ratios = ratios(widths);
+    assertEquals(Arrays.toString(widths), reference.getClosestSymbol(ratios), tree.getClosestSymbol(ratios));
+  }
+
+  /**
+   * @return the ratios as {@link PDF417CodewordDecoder} computes them from bar widths
+   */
+  private static float[] ratios(int[] widths) {
+    int sum = 0;
+    for (int width : widths) {
+      sum += width;
+    }
+    float[] ratios = new float[PDF417Common.BARS_IN_MODULE];
+    if (sum > 1) {
+      for (int i = 0; i < ratios.length; i++) {
+        ratios[i] = widths[i] / (float) sum;
+      }
+    }
+    return ratios;
+  }
+
+  private static int[] barWidths(int symbol) {
+    int[] widths = new int[PDF417Common.BARS_IN_MODULE];
+    int bar = 0;
+    for (int bit = PDF417Common.MODULES_IN_CODEWORD - 1; bit >= 0; bit--) {
+      widths[bar]++;
+      if (bit > 0 && ((symbol >> bit) & 1) != ((symbol >> (bit - 1)) & 1)) {
+        bar++;
+      }
+    }
+    return widths;
+  }
+
+  /**
+   * The closest symbol search as it was, over a table of the ratios of every symbol.
+   */
+  private static final class LinearSearch {
+
+    private final float[][] ratiosTable =
+        new float[PDF417Common.SYMBOL_TABLE.length][PDF417Common.BARS_IN_MODULE];
+
+    LinearSearch() {
+      for (int i = 0; i < PDF417Common.SYMBOL_TABLE.length; i++) {
+        int currentSymbol = PDF417Common.SYMBOL_TABLE[i];
+        int currentBit = currentSymbol & 0x1;
+        for (int j = 0; j < PDF417Common.BARS_IN_MODULE; j++) {
+          float size = 0.0f;
+          while ((currentSymbol & 0x1) == currentBit) {
+            size += 1.0f;
+            currentSymbol >>= 1;
+          }
+          currentBit = currentSymbol & 0x1;
+          ratiosTable[i][PDF417Common.BARS_IN_MODULE - j - 1] = size / PDF417Common.MODULES_IN_CODEWORD;
+        }
+      }
+    }
+
+    int getClosestSymbol(float[] bitCountRatios) {
+      float bestMatchError = Float.MAX_VALUE;
+      int bestMatch = -1;
+      for (int j = 0; j < ratiosTable.length; j++) {
+        float error = 0.0f;
+        float[] ratioTableRow = ratiosTable[j];
+        for (int k = 0; k < PDF417Common.BARS_IN_MODULE; k++) {
+          float diff = ratioTableRow[k] - bitCountRatios[k];
+          error += diff * diff;
+          if (error >= bestMatchError) {
+            break;
+          }
+        }
+        if (error < bestMatchError) {
+          bestMatchError = error;
+          bestMatch = PDF417Common.SYMBOL_TABLE[j];
+        }
+      }
+      return bestMatch;
+    }
+  }
+
+}
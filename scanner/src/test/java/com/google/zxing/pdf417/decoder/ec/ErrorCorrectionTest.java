@@ -0,0 +1,332 @@
+/*
+ * Copyright 2019 nanchen(刘世麟)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.zxing.pdf417.decoder.ec;
+
+import com.google.zxing.ChecksumException;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks {@link ErrorCorrection} against {@link PolynomialErrorCorrection}, the algorithm as it
+ * was on {@link ModulusPoly}, which failed with an {@link IllegalArgumentException} on some blocks
+ * that are now a {@link ChecksumException}.
+ */
+public final class ErrorCorrectionTest {
+
+  private static final int MODULUS = 929;
+  private static final int TRIALS = 3000;
+  private static final String FAILED = "failed";
+
+  private final ErrorCorrection errorCorrection = new ErrorCorrection();
+  private final PolynomialErrorCorrection reference = new PolynomialErrorCorrection();
+
+  @Test
+  public void correctsWhatThePolynomialAlgorithmCorrected() {
+    Random random = new Random(25);
+    int corrected = 0;
+    int failed = 0;
+    for (int trial = 0; trial < TRIALS; trial++) {
+      int ecLevel = random.nextInt(7);
+      int numECCodewords = 1 << (ecLevel + 1);
+      int[] block = encode(randomData(random, 1 + random.nextInt(200)), numECCodewords);
+      int[] erasures = null;
+      switch (trial % 4) {
+        case 0:
+          // Up to a few more errors than can be corrected
+          corrupt(block, random.nextInt(numECCodewords / 2 + 4), random);
+          break;
+        case 1:
+          // Erased codewords, which are corrected like any other wrong one
+          erasures = pick(block.length, random.nextInt(numECCodewords / 2 + 2), random);
+          for (int erasure : erasures) {
+            block[erasure] = 0;
+          }
+          corrupt(block, random.nextInt(2), random);
+          break;
+        case 2:
+          // Far too many errors
+          corrupt(block, block.length / 2, random);
+          break;
+        default:
+          block = randomData(random, numECCodewords + 1 + random.nextInt(200));
+          break;
+      }
+      String outcome = assertMatches("trial " + trial, block, numECCodewords, erasures);
+      if (FAILED.equals(outcome)) {
+        failed++;
+      } else if (!"0".equals(outcome)) {
+        corrected++;
+      }
+    }
+    // Both outcomes are seen often enough to tell a difference
+    assertTrue(corrected + " corrected", corrected > TRIALS / 5);
+    assertTrue(failed + " failed", failed > TRIALS / 5);
+  }
+
+  @Test
+  public void updatedSyndromesCorrectLikeFreshOnes() throws ChecksumException {
+    Random random = new Random(26);
+    for (int trial = 0; trial < TRIALS / 10; trial++) {
+      int numECCodewords = 1 << (2 + random.nextInt(5));
+      int[] received = encode(randomData(random, 1 + random.nextInt(200)), numECCodewords);
+      corrupt(received, random.nextInt(numECCodewords / 2), random);
+      Syndromes syndromes = new Syndromes(received, numECCodewords);
+      // One value after another for the same codewords, the workspaces reused between attempts
+      for (int attempt = 0; attempt < 10; attempt++) {
+        int position = random.nextInt(received.length);
+        int value = random.nextInt(MODULUS);
+        syndromes.update(position, received[position], value);
+        received[position] = value;
+
+        int[] actual = received.clone();
+        String message = "trial " + trial + ", attempt " + attempt;
+        String outcome;
+        try {
+          outcome = Integer.toString(errorCorrection.decode(actual, syndromes, null));
+        } catch (ChecksumException e) {
+          outcome = FAILED;
+          assertArrayEquals(message, received, actual);
+        }
+        int[] expected = received.clone();
+        assertEquals(message, referenceOutcome(expected, numECCodewords, null), outcome);
+        if (!FAILED.equals(outcome)) {
+          assertArrayEquals(message, expected, actual);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the number of errors corrected, or {@link #FAILED}
+   */
+  private String assertMatches(String message, int[] received, int numECCodewords, int[] erasures) {
+    int[] expected = received.clone();
+    String expectedOutcome = referenceOutcome(expected, numECCodewords, erasures);
+    int[] actual = received.clone();
+    String outcome;
+    try {
+      outcome = Integer.toString(errorCorrection.decode(actual, numECCodewords, erasures));
+    } catch (ChecksumException e) {
+      outcome = FAILED;
+      // Left as received
+      assertArrayEquals(message, received, actual);
+    }
+    assertEquals(message, expectedOutcome, outcome);
+    if (!FAILED.equals(outcome)) {
+      assertArrayEquals(message, expected, actual);
+    }
+    return outcome;
+  }
+
+  private String referenceOutcome(int[] received, int numECCodewords, int[] erasures) {
+    try {
+      return Integer.toString(reference.decode(received, numECCodewords, erasures));
+    } catch (ChecksumException | IllegalArgumentException e) {
+      return FAILED;
+    }
+  }
+
+  private static int[] randomData(Random random, int length) {
+    int[] data = new int[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = random.nextInt(MODULUS);
+    }
+    return data;
+  }
+
+  private static void corrupt(int[] block, int errors, Random random) {
+    for (int index : pick(block.length, errors, random)) {
+      block[index] = (block[index] + 1 + random.nextInt(MODULUS - 1)) % MODULUS;
+    }
+  }
+
+  /**
+   * @return {@code count} distinct indexes below {@code length}, or all of them if fewer
+   */
+  private static int[] pick(int length, int count, Random random) {
+    int[] indexes = new int[length];
+    for (int i = 0; i < length; i++) {
+      indexes[i] = i;
+    }
+    count = Math.min(count, length);
+    for (int i = 0; i < count; i++) {
+      int j = i + random.nextInt(length - i);
+      int temp = indexes[i];
+      indexes[i] = indexes[j];
+      indexes[j] = temp;
+    }
+    return Arrays.copyOf(indexes, count);
+  }
+
+  /**
+   * @return the data codewords followed by error correction codewords, so that the block evaluates
+   *  to zero at 3^1 to 3^numECCodewords as a polynomial with the first codeword the highest term
+   */
+  private static int[] encode(int[] data, int numECCodewords) {
+    // The generator polynomial, (x - 3^1) ... (x - 3^numECCodewords), highest term first
+    int[] generator = {1};
+    int root = 1;
+    for (int i = 1; i <= numECCodewords; i++) {
+      root = root * 3 % MODULUS;
+      int[] product = new int[generator.length + 1];
+      for (int j = 0; j < generator.length; j++) {
+        product[j] = (product[j] + generator[j]) % MODULUS;
+        product[j + 1] = (product[j + 1] + (MODULUS - root) * generator[j]) % MODULUS;
+      }
+      generator = product;
+    }
+    // The remainder of data * x^numECCodewords by the generator, subtracted from it
+    int[] block = new int[data.length + numECCodewords];
+    System.arraycopy(data, 0, block, 0, data.length);
+    int[] remainder = block.clone();
+    for (int i = 0; i < data.length; i++) {
+      int scale = remainder[i];
+      for (int j = 0; j < generator.length; j++) {
+        remainder[i + j] = (remainder[i + j] + (MODULUS - scale) * generator[j]) % MODULUS;
+      }
+    }
+    for (int i = data.length; i < block.length; i++) {
+      block[i] = (MODULUS - remainder[i]) % MODULUS;
+    }
+    return block;
+  }
+
+  /**
+   * The error correction as it was on {@link ModulusPoly}.
+   */
+  private static final class PolynomialErrorCorrection {
+
+    private final ModulusGF field = ModulusGF.PDF417_GF;
+
+    int decode(int[] received, int numECCodewords, int[] erasures) throws ChecksumException {
+      ModulusPoly poly = new ModulusPoly(field, received);
+      int[] S = new int[numECCodewords];
+      boolean error = false;
+      for (int i = numECCodewords; i > 0; i--) {
+        int eval = poly.evaluateAt(field.exp(i));
+        S[numECCodewords - i] = eval;
+        if (eval != 0) {
+          error = true;
+        }
+      }
+      if (!error) {
+        return 0;
+      }
+      // The erasures were turned into known error locations that were then left unused
+      ModulusPoly syndrome = new ModulusPoly(field, S);
+      ModulusPoly[] sigmaOmega =
+          runEuclideanAlgorithm(field.buildMonomial(numECCodewords, 1), syndrome, numECCodewords);
+      ModulusPoly sigma = sigmaOmega[0];
+      ModulusPoly omega = sigmaOmega[1];
+
+      int[] errorLocations = findErrorLocations(sigma);
+      int[] errorMagnitudes = findErrorMagnitudes(omega, sigma, errorLocations);
+      for (int i = 0; i < errorLocations.length; i++) {
+        int position = received.length - 1 - field.log(errorLocations[i]);
+        if (position < 0) {
+          throw ChecksumException.getChecksumInstance();
+        }
+        received[position] = field.subtract(received[position], errorMagnitudes[i]);
+      }
+      return errorLocations.length;
+    }
+
+    private ModulusPoly[] runEuclideanAlgorithm(ModulusPoly a, ModulusPoly b, int R)
+        throws ChecksumException {
+      if (a.getDegree() < b.getDegree()) {
+        ModulusPoly temp = a;
+        a = b;
+        b = temp;
+      }
+      ModulusPoly rLast = a;
+      ModulusPoly r = b;
+      ModulusPoly tLast = field.getZero();
+      ModulusPoly t = field.getOne();
+      while (r.getDegree() >= R / 2) {
+        ModulusPoly rLastLast = rLast;
+        ModulusPoly tLastLast = tLast;
+        rLast = r;
+        tLast = t;
+        if (rLast.isZero()) {
+          throw ChecksumException.getChecksumInstance();
+        }
+        r = rLastLast;
+        ModulusPoly q = field.getZero();
+        int denominatorLeadingTerm = rLast.getCoefficient(rLast.getDegree());
+        int dltInverse = field.inverse(denominatorLeadingTerm);
+        while (r.getDegree() >= rLast.getDegree() && !r.isZero()) {
+          int degreeDiff = r.getDegree() - rLast.getDegree();
+          int scale = field.multiply(r.getCoefficient(r.getDegree()), dltInverse);
+          q = q.add(field.buildMonomial(degreeDiff, scale));
+          r = r.subtract(rLast.multiplyByMonomial(degreeDiff, scale));
+        }
+        t = q.multiply(tLast).subtract(tLastLast).negative();
+      }
+      int sigmaTildeAtZero = t.getCoefficient(0);
+      if (sigmaTildeAtZero == 0) {
+        throw ChecksumException.getChecksumInstance();
+      }
+      int inverse = field.inverse(sigmaTildeAtZero);
+      return new ModulusPoly[] {t.multiply(inverse), r.multiply(inverse)};
+    }
+
+    private int[] findErrorLocations(ModulusPoly errorLocator) throws ChecksumException {
+      int numErrors = errorLocator.getDegree();
+      int[] result = new int[numErrors];
+      int e = 0;
+      for (int i = 1; i < field.getSize() && e < numErrors; i++) {
+        if (errorLocator.evaluateAt(i) == 0) {
+          result[e] = field.inverse(i);
+          e++;
+        }
+      }
+      if (e != numErrors) {
+        throw ChecksumException.getChecksumInstance();
+      }
+      return result;
+    }
+
+    private int[] findErrorMagnitudes(ModulusPoly errorEvaluator,
+                                      ModulusPoly errorLocator,
+                                      int[] errorLocations) {
+      int errorLocatorDegree = errorLocator.getDegree();
+      int[] formalDerivativeCoefficients = new int[errorLocatorDegree];
+      for (int i = 1; i <= errorLocatorDegree; i++) {
+        formalDerivativeCoefficients[errorLocatorDegree - i] =
+            field.multiply(i, errorLocator.getCoefficient(i));
+      }
+      ModulusPoly formalDerivative = new ModulusPoly(field, formalDerivativeCoefficients);
+      int s = errorLocations.length;
+      int[] result = new int[s];
+      for (int i = 0; i < s; i++) {
+        int xiInverse = field.inverse(errorLocations[i]);
+        int numerator = field.subtract(0, errorEvaluator.evaluateAt(xiInverse));
+        int denominator = field.inverse(formalDerivative.evaluateAt(xiInverse));
+        result[i] = field.multiply(numerator, denominator);
+      }
+      return result;
+    }
+  }
+
+}
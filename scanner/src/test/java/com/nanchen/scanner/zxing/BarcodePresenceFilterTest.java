@@ -0,0 +1,164 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.ReaderException;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 默认阈值不能挡掉能解出来的码：低对比度、轻微模糊和旋转的二维码，只要解得出来，分数就得过阈值；
+ * 空白、光照渐变和桌面边缘这类画面则应低于阈值。
+ */
+public class BarcodePresenceFilterTest {
+
+    private static final int WIDTH = 640;
+    private static final int HEIGHT = 480;
+    private static final int SAMPLES = 3;
+
+    @Test
+    public void decodableLowContrastCodesPassDefaultThreshold() throws WriterException {
+        String content = content(250);
+        int decoded = 0;
+        for (int contrast = 60; contrast <= 100; contrast += 20) {
+            for (int size = 200; size <= 300; size += 100) {
+                for (int seed = 0; seed < 3; seed++) {
+                    byte[] frame = renderQRCode(content, size, 128 + contrast / 2, 128 - contrast / 2,
+                            0.3, seed);
+                    LuminanceSource source = new PlanarYUVLuminanceSource(frame, WIDTH, HEIGHT,
+                            0, 0, WIDTH, HEIGHT, false);
+                    if (!decodes(source)) {
+                        continue;
+                    }
+                    decoded++;
+                    float score = new BarcodePresenceFilter().score(source);
+                    assertTrue("contrast " + contrast + ", size " + size + ", seed " + seed
+                            + " decodes but scores " + score, score >= BarcodePresenceFilter.DEFAULT_THRESHOLD);
+                }
+            }
+        }
+        // Otherwise the frames say nothing about the threshold
+        assertTrue("only " + decoded + " frames decode", decoded >= 6);
+    }
+
+    @Test
+    public void denseCodeScoresAlikeAcrossContrast() throws WriterException {
+        String content = content(400);
+        float lowest = 1.0f;
+        float highest = 0.0f;
+        for (int contrast = 60; contrast <= 140; contrast += 20) {
+            byte[] frame = renderQRCode(content, 200, 128 + contrast / 2, 128 - contrast / 2, 0.3, 1);
+            float score = new BarcodePresenceFilter().score(
+                    new PlanarYUVLuminanceSource(frame, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false));
+            lowest = Math.min(lowest, score);
+            highest = Math.max(highest, score);
+        }
+        assertTrue("lowest score " + lowest, lowest >= BarcodePresenceFilter.DEFAULT_THRESHOLD);
+        assertTrue("scores " + lowest + " to " + highest, highest - lowest < 0.2f);
+    }
+
+    @Test
+    public void emptyFramesStayUnderDefaultThreshold() {
+        Random random = new Random(5);
+        byte[] flat = new byte[WIDTH * HEIGHT];
+        byte[] lighting = new byte[WIDTH * HEIGHT];
+        byte[] desk = new byte[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int noise = (int) Math.round(random.nextGaussian() * 3);
+                flat[y * WIDTH + x] = (byte) (128 + noise);
+                lighting[y * WIDTH + x] = (byte) (60 + x * 150 / WIDTH + noise);
+                desk[y * WIDTH + x] = (byte) ((y < HEIGHT / 2 ? 180 : 60) + noise);
+            }
+        }
+        assertEmpty("flat", flat);
+        assertEmpty("lighting", lighting);
+        assertEmpty("desk", desk);
+    }
+
+    private static void assertEmpty(String name, byte[] frame) {
+        float score = new BarcodePresenceFilter().score(
+                new PlanarYUVLuminanceSource(frame, WIDTH, HEIGHT, 0, 0, WIDTH, HEIGHT, false));
+        assertTrue(name + " scores " + score, score < BarcodePresenceFilter.DEFAULT_THRESHOLD);
+    }
+
+    private static boolean decodes(LuminanceSource source) {
+        try {
+            new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source)));
+            return true;
+        } catch (ReaderException e) {
+            return false;
+        }
+    }
+
+    private static String content(int length) {
+        StringBuilder content = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            content.append((char) ('a' + i * 7 % 26));
+        }
+        return content.toString();
+    }
+
+    /**
+     * 把二维码旋转后画进画面中央附近，每个像素取 3x3 子采样的平均，再做一次 3x3 模糊、加上 sigma 为 3 的噪声，
+     * 大致是对焦稍软的相机预览。
+     */
+    private static byte[] renderQRCode(String content, int size, int background, int ink,
+                                       double angle, long seed) throws WriterException {
+        BitMatrix matrix = new QRCodeWriter().encode(content, BarcodeFormat.QR_CODE, 0, 0);
+        int modules = matrix.getWidth();
+        double moduleSize = (double) size / modules;
+        Random random = new Random(seed);
+        double centerX = WIDTH / 2.0 + random.nextInt(40) - 20;
+        double centerY = HEIGHT / 2.0 + random.nextInt(40) - 20;
+        double cos = Math.cos(angle);
+        double sin = Math.sin(angle);
+        double[] image = new double[WIDTH * HEIGHT];
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                int black = 0;
+                for (int sy = 0; sy < SAMPLES; sy++) {
+                    for (int sx = 0; sx < SAMPLES; sx++) {
+                        double px = x + (sx + 0.5) / SAMPLES - centerX;
+                        double py = y + (sy + 0.5) / SAMPLES - centerY;
+                        int u = (int) Math.floor((cos * px + sin * py) / moduleSize + modules / 2.0);
+                        int v = (int) Math.floor((-sin * px + cos * py) / moduleSize + modules / 2.0);
+                        if (u >= 0 && v >= 0 && u < modules && v < modules && matrix.get(u, v)) {
+                            black++;
+                        }
+                    }
+                }
+                image[y * WIDTH + x] = background + (ink - background) * black / (double) (SAMPLES * SAMPLES);
+            }
+        }
+        double[] sharp = image.clone();
+        for (int y = 1; y < HEIGHT - 1; y++) {
+            for (int x = 1; x < WIDTH - 1; x++) {
+                double sum = 0;
+                for (int dy = -1; dy <= 1; dy++) {
+                    for (int dx = -1; dx <= 1; dx++) {
+                        sum += sharp[(y + dy) * WIDTH + x + dx];
+                    }
+                }
+                image[y * WIDTH + x] = sum / 9;
+            }
+        }
+        byte[] frame = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < frame.length; i++) {
+            long value = Math.round(image[i] + random.nextGaussian() * 3);
+            frame[i] = (byte) Math.max(0, Math.min(255, value));
+        }
+        return frame;
+    }
+}
@@ -0,0 +1,178 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DecodeStrategyEngineTest {
+
+    private static final int SIZE = 16;
+
+    private final byte[] frame = new byte[SIZE * SIZE];
+    private final PlanarYUVLuminanceSource source =
+            new PlanarYUVLuminanceSource(frame, SIZE, SIZE, 0, 0, SIZE, SIZE, false);
+    private DecodeStrategyEngine engine;
+
+    @After
+    public void tearDown() {
+        if (engine != null) {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void winnerIsReturnedWhileTheLoserStillReadsTheFrame() throws InterruptedException {
+        final CountDownLatch loserStarted = new CountDownLatch(1);
+        final CountDownLatch loserMayFinish = new CountDownLatch(1);
+        DecodeStrategy winner = new NamedStrategy("winner") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                awaitUninterruptibly(loserStarted);
+                return new Result("text", null, new ResultPoint[0], BarcodeFormat.QR_CODE);
+            }
+        };
+        DecodeStrategy loser = new NamedStrategy("loser") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                loserStarted.countDown();
+                // Deaf to interrupts, like zbar
+                awaitUninterruptibly(loserMayFinish);
+                return null;
+            }
+        };
+        engine = new DecodeStrategyEngine(winner, loser);
+        ReleaseRecorder releaser = new ReleaseRecorder();
+        SharedFrame shared = new SharedFrame(frame, releaser);
+
+        Result result = engine.decode(shared, SIZE, SIZE, source);
+        assertNotNull(result);
+        assertEquals(1, engine.getWinCount(0));
+        shared.release();
+        assertFalse("frame released while an attempt still read it", shared.isReleased());
+
+        loserMayFinish.countDown();
+        assertTrue(releaser.released.await(1, TimeUnit.SECONDS));
+        assertSame(frame, releaser.data);
+        // By the last one to let go of it
+        assertTrue(releaser.thread, releaser.thread.startsWith("DecodeStrategy-"));
+    }
+
+    @Test
+    public void loserIsCancelled() throws InterruptedException {
+        final CountDownLatch loserStarted = new CountDownLatch(1);
+        final AtomicBoolean loserCancelled = new AtomicBoolean();
+        DecodeStrategy winner = new NamedStrategy("winner") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                awaitUninterruptibly(loserStarted);
+                return new Result("text", null, new ResultPoint[0], BarcodeFormat.QR_CODE);
+            }
+        };
+        DecodeStrategy loser = new NamedStrategy("loser") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                loserStarted.countDown();
+                long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (System.nanoTime() < end) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        loserCancelled.set(true);
+                        return null;
+                    }
+                }
+                return null;
+            }
+        };
+        engine = new DecodeStrategyEngine(winner, loser);
+        ReleaseRecorder releaser = new ReleaseRecorder();
+        SharedFrame shared = new SharedFrame(frame, releaser);
+
+        assertNotNull(engine.decode(shared, SIZE, SIZE, source));
+        shared.release();
+        assertTrue(releaser.released.await(1, TimeUnit.SECONDS));
+        assertTrue(loserCancelled.get());
+    }
+
+    @Test
+    public void failingStrategyCountsAsMiss() {
+        DecodeStrategy failing = new NamedStrategy("failing") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                throw new IllegalStateException();
+            }
+        };
+        DecodeStrategy empty = new NamedStrategy("empty") {
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                return null;
+            }
+        };
+        engine = new DecodeStrategyEngine(failing, empty);
+        SharedFrame shared = new SharedFrame(frame, null);
+
+        assertNull(engine.decode(shared, SIZE, SIZE, source));
+        assertEquals(1, engine.getFailureCount());
+        assertEquals(1, engine.getFrameCount());
+        // Every attempt is over once no result came back
+        shared.release();
+        assertTrue(shared.isReleased());
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class ReleaseRecorder implements SharedFrame.Releaser {
+
+        final CountDownLatch released = new CountDownLatch(1);
+        volatile byte[] data;
+        volatile String thread;
+
+        @Override
+        public void release(byte[] data) {
+            this.data = data;
+            thread = Thread.currentThread().getName();
+            released.countDown();
+        }
+    }
+
+    private abstract static class NamedStrategy implements DecodeStrategy {
+
+        private final String name;
+
+        NamedStrategy(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.nanchen.scanner.zxing;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.DecodeConfig;
+import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Result;
+import com.google.zxing.ResultPoint;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RegionTrackerTest {
+
+    private static final int SIZE = 400;
+    private static final int MODULE_SIZE = 4;
+    private static final int CODE_LEFT = 150;
+    private static final int CODE_TOP = 120;
+    private static final int QUIET_ZONE = 4;
+
+    private final byte[] frame = new byte[SIZE * SIZE];
+    private final PlanarYUVLuminanceSource source =
+            new PlanarYUVLuminanceSource(frame, SIZE, SIZE, 0, 0, SIZE, SIZE, false);
+    private FrameDecoder frameDecoder;
+
+    @After
+    public void tearDown() {
+        if (frameDecoder != null) {
+            frameDecoder.shutdown();
+        }
+    }
+
+    @Test
+    public void possiblePointsOfAMissDoNotSetTheWindow() {
+        RegionTracker tracker = new RegionTracker(null);
+        tracker.beginFrame(source);
+        tracker.foundPossibleResultPoint(new ResultPoint(100, 100));
+        tracker.foundPossibleResultPoint(new ResultPoint(200, 100));
+        tracker.foundPossibleResultPoint(new ResultPoint(100, 200));
+        tracker.endFrame(source, null);
+
+        assertSame(source, tracker.beginFrame(source));
+    }
+
+    @Test
+    public void windowCoversOnlyTheDecodedResult() {
+        RegionTracker tracker = new RegionTracker(null);
+        tracker.beginFrame(source);
+        // Texture far from the code the frame decodes to
+        tracker.foundPossibleResultPoint(new ResultPoint(390, 390));
+        tracker.endFrame(source, codeAt(100, 100, 200));
+
+        PlanarYUVLuminanceSource window = tracker.beginFrame(source);
+        // Points 100 apart, with half that again and a pixel of rounding on each side
+        assertEquals(203, window.getWidth());
+        assertEquals(203, window.getHeight());
+    }
+
+    @Test
+    public void finderPatternsOfAMissSetTheWindow() {
+        RegionTracker tracker = new RegionTracker(null);
+        tracker.beginFrame(source);
+        // The detector settled on finder patterns, but the code between them did not decode
+        tracker.foundFinderPatterns(new ResultPoint(100, 200), new ResultPoint(100, 100), new ResultPoint(200, 100));
+        tracker.endFrame(source, null);
+
+        PlanarYUVLuminanceSource window = tracker.beginFrame(source);
+        assertEquals(203, window.getWidth());
+        assertEquals(203, window.getHeight());
+    }
+
+    @Test
+    public void finderPatternsFoundInTheWindowAreMovedBack() {
+        RegionTracker tracker = new RegionTracker(null);
+        tracker.beginFrame(source);
+        tracker.endFrame(source, codeAt(100, 100, 200));
+        PlanarYUVLuminanceSource window = tracker.beginFrame(source);
+        assertEquals(49, window.getLeft());
+        assertEquals(49, window.getTop());
+
+        // The code moved 20 pixels right, as seen from inside the window
+        tracker.foundFinderPatterns(new ResultPoint(71, 151), new ResultPoint(71, 51), new ResultPoint(171, 51));
+        tracker.endFrame(source, null);
+
+        window = tracker.beginFrame(source);
+        assertEquals(69, window.getLeft());
+        assertEquals(49, window.getTop());
+    }
+
+    @Test
+    public void missInTheWindowFallsBackOnTheNextFrame() {
+        final List<Integer> widths = Collections.synchronizedList(new ArrayList<Integer>());
+        // Finds the code only in the whole framing rectangle, as if it had moved out of the window
+        DecodeStrategy strategy = new DecodeStrategy() {
+            @Override
+            public String getName() {
+                return "moving";
+            }
+
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                widths.add(source.getWidth());
+                return source.getWidth() == SIZE ? codeAt(100, 100, 200) : null;
+            }
+        };
+        frameDecoder = new FrameDecoder(DecodeConfig.DEFAULT, null, strategy);
+
+        assertNotNull(frameDecoder.decode(new SharedFrame(frame, null), SIZE, SIZE, source));
+        // The same frame is not decoded again after the miss in the window
+        assertNull(frameDecoder.decode(new SharedFrame(frame, null), SIZE, SIZE, source));
+        assertNotNull(frameDecoder.decode(new SharedFrame(frame, null), SIZE, SIZE, source));
+        assertEquals(3, widths.size());
+        assertEquals(SIZE, (int) widths.get(0));
+        assertEquals(203, (int) widths.get(1));
+        assertEquals(SIZE, (int) widths.get(2));
+    }
+
+    @Test
+    public void damagedCodeSetsTheWindowAroundItsFinderPatterns() throws WriterException {
+        BitMatrix matrix = new QRCodeWriter().encode("region tracker region tracker region tracker",
+                BarcodeFormat.QR_CODE, 0, 0);
+        int modules = matrix.getWidth();
+        // Flip the modules between the finder patterns, inside the quiet zone the writer adds, so the
+        // code cannot be corrected
+        for (int y = QUIET_ZONE + 9; y < modules - QUIET_ZONE - 9; y++) {
+            for (int x = QUIET_ZONE + 9; x < modules - QUIET_ZONE - 9; x++) {
+                matrix.flip(x, y);
+            }
+        }
+        Arrays.fill(frame, (byte) 200);
+        for (int y = 0; y < modules * MODULE_SIZE; y++) {
+            for (int x = 0; x < modules * MODULE_SIZE; x++) {
+                if (matrix.get(x / MODULE_SIZE, y / MODULE_SIZE)) {
+                    frame[(CODE_TOP + y) * SIZE + CODE_LEFT + x] = 20;
+                }
+            }
+        }
+        final List<PlanarYUVLuminanceSource> sources =
+                Collections.synchronizedList(new ArrayList<PlanarYUVLuminanceSource>());
+        DecodeStrategy recorder = new DecodeStrategy() {
+            @Override
+            public String getName() {
+                return "recorder";
+            }
+
+            @Override
+            public Result decode(byte[] data, int dataWidth, int dataHeight, PlanarYUVLuminanceSource source) {
+                sources.add(source);
+                return null;
+            }
+        };
+        frameDecoder = new FrameDecoder(DecodeConfig.DEFAULT, null, recorder);
+
+        assertNull(frameDecoder.decode(new SharedFrame(frame, null), SIZE, SIZE, source));
+        assertNull(frameDecoder.decode(new SharedFrame(frame, null), SIZE, SIZE, source));
+
+        assertEquals(2, sources.size());
+        assertSame(source, sources.get(0));
+        PlanarYUVLuminanceSource window = sources.get(1);
+        // The finder pattern centers sit 3.5 modules inside the symbol
+        float first = QUIET_ZONE + 3.5f;
+        float last = modules - QUIET_ZONE - 3.5f;
+        assertTrue(window.getLeft() < CODE_LEFT + first * MODULE_SIZE);
+        assertTrue(window.getTop() < CODE_TOP + first * MODULE_SIZE);
+        assertTrue(window.getLeft() + window.getWidth() > CODE_LEFT + last * MODULE_SIZE);
+        assertTrue(window.getTop() + window.getHeight() > CODE_TOP + last * MODULE_SIZE);
+        assertTrue(window.getWidth() < SIZE);
+    }
+
+    private static Result codeAt(int left, int top, int size) {
+        ResultPoint[] points = {
+                new ResultPoint(left, top + size / 2),
+                new ResultPoint(left, top),
+                new ResultPoint(left + size / 2, top),
+        };
+        return new Result("text", null, points, BarcodeFormat.QR_CODE);
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.nanchen.scanner.zxing.camera;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FrameBufferPoolTest {
+
+    private static final int CAPACITY = 3;
+    private static final int SIZE = 12;
+
+    private final FrameBufferPool pool = new FrameBufferPool(CAPACITY, SIZE);
+
+    @Test
+    public void ringRunsOutAfterItsCapacity() {
+        Set<byte[]> handedOut = Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+        for (int i = 0; i < CAPACITY; i++) {
+            byte[] buffer = pool.acquire();
+            assertNotNull(buffer);
+            assertEquals(SIZE, buffer.length);
+            assertTrue(pool.owns(buffer));
+            handedOut.add(buffer);
+        }
+        assertEquals(CAPACITY, handedOut.size());
+        assertEquals(0, pool.available());
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    public void releasedBufferIsHandedOutAgain() {
+        byte[] first = pool.acquire();
+        byte[] second = pool.acquire();
+        byte[] third = pool.acquire();
+
+        assertTrue(pool.release(second));
+        assertEquals(1, pool.available());
+        assertSame(second, pool.acquire());
+
+        // Free buffers come back out in the order they were released
+        assertTrue(pool.release(third));
+        assertTrue(pool.release(first));
+        assertSame(third, pool.acquire());
+        assertSame(first, pool.acquire());
+        assertNull(pool.acquire());
+    }
+
+    @Test
+    public void foreignAndWrongSizedBuffersAreRejected() {
+        byte[] buffer = pool.acquire();
+
+        assertFalse(pool.release(new byte[SIZE]));
+        assertFalse(pool.release(new byte[SIZE + 1]));
+        assertFalse(pool.release(null));
+        assertFalse(pool.owns(new byte[SIZE]));
+        assertEquals(CAPACITY - 1, pool.available());
+
+        assertTrue(pool.release(buffer));
+        // Already free
+        assertFalse(pool.release(buffer));
+        assertEquals(CAPACITY, pool.available());
+    }
+
+    @Test
+    public void acquireWaitsForARelease() throws InterruptedException {
+        final byte[][] buffers = new byte[CAPACITY][];
+        for (int i = 0; i < CAPACITY; i++) {
+            buffers[i] = pool.acquire();
+        }
+        Thread releaser = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pool.release(buffers[1]);
+            }
+        });
+        releaser.start();
+
+        assertSame(buffers[1], pool.acquire(5000L));
+        releaser.join();
+    }
+
+    @Test
+    public void acquireGivesUpAfterTheTimeout() throws InterruptedException {
+        for (int i = 0; i < CAPACITY; i++) {
+            pool.acquire();
+        }
+        assertNull(pool.acquire(20L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void emptyPoolIsRejected() {
+        new FrameBufferPool(0, SIZE);
+    }
+
+}
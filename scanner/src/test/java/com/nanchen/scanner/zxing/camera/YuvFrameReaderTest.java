@@ -0,0 +1,122 @@
+package com.nanchen.scanner.zxing.camera;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class YuvFrameReaderTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 2;
+    private static final int FRAME_SIZE = WIDTH * HEIGHT * 3 / 2;
+
+    @Test
+    public void framesAreReadIntoPooledBuffers() throws IOException {
+        FrameBufferPool pool = new FrameBufferPool(2, FRAME_SIZE);
+        YuvFrameReader reader = new YuvFrameReader(recording(3, 0), WIDTH, HEIGHT, pool);
+
+        for (int frame = 0; frame < 3; frame++) {
+            byte[] buffer = reader.nextFrame();
+            assertTrue(pool.owns(buffer));
+            assertArrayEquals(frame(frame), buffer);
+            assertTrue(pool.release(buffer));
+        }
+        assertNull(reader.nextFrame());
+        assertEquals(2, pool.available());
+        reader.close();
+    }
+
+    @Test
+    public void buffersAreReusedOnceReleased() throws IOException {
+        FrameBufferPool pool = new FrameBufferPool(1, FRAME_SIZE);
+        YuvFrameReader reader = new YuvFrameReader(recording(2, 0), WIDTH, HEIGHT, pool);
+
+        byte[] first = reader.nextFrame();
+        pool.release(first);
+        byte[] second = reader.nextFrame();
+        assertSame(first, second);
+        assertArrayEquals(frame(1), second);
+    }
+
+    @Test
+    public void truncatedLastFrameEndsTheRecording() throws IOException {
+        FrameBufferPool pool = new FrameBufferPool(2, FRAME_SIZE);
+        YuvFrameReader reader = new YuvFrameReader(recording(1, FRAME_SIZE / 2), WIDTH, HEIGHT, pool);
+
+        byte[] buffer = reader.nextFrame();
+        assertArrayEquals(frame(0), buffer);
+        assertNull(reader.nextFrame());
+        // The buffer taken for the truncated frame went back to the pool
+        assertEquals(1, pool.available());
+    }
+
+    @Test
+    public void nextFrameWaitsForABufferReleasedOnAnotherThread() throws IOException, InterruptedException {
+        final FrameBufferPool pool = new FrameBufferPool(1, FRAME_SIZE);
+        YuvFrameReader reader = new YuvFrameReader(recording(2, 0), WIDTH, HEIGHT, pool);
+        final byte[] first = reader.nextFrame();
+        Thread decoder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                pool.release(first);
+            }
+        });
+        decoder.start();
+
+        byte[] second = reader.nextFrame();
+        assertSame(first, second);
+        assertArrayEquals(frame(1), second);
+        decoder.join();
+    }
+
+    @Test
+    public void interruptStopsTheWaitForABuffer() throws IOException {
+        FrameBufferPool pool = new FrameBufferPool(1, FRAME_SIZE);
+        YuvFrameReader reader = new YuvFrameReader(recording(2, 0), WIDTH, HEIGHT, pool);
+        reader.nextFrame();
+
+        Thread.currentThread().interrupt();
+        try {
+            reader.nextFrame();
+            fail("Expected the wait to be interrupted");
+        } catch (InterruptedIOException e) {
+            assertTrue(Thread.interrupted());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void poolOfSmallerBuffersIsRejected() {
+        new YuvFrameReader(recording(1, 0), WIDTH, HEIGHT, new FrameBufferPool(1, FRAME_SIZE - 1));
+    }
+
+    private static ByteArrayInputStream recording(int frames, int trailingBytes) {
+        byte[] data = new byte[frames * FRAME_SIZE + trailingBytes];
+        for (int frame = 0; frame < frames; frame++) {
+            System.arraycopy(frame(frame), 0, data, frame * FRAME_SIZE, FRAME_SIZE);
+        }
+        return new ByteArrayInputStream(data);
+    }
+
+    private static byte[] frame(int index) {
+        byte[] frame = new byte[FRAME_SIZE];
+        Arrays.fill(frame, (byte) (index + 1));
+        frame[0] = (byte) index;
+        return frame;
+    }
+
+}